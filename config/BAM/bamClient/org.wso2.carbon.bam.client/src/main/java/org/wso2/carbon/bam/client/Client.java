@@ -12,11 +12,33 @@ import org.wso2.carbon.authenticator.stub.LoginAuthenticationExceptionException;
 import org.wso2.carbon.utils.FileUtil;
 
 import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
 
 public class Client {
 
     private static String HIVE_SCRIPT_STORE_SERVICE = "HiveScriptStoreService";
 
+    private static final String[] SUMMARY_SCRIPTS = {"APIVersionUsageSummary", "APIVersionKeyUsageSummary",
+                                                     "APIVersionKeyLastAccessSummary", "APIVersionServiceTimeSummary",
+                                                     "KeyUsageSummary"};
+
+    private static final String SCRIPT_SUFFIX = "Script";
+
+    private static final String INCREMENTAL_SCRIPT_SUFFIX = "IncrementalScript";
+
+    private static final String SCRIPT_SCHEDULE = "1 * * * * ? *";
+
+    private static final Pattern INCREMENTAL_ANNOTATION = Pattern.compile("(@Incremental\\(name=\"[^\"]*)");
+
+    //tables of WSO2AM_STATS_DB written by the summary scripts
+    private static final String[] SUMMARY_TABLES = {"APIVersionUsageSummary", "APIVersionKeyUsageSummary",
+                                                    "APIVersionKeyLastAccessSummary", "APIVersionServiceTimeSummary",
+                                                    "KeyUsageSummary"};
+
     private static HiveScriptStoreServiceStub hiveScriptStoreServiceStub;
 
 
@@ -49,34 +71,102 @@ public class Client {
         hiveScriptStoreServiceStubOption.setManageSession(true);
         hiveScriptStoreServiceStubOption.setProperty(org.apache.axis2.transport.http.HTTPConstants.COOKIE_STRING, sessionCookie);
 
-        String apiVersionUsageSummaryContent = FileUtil.readFileToString(System.getProperty("configFilePath") +
-                                                                         "APIVersionUsageSummaryScript.hiveql");
-        String apiVersionKeyUsageSummaryContent = FileUtil.readFileToString( System.getProperty("configFilePath") +
-                                                                             "APIVersionKeyUsageSummaryScript.hiveql");
-        String apiVersionKeyLastAccessSummaryContent = FileUtil.readFileToString( System.getProperty("configFilePath") +
-                                                                             "APIVersionKeyLastAccessSummaryScript.hiveql");
-        String apiVersionServiceTimeSummaryContent = FileUtil.readFileToString( System.getProperty("configFilePath") +
-                                                                             "APIVersionServiceTimeSummaryScript.hiveql");
-        String keyUsageSummaryContent = FileUtil.readFileToString( System.getProperty("configFilePath") +
-                                                                             "KeyUsageSummaryScript.hiveql");
-
+        //incremental scripts are saved under the names of the full scripts, so that they replace the full scripts
+        String scriptSuffix = "incremental".equals(System.getProperty("summaryMode")) ?
+                              INCREMENTAL_SCRIPT_SUFFIX : SCRIPT_SUFFIX;
 
+        //BAM stores the point up to which an incremental script has processed the events by the name of its
+        //@Incremental annotation. A new name for each install makes the first run process all the stored events
+        //into the dropped summary tables.
+        String incrementalName = "$1_" + System.currentTimeMillis();
 
+        boolean unscheduled = false;
+        Connection statsDbConnection = null;
         try {
 
-            hiveScriptStoreServiceStub.saveHiveScript("APIVersionUsageSummaryScript",apiVersionUsageSummaryContent,"1 * * * * ? *");
-            hiveScriptStoreServiceStub.saveHiveScript("APIVersionKeyUsageSummaryScript",apiVersionKeyUsageSummaryContent,"1 * * * * ? *");
-            hiveScriptStoreServiceStub.saveHiveScript("APIVersionKeyLastAccessSummaryScript",apiVersionKeyLastAccessSummaryContent,"1 * * * * ? *");
-            hiveScriptStoreServiceStub.saveHiveScript("APIVersionServiceTimeSummaryScript",apiVersionServiceTimeSummaryContent,"1 * * * * ? *");
-            hiveScriptStoreServiceStub.saveHiveScript("KeyUsageSummaryScript",keyUsageSummaryContent,"1 * * * * ? *");
+            if (Boolean.parseBoolean(System.getProperty("clearSummaries"))) {
+                //the stats database is connected to before the scripts are changed, so that a wrong statsDbUrl or a
+                //missing driver leaves the installed scripts scheduled
+                statsDbConnection = getStatsDbConnection();
+                //the scripts are saved without a schedule first, so that no run fills the tables after they are
+                //dropped and before the new scripts are installed
+                unscheduled = true;
+                saveSummaryScripts(scriptSuffix, incrementalName, "");
+                dropSummaryTables(statsDbConnection);
+            }
+            saveSummaryScripts(scriptSuffix, incrementalName, SCRIPT_SCHEDULE);
 	    System.out.println("BAM configured successfully for collecting API stats");
             return;
 
         }  catch (HiveScriptStoreServiceHiveScriptStoreException e) {
             e.printStackTrace();
+        } catch (IOException e) {
+            e.printStackTrace();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } catch (ClassNotFoundException e) {
+            e.printStackTrace();
+        } finally {
+            closeConnection(statsDbConnection);
+        }
+
+        System.out.println("BAM is not configured for collecting API stats");
+        if (unscheduled) {
+            System.out.println("The summary scripts may be saved without a schedule, so the stats are not updated " +
+                               "until the target is run again successfully");
+        }
+        System.exit(1);
+    }
+
+    private static void saveSummaryScripts(String scriptSuffix, String incrementalName, String schedule)
+            throws IOException, HiveScriptStoreServiceHiveScriptStoreException {
+        for (String summaryScript : SUMMARY_SCRIPTS) {
+            String scriptContent = FileUtil.readFileToString(System.getProperty("configFilePath") +
+                                                             summaryScript + scriptSuffix + ".hiveql");
+            scriptContent = INCREMENTAL_ANNOTATION.matcher(scriptContent).replaceAll(incrementalName);
+            hiveScriptStoreServiceStub.saveHiveScript(summaryScript + SCRIPT_SUFFIX, scriptContent, schedule);
         }
+    }
 
+    /**
+     * Connects to WSO2AM_STATS_DB with the statsDb* properties
+     */
+    private static Connection getStatsDbConnection() throws ClassNotFoundException, SQLException {
+        Class.forName(System.getProperty("statsDbDriver"));
+        return DriverManager.getConnection(System.getProperty("statsDbUrl"), System.getProperty("statsDbUsername"),
+                                           System.getProperty("statsDbPassword"));
+    }
 
+    /**
+     * Drops the summary tables of WSO2AM_STATS_DB, so that the next run of the summary scripts creates them again
+     * with the columns of the installed scripts and fills them from all the stored events. The incremental scripts
+     * process all the stored events in their first run, which would be added to the existing summary rows otherwise.
+     */
+    private static void dropSummaryTables(Connection connection) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            for (String summaryTable : SUMMARY_TABLES) {
+                try {
+                    statement.executeUpdate("DROP TABLE " + summaryTable);
+                    System.out.println("Dropped the summary table " + summaryTable);
+                } catch (SQLException e) {
+                    //the table is not created until the first run of its script
+                    System.out.println("Summary table " + summaryTable + " not dropped: " + e.getMessage());
+                }
+            }
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static void closeConnection(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                System.out.println("Error while closing the connection to the stats database: " + e.getMessage());
+            }
+        }
     }
 
     private static String getProperty(String bamUrl) {
@@ -32,8 +32,11 @@ import org.wso2.carbon.registry.core.session.UserRegistry;
 
 import org.wso2.carbon.registry.migration.utils.APIDao;
 import org.wso2.carbon.registry.migration.utils.DBUtils;
+import org.wso2.carbon.registry.migration.utils.MigrationReport;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
 import org.wso2.carbon.registry.migration.utils.CommandHandler;
+import org.wso2.carbon.registry.migration.utils.OfflineRegistry;
+import org.wso2.carbon.registry.migration.utils.RegistryWriteBatch;
 import org.wso2.carbon.apimgt.api.model.*;
 
 import java.io.File;
@@ -55,8 +58,12 @@ public class Main {
             System.setProperty("javax.net.ssl.trustStoreType", "JKS");
             System.setProperty("carbon.repo.write.mode", "true");
 
-            ConfigurationContext cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem(System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") + "repository/conf/axis2/axis2_client.xml");
-            registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(), CommandHandler.getPassword(), cc);
+            if (OfflineRegistry.isEnabled()) {
+                registry = OfflineRegistry.getRegistry();
+            } else {
+                ConfigurationContext cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem(System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") + "repository/conf/axis2/axis2_client.xml");
+                registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(), CommandHandler.getPassword(), cc);
+            }
             DBUtils.initializeDB();
             Main.migrate();
             System.out.println("Finished API data migration process.");
@@ -73,10 +80,14 @@ public class Main {
 
     private static int migrate() throws RegistryException, SQLException, APIManagementException {
 
-        Registry re = GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
+        Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
+                      GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
         GenericArtifactManager manager = new GenericArtifactManager(re, "api");
         GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
         GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
+        MigrationReport report = new MigrationReport("API rxt migration", CommandHandler.isDryRun());
+        //registry writes are committed in batches in offline mode
+        RegistryWriteBatch batch = new RegistryWriteBatch(re);
         for (GenericArtifact artifact : artifacts) {
             String[] attributes = artifact.getAttributes("uriTemplates_entry");
             if (attributes != null) {
@@ -110,23 +121,30 @@ public class Main {
                         uriTemplates.add(template);
                     }
                 }
-                manager.updateGenericArtifact(artifact);
+                if (!report.isDryRun()) {
+                    manager.updateGenericArtifact(artifact);
+                }
                 String providerName = artifact.getAttribute(APIConstants.API_OVERVIEW_PROVIDER);
                 apiName = artifact.getAttribute(APIConstants.API_OVERVIEW_NAME);
                 String apiVersion = artifact.getAttribute(APIConstants.API_OVERVIEW_VERSION);
                 APIIdentifier apiId = new APIIdentifier(providerName, apiName, apiVersion);
                 int id = APIDao.getAPIID(apiId, DBUtils.getConnection());
-                if (!APIDao.isURLMappingsExists(id, DBUtils.getConnection())) {
+                if (!APIDao.isURLMappingsExists(id, DBUtils.getConnection()) && !report.isDryRun()) {
                     APIDao.addURLTemplates(id, uriTemplates, DBUtils.getConnection());
                 }
+                report.itemMigrated();
+                batch.apiCompleted();
                 System.out.println("Successfully migrate the API resources data for the API :" + apiName);
 
 
             } else {
+                report.itemSkipped();
                 System.out.println("Already the API resources data has been migrated.");
 
             }
         }
+        batch.close();
+        report.print();
         return -1;
 
     }
@@ -0,0 +1,67 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.registry.migration.utils;
+
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+
+/**
+ * Groups the registry writes of the migrated APIs into registry transactions of COMMIT_INTERVAL APIs when the registry
+ * is opened in offline mode. With the registry web service each write is committed by the server as it is made.
+ */
+public class RegistryWriteBatch {
+
+    private static final int COMMIT_INTERVAL = 100;
+
+    private final Registry registry;
+    private int uncommittedCount;
+
+    public RegistryWriteBatch(Registry registry) throws RegistryException {
+        this.registry = OfflineRegistry.isEnabled() ? registry : null;
+        if (this.registry != null) {
+            this.registry.beginTransaction();
+        }
+    }
+
+    /**
+     * Records an API whose writes are completed, and commits the batch once it is full
+     *
+     * @throws RegistryException if the batch cannot be committed
+     */
+    public void apiCompleted() throws RegistryException {
+        if (registry == null) {
+            return;
+        }
+        if (++uncommittedCount >= COMMIT_INTERVAL) {
+            registry.commitTransaction();
+            registry.beginTransaction();
+            uncommittedCount = 0;
+        }
+    }
+
+    /**
+     * Commits the remaining writes
+     *
+     * @throws RegistryException if the batch cannot be committed
+     */
+    public void close() throws RegistryException {
+        if (registry != null) {
+            registry.commitTransaction();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.apimgt.api.model.Subscriber;
 import org.wso2.carbon.apimgt.impl.APIConstants;
+import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.governance.api.generic.GenericArtifactManager;
 import org.wso2.carbon.governance.api.generic.dataobjects.GenericArtifact;
 import org.wso2.carbon.governance.api.util.GovernanceUtils;
@@ -38,6 +39,7 @@ import org.wso2.carbon.registry.migration.utils.*;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
 
 import java.io.File;
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.*;
 
@@ -56,11 +58,15 @@ public class Main {
             System.setProperty("javax.net.ssl.trustStoreType", "JKS");
             System.setProperty("carbon.repo.write.mode", "true");
 
-            ConfigurationContext cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
-                    (System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") +
-                            "repository/conf/axis2/axis2_client.xml");
-            registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
-                    CommandHandler.getPassword(), cc);
+            if (OfflineRegistry.isEnabled()) {
+                registry = OfflineRegistry.getRegistry();
+            } else {
+                ConfigurationContext cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
+                        (System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") +
+                                "repository/conf/axis2/axis2_client.xml");
+                registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
+                        CommandHandler.getPassword(), cc);
+            }
             DBUtils.initializeDB();
             Main.migrate();
             System.out.println("Finished API data migration process.");
@@ -70,18 +76,44 @@ public class Main {
         } catch (Exception e) {
             System.out.println("Error while migrating data." + e);
         }
+        //nothing is committed when the migration fails, and the exit status fails the ant build
+        System.exit(1);
 
     }
 
     private static void migrate() throws RegistryException, SQLException, APIManagementException {
-        Registry re = GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
+        Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
+                      GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
         GenericArtifactManager manager = new GenericArtifactManager(re, "api");
         GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
         GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
+        MigrationReport report = new MigrationReport("API comments and ratings migration", CommandHandler.isDryRun());
 
-        Set<Subscriber> subscribers = new HashSet<Subscriber>();
         List<APIComment> apiCommentList = new ArrayList<APIComment>();
-        subscribers = ApiDAO.getAllSubscribers(DBUtils.getConnection());
+        List<APIRating> apiRatingList = new ArrayList<APIRating>();
+
+        Map<String, Integer> apiIds = ApiDAO.getAllAPIIds(DBUtils.getConnection());
+        Set<String> existingRatings = ApiDAO.getExistingRatings(DBUtils.getConnection());
+        Set<Subscriber> subscribers = ApiDAO.getAllSubscribers(DBUtils.getConnection());
+        Map<String, Integer> subscriberIds = new HashMap<String, Integer>();
+        for (Subscriber subscriber : subscribers) {
+            subscriberIds.put(subscriber.getName(), subscriber.getId());
+        }
+
+        /*
+        When the registry database is given, all the API ratings are read with a single query. Otherwise the registry
+        is asked for the rating of each subscriber, but only for the APIs which have been rated.
+         */
+        Map<String, Map<String, Integer>> registryRatings = null;
+        if (!DBUtils.isRegistryDBConfigured()) {
+            System.out.println("Registry database is not given. Ratings are read through the registry for every " +
+                    "subscriber of each rated API, which is slow with many subscribers.");
+        } else {
+            String apiRootPath = RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
+                    RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH + APIConstants.API_ROOT_LOCATION);
+            registryRatings = RegistryRatingDAO.getRatings(DBUtils.getRegistryConnection(),
+                    MultitenantConstants.SUPER_TENANT_ID, apiRootPath, APIConstants.API_KEY);
+        }
 
         for (GenericArtifact artifact : artifacts) {
             String providerName = artifact.getAttribute(APIConstants.API_OVERVIEW_PROVIDER);
@@ -97,7 +129,12 @@ public class Main {
             String resourcePath = RegistryUtils.getAbsolutePath(RegistryContext.getBaseInstance(),
                     RegistryConstants.GOVERNANCE_REGISTRY_BASE_PATH + path);
 
-            int apiId = ApiDAO.getAPIID(identifier, DBUtils.getConnection());
+            Integer apiId = apiIds.get(ApiDAO.getAPIKey(providerName, apiName, apiVersion));
+            if (apiId == null) {
+                System.out.println("Unable to find the API: " + identifier + " in the database");
+                report.itemSkipped();
+                continue;
+            }
             Comment[] comments = registry.getComments(resourcePath);
 
             /*
@@ -108,25 +145,69 @@ public class Main {
                 APIComment apiComment = new APIComment(apiId, comment.getCommentID(), comment);
                 apiCommentList.add(apiComment);
             }
+            report.itemMigrated();
 
-            /*
-            APIs can be rated without subscribing to an API. Therefore, we need to get the all subscribers in Store.
-            Taking the Subscribers of APIs would not enough.
-             */
-            for (Subscriber subscriber : subscribers) {
-                int rating = registry.getRating(resourcePath, subscriber.getName());
-                if (rating != 0) {
-                    ApiDAO.addRating(apiId, DBUtils.getConnection(), rating, subscriber.getId());
+            Map<String, Integer> ratings;
+            if (registryRatings != null) {
+                ratings = registryRatings.get(resourcePath);
+            } else {
+                ratings = getRatingsFromRegistry(resourcePath, subscribers);
+            }
+            if (ratings == null) {
+                continue;
+            }
+            for (Map.Entry<String, Integer> rating : ratings.entrySet()) {
+                Integer subscriberId = subscriberIds.get(rating.getKey());
+                //Ratings can only be stored for store subscribers. Skip the ratings which are already migrated
+                if (subscriberId != null && rating.getValue() != 0 &&
+                        existingRatings.add(apiId + ":" + subscriberId)) {
+                    apiRatingList.add(new APIRating(apiId, subscriberId, rating.getValue()));
                 }
             }
         }
 
         //First sort the comments by comment_id and add to database
         Collections.sort(apiCommentList, new APICommentIdComparator());
-        for (APIComment comment : apiCommentList) {
-            ApiDAO.addComment(DBUtils.getConnection(), comment.getCommentId(), comment.getCommentText(), comment.getCommentedUser(),
-                    comment.getCreatedDate(), comment.getApiId());
+        if (!report.isDryRun()) {
+            Connection connection = DBUtils.getConnection();
+            try {
+                //comments and ratings are committed together so that a failed run can be repeated
+                connection.setAutoCommit(false);
+                ApiDAO.addComments(connection, apiCommentList);
+                ApiDAO.addRatings(connection, apiRatingList);
+                connection.commit();
+            } finally {
+                connection.close();
+            }
+        }
+        report.print();
+        System.out.println((report.isDryRun() ? "Found " : "Migrated ") + apiCommentList.size() + " comments and " +
+                apiRatingList.size() + " ratings of " + artifacts.length + " APIs.");
+    }
+
+    /**
+     * Reads the ratings of a resource through the registry API.
+     * APIs can be rated without subscribing to an API. Therefore, the rating of each Store subscriber is checked,
+     * but only if the resource has been rated at all.
+     *
+     * @param resourcePath absolute path of the API resource
+     * @param subscribers  all subscribers in the Store
+     * @return map of subscriber name to rating
+     * @throws RegistryException
+     */
+    private static Map<String, Integer> getRatingsFromRegistry(String resourcePath, Set<Subscriber> subscribers)
+            throws RegistryException {
+        Map<String, Integer> ratings = new HashMap<String, Integer>();
+        if (registry.getAverageRating(resourcePath) == 0) {
+            return ratings;
+        }
+        for (Subscriber subscriber : subscribers) {
+            int rating = registry.getRating(resourcePath, subscriber.getName());
+            if (rating != 0) {
+                ratings.put(subscriber.getName(), rating);
+            }
         }
+        return ratings;
     }
 
 }
@@ -0,0 +1,44 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.registry.migration.utils;
+
+public class APIRating {
+    int apiId;
+    int subscriberId;
+    int rating;
+
+    public APIRating(int apiId, int subscriberId, int rating) {
+        this.apiId = apiId;
+        this.subscriberId = subscriberId;
+        this.rating = rating;
+    }
+
+    public int getApiId() {
+        return this.apiId;
+    }
+
+    public int getSubscriberId() {
+        return this.subscriberId;
+    }
+
+    public int getRating() {
+        return this.rating;
+    }
+
+}
@@ -25,13 +25,18 @@ import org.wso2.carbon.apimgt.impl.APIConstants;
 
 import java.sql.*;
 import java.util.Calendar;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 
 public class ApiDAO {
 
+    //number of rows inserted in a single jdbc batch
+    private static final int BATCH_SIZE = 500;
+
     public static int getAPIID(APIIdentifier apiId, Connection connection)
             throws APIManagementException {
         PreparedStatement prepStmt = null;
@@ -65,11 +70,76 @@ public class ApiDAO {
         return id;
     }
 
-    public static void addComment(Connection connection, long commentId, String commentText, String user, Date createdTime, int apiId) {
-        if (apiId == -1) {
-            //application addition has failed
-            return;
+    /**
+     * Returns the ids of all the APIs in the database
+     *
+     * @param connection database connection
+     * @return map of API key (provider:name:version) to API_ID
+     * @throws SQLException if the APIs cannot be read
+     */
+    public static Map<String, Integer> getAllAPIIds(Connection connection) throws SQLException {
+        Map<String, Integer> apiIds = new HashMap<String, Integer>();
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        String getAPIsQuery = "SELECT API_ID, API_PROVIDER, API_NAME, API_VERSION FROM AM_API";
+
+        try {
+            prepStmt = connection.prepareStatement(getAPIsQuery);
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                apiIds.put(getAPIKey(rs.getString("API_PROVIDER"), rs.getString("API_NAME"),
+                        rs.getString("API_VERSION")), rs.getInt("API_ID"));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error while getting APIs from database");
+            throw e;
+        } finally {
+            DBUtils.closeAllConnections(prepStmt, connection, rs);
+        }
+        return apiIds;
+    }
+
+    public static String getAPIKey(String provider, String apiName, String version) {
+        return provider + ":" + apiName + ":" + version;
+    }
+
+    /**
+     * Returns the ratings which are already migrated to the database
+     *
+     * @param connection database connection
+     * @return set of API_ID:SUBSCRIBER_ID of the existing ratings
+     * @throws SQLException if the ratings cannot be read
+     */
+    public static Set<String> getExistingRatings(Connection connection) throws SQLException {
+        Set<String> ratings = new HashSet<String>();
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        String selectRatingsQuery = "SELECT API_ID, SUBSCRIBER_ID FROM AM_API_RATINGS";
+
+        try {
+            prepStmt = connection.prepareStatement(selectRatingsQuery);
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                ratings.add(rs.getInt("API_ID") + ":" + rs.getInt("SUBSCRIBER_ID"));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error while getting ratings from database");
+            throw e;
+        } finally {
+            DBUtils.closeAllConnections(prepStmt, connection, rs);
         }
+        return ratings;
+    }
+
+    /**
+     * Adds the comments to the database in batches. The given connection is neither committed nor closed, and the
+     * transaction is rolled back if a batch fails.
+     *
+     * @param connection database connection with auto commit disabled
+     * @param comments   comments to be added, in the order of the comment ids
+     * @throws SQLException if the comments cannot be added
+     */
+    public static void addComments(Connection connection, List<APIComment> comments) throws SQLException {
         PreparedStatement prepStmt = null;
         String addCommentQuery = "INSERT " +
                 " INTO AM_API_COMMENTS (COMMENT_ID,COMMENT_TEXT,COMMENTED_USER,DATE_COMMENTED,API_ID)" +
@@ -77,69 +147,84 @@ public class ApiDAO {
         try {
             /*Adding data to the AM_API_COMMENTS table*/
             prepStmt = connection.prepareStatement(addCommentQuery);
-            prepStmt.setLong(1, commentId);
-            prepStmt.setString(2, commentText);
-            prepStmt.setString(3, user);
-            Calendar c1 = Calendar.getInstance();
-            c1.setTime(createdTime);
-            prepStmt.setTimestamp(4, new Timestamp(c1.getTimeInMillis()), Calendar.getInstance());
-            prepStmt.setInt(5, apiId);
-
-            prepStmt.executeUpdate();
+            int batchCount = 0;
+            for (APIComment comment : comments) {
+                if (comment.getApiId() == -1) {
+                    //api is not available in the database
+                    continue;
+                }
+                prepStmt.setLong(1, comment.getCommentId());
+                prepStmt.setString(2, comment.getCommentText());
+                prepStmt.setString(3, comment.getCommentedUser());
+                prepStmt.setTimestamp(4, new Timestamp(comment.getCreatedDate().getTime()), Calendar.getInstance());
+                prepStmt.setInt(5, comment.getApiId());
+                prepStmt.addBatch();
+                if (++batchCount % BATCH_SIZE == 0) {
+                    prepStmt.executeBatch();
+                }
+            }
+            prepStmt.executeBatch();
         } catch (SQLException e) {
-            System.out.println("Error while adding comment to the database");
-            e.printStackTrace();
+            System.out.println("Error while adding comments to the database");
+            rollback(connection);
+            throw e;
         } finally {
-            DBUtils.closeAllConnections(prepStmt, connection, null);
+            DBUtils.closeAllConnections(prepStmt, null, null);
         }
     }
 
-    public static void addRating(int apiId, Connection connection, int rating, int subscriberId) {
-        if (apiId == -1) {
-            //application addition has failed
-            return;
-        }
-        PreparedStatement prepStmtSelect = null;
-        PreparedStatement prepStmtAdd = null;
-        ResultSet rs = null;
-
-        boolean userRatingExists = false;
-        //This query to check the ratings already exists for the user in the AM_API_RATINGS table
-        String selectRatingQuery = "SELECT " +
-                "RATING FROM AM_API_RATINGS " +
-                " WHERE API_ID= ? AND SUBSCRIBER_ID=? ";
-
+    /**
+     * Adds the ratings to the database in batches. The given connection is neither committed nor closed, and the
+     * transaction is rolled back if a batch fails.
+     *
+     * @param connection database connection with auto commit disabled
+     * @param ratings    ratings to be added
+     * @throws SQLException if the ratings cannot be added
+     */
+    public static void addRatings(Connection connection, List<APIRating> ratings) throws SQLException {
+        PreparedStatement prepStmt = null;
         String addRatingQuery = "INSERT " +
                 " INTO AM_API_RATINGS (API_ID, RATING, SUBSCRIBER_ID)" +
                 " VALUES (?,?,?)";
         try {
-            prepStmtSelect = connection.prepareStatement(selectRatingQuery);
-            prepStmtSelect.setInt(1, apiId);
-            prepStmtSelect.setInt(2, subscriberId);
-            rs = prepStmtSelect.executeQuery();
-            while (rs.next()) {
-                userRatingExists = true;
+            /*Adding data to the AM_API_RATINGS table*/
+            prepStmt = connection.prepareStatement(addRatingQuery);
+            int batchCount = 0;
+            for (APIRating rating : ratings) {
+                prepStmt.setInt(1, rating.getApiId());
+                prepStmt.setInt(2, rating.getRating());
+                prepStmt.setInt(3, rating.getSubscriberId());
+                prepStmt.addBatch();
+                if (++batchCount % BATCH_SIZE == 0) {
+                    prepStmt.executeBatch();
+                }
             }
+            prepStmt.executeBatch();
+        } catch (SQLException e) {
+            System.out.println("Error while adding ratings to the database");
+            rollback(connection);
+            throw e;
+        } finally {
+            DBUtils.closeAllConnections(prepStmt, null, null);
+        }
+    }
 
-            /*Adding data to the AM_API_COMMENTS table*/
-            if (!userRatingExists) {
-                prepStmtAdd = connection.prepareStatement(addRatingQuery);
-                prepStmtAdd.setInt(1, apiId);
-                prepStmtAdd.setInt(2, rating);
-                prepStmtAdd.setInt(3, subscriberId);
-
-                prepStmtAdd.executeUpdate();
-            }
+    private static void rollback(Connection connection) {
+        try {
+            connection.rollback();
         } catch (SQLException e) {
-            System.out.println("Error while adding rating to the database");
             e.printStackTrace();
-        } finally {
-            DBUtils.closeAllConnections(prepStmtSelect, connection, rs);
-            DBUtils.closeAllConnections(prepStmtAdd, connection, null);
         }
     }
 
-    public static Set<Subscriber> getAllSubscribers(Connection connection) {
+    /**
+     * Returns all the subscribers in the database
+     *
+     * @param connection database connection
+     * @return subscribers with their ids
+     * @throws SQLException if the subscribers cannot be read
+     */
+    public static Set<Subscriber> getAllSubscribers(Connection connection) throws SQLException {
         Set<Subscriber> subscribers = new HashSet<Subscriber>();
         PreparedStatement prepStmt = null;
         ResultSet result = null;
@@ -164,7 +249,7 @@ public class ApiDAO {
             }
         } catch (SQLException e) {
             System.out.println("Error while getting subscribers from database");
-            e.printStackTrace();
+            throw e;
         } finally {
             DBUtils.closeAllConnections(prepStmt, connection, result);
         }
@@ -32,6 +32,7 @@ import org.apache.commons.dbcp.BasicDataSource;
 public class DBUtils {
     static ApiMgtDAO apiMgtDAO;
     private static volatile DataSource dataSource = null;
+    private static volatile DataSource registryDataSource = null;
 
     public static void initializeDB()
             throws APIManagementException, ClassNotFoundException, IllegalAccessException,
@@ -53,6 +54,16 @@ public class DBUtils {
         basicDataSource.setPassword(password);
         dataSource = basicDataSource;
 
+        //The registry database is optional. Ratings are read through the registry API when it is not given
+        if (CommandHandler.getRegistryDBUrl() != null) {
+            BasicDataSource registryBasicDataSource = new BasicDataSource();
+            registryBasicDataSource.setDriverClassName(CommandHandler.getRegistryDBDriver() != null ?
+                                                       CommandHandler.getRegistryDBDriver() : driver);
+            registryBasicDataSource.setUrl(CommandHandler.getRegistryDBUrl());
+            registryBasicDataSource.setUsername(CommandHandler.getRegistryDBUsername());
+            registryBasicDataSource.setPassword(CommandHandler.getRegistryDBPassword());
+            registryDataSource = registryBasicDataSource;
+        }
     }
 
     /**
@@ -68,6 +79,26 @@ public class DBUtils {
         throw new SQLException("Data source is not configured properly.");
     }
 
+    /**
+     * Utility method to get a new connection to the registry database
+     *
+     * @return Connection
+     * @throws java.sql.SQLException if failed to get Connection
+     */
+    public static Connection getRegistryConnection() throws SQLException {
+        if (registryDataSource != null) {
+            return registryDataSource.getConnection();
+        }
+        throw new SQLException("Registry data source is not configured.");
+    }
+
+    /**
+     * @return true if the registry database connection parameters are given
+     */
+    public static boolean isRegistryDBConfigured() {
+        return registryDataSource != null;
+    }
+
     /**
      * Utility method to close the connection streams.
      *
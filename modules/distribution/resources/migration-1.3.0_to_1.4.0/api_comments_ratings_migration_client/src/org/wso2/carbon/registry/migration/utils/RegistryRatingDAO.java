@@ -0,0 +1,88 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+
+package org.wso2.carbon.registry.migration.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the ratings of registry resources directly from the registry database.
+ * This enumerates only the ratings which actually exist instead of asking the registry for the rating of every
+ * user on every resource.
+ */
+public class RegistryRatingDAO {
+
+    /*
+    A rating is linked to a resource either through the path (non versioned ratings) or through the resource version
+    (versioned ratings). Both are resolved to the path of the rated resource.
+     */
+    private static final String GET_RATINGS_QUERY = "SELECT " +
+            " P.REG_PATH_VALUE, R.REG_USER_ID, R.REG_RATING " +
+            " FROM REG_RATING R " +
+            " INNER JOIN REG_RESOURCE_RATING RR ON RR.REG_RATING_ID = R.REG_ID AND RR.REG_TENANT_ID = R.REG_TENANT_ID " +
+            " LEFT OUTER JOIN REG_RESOURCE RS ON RS.REG_VERSION = RR.REG_VERSION AND RS.REG_TENANT_ID = RR.REG_TENANT_ID " +
+            " INNER JOIN REG_PATH P ON P.REG_PATH_ID = COALESCE(RR.REG_PATH_ID, RS.REG_PATH_ID) " +
+            " AND P.REG_TENANT_ID = RR.REG_TENANT_ID " +
+            " WHERE R.REG_TENANT_ID = ? " +
+            " AND COALESCE(RR.REG_RESOURCE_NAME, RS.REG_NAME) = ? " +
+            " AND P.REG_PATH_VALUE LIKE ?";
+
+    /**
+     * Returns all the ratings of the resources with the given name under the given collection
+     *
+     * @param connection   registry database connection
+     * @param tenantId     tenant id of the resources
+     * @param basePath     absolute path of the collection which contains the rated resources
+     * @param resourceName name of the rated resources
+     * @return map of resource path to a map of rated user to rating
+     * @throws SQLException if the ratings cannot be read, so that the migration does not continue without them
+     */
+    public static Map<String, Map<String, Integer>> getRatings(Connection connection, int tenantId, String basePath,
+                                                               String resourceName) throws SQLException {
+        Map<String, Map<String, Integer>> ratings = new HashMap<String, Map<String, Integer>>();
+        PreparedStatement prepStmt = null;
+        ResultSet rs = null;
+        try {
+            prepStmt = connection.prepareStatement(GET_RATINGS_QUERY);
+            prepStmt.setInt(1, tenantId);
+            prepStmt.setString(2, resourceName);
+            prepStmt.setString(3, basePath + "%");
+            rs = prepStmt.executeQuery();
+            while (rs.next()) {
+                String resourcePath = rs.getString("REG_PATH_VALUE") + "/" + resourceName;
+                Map<String, Integer> resourceRatings = ratings.get(resourcePath);
+                if (resourceRatings == null) {
+                    resourceRatings = new HashMap<String, Integer>();
+                    ratings.put(resourcePath, resourceRatings);
+                }
+                resourceRatings.put(rs.getString("REG_USER_ID"), rs.getInt("REG_RATING"));
+            }
+        } catch (SQLException e) {
+            System.out.println("Error while reading ratings from the registry database");
+            throw e;
+        } finally {
+            DBUtils.closeAllConnections(prepStmt, connection, rs);
+        }
+        return ratings;
+    }
+}
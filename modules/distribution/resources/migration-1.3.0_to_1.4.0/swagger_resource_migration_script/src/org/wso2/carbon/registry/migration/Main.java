@@ -60,7 +60,9 @@ import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.session.UserRegistry;
 import org.wso2.carbon.registry.migration.utils.ApiDAO;
 import org.wso2.carbon.registry.migration.utils.CommandHandler;
+import org.wso2.carbon.registry.migration.utils.OfflineRegistry;
 import org.wso2.carbon.registry.migration.utils.DBUtils;
+import org.wso2.carbon.registry.migration.utils.MigrationReport;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceResourceServiceExceptionException;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceStub;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
@@ -83,11 +85,15 @@ public class Main {
             System.setProperty("javax.net.ssl.trustStoreType", "JKS");
             System.setProperty("carbon.repo.write.mode", "true");
 
-            cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
-                    (System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") +
-                            "repository/conf/axis2/axis2_client.xml");
-            registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
-                    CommandHandler.getPassword(), cc);
+            if (OfflineRegistry.isEnabled()) {
+                registry = OfflineRegistry.getRegistry();
+            } else {
+                cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
+                        (System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") +
+                                "repository/conf/axis2/axis2_client.xml");
+                registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
+                        CommandHandler.getPassword(), cc);
+            }
             DBUtils.initializeDB();
             Main.migrate();
             System.out.println("Finished API data migration process.");
@@ -101,15 +107,18 @@ public class Main {
     }
 
     private static void migrate() throws RegistryException, SQLException, APIManagementException, RemoteException, ResourceAdminServiceResourceServiceExceptionException, LoginAuthenticationExceptionException {
-        Registry re = GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
+        Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
+                      GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
         GenericArtifactManager manager = new GenericArtifactManager(re, "api");
         GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
         GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
+        MigrationReport report = new MigrationReport("Swagger resource migration", CommandHandler.isDryRun());
 
         for (GenericArtifact artifact : artifacts) {
         	API api = getAPI(artifact, re);
-        	createUpdateAPIDefinition(api);
+        	createUpdateAPIDefinition(api, report);
         }
+        report.print();
      
     }
     
@@ -117,17 +126,22 @@ public class Main {
      * Create API Definition in JSON and save in the registry
      *
      * @param api API
+     * @param report report of the migration. The definition is only generated in a dry run
      * @throws org.wso2.carbon.apimgt.api.APIManagementException
      *          if failed to generate the content and save
      * @throws ResourceAdminServiceResourceServiceExceptionException 
      * @throws RemoteException 
      * @throws LoginAuthenticationExceptionException 
      */
-    private static void createUpdateAPIDefinition(API api) throws APIManagementException, RemoteException, ResourceAdminServiceResourceServiceExceptionException, LoginAuthenticationExceptionException {
+    private static void createUpdateAPIDefinition(API api, MigrationReport report) throws APIManagementException, RemoteException, ResourceAdminServiceResourceServiceExceptionException, LoginAuthenticationExceptionException {
     	APIIdentifier identifier = api.getId(); 
     	
     	try{
     		String jsonText = createSwaggerJSONContent(api);
+    		if (report.isDryRun()) {
+    			report.itemMigrated();
+    			return;
+    		}
     		
     		String resourcePath = "_system/governance" + APIUtil.getAPIDefinitionFilePath(identifier.getApiName(), identifier.getVersion()); 
     		
@@ -147,6 +161,7 @@ public class Main {
             option.setManageSession(true);
             option.setProperty(org.apache.axis2.transport.http.HTTPConstants.COOKIE_STRING, sessionCookie);
     		stub.addRolePermission(resourcePath, APIConstants.ANONYMOUS_ROLE, "2", "1");
+    		report.itemMigrated();
     		/*Set permissions to anonymous role */
     		//APIUtil.setResourcePermissions(api.getId().getProviderName(), null, null, resourcePath);
     			    
@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ConfigurationContextFactory;
@@ -38,7 +39,11 @@ import org.wso2.carbon.governance.api.util.GovernanceUtils;
 import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.session.UserRegistry;
+import org.wso2.carbon.registry.migration.utils.ArtifactCheckpoint;
 import org.wso2.carbon.registry.migration.utils.CommandHandler;
+import org.wso2.carbon.registry.migration.utils.OfflineRegistry;
+import org.wso2.carbon.registry.migration.utils.RegistryWriteBatch;
+import org.wso2.carbon.registry.migration.utils.MigrationReport;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
 
 
@@ -57,11 +62,15 @@ public class Main {
             System.setProperty("javax.net.ssl.trustStoreType", "JKS");
             System.setProperty("carbon.repo.write.mode", "true");
 
-            cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
-                    (System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") +
-                            "repository/conf/axis2/axis2_client.xml");
-            registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
-                    CommandHandler.getPassword(), cc);
+            if (OfflineRegistry.isEnabled()) {
+                registry = OfflineRegistry.getRegistry();
+            } else {
+                cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
+                        (System.getProperty("carbon.home") + "repository/deployment/client", System.getProperty("carbon.home") +
+                                "repository/conf/axis2/axis2_client.xml");
+                registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
+                        CommandHandler.getPassword(), cc);
+            }
             Main.migrate();
             System.out.println("Finished API data migration process.");
             System.exit(0);
@@ -74,12 +83,37 @@ public class Main {
     }
 
     private static void migrate() throws RegistryException, APIManagementException, SQLException, IOException {
-        Registry re = GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
+        Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
+                      GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
         GenericArtifactManager manager = new GenericArtifactManager(re, "api");
         GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
-        GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
+        /*
+        Only the artifact ids are loaded up front and each artifact is read when it is migrated. The ids are sorted so
+        that an interrupted migration can be resumed after the last migrated artifact.
+         */
+        String[] artifactIds = manager.getAllGenericArtifactIds();
+        //no ids are returned when there are no API artifacts
+        if (artifactIds == null) {
+            artifactIds = new String[0];
+        }
+        Arrays.sort(artifactIds);
+        MigrationReport report = new MigrationReport("Endpoint migration", CommandHandler.isDryRun());
+        //progress is not recorded in a dry run, since nothing is migrated
+        ArtifactCheckpoint checkpoint = new ArtifactCheckpoint(report.isDryRun() ? null :
+                                                               CommandHandler.getCheckpointFile());
+        //registry writes are committed in batches in offline mode, and recorded in the checkpoint once committed
+        RegistryWriteBatch batch = new RegistryWriteBatch(re, checkpoint);
 
-        for (GenericArtifact artifact : artifacts) {
+        for (String artifactId : artifactIds) {
+            if (checkpoint.isCompleted(artifactId)) {
+                report.itemSkipped();
+                continue;
+            }
+            GenericArtifact artifact = manager.getGenericArtifact(artifactId);
+            if (artifact == null) {
+                report.itemSkipped();
+                continue;
+            }
         	API api = getAPI(artifact, re);
         	
         	JSONObject endpoint_config = new JSONObject();
@@ -102,9 +136,23 @@ public class Main {
         	StringWriter out = new StringWriter();
         	endpoint_config.writeJSONString(out);
         	String endpoint_config_text = out.toString();
+        	//an artifact which already has the endpoint config is not written again, to avoid re-indexing it
+        	if (endpoint_config_text.equals(artifact.getAttribute("overview_endpointConfig"))) {
+        		batch.artifactCompleted(artifactId);
+        		report.itemSkipped();
+        		continue;
+        	}
         	artifact.setAttribute("overview_endpointConfig", endpoint_config_text);
-			manager.updateGenericArtifact(artifact);
+        	if (report.isDryRun()) {
+        		batch.artifactCompleted(artifactId);
+        	} else {
+        		batch.artifactUpdated(manager, artifact);
+        	}
+			report.itemMigrated();
 		}
+        batch.close();
+        checkpoint.close();
+        report.print();
      
     }
     
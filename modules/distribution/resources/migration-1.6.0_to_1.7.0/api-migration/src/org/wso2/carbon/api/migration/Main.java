@@ -18,27 +18,30 @@
 
 package org.wso2.carbon.api.migration;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-import javax.xml.xpath.XPath;
-import javax.xml.xpath.XPathConstants;
-import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.NodeList;
-import org.xml.sax.SAXException;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 
 /**
  * 
@@ -48,14 +51,39 @@ import org.xml.sax.SAXException;
  */
 public class Main {
 
-	private static File[] apis;
+	private static final String GA_HANDLER_CLASS = "org.wso2.carbon.apimgt.usage.publisher."
+			+ "APIMgtGoogleAnalyticsTrackingHandler";
+
+	// StAX factories are shared by all the threads, creating readers and
+	// writers from a configured factory is thread safe
+	private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+	private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+	private static final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+	static {
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+	}
+
 	private static String apimHome;
+	private static int threadCount = 1;
+	private static MigrationReport report;
 
 	public static void main(String[] args) {
 		if (args.length > 0) {
 			apimHome = args[0];
+			if (args.length > 1) {
+				try {
+					threadCount = Math.max(1, Integer.parseInt(args[1].trim()));
+				} catch (NumberFormatException e) {
+					System.out.println("Invalid thread count " + args[1] + ". Using a single thread");
+				}
+			}
+			// synapse files are read and transformed, but not written in a dry run
+			boolean dryRun = args.length > 2 && Boolean.parseBoolean(args[2].trim());
+			report = new MigrationReport("Google Analytics handler migration", dryRun);
 			modifySuperUserAPIs();
 			modifyTenantAPIs();
+			report.print();
 
 		} else {
 			System.out.println("Missing API manager home argument");			
@@ -71,26 +99,47 @@ public class Main {
 				+ File.separator + "deployment" + File.separator + "server"
 				+ File.separator + "synapse-configs" + File.separator
 				+ "default" + File.separator + "api";	
-		modifySynapseConfigs(configPath);
+		long startTime = System.currentTimeMillis();
+		int count = modifySynapseConfigs(configPath);
+		report.tenantCompleted("carbon.super", count, System.currentTimeMillis() - startTime);
 
 	}
 
 	/**
-	 * modify apis related to tenants
+	 * modify apis related to tenants. The synapse-config folders of the
+	 * tenants are processed concurrently by the configured number of threads
 	 */
 	private static void modifyTenantAPIs() {
 		System.out.println("Modify tenant apis..");
 		String tenantLocation = apimHome + File.separator + "repository"
 				+ File.separator + "tenants";
 		File tenantsDir = new File(tenantLocation);
-		if (tenantsDir.exists()) {
-			File[] tenants = tenantsDir.listFiles();
-			for (File file : tenants) {
-				String configLocation = file.getAbsolutePath() + File.separator
+		File[] tenants = tenantsDir.listFiles();
+		if (tenants == null) {
+			return;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+		try {
+			for (final File file : tenants) {
+				final String configLocation = file.getAbsolutePath() + File.separator
 						+ "synapse-configs" + File.separator + "default"
 						+ File.separator + "api";
-					modifySynapseConfigs(configLocation);				
+				executor.execute(new Runnable() {
+					public void run() {
+						long startTime = System.currentTimeMillis();
+						int count = modifySynapseConfigs(configLocation);
+						report.tenantCompleted(file.getName(), count, System.currentTimeMillis() - startTime);
+					}
+				});
 			}
+		} finally {
+			executor.shutdown();
+		}
+		try {
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			System.out.println("Interrupted while waiting for the tenant apis to be modified. " + e);
+			Thread.currentThread().interrupt();
 		}
 	}
 
@@ -99,18 +148,24 @@ public class Main {
 	 * 
 	 * @param configPath
 	 *            path to synapse-config api foldermodifySuperUserAPIs
-	 * @throws Exception 
+	 * @return number of apis modified
 	 */
-	private static void modifySynapseConfigs(String configPath) {
+	private static int modifySynapseConfigs(String configPath) {
 
+		int count = 0;
 		File configFolder = new File(configPath);
 		if (configFolder.isDirectory()) {
-			apis = configFolder.listFiles();
+			File[] apis = configFolder.listFiles();
 			for (int i = 0; i < apis.length; i++) {
 				// take only the apis created by the user
 				if (apis[i].getName().contains("_v")) {
 					try {
-						modifyGoogleAnalyticsTrackingHandler(apis[i]);
+						if (modifyGoogleAnalyticsTrackingHandler(apis[i])) {
+							report.itemMigrated();
+							count++;
+						} else {
+							report.itemSkipped();
+						}
 					} catch (IOException e) {
 						System.out
 								.println("Error while accessing api configuration file. "
@@ -125,36 +180,20 @@ public class Main {
 					.println("API Manager home is not set properly. Please check the build.xml "
 							+ "file");			
 		}
+		return count;
 	}
 
 	/**
 	 * method to add property element to the existing google analytics tracking
-	 * handler
+	 * handler. The api is streamed once and written back only if the handler
+	 * is found and this is not a dry run.
 	 * 
-	 * @throws ParserConfigurationException
+	 * @return true if the handler was found
 	 * @throws IOException
-	 * @throws SAXException
-	 * @throws XPathExpressionException
-	 * @throws TransformerException
+	 * @throws XMLStreamException
 	 */
-	private static void modifyGoogleAnalyticsTrackingHandler(File api)
-			throws ParserConfigurationException, SAXException, IOException,
-			XPathExpressionException, TransformerException {
-
-		FileInputStream file = new FileInputStream(api);
-		DocumentBuilderFactory builderFactory = DocumentBuilderFactory
-				.newInstance();
-		DocumentBuilder builder = builderFactory.newDocumentBuilder();
-
-		Document xmlDocument = builder.parse(file);
-
-		// current handler element
-		String expression = "//handler[@class='org.wso2.carbon.apimgt.usage.publisher."
-				+ "APIMgtGoogleAnalyticsTrackingHandler']";
-		XPath xPath = XPathFactory.newInstance().newXPath();
-		NodeList nodeList = (NodeList) xPath.compile(expression).evaluate(
-				xmlDocument, XPathConstants.NODESET);
-		Element oldHandlerElem = (Element) nodeList.item(0);
+	private static boolean modifyGoogleAnalyticsTrackingHandler(File api)
+			throws IOException, XMLStreamException {
 
 		/*
 		 * Replace 
@@ -165,35 +204,86 @@ public class Main {
 		 * </handler>
 		 */
 
-		if (oldHandlerElem != null) {
-			// new handler to replace the old one
-			Element newHandlerElem = xmlDocument.createElement("handler");
-			newHandlerElem.setAttribute("class",
-					"org.wso2.carbon.apimgt.usage.publisher."
-							+ "APIMgtGoogleAnalyticsTrackingHandler");
-			// child element for the handler
-			Element propertyElem = xmlDocument.createElement("property");
-			propertyElem.setAttribute("name", "configKey");
-			propertyElem.setAttribute("value",
-					"gov:/apimgt/statistics/ga-config.xml");
-
-			newHandlerElem.appendChild(propertyElem);
-
-			Element root = xmlDocument.getDocumentElement();
-			NodeList handlersNodelist = root.getElementsByTagName("handlers");
-			Element handlers = (Element) handlersNodelist.item(0);
-			// replace old handler with the new one
-			handlers.replaceChild(newHandlerElem, oldHandlerElem);
-
-			// write the content into xml file
-			TransformerFactory transformerFactory = TransformerFactory
-					.newInstance();
-			Transformer transformer = transformerFactory.newTransformer();
-			DOMSource source = new DOMSource(xmlDocument);
-			StreamResult result = new StreamResult(api);
-			transformer.transform(source, result);
+		boolean replaced = false;
+		ByteArrayOutputStream out = new ByteArrayOutputStream((int) api.length() + 256);
+		InputStream in = new FileInputStream(api);
+		XMLEventReader reader = null;
+		XMLEventWriter writer = null;
+		try {
+			reader = inputFactory.createXMLEventReader(in);
+			String encoding = "UTF-8";
+			XMLEvent first = reader.peek();
+			if (first != null && first.isStartDocument()
+					&& ((StartDocument) first).encodingSet()) {
+				encoding = ((StartDocument) first).getCharacterEncodingScheme();
+			}
+			writer = outputFactory.createXMLEventWriter(out, encoding);
+
+			while (reader.hasNext()) {
+				XMLEvent event = reader.nextEvent();
+				if (!replaced && event.isStartElement() && isGoogleAnalyticsHandler(event.asStartElement())) {
+					// drop the old handler and write the new one in its place
+					skipElement(reader);
+					writeGoogleAnalyticsHandler(event.asStartElement().getName(), writer);
+					replaced = true;
+				} else {
+					writer.add(event);
+				}
+			}
+			writer.flush();
+		} finally {
+			if (writer != null) {
+				writer.close();
+			}
+			if (reader != null) {
+				reader.close();
+			}
+			in.close();
+		}
+
+		if (replaced && !report.isDryRun()) {
+			OutputStream fileOut = new FileOutputStream(api);
+			try {
+				out.writeTo(fileOut);
+			} finally {
+				fileOut.close();
+			}
 			System.out.println("Updated api: " + api.getName());
 		}
+		return replaced;
+
+	}
+
+	private static boolean isGoogleAnalyticsHandler(StartElement element) {
+		if (!"handler".equals(element.getName().getLocalPart())) {
+			return false;
+		}
+		Attribute handlerClass = element.getAttributeByName(new QName("class"));
+		return handlerClass != null && GA_HANDLER_CLASS.equals(handlerClass.getValue());
+	}
+
+	private static void skipElement(XMLEventReader reader) throws XMLStreamException {
+		int depth = 1;
+		while (depth > 0 && reader.hasNext()) {
+			XMLEvent event = reader.nextEvent();
+			if (event.isStartElement()) {
+				depth++;
+			} else if (event.isEndElement()) {
+				depth--;
+			}
+		}
+	}
 
+	private static void writeGoogleAnalyticsHandler(QName handler, XMLEventWriter writer)
+			throws XMLStreamException {
+		String prefix = handler.getPrefix();
+		String namespace = handler.getNamespaceURI();
+		writer.add(eventFactory.createStartElement(prefix, namespace, "handler"));
+		writer.add(eventFactory.createAttribute("class", GA_HANDLER_CLASS));
+		writer.add(eventFactory.createStartElement(prefix, namespace, "property"));
+		writer.add(eventFactory.createAttribute("name", "configKey"));
+		writer.add(eventFactory.createAttribute("value", "gov:/apimgt/statistics/ga-config.xml"));
+		writer.add(eventFactory.createEndElement(prefix, namespace, "property"));
+		writer.add(eventFactory.createEndElement(prefix, namespace, "handler"));
 	}
 }
@@ -0,0 +1,143 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.api.migration;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Collects the number of migrated items and the time taken by a migration run and prints a throughput report at the
+ * end of the run, so the length of the maintenance window can be estimated with a dry run. The peak heap usage is
+ * read from the heap memory pools, which are reset when the report is created.
+ */
+public class MigrationReport {
+
+    private final String name;
+    private final boolean dryRun;
+    private final long startTime;
+    private final List<TenantTiming> tenantTimings = new ArrayList<TenantTiming>();
+    private long migratedCount;
+    private long skippedCount;
+
+    /**
+     * @param name   name of the migration, printed in the report
+     * @param dryRun whether nothing is written by this run
+     */
+    public MigrationReport(String name, boolean dryRun) {
+        this.name = name;
+        this.dryRun = dryRun;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * Records an item which is migrated, or would be migrated in a dry run
+     */
+    public synchronized void itemMigrated() {
+        migratedCount++;
+    }
+
+    /**
+     * Records an item which did not need to be migrated
+     */
+    public synchronized void itemSkipped() {
+        skippedCount++;
+    }
+
+    /**
+     * Records the time taken to migrate a single tenant
+     *
+     * @param tenant    tenant domain or directory
+     * @param itemCount number of items migrated for the tenant
+     * @param timeTaken time taken in milliseconds
+     */
+    public synchronized void tenantCompleted(String tenant, long itemCount, long timeTaken) {
+        tenantTimings.add(new TenantTiming(tenant, itemCount, timeTaken));
+    }
+
+    /**
+     * Prints the report to the console. Tenants are listed with the slowest first.
+     */
+    public synchronized void print() {
+        long timeTaken = Math.max(1, System.currentTimeMillis() - startTime);
+        System.out.println("---------------------------------------------------------------");
+        System.out.println(name + (dryRun ? " dry run report. Nothing was written." : " report"));
+        System.out.println((dryRun ? "  Items to be migrated    : " : "  Items migrated          : ") + migratedCount);
+        System.out.println("  Items skipped           : " + skippedCount);
+        System.out.println("  Time taken              : " + timeTaken + " ms");
+        System.out.println("  Throughput              : " + formatRate(migratedCount, timeTaken) + " items/s");
+        System.out.println("  Peak heap usage         : " + getPeakHeapUsage() / (1024 * 1024) + " MB");
+        if (!tenantTimings.isEmpty()) {
+            List<TenantTiming> sorted = new ArrayList<TenantTiming>(tenantTimings);
+            Collections.sort(sorted, new Comparator<TenantTiming>() {
+                @Override
+                public int compare(TenantTiming t1, TenantTiming t2) {
+                    return t1.timeTaken < t2.timeTaken ? 1 : (t1.timeTaken == t2.timeTaken ? 0 : -1);
+                }
+            });
+            System.out.println("  Tenants (slowest first) :");
+            for (TenantTiming timing : sorted) {
+                System.out.println("    " + timing.tenant + " : " + timing.itemCount + " items in " +
+                                   timing.timeTaken + " ms (" + formatRate(timing.itemCount,
+                                                                           Math.max(1, timing.timeTaken)) +
+                                   " items/s)");
+            }
+        }
+        System.out.println("---------------------------------------------------------------");
+    }
+
+    private static String formatRate(long count, long timeTaken) {
+        return String.format("%.2f", count * 1000.0 / timeTaken);
+    }
+
+    private static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static class TenantTiming {
+
+        private final String tenant;
+        private final long itemCount;
+        private final long timeTaken;
+
+        TenantTiming(String tenant, long itemCount, long timeTaken) {
+            this.tenant = tenant;
+            this.itemCount = itemCount;
+            this.timeTaken = timeTaken;
+        }
+    }
+}
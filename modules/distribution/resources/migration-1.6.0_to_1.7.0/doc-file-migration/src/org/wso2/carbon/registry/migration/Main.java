@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.IOException;
 import java.rmi.RemoteException;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ConfigurationContextFactory;
@@ -44,7 +45,11 @@ import org.wso2.carbon.registry.core.RegistryConstants;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.session.UserRegistry;
+import org.wso2.carbon.registry.migration.utils.ArtifactCheckpoint;
+import org.wso2.carbon.registry.migration.utils.MigrationReport;
 import org.wso2.carbon.registry.migration.utils.CommandHandler;
+import org.wso2.carbon.registry.migration.utils.OfflineRegistry;
+import org.wso2.carbon.registry.migration.utils.RegistryWriteBatch;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceStub;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceResourceServiceExceptionException;
@@ -69,11 +74,15 @@ public class Main {
             System.setProperty("javax.net.ssl.trustStoreType", "JKS");
             System.setProperty("carbon.repo.write.mode", "true");
 
-            cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
-                    (System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "deployment" + File.separator + "client",
-                            System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "conf" + File.separator + "axis2" + File.separator + "axis2_client.xml");
-            registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
-                    CommandHandler.getPassword(), cc);
+            if (OfflineRegistry.isEnabled()) {
+                registry = OfflineRegistry.getRegistry();
+            } else {
+                cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
+                        (System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "deployment" + File.separator + "client",
+                                System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "conf" + File.separator + "axis2" + File.separator + "axis2_client.xml");
+                registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
+                        CommandHandler.getPassword(), cc);
+            }
             Main.migrate();
             System.out.println("Finished API data migration process.");
             System.exit(0);
@@ -87,12 +96,37 @@ public class Main {
 
     private static void migrate() throws RegistryException, APIManagementException, LoginAuthenticationExceptionException,
             ResourceAdminServiceResourceServiceExceptionException, SQLException, IOException {
-        Registry re = GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
+        Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
+                      GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
         GenericArtifactManager manager = new GenericArtifactManager(re, "api");
         GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
-        GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
-        
-        for (GenericArtifact artifact : artifacts) {
+        /*
+        Only the artifact ids are loaded up front and each artifact is read when it is migrated. The ids are sorted so
+        that an interrupted migration can be resumed after the last migrated artifact.
+         */
+        String[] artifactIds = manager.getAllGenericArtifactIds();
+        //no ids are returned when there are no API artifacts
+        if (artifactIds == null) {
+            artifactIds = new String[0];
+        }
+        Arrays.sort(artifactIds);
+        MigrationReport report = new MigrationReport("Document file migration", CommandHandler.isDryRun());
+        //progress is not recorded in a dry run, since nothing is migrated
+        ArtifactCheckpoint checkpoint = new ArtifactCheckpoint(report.isDryRun() ? null :
+                                                               CommandHandler.getCheckpointFile());
+        //registry writes are committed in batches in offline mode, and recorded in the checkpoint once committed
+        RegistryWriteBatch batch = new RegistryWriteBatch(re, checkpoint);
+
+        for (String artifactId : artifactIds) {
+            if (checkpoint.isCompleted(artifactId)) {
+                report.itemSkipped();
+                continue;
+            }
+            GenericArtifact artifact = manager.getGenericArtifact(artifactId);
+            if (artifact == null) {
+                report.itemSkipped();
+                continue;
+            }
             API api = getAPI(artifact, re);
             APIIdentifier apiIdentfier = api.getId();
             String apiResourcePath = APIUtil.getAPIPath(apiIdentfier);
@@ -110,7 +144,7 @@ public class Main {
                     String docFilePath = docArtifact.getAttribute(APIConstants.DOC_FILE_PATH);
                     Documentation doc = APIUtil.getDocumentation(docArtifact);
                     if (Documentation.DocumentSourceType.FILE.equals(doc.getSourceType())) {                        
-                        if(docFilePath != null && !docFilePath.equals("")){                             
+                        if(docFilePath != null && !docFilePath.equals("") && !report.isDryRun()){                             
                             //The docFilePatch comes as /t/tenanatdoman/registry/resource/_system/governance/apimgt/applicationdata..
                             //We need to remove the /t/tenanatdoman/registry/resource/_system/governance section to set permissions.
                             int startIndex = docFilePath.indexOf("governance") + "governance".length();
@@ -141,8 +175,13 @@ public class Main {
 
 
             }
+            batch.artifactCompleted(artifactId);
+            report.itemMigrated();
 
         }
+        batch.close();
+        checkpoint.close();
+        report.print();
     }
 
     private static String login(String userName, String password, String host)
@@ -0,0 +1,99 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.registry.migration.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+/**
+ * Records the ids of the migrated API artifacts in a checkpoint file so an interrupted migration can be resumed.
+ * Artifacts are migrated in the order of their ids, therefore only the last migrated id is needed to resume.
+ * Each id is appended to the file and flushed as soon as the artifact is migrated.
+ */
+public class ArtifactCheckpoint {
+
+    private final File checkpointFile;
+    private String lastArtifactId;
+    private Writer writer;
+
+    /**
+     * @param checkpointFilePath path of the checkpoint file or null to disable checkpointing
+     * @throws IOException if the existing checkpoint file cannot be read
+     */
+    public ArtifactCheckpoint(String checkpointFilePath) throws IOException {
+        if (checkpointFilePath == null) {
+            checkpointFile = null;
+            return;
+        }
+        checkpointFile = new File(checkpointFilePath);
+        if (checkpointFile.exists()) {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(checkpointFile),
+                                                                             "UTF-8"));
+            try {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.trim().length() > 0) {
+                        lastArtifactId = line.trim();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            System.out.println("Resuming migration after artifact " + lastArtifactId);
+        }
+    }
+
+    /**
+     * @param artifactId id of the artifact
+     * @return true if the artifact was migrated in a previous run
+     */
+    public boolean isCompleted(String artifactId) {
+        return lastArtifactId != null && artifactId.compareTo(lastArtifactId) <= 0;
+    }
+
+    /**
+     * Records that the given artifact is migrated
+     *
+     * @param artifactId id of the migrated artifact
+     * @throws IOException if the checkpoint file cannot be written
+     */
+    public void artifactCompleted(String artifactId) throws IOException {
+        lastArtifactId = artifactId;
+        if (checkpointFile == null) {
+            return;
+        }
+        if (writer == null) {
+            writer = new OutputStreamWriter(new FileOutputStream(checkpointFile, true), "UTF-8");
+        }
+        writer.write(artifactId + "\n");
+        writer.flush();
+    }
+
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -17,6 +17,8 @@
 */
 package org.wso2.carbon.registry.migration.utils;
 
+import org.wso2.carbon.base.MultitenantConstants;
+
 import java.util.HashMap;
 import java.util.Map;
 
@@ -60,6 +62,46 @@ public class CommandHandler {
                     throw new RuntimeException("Password of the admin is missing");
                 }
                 inputs.put("-pw", arguments[++i]);
+            } else if (arguments[i].equals("-cpf")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Checkpoint file path is missing");
+                }
+                inputs.put("-cpf", arguments[++i]);
+            } else if (arguments[i].equals("-rdurl")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Registry database url is missing");
+                }
+                inputs.put("-rdurl", arguments[++i]);
+            } else if (arguments[i].equals("-rdr")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Registry database driver is missing");
+                }
+                inputs.put("-rdr", arguments[++i]);
+            } else if (arguments[i].equals("-rdu")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Registry database username is missing");
+                }
+                inputs.put("-rdu", arguments[++i]);
+            } else if (arguments[i].equals("-rdpw")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Registry database password is missing");
+                }
+                inputs.put("-rdpw", arguments[++i]);
+            } else if (arguments[i].equals("-rtid")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Registry tenant id is missing");
+                }
+                inputs.put("-rtid", arguments[++i]);
+            } else if (arguments[i].equals("-offline")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Offline flag is missing");
+                }
+                inputs.put("-offline", arguments[++i]);
+            } else if (arguments[i].equals("-dry")) {
+                if (arguments.length - 1 == i) {
+                    throw new RuntimeException("Dry run flag is missing");
+                }
+                inputs.put("-dry", arguments[++i]);
             } else if (arguments[i].equals("-cr")) {
                 if (arguments.length - 1 == i) {
                     throw new RuntimeException("Context root of the service is missing");
@@ -79,6 +121,19 @@ public class CommandHandler {
         System.out.println("\t-p :\t(Required) The port of the registry to login.");
         System.out.println("\t-u :\t(Required) The user name of the registry login.");
         System.out.println("\t-pw:\t(Required) The password of the registry login.");
+        System.out.println("\t-cpf:\t(Optional) The file used to record the migrated APIs. " +
+                           "An interrupted migration is resumed from this file.");
+        System.out.println("\t-rdurl:\t(Optional) The jdbc url of the registry database used by -offline.");
+        System.out.println("\t-rdr:\t(Optional) The jdbc driver of the registry database.");
+        System.out.println("\t-rdu:\t(Optional) The username of the registry database.");
+        System.out.println("\t-rdpw:\t(Optional) The password of the registry database.");
+        System.out.println("\t-rtid:\t(Optional) The id of the tenant migrated through the registry database. " +
+                           "Default is the super tenant.");
+        System.out.println("\t-offline:\t(Optional) true to access the registry directly through the registry " +
+                           "database given by -rdurl instead of the registry web service. The server should be " +
+                           "shut down while the migration runs.");
+        System.out.println("\t-dry:\t(Optional) true to read and transform all the APIs without writing anything " +
+                           "and print a throughput report.");
         System.out.println();
         System.out.println("Example to migrate a registry running on localhost on default values");
         System.out.println("\te.g: migration-client -h localhost -p 9443 -u admin -pw admin");
@@ -116,6 +171,48 @@ public class CommandHandler {
         return inputs.get("-pw");
     }
 
-    
-}
+    public static String getCheckpointFile() {
+        String checkpointFile = inputs.get("-cpf");
+        if (checkpointFile == null || checkpointFile.trim().length() == 0) {
+            return null;
+        }
+        return checkpointFile.trim();
+    }
+
+    public static String getRegistryDBUrl() {
+        return getOptionalInput("-rdurl");
+    }
+
+    public static String getRegistryDBDriver() {
+        return getOptionalInput("-rdr");
+    }
+
+    public static String getRegistryDBUsername() {
+        return getOptionalInput("-rdu");
+    }
+
+    public static String getRegistryDBPassword() {
+        return getOptionalInput("-rdpw");
+    }
 
+    public static int getRegistryTenantId() {
+        String tenantId = getOptionalInput("-rtid");
+        return tenantId != null ? Integer.parseInt(tenantId) : MultitenantConstants.SUPER_TENANT_ID;
+    }
+
+    private static String getOptionalInput(String key) {
+        String value = inputs.get(key);
+        if (value == null || value.trim().length() == 0) {
+            return null;
+        }
+        return value.trim();
+    }
+
+    public static boolean isOffline() {
+        return Boolean.parseBoolean(inputs.get("-offline"));
+    }
+
+    public static boolean isDryRun() {
+        return Boolean.parseBoolean(inputs.get("-dry"));
+    }
+}
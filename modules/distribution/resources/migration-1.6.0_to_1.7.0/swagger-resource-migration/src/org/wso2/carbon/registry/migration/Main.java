@@ -45,6 +45,8 @@ import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.session.UserRegistry;
 import org.wso2.carbon.registry.migration.utils.CommandHandler;
+import org.wso2.carbon.registry.migration.utils.OfflineRegistry;
+import org.wso2.carbon.registry.migration.utils.MigrationReport;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceStub;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceResourceServiceExceptionException;
@@ -67,11 +69,15 @@ public class Main {
             System.setProperty("javax.net.ssl.trustStoreType", "JKS");
             System.setProperty("carbon.repo.write.mode", "true");
 
-            cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
-                    (System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "deployment" + File.separator + "client", 
-		     System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "conf" + File.separator + "axis2" + File.separator + "axis2_client.xml");
-            registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
-                    CommandHandler.getPassword(), cc);
+            if (OfflineRegistry.isEnabled()) {
+                registry = OfflineRegistry.getRegistry();
+            } else {
+                cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
+                        (System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "deployment" + File.separator + "client", 
+    		     System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "conf" + File.separator + "axis2" + File.separator + "axis2_client.xml");
+                registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
+                        CommandHandler.getPassword(), cc);
+            }
             Main.migrate();
             System.out.println("Finished API data migration process.");
             System.exit(0);
@@ -85,17 +91,21 @@ public class Main {
 
     private static void migrate() throws RegistryException, APIManagementException, LoginAuthenticationExceptionException, 
     										ResourceAdminServiceResourceServiceExceptionException, SQLException, IOException {
-        Registry re = GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
+        Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
+                      GovernanceUtils.getGovernanceUserRegistry(registry, CommandHandler.getUsername());
         GenericArtifactManager manager = new GenericArtifactManager(re, "api");
         GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
         GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
+        MigrationReport report = new MigrationReport("Swagger resource migration", CommandHandler.isDryRun());
 
         for (GenericArtifact artifact : artifacts) {
         	API api = getAPI(artifact, re);
         	APIIdentifier apiIdentfier = api.getId();
         	
 		artifact.setAttribute(APIConstants.PROTOTYPE_OVERVIEW_IMPLEMENTATION, APIConstants.IMPLEMENTATION_TYPE_ENDPOINT);
-		manager.updateGenericArtifact(artifact);
+		if (!report.isDryRun()) {
+			manager.updateGenericArtifact(artifact);
+		}
 
         	String apiDefinitionFilePath = getAPIDefinitionFilePath(apiIdentfier.getApiName(), apiIdentfier.getVersion(), apiIdentfier.getProviderName());
             /*apiDefinitionFilePath = RegistryConstants.PATH_SEPARATOR + "registry"
@@ -108,6 +118,10 @@ public class Main {
             String text = new String ((byte[]) resource.getContent());
             
             String newContentPath = APIUtil.getAPIDefinitionFilePath(apiIdentfier.getApiName(), apiIdentfier.getVersion(),apiIdentfier.getProviderName());
+            report.itemMigrated();
+            if (report.isDryRun()) {
+                continue;
+            }
         	
         	try {
                 Resource docContent = re.newResource();
@@ -138,6 +152,7 @@ public class Main {
         	
         	
 		}
+        report.print();
      
     }
     
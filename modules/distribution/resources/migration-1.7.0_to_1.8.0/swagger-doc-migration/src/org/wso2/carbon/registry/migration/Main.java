@@ -21,6 +21,7 @@ package org.wso2.carbon.registry.migration;
 import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Arrays;
 
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ConfigurationContextFactory;
@@ -40,7 +41,11 @@ import org.wso2.carbon.registry.core.Registry;
 import org.wso2.carbon.registry.core.Resource;
 import org.wso2.carbon.registry.core.exceptions.RegistryException;
 import org.wso2.carbon.registry.core.session.UserRegistry;
+import org.wso2.carbon.registry.migration.utils.ArtifactCheckpoint;
 import org.wso2.carbon.registry.migration.utils.CommandHandler;
+import org.wso2.carbon.registry.migration.utils.OfflineRegistry;
+import org.wso2.carbon.registry.migration.utils.RegistryWriteBatch;
+import org.wso2.carbon.registry.migration.utils.MigrationReport;
 import org.wso2.carbon.registry.migration.utils.ResourceUtil;
 import org.wso2.carbon.registry.resource.stub.ResourceAdminServiceResourceServiceExceptionException;
 import org.wso2.carbon.registry.ws.client.registry.WSRegistryServiceClient;
@@ -61,11 +66,15 @@ public class Main {
 			System.setProperty("javax.net.ssl.trustStoreType", "JKS");
 			System.setProperty("carbon.repo.write.mode", "true");
 
-			cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
-					(System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "deployment" + File.separator + "client",
-					 System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "conf" + File.separator + "axis2" + File.separator + "axis2_client.xml");
-			registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
-			                                       CommandHandler.getPassword(), cc);
+			if (OfflineRegistry.isEnabled()) {
+				registry = OfflineRegistry.getRegistry();
+			} else {
+				cc = ConfigurationContextFactory.createConfigurationContextFromFileSystem
+						(System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "deployment" + File.separator + "client",
+						 System.getProperty("carbon.home") + File.separator + "repository" + File.separator + "conf" + File.separator + "axis2" + File.separator + "axis2_client.xml");
+				registry = new WSRegistryServiceClient(CommandHandler.getServiceURL(), CommandHandler.getUsername(),
+				                                       CommandHandler.getPassword(), cc);
+			}
 			Main.migrate();
 			System.out.println("Finished API data migration process.");
 			System.exit(0);
@@ -81,14 +90,38 @@ public class Main {
 	LoginAuthenticationExceptionException,
 	ResourceAdminServiceResourceServiceExceptionException,
 	SQLException, IOException {
-		Registry re =
+		Registry re = OfflineRegistry.isEnabled() ? OfflineRegistry.getGovernanceRegistry() :
 				GovernanceUtils.getGovernanceUserRegistry(registry,
 				                                          CommandHandler.getUsername());
 		GenericArtifactManager manager = new GenericArtifactManager(re, "api");
 		GovernanceUtils.loadGovernanceArtifacts((UserRegistry) re);
-		GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
-
-		for (GenericArtifact artifact : artifacts) {
+		/*
+		Only the artifact ids are loaded up front and each artifact is read when it is migrated. The ids are sorted so
+		that an interrupted migration can be resumed after the last migrated artifact.
+		 */
+		String[] artifactIds = manager.getAllGenericArtifactIds();
+		//no ids are returned when there are no API artifacts
+		if (artifactIds == null) {
+			artifactIds = new String[0];
+		}
+		Arrays.sort(artifactIds);
+		MigrationReport report = new MigrationReport("Swagger document migration", CommandHandler.isDryRun());
+		//progress is not recorded in a dry run, since nothing is migrated
+		ArtifactCheckpoint checkpoint = new ArtifactCheckpoint(report.isDryRun() ? null :
+		                                                       CommandHandler.getCheckpointFile());
+		//registry writes are committed in batches in offline mode, and recorded in the checkpoint once committed
+		RegistryWriteBatch batch = new RegistryWriteBatch(re, checkpoint);
+
+		for (String artifactId : artifactIds) {
+			if (checkpoint.isCompleted(artifactId)) {
+				report.itemSkipped();
+				continue;
+			}
+			GenericArtifact artifact = manager.getGenericArtifact(artifactId);
+			if (artifact == null) {
+				report.itemSkipped();
+				continue;
+			}
 			API api = getAPI(artifact, re);
 			APIIdentifier apiIdentfier = api.getId();
 
@@ -110,11 +143,16 @@ public class Main {
 			try {
 				System.out.println("Updating resource for : " + apiIdentfier.getApiName() + "-" +
 						apiIdentfier.getVersion() + "-" + apiIdentfier.getProviderName());
-				ResourceUtil.updateAPISwaggerDocs(apiDef11Json, resourcePaths, re);
+				ResourceUtil.updateAPISwaggerDocs(apiDef11Json, resourcePaths, re, report.isDryRun());
 			} catch (ParseException e) {
 				throw new APIManagementException("Unable to parse registry resource", e);
 			}
+			batch.artifactCompleted(artifactId);
+			report.itemMigrated();
 		}
+		batch.close();
+		checkpoint.close();
+		report.print();
 
 	}
 
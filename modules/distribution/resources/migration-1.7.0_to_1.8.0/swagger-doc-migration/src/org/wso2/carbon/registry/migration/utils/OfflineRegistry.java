@@ -0,0 +1,101 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.registry.migration.utils;
+
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.config.RegistryContext;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.core.jdbc.realm.InMemoryRealmService;
+import org.wso2.carbon.registry.core.service.RegistryService;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+
+/**
+ * Opens the registry directly on the registry database, without going through the registry web service of a running
+ * server. The registry is used in offline mode when the offline flag is set, on the registry database given by its
+ * jdbc url. Resources are then read and written with plain JDBC by the embedded registry, which avoids a SOAP round
+ * trip for each read and write. The server should be shut down while the migration runs in offline mode, since its
+ * registry cache is not updated.
+ */
+public class OfflineRegistry {
+
+    private static RegistryService registryService;
+
+    public static boolean isEnabled() {
+        return CommandHandler.isOffline();
+    }
+
+    /**
+     * Returns the root registry of the tenant given by the registry tenant id. The registry is opened as the system
+     * user, since the users of the server are not available without the server.
+     *
+     * @return root registry
+     * @throws RegistryException if the registry database cannot be accessed
+     */
+    public static synchronized Registry getRegistry() throws RegistryException {
+        return getRegistryService().getSystemRegistry(CommandHandler.getRegistryTenantId());
+    }
+
+    /**
+     * @return governance registry of the tenant given by the registry tenant id
+     * @throws RegistryException if the registry database cannot be accessed
+     */
+    public static synchronized Registry getGovernanceRegistry() throws RegistryException {
+        return getRegistryService().getGovernanceSystemRegistry(CommandHandler.getRegistryTenantId());
+    }
+
+    private static RegistryService getRegistryService() throws RegistryException {
+        if (registryService == null) {
+            if (CommandHandler.getRegistryDBUrl() == null) {
+                throw new RegistryException("The jdbc url of the registry database is required in offline mode");
+            }
+            String config = "<wso2registry>" +
+                            "<currentDBConfig>migration</currentDBConfig>" +
+                            "<readOnly>false</readOnly>" +
+                            "<enableCache>true</enableCache>" +
+                            "<registryRoot>/</registryRoot>" +
+                            "<dbConfig name=\"migration\">" +
+                            "<url>" + escape(CommandHandler.getRegistryDBUrl()) + "</url>" +
+                            "<userName>" + escape(CommandHandler.getRegistryDBUsername()) + "</userName>" +
+                            "<password>" + escape(CommandHandler.getRegistryDBPassword()) + "</password>" +
+                            "<driverName>" + escape(CommandHandler.getRegistryDBDriver()) + "</driverName>" +
+                            "<maxActive>50</maxActive>" +
+                            "<maxWait>60000</maxWait>" +
+                            "<minIdle>5</minIdle>" +
+                            "</dbConfig>" +
+                            "</wso2registry>";
+            try {
+                RegistryContext registryContext = RegistryContext.getBaseInstance(
+                        new ByteArrayInputStream(config.getBytes("UTF-8")), new InMemoryRealmService());
+                registryService = registryContext.getEmbeddedRegistryService();
+            } catch (UnsupportedEncodingException e) {
+                throw new RegistryException("Error while creating the registry configuration", e);
+            }
+            System.out.println("Registry opened in offline mode on " + CommandHandler.getRegistryDBUrl());
+        }
+        return registryService;
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
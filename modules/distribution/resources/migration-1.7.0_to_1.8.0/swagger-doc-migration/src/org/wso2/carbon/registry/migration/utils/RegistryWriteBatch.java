@@ -0,0 +1,86 @@
+/*
+*  Copyright (c) WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*  WSO2 Inc. licenses this file to you under the Apache License,
+*  Version 2.0 (the "License"); you may not use this file except
+*  in compliance with the License.
+*  You may obtain a copy of the License at
+*
+*    http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing,
+* software distributed under the License is distributed on an
+* "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+* KIND, either express or implied.  See the License for the
+* specific language governing permissions and limitations
+* under the License.
+*/
+package org.wso2.carbon.registry.migration.utils;
+
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groups the registry writes of the migrated artifacts into registry transactions of COMMIT_INTERVAL artifacts when
+ * the registry is opened in offline mode. With the registry web service each write is committed by the server as it
+ * is made. An artifact is recorded in the checkpoint only after its writes are committed.
+ */
+public class RegistryWriteBatch {
+
+    private static final int COMMIT_INTERVAL = 100;
+
+    private final Registry registry;
+    private final ArtifactCheckpoint checkpoint;
+    private final List<String> uncommittedArtifactIds = new ArrayList<String>();
+
+    public RegistryWriteBatch(Registry registry, ArtifactCheckpoint checkpoint) throws RegistryException {
+        this.registry = OfflineRegistry.isEnabled() ? registry : null;
+        this.checkpoint = checkpoint;
+        if (this.registry != null) {
+            this.registry.beginTransaction();
+        }
+    }
+
+    /**
+     * Records an artifact whose writes are completed, and commits the batch once it is full
+     *
+     * @param artifactId id of the artifact
+     * @throws RegistryException if the batch cannot be committed
+     * @throws IOException       if the checkpoint cannot be written
+     */
+    public void artifactCompleted(String artifactId) throws RegistryException, IOException {
+        if (registry == null) {
+            checkpoint.artifactCompleted(artifactId);
+            return;
+        }
+        uncommittedArtifactIds.add(artifactId);
+        if (uncommittedArtifactIds.size() >= COMMIT_INTERVAL) {
+            commit();
+            registry.beginTransaction();
+        }
+    }
+
+    /**
+     * Commits the remaining writes
+     *
+     * @throws RegistryException if the batch cannot be committed
+     * @throws IOException       if the checkpoint cannot be written
+     */
+    public void close() throws RegistryException, IOException {
+        if (registry != null) {
+            commit();
+        }
+    }
+
+    private void commit() throws RegistryException, IOException {
+        registry.commitTransaction();
+        for (String artifactId : uncommittedArtifactIds) {
+            checkpoint.artifactCompleted(artifactId);
+        }
+        uncommittedArtifactIds.clear();
+    }
+}
@@ -205,11 +205,12 @@ public class ResourceUtil {
 	 * @param apiDocJson
 	 * @param docResourcePaths
 	 * @param re
+	 * @param dryRun if true the documents are updated in memory only and not written to the registry
 	 * @throws ParseException
 	 * @throws RegistryException
 	 */
 	public static void updateAPISwaggerDocs(String apiDocJson, String[] docResourcePaths,
-	                                        Registry re) throws ParseException, RegistryException {
+	                                        Registry re, boolean dryRun) throws ParseException, RegistryException {
 
 		JSONParser parser = new JSONParser();
 		JSONObject apiDoc11 = (JSONObject) parser.parse(apiDocJson);
@@ -276,6 +277,9 @@ public class ResourceUtil {
 					ResourceUtil.getUpdatedSwagger12Resource(apiDoc, allParameters,
 					                                         basePathForResource);
 			System.out.println("\t update " + resourceName.substring(1));
+			if (dryRun) {
+				continue;
+			}
 			Resource res = re.get(docResourcePath);
 			res.setContent(updatedJson);
 			//update the registry
@@ -284,7 +288,7 @@ public class ResourceUtil {
 		}
 		
 		//update the api-doc. add the descriptions to each api resource
-		ResourceUtil.updateSwagger12APIdoc(apidoc12path, descriptionsForResource, re, parser);
+		ResourceUtil.updateSwagger12APIdoc(apidoc12path, descriptionsForResource, re, parser, dryRun);
 		
 	}
 
@@ -294,12 +298,13 @@ public class ResourceUtil {
 	 * @param descriptionsForResource
 	 * @param re
 	 * @param parser
+	 * @param dryRun
 	 * @throws RegistryException
 	 * @throws ParseException
 	 */
 	private static void updateSwagger12APIdoc(String apidoc12path,
 	                                          Map<String, String> descriptionsForResource,
-	                                          Registry re, JSONParser parser)
+	                                          Registry re, JSONParser parser, boolean dryRun)
 	                                                                         throws RegistryException,
 	                                                                         ParseException {
 		Resource res = re.get(apidoc12path);
@@ -316,6 +321,9 @@ public class ResourceUtil {
 			}
 		}
 		System.out.println("\t update api-doc");
+		if (dryRun) {
+			return;
+		}
 		res.setContent(api12Doc.toJSONString());
 		// update the registry
 		re.put(apidoc12path, res);
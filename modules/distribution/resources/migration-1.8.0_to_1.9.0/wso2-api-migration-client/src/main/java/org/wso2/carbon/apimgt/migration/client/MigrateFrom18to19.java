@@ -19,10 +19,6 @@ package org.wso2.carbon.apimgt.migration.client;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.json.simple.JSONArray;
-import org.json.simple.JSONObject;
-import org.json.simple.parser.JSONParser;
-import org.json.simple.parser.ParseException;
 import org.wso2.carbon.apimgt.api.APIManagementException;
 import org.wso2.carbon.apimgt.api.model.API;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
@@ -32,7 +28,14 @@ import org.wso2.carbon.apimgt.impl.utils.APIUtil;
 import org.wso2.carbon.apimgt.migration.APIMigrationException;
 import org.wso2.carbon.apimgt.migration.client.internal.ServiceHolder;
 import org.wso2.carbon.apimgt.migration.util.Constants;
+import org.wso2.carbon.apimgt.migration.util.GenericArtifactBatchUpdater;
+import org.wso2.carbon.apimgt.migration.util.GenericArtifactIterator;
+import org.wso2.carbon.apimgt.migration.util.MigrationCheckpoint;
 import org.wso2.carbon.apimgt.migration.util.ResourceUtil;
+import org.wso2.carbon.apimgt.migration.util.SQLScriptExecutor;
+import org.wso2.carbon.apimgt.migration.util.SQLScriptParser;
+import org.wso2.carbon.apimgt.migration.util.Swagger12To20Converter;
+import org.wso2.carbon.apimgt.migration.util.SynapseConfigManifest;
 import org.wso2.carbon.base.MultitenantConstants;
 import org.wso2.carbon.context.PrivilegedCarbonContext;
 import org.wso2.carbon.governance.api.generic.GenericArtifactManager;
@@ -49,14 +52,8 @@ import org.wso2.carbon.utils.CarbonUtils;
 import org.wso2.carbon.registry.api.RegistryException;
 import org.wso2.carbon.registry.api.Resource;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.MalformedURLException;
-import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -64,11 +61,14 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.StringTokenizer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 /**
@@ -81,8 +81,44 @@ public class MigrateFrom18to19 implements MigrationClient {
 
     private static final Log log = LogFactory.getLog(MigrateFrom18to19.class);
     private List<Tenant> tenantsArray;
+    private TenantMigrationExecutor tenantMigrationExecutor;
+    private MigrationCheckpoint checkpoint;
+    private MigrationReport report;
+    private Swagger12To20Converter swaggerConverter;
+    private int dbBatchSize;
+    private int dbCommitInterval;
+    private int artifactBatchSize;
+
+    public MigrateFrom18to19() throws UserStoreException, APIMigrationException {
+        this(Constants.DEFAULT_MIGRATION_THREAD_COUNT, Constants.DEFAULT_DB_BATCH_SIZE,
+                Constants.DEFAULT_DB_COMMIT_INTERVAL, Constants.DEFAULT_ARTIFACT_BATCH_SIZE, null,
+                new MigrationReport(false));
+    }
 
-    public MigrateFrom18to19() throws UserStoreException {
+    /**
+     * @param migrationThreadCount number of tenants which are migrated concurrently
+     * @param dbBatchSize          maximum number of DML statements sent to the database in a single batch
+     * @param dbCommitInterval     number of statements executed between two commits during database migration
+     * @param artifactBatchSize    number of API artifacts updated in a single registry transaction
+     * @param checkpointFilePath   file used to record the registry migration progress or null to disable resuming
+     * @param report               report of the migration. Nothing is written if the report is for a dry run
+     * @throws UserStoreException
+     * @throws APIMigrationException if the checkpoint file cannot be read
+     */
+    public MigrateFrom18to19(int migrationThreadCount, int dbBatchSize, int dbCommitInterval, int artifactBatchSize,
+                             String checkpointFilePath, MigrationReport report)
+            throws UserStoreException, APIMigrationException {
+        this.report = report;
+        tenantMigrationExecutor = new TenantMigrationExecutor(migrationThreadCount, report);
+        if (report.isDryRun() && checkpointFilePath != null) {
+            //nothing is migrated in a dry run, so there is no progress to record
+            log.warn("Migration checkpoint " + checkpointFilePath + " is not used in a dry run");
+            checkpointFilePath = null;
+        }
+        checkpoint = new MigrationCheckpoint(checkpointFilePath);
+        this.dbBatchSize = dbBatchSize;
+        this.dbCommitInterval = dbCommitInterval;
+        this.artifactBatchSize = artifactBatchSize;
         TenantManager tenantManager = ServiceHolder.getRealmService().getTenantManager();
         tenantsArray = new ArrayList(Arrays.asList(tenantManager.getAllTenants()));
         Tenant superTenant = new Tenant();
@@ -96,104 +132,52 @@ public class MigrateFrom18to19 implements MigrationClient {
      * This executes the database queries according to the user's db type and alters the tables
      *
      * @param migrateVersion version to be migrated
-     * @throws APIMigrationException
+     * @throws APIMigrationException if any of the queries fails, so that the other migrations are not run on the old
+     *                               schema
      * @throws SQLException
      */
     @Override
     public void databaseMigration(String migrateVersion) throws APIMigrationException, SQLException {
         log.info("Database migration for API Manager 1.8.0 started");
+        report.phaseStarted(Constants.DATABASE_MIGRATION_PHASE);
+        long startTime = System.currentTimeMillis();
         Connection connection = null;
-        PreparedStatement preparedStatement = null;
+        Exception error = null;
         try {
-            /*String queryToExecute = ResourceUtil.pickQueryFromResources(migrateVersion, Constants.ALTER).trim();
             connection = APIMgtDBUtil.getConnection();
+            String dbType = MigrationDBCreator.getDatabaseType(connection);
+            String dbScript = ResourceUtil.pickQueryFromResources(migrateVersion, dbType);
 
-            String queryArray[] = queryToExecute.split(Constants.LINE_BREAK);
-
-            connection.setAutoCommit(false);
-
-            for (String query : queryArray) {
-                preparedStatement = connection.prepareStatement(query.trim());
-                preparedStatement.execute();
-                connection.commit();
-                preparedStatement.close();
-            }*/
-
-
-
-
-                connection = APIMgtDBUtil.getConnection();
-                String dbType = MigrationDBCreator.getDatabaseType(connection);
-                String dbScript = ResourceUtil.pickQueryFromResources(migrateVersion, dbType);
-                BufferedReader bufferedReader;
-
-                InputStream is = new FileInputStream(dbScript);
-                bufferedReader = new BufferedReader(new InputStreamReader(is));
-                String sqlQuery;
-                while ((sqlQuery = bufferedReader.readLine()) != null) {
-                    if("oracle".equals(dbType)){
-                        sqlQuery = sqlQuery.replace(";","");
-                    }
-                    sqlQuery = sqlQuery.trim();
-                    if (sqlQuery.startsWith("//") || sqlQuery.startsWith("--")) {
-                        continue;
-                    }
-                    StringTokenizer stringTokenizer = new StringTokenizer(sqlQuery);
-                    if (stringTokenizer.hasMoreTokens()) {
-                        String token = stringTokenizer.nextToken();
-                        if ("REM".equalsIgnoreCase(token)) {
-                            continue;
-                        }
-                    }
-
-                    if (sqlQuery.contains("\\n")) {
-                        sqlQuery = sqlQuery.replace("\\n", "");
-                    }
-
-                    if(sqlQuery.length()>0) {
-                        preparedStatement = connection.prepareStatement(sqlQuery.trim());
-                        preparedStatement.execute();
-                        connection.commit();
-                        preparedStatement.close();
-                    }
-                }
-
-
-            /*APIManagerConfiguration config = ServiceReferenceHolder.getInstance().
-                    getAPIManagerConfigurationService().getAPIManagerConfiguration();
-            String dataSourceName = config.getFirstProperty(Constants.DATA_SOURCE_NAME);
+            if (report.isDryRun()) {
+                //only parse the script to report the number of statements to be executed
+                report.itemsMigrated(Constants.DATABASE_MIGRATION_PHASE, MultitenantConstants.SUPER_TENANT_ID,
+                        new SQLScriptParser(dbType).parse(dbScript).size());
+            } else {
+                SQLScriptExecutor scriptExecutor = new SQLScriptExecutor(connection, dbType, dbBatchSize,
+                        dbCommitInterval);
+                report.itemsMigrated(Constants.DATABASE_MIGRATION_PHASE, MultitenantConstants.SUPER_TENANT_ID,
+                        scriptExecutor.execute(dbScript));
 
-            if (dataSourceName != null) {
-                try {
-                    Context ctx = new InitialContext();
-                    dataSource = (DataSource) ctx.lookup(dataSourceName);
-                } catch (NamingException e) {
-                    throw new APIManagementException("Error while looking up the data " +
-                            "source: " + dataSourceName);
-                }
+                //To drop the foreign key
+                dropFKConstraint(migrateVersion, dbType);
             }
-            MigrationDBCreator migrationDBCreator = new MigrationDBCreator(dataSource);
-            migrationDBCreator.createRegistryDatabase();*/
-                //dropFKConstraint(migrateVersion, dbType);
-
-    /*        if (log.isDebugEnabled()) {
-                log.debug("Query " + queryToExecute + " executed ");
-            }*/
-
-            //To drop the foreign key
-            dropFKConstraint(migrateVersion, dbType);
 
-            } catch (IOException e) {
-            //ResourceUtil.handleException("Error occurred while finding the query. Please check the file path.", e);
-            log.error("Error occurred while migrating databases", e);
         } catch (Exception e) {
-            //ResourceUtil.handleException("Error occurred while finding the query. Please check the file path.", e);
-            log.error("Error occurred while migrating databases", e);
+            error = e;
         } finally {
             if (connection != null) {
                 connection.close();
             }
         }
+        long timeTaken = System.currentTimeMillis() - startTime;
+        report.phaseCompleted(Constants.DATABASE_MIGRATION_PHASE, Collections.singletonList(
+                new TenantMigrationResult(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME,
+                        MultitenantConstants.SUPER_TENANT_ID, timeTaken, error)), timeTaken);
+        if (error != null) {
+            //the registry and file system migrations expect the migrated schema, so they are not run
+            log.error("Error occurred while migrating databases", error);
+            throw new APIMigrationException("Database migration for API Manager 1.8.0 failed", error);
+        }
         log.info("DB resource migration done for all the tenants");
     }
 
@@ -263,53 +247,85 @@ public class MigrateFrom18to19 implements MigrationClient {
      */
     void rxtMigration() throws APIMigrationException {
         log.info("Rxt migration for API Manager 1.9.0 started.");
-        boolean isTenantFlowStarted = false;
+        //the updated artifacts are indexed once at the end of the phase instead of while they are being written
+        boolean indexingSuspended = false;
+        if (!report.isDryRun()) {
+            indexingSuspended = GenericArtifactBatchUpdater.suspendIndexing();
+        }
         try {
-            for (Tenant tenant : tenantsArray) {
-                PrivilegedCarbonContext.startTenantFlow();
-                isTenantFlowStarted = true;
-
-                /*Use the super tenant instead of tenant because tenants do not have access to master-datasources.xml
-                If you use tenant details instead of super tenant, you will get javax.naming.NameNotFoundException:
-                Name [jdbc/AM_API] is not bound in this Context. Unable to find [jdbc]*/
-
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().
-                        setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-
-                String adminName = ServiceHolder.getRealmService().getTenantUserRealm(tenant.getId())
-                        .getRealmConfiguration().getAdminUserName();
-                ServiceHolder.getTenantRegLoader().loadTenantRegistry(tenant.getId());
-                Registry registry = ServiceHolder.getRegistryService().getGovernanceUserRegistry(adminName, tenant
-                        .getId());
-                GenericArtifactManager artifactManager = APIUtil.getArtifactManager(registry, APIConstants.API_KEY);
-                //GenericArtifactManager manager = new GenericArtifactManager(registry, "api");
-                GovernanceUtils.loadGovernanceArtifacts((UserRegistry) registry);
-                GenericArtifact[] artifacts = artifactManager.getAllGenericArtifacts();
-                for (GenericArtifact artifact : artifacts) {
-                    API api = APIUtil.getAPI(artifact, registry);
-
-                    APIIdentifier apiIdentifier = api.getId();
-                    String apiVersion = apiIdentifier.getVersion();
+            tenantMigrationExecutor.execute(Constants.RXT_MIGRATION_PHASE, tenantsArray, new TenantMigrationTask() {
+                @Override
+                public void migrate(Tenant tenant) throws APIMigrationException {
+                    rxtMigration(tenant);
+                }
+            });
+        } finally {
+            checkpoint.close();
+            if (indexingSuspended) {
+                GenericArtifactBatchUpdater.resumeIndexing();
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Rxt resource migration done for all the tenants");
+        }
+    }
 
-                    if(!(api.getContext().endsWith(RegistryConstants.PATH_SEPARATOR + apiVersion))) {
-                        artifact.setAttribute("overview_context", api.getContext() +
-                                RegistryConstants.PATH_SEPARATOR + apiVersion);
-                    }
+    /**
+     * This method is used to migrate the api rxt artifacts of a single tenant
+     *
+     * @param tenant tenant to be migrated
+     * @throws APIMigrationException
+     */
+    void rxtMigration(Tenant tenant) throws APIMigrationException {
+        if (checkpoint.isTenantCompleted(Constants.RXT_MIGRATION_PHASE, tenant.getId())) {
+            log.info("Rxt migration already completed for tenant " + tenant.getDomain() + ". Skipping.");
+            return;
+        }
+        try {
+            /*Use the super tenant instead of tenant because tenants do not have access to master-datasources.xml
+            If you use tenant details instead of super tenant, you will get javax.naming.NameNotFoundException:
+            Name [jdbc/AM_API] is not bound in this Context. Unable to find [jdbc]*/
+
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().
+                    setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+
+            String adminName = ServiceHolder.getRealmService().getTenantUserRealm(tenant.getId())
+                    .getRealmConfiguration().getAdminUserName();
+            ServiceHolder.getTenantRegLoader().loadTenantRegistry(tenant.getId());
+            Registry registry = ServiceHolder.getRegistryService().getGovernanceUserRegistry(adminName, tenant
+                    .getId());
+            GenericArtifactManager artifactManager = APIUtil.getArtifactManager(registry, APIConstants.API_KEY);
+            GovernanceUtils.loadGovernanceArtifacts((UserRegistry) registry);
+            GenericArtifactIterator artifacts = new GenericArtifactIterator(artifactManager,
+                    checkpoint.getLastArtifactId(Constants.RXT_MIGRATION_PHASE, tenant.getId()));
+            GenericArtifactBatchUpdater batchUpdater = new GenericArtifactBatchUpdater(registry, artifactManager,
+                    artifactBatchSize);
+            GenericArtifact artifact;
+            while ((artifact = artifacts.next()) != null) {
+                API api = APIUtil.getAPI(artifact, registry);
+
+                APIIdentifier apiIdentifier = api.getId();
+                String apiVersion = apiIdentifier.getVersion();
+
+                if(!(api.getContext().endsWith(RegistryConstants.PATH_SEPARATOR + apiVersion))) {
+                    artifact.setAttribute("overview_context", api.getContext() +
+                            RegistryConstants.PATH_SEPARATOR + apiVersion);
+                }
 
-                    artifact.addAttribute("overview_contextTemplate", api.getContext() +
-                            RegistryConstants.PATH_SEPARATOR + "{version}");
-                    artifact.addAttribute("overview_environments", "");
-                    artifact.addAttribute("overview_versionType", "");
+                artifact.addAttribute("overview_contextTemplate", api.getContext() +
+                        RegistryConstants.PATH_SEPARATOR + "{version}");
+                artifact.addAttribute("overview_environments", "");
+                artifact.addAttribute("overview_versionType", "");
 
-                    artifactManager.updateGenericArtifact(artifact);
+                report.itemMigrated(Constants.RXT_MIGRATION_PHASE, tenant.getId());
+                if (!report.isDryRun()) {
+                    rxtArtifactsCompleted(tenant, batchUpdater.add(artifact));
                 }
-
             }
-            if(isTenantFlowStarted){
-                PrivilegedCarbonContext.endTenantFlow();
-            }
-
+            rxtArtifactsCompleted(tenant, batchUpdater.flush());
+            checkpoint.tenantCompleted(Constants.RXT_MIGRATION_PHASE, tenant.getId());
+            logSkippedArtifacts(Constants.RXT_MIGRATION_PHASE, tenant, artifacts);
         } catch (APIManagementException e) {
             ResourceUtil.handleException("Error occurred while reading API from the artifact ", e);
         } catch (RegistryException e) {
@@ -317,11 +333,29 @@ public class MigrateFrom18to19 implements MigrationClient {
         } catch (UserStoreException e) {
             ResourceUtil.handleException("Error occurred while reading tenant information", e);
         }
-        if (log.isDebugEnabled()) {
-            log.debug("Rxt resource migration done for all the tenants");
+    }
+
+
+    private static void logSkippedArtifacts(String phase, Tenant tenant, GenericArtifactIterator artifacts) {
+        if (artifacts.getResumedCount() > 0 || artifacts.getMissingCount() > 0) {
+            log.info(phase + " of tenant " + tenant.getDomain() + " skipped " + artifacts.getResumedCount() +
+                    " artifacts migrated by a previous run and " + artifacts.getMissingCount() +
+                    " artifacts deleted during the migration");
         }
     }
 
+    /**
+     * Records the api artifacts of a tenant written by the batch updater in the migration checkpoint
+     *
+     * @param tenant      tenant the artifacts belong to
+     * @param artifactIds ids of the written artifacts
+     * @throws APIMigrationException if the checkpoint cannot be written
+     */
+    private void rxtArtifactsCompleted(Tenant tenant, List<String> artifactIds) throws APIMigrationException {
+        for (String artifactId : artifactIds) {
+            checkpoint.artifactCompleted(Constants.RXT_MIGRATION_PHASE, tenant.getId(), artifactId);
+        }
+    }
 
     /**
      * This method is used to copy new rxt to the registry
@@ -392,348 +426,186 @@ public class MigrateFrom18to19 implements MigrationClient {
      */
     void swaggerResourceMigration() throws APIMigrationException {
         log.info("Swagger migration for API Manager 1.9.0 started.");
-        boolean isTenantFlowStarted = false;
+        //the conversions of all the tenants share a single pool sized to the available processors
+        swaggerConverter = new Swagger12To20Converter(Runtime.getRuntime().availableProcessors());
         try {
-            for (Tenant tenant : tenantsArray) {
-                if (log.isDebugEnabled()) {
-                    log.debug("Swagger migration for tenant " + tenant.getDomain() + "[" + tenant.getId() + "]" + " ");
-                }
-
-                PrivilegedCarbonContext.startTenantFlow();
-                isTenantFlowStarted = true;
+            tenantMigrationExecutor.execute(Constants.SWAGGER_MIGRATION_PHASE, tenantsArray,
+                    new TenantMigrationTask() {
+                        @Override
+                        public void migrate(Tenant tenant) throws APIMigrationException {
+                            swaggerResourceMigration(tenant);
+                        }
+                    });
+        } finally {
+            swaggerConverter.shutdown();
+            checkpoint.close();
+        }
 
-                //Use the super tenant instead of tenant because tenants do not have access to master-datasources.xml
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().
-                        setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
-
-                String adminName = ServiceHolder.getRealmService().getTenantUserRealm(
-                        tenant.getId()).getRealmConfiguration().getAdminUserName();
-                ServiceHolder.getTenantRegLoader().loadTenantRegistry(tenant.getId());
-                Registry registry = ServiceHolder.getRegistryService().
-                        getGovernanceUserRegistry(adminName, tenant.getId());
-                GenericArtifactManager manager = new GenericArtifactManager(registry, "api");
-                GovernanceUtils.loadGovernanceArtifacts((UserRegistry) registry);
-                GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
+        if (log.isDebugEnabled()) {
+            log.debug("Swagger resource migration done for all the tenants");
+        }
 
-                for (GenericArtifact artifact : artifacts) {
-                    API api = APIUtil.getAPI(artifact, registry);
-                    APIIdentifier apiIdentifier = api.getId();
-                    String apiName = apiIdentifier.getApiName();
-                    String apiVersion = apiIdentifier.getVersion();
-                    String apiProviderName = apiIdentifier.getProviderName();
+    }
 
-                    String swagger12location = ResourceUtil.getSwagger12ResourceLocation(apiName,
-                            apiVersion, apiProviderName);
+    /**
+     * This method is used to migrate the swagger v1.2 resources of a single tenant to swagger v2.0 resources
+     *
+     * @param tenant tenant to be migrated
+     * @throws APIMigrationException
+     */
+    void swaggerResourceMigration(Tenant tenant) throws APIMigrationException {
+        if (checkpoint.isTenantCompleted(Constants.SWAGGER_MIGRATION_PHASE, tenant.getId())) {
+            log.info("Swagger migration already completed for tenant " + tenant.getDomain() + ". Skipping.");
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Swagger migration for tenant " + tenant.getDomain() + "[" + tenant.getId() + "]" + " ");
+        }
+        try {
+            //Use the super tenant instead of tenant because tenants do not have access to master-datasources.xml
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().
+                    setTenantDomain(MultitenantConstants.SUPER_TENANT_DOMAIN_NAME);
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(MultitenantConstants.SUPER_TENANT_ID);
+
+            String adminName = ServiceHolder.getRealmService().getTenantUserRealm(
+                    tenant.getId()).getRealmConfiguration().getAdminUserName();
+            ServiceHolder.getTenantRegLoader().loadTenantRegistry(tenant.getId());
+            Registry registry = ServiceHolder.getRegistryService().
+                    getGovernanceUserRegistry(adminName, tenant.getId());
+            GenericArtifactManager manager = new GenericArtifactManager(registry, "api");
+            GovernanceUtils.loadGovernanceArtifacts((UserRegistry) registry);
+            GenericArtifactIterator artifacts = new GenericArtifactIterator(manager,
+                    checkpoint.getLastArtifactId(Constants.SWAGGER_MIGRATION_PHASE, tenant.getId()));
+
+            //the swagger v1.2 documents of the next APIs are read while the previous ones are converted. The
+            //converted documents are stored in the order of the artifacts to keep the checkpoint consistent
+            int window = swaggerConverter.getParallelism() * 2;
+            LinkedList<PendingSwaggerMigration> pending = new LinkedList<PendingSwaggerMigration>();
+            GenericArtifact artifact;
+            while ((artifact = artifacts.next()) != null) {
+                API api = APIUtil.getAPI(artifact, registry);
+                APIIdentifier apiIdentifier = api.getId();
+                String apiName = apiIdentifier.getApiName();
+                String apiVersion = apiIdentifier.getVersion();
+                String apiProviderName = apiIdentifier.getProviderName();
+
+                String swagger12location = ResourceUtil.getSwagger12ResourceLocation(apiName,
+                        apiVersion, apiProviderName);
+
+                Swagger12To20Converter.Conversion conversion = null;
+                if (!registry.resourceExists(swagger12location)) {
+                    log.error("Swagger Resource migration has not happen yet for " +
+                            apiName + "-" + apiVersion + "-"
+                            + apiProviderName);
 
-                    if (!registry.resourceExists(swagger12location)) {
-                        log.error("Swagger Resource migration has not happen yet for " +
-                                apiName + "-" + apiVersion + "-"
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Creating swagger v2.0 resource for : " + apiName + "-" + apiVersion + "-"
                                 + apiProviderName);
-
-                    } else {
-                        if (log.isDebugEnabled()) {
-                            log.debug("Creating swagger v2.0 resource for : " + apiName + "-" + apiVersion + "-"
-                                    + apiProviderName);
-                        }
-                        //get swagger v2 doc
-                        String swagger2doc = getSwagger2docUsingSwagger12RegistryResources(registry, swagger12location);
-
-                        //create location in registry and add this
-                        String swagger2location = ResourceUtil.getSwagger2ResourceLocation(apiName, apiVersion,
-                                apiProviderName);
-
-                        Resource docContent = registry.newResource();
-                        docContent.setContent(swagger2doc);
-                        docContent.setMediaType("application/json");
-                        registry.put(swagger2location, docContent);
-
-                        //Currently set to ANONYMOUS_ROLE, need to set to visible roles
-                        ServiceHolder.getRealmService().getTenantUserRealm(tenant.getId()).getAuthorizationManager()
-                                .authorizeRole(APIConstants.ANONYMOUS_ROLE,
-                                        "_system/governance" + swagger2location, ActionConstants.GET);
                     }
+                    //get swagger v2 doc
+                    conversion = swaggerConverter.submit(readSwagger12Document(registry, swagger12location));
                 }
 
-                PrivilegedCarbonContext.endTenantFlow();
+                //create location in registry and add this
+                String swagger2location = ResourceUtil.getSwagger2ResourceLocation(apiName, apiVersion,
+                        apiProviderName);
+                pending.add(new PendingSwaggerMigration(artifact.getId(), swagger2location, conversion));
+                if (pending.size() >= window) {
+                    completeSwaggerMigration(tenant, registry, pending.removeFirst());
+                }
             }
-        } catch (MalformedURLException e) {
-            ResourceUtil.handleException("Error occurred while creating swagger v2.0 document ", e);
+            while (!pending.isEmpty()) {
+                completeSwaggerMigration(tenant, registry, pending.removeFirst());
+            }
+            checkpoint.tenantCompleted(Constants.SWAGGER_MIGRATION_PHASE, tenant.getId());
+            logSkippedArtifacts(Constants.SWAGGER_MIGRATION_PHASE, tenant, artifacts);
         } catch (APIManagementException e) {
             ResourceUtil.handleException("Error occurred while reading API from the artifact ", e);
         } catch (RegistryException e) {
             ResourceUtil.handleException("Error occurred while accessing the registry", e);
-        } catch (ParseException e) {
-            ResourceUtil.handleException("Error occurred while getting swagger v2.0 document", e);
         } catch (UserStoreException e) {
             ResourceUtil.handleException("Error occurred while reading tenant information", e);
         }
+    }
 
-        if (log.isDebugEnabled()) {
-            log.debug("Swagger resource migration done for all the tenants");
+    /**
+     * This method stores the converted swagger v2.0 doc of an API and records the API in the checkpoint
+     *
+     * @param tenant   tenant being migrated
+     * @param registry governance registry of the tenant
+     * @param pending  swagger migration of the API
+     * @throws APIMigrationException if the conversion has failed
+     * @throws RegistryException
+     * @throws UserStoreException
+     */
+    private void completeSwaggerMigration(Tenant tenant, Registry registry, PendingSwaggerMigration pending)
+            throws APIMigrationException, RegistryException, UserStoreException {
+        if (pending.conversion != null) {
+            String swagger2doc = pending.conversion.get();
+            if (!report.isDryRun()) {
+                Resource docContent = registry.newResource();
+                docContent.setContent(swagger2doc);
+                docContent.setMediaType("application/json");
+                registry.put(pending.swagger2location, docContent);
+
+                //Currently set to ANONYMOUS_ROLE, need to set to visible roles
+                ServiceHolder.getRealmService().getTenantUserRealm(tenant.getId()).getAuthorizationManager()
+                        .authorizeRole(APIConstants.ANONYMOUS_ROLE,
+                                "_system/governance" + pending.swagger2location, ActionConstants.GET);
+            }
+            report.itemMigrated(Constants.SWAGGER_MIGRATION_PHASE, tenant.getId());
         }
-
+        checkpoint.artifactCompleted(Constants.SWAGGER_MIGRATION_PHASE, tenant.getId(), pending.artifactId);
     }
 
     /**
-     * This method generates swagger v2 doc using swagger 1.2 doc
+     * This method reads all the swagger v1.2 resources of an API in a single pass over the swagger v1.2 collection
      *
      * @param registry          governance registry
      * @param swagger12location the location of swagger 1.2 doc
-     * @return JSON string of swagger v2 doc
-     * @throws java.net.MalformedURLException
-     * @throws org.json.simple.parser.ParseException
+     * @return swagger v1.2 document to be converted
      * @throws org.wso2.carbon.registry.core.exceptions.RegistryException
      */
-
-    private String getSwagger2docUsingSwagger12RegistryResources(Registry registry, String swagger12location)
-            throws MalformedURLException, ParseException, RegistryException {
-
-        JSONParser parser = new JSONParser();
-        String swagger12BasePath = null;
-
-        Resource swaggerRes = registry.get(swagger12location + APIConstants.API_DOC_1_2_RESOURCE_NAME);
-        JSONObject swagger12doc = (JSONObject) parser.parse(new String((byte[]) swaggerRes.getContent()));
-
-        Map<String, JSONArray> apiDefPaths = new HashMap<String, JSONArray>();
-        Resource swagger12Res = registry.get(swagger12location);
+    private Swagger12To20Converter.Swagger12Document readSwagger12Document(Registry registry,
+                                                                          String swagger12location)
+            throws RegistryException {
+        String resourceListing = null;
+        List<String> apiDeclarations = new ArrayList<String>();
 
         //get all the resources inside the 1.2 resource location
+        Resource swagger12Res = registry.get(swagger12location);
         String[] apiDefinitions = (String[]) swagger12Res.getContent();
 
-        //get each resource in the 1.2 folder except the api-doc resource
         for (String apiDefinition : apiDefinitions) {
-
-            String resourceName = apiDefinition.substring(apiDefinition.lastIndexOf("/"));
-            //skip if api-doc file
-            if (resourceName.equals(APIConstants.API_DOC_1_2_RESOURCE_NAME)) {
-                continue;
-            }
-
+            String resourceName = apiDefinition.substring(apiDefinition.lastIndexOf("/") + 1);
             Resource resource = registry.get(apiDefinition);
-            JSONObject apiDef =
-                    (JSONObject) parser.parse(new String((byte[]) resource.getContent()));
-            //get the base path. this is same for all api definitions.
-            swagger12BasePath = (String) apiDef.get("basePath");
-            JSONArray apiArray = (JSONArray) apiDef.get("apis");
-            for (Object anApiArray : apiArray) {
-                JSONObject api = (JSONObject) anApiArray;
-                String path = (String) api.get("path");
-                JSONArray operations = (JSONArray) api.get("operations");
-                //set the operations object inside each api definition and set it in a map against its resource path
-                apiDefPaths.put(path, operations);
-            }
-        }
-        JSONObject swagger2Doc = generateSwagger2Document(swagger12doc, apiDefPaths, swagger12BasePath);
-        return swagger2Doc.toJSONString();
-    }
-
-
-    /**
-     * Generate Swagger v2.0 document using Swagger v1.2 resources
-     *
-     * @param swagger12doc      Old Swagger Document
-     * @param apiDefPaths       Paths in API definition
-     * @param swagger12BasePath Location of swagger v1.2 document
-     * @return Swagger v2.0 document as a JSON object
-     * @throws ParseException
-     * @throws MalformedURLException
-     */
-
-    private static JSONObject generateSwagger2Document(JSONObject swagger12doc,
-                                                       Map<String, JSONArray> apiDefPaths, String swagger12BasePath)
-            throws ParseException, MalformedURLException {
-        //create swagger 2.0 doc
-        JSONObject swagger20doc = new JSONObject();
-
-        //set swagger version
-        swagger20doc.put("swagger", "2.0");
-
-        //set the info object
-        JSONObject info = generateInfoObject(swagger12doc);
-        //update info object
-        swagger20doc.put("info", info);
-
-        //set the paths object
-        JSONObject pathObj = generatePathsObj(apiDefPaths);
-        swagger20doc.put("paths", pathObj);
-
-        URL url = new URL(swagger12BasePath);
-        swagger20doc.put("host", url.getHost());
-        swagger20doc.put("basePath", url.getPath());
-
-        JSONArray schemes = new JSONArray();
-        schemes.add(url.getProtocol());
-        swagger20doc.put("schemes", schemes);
-
-        //securityDefinitions
-        if (swagger12doc.containsKey("authorizations")) {
-            JSONObject securityDefinitions = generateSecurityDefinitionsObject(swagger12doc);
-            swagger20doc.put("securityDefinitions", securityDefinitions);
-        }
-
-        return swagger20doc;
-    }
-
-    /**
-     * Generate swagger v2 security definition object
-     * See <a href="https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#securityDefinitionsObject">
-     * Swagger v2 definition object</a>
-     *
-     * @param swagger12doc Old Swagger Document
-     * @return security definition object
-     * @throws ParseException
-     */
-    private static JSONObject generateSecurityDefinitionsObject(JSONObject swagger12doc) throws ParseException {
-        JSONParser parser = new JSONParser();
-        JSONObject securityDefinitionObject = new JSONObject();
-        JSONObject securitySchemeObject = (JSONObject) parser.parse(Constants.DEFAULT_SECURITY_SCHEME);
-
-        JSONObject authorizations = (JSONObject) swagger12doc.get("authorizations");
-        Set authTypes = authorizations.keySet();
-
-        for (Object obj : authTypes) {
-            JSONObject authObj = (JSONObject) authorizations.get(obj.toString());
-            if (authObj.containsKey("scopes")) {
-                //Put it to custom WSO2 scopes
-                securitySchemeObject.put("x-wso2-scopes", authObj.get("scopes"));
-            }
-            securityDefinitionObject.put(obj.toString(), securitySchemeObject);
-        }
-        return securityDefinitionObject;
-    }
-
-    /**
-     * generate swagger v2 info object using swagger 1.2 doc.
-     * See <a href="https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#infoObject">Swagger v2 info
-     * object</a>
-     *
-     * @param swagger12doc Old Swagger Document
-     * @return swagger v2 infoObject
-     * @throws ParseException
-     */
-    private static JSONObject generateInfoObject(JSONObject swagger12doc) throws ParseException {
-
-        JSONObject infoObj = (JSONObject) swagger12doc.get("info");
-        JSONParser parser = new JSONParser();
-        JSONObject swagger2InfoObj = (JSONObject) parser.parse(Constants.DEFAULT_INFO);
-
-        //set the required parameters first
-        String title = (String) infoObj.get("title");
-        String version = (String) swagger12doc.get("apiVersion");
-
-        swagger2InfoObj.put("title", title);
-        swagger2InfoObj.put("version", version);
-
-        if (infoObj.containsKey("description")) {
-            swagger2InfoObj.put("description", infoObj.get("description"));
-        }
-        if (infoObj.containsKey("termsOfServiceUrl")) {
-            swagger2InfoObj.put("termsOfService", infoObj.get("termsOfServiceUrl"));
-        }
-
-        //contact object
-        if (infoObj.containsKey("contact")) {
-            JSONObject contactsObj = new JSONObject();
-            String contact = (String) infoObj.get("contact");
-            if (contact.contains("http")) {
-                contactsObj.put("url", contact);
-            } else if (contact.contains("@")) {
-                contactsObj.put("email", contact);
+            String content = new String((byte[]) resource.getContent());
+            if (resourceName.equals(Swagger12To20Converter.RESOURCE_LISTING_NAME)) {
+                resourceListing = content;
             } else {
-                contactsObj.put("name", contact);
+                apiDeclarations.add(content);
             }
-            swagger2InfoObj.put("contact", contactsObj);
-        }
-
-        //licence object
-        JSONObject licenseObj = new JSONObject();
-        if (infoObj.containsKey("license")) {
-            licenseObj.put("name", infoObj.get("license"));
-        }
-        if (infoObj.containsKey("licenseUrl")) {
-            licenseObj.put("url", infoObj.get("licenseUrl"));
-        }
-        if (!licenseObj.isEmpty()) {
-            swagger2InfoObj.put("license", licenseObj);
         }
-        return swagger2InfoObj;
+        return new Swagger12To20Converter.Swagger12Document(swagger12location, resourceListing, apiDeclarations);
     }
 
     /**
-     * Generate Swagger v2 paths object from swagger v1.2 document
-     * See <a href="https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#paths-object">Swagger v2
-     * paths object</a>
-     *
-     * @param apiDefinitionPaths API definition paths
-     * @return swagger v2 paths object
-     * @throws ParseException
+     * Swagger migration of an API which waits for its swagger v2.0 doc to be stored
      */
-    private static JSONObject generatePathsObj(Map<String, JSONArray> apiDefinitionPaths) throws ParseException {
-        JSONObject pathsObj = new JSONObject();
-        JSONParser jsonParser = new JSONParser();
-
-        for (Map.Entry<String, JSONArray> entry : apiDefinitionPaths.entrySet()) {
-            String key = entry.getKey();
-            JSONArray operations = entry.getValue();
-            JSONObject pathItemObj = new JSONObject();
-            for (Object operation : operations) {
-                JSONObject operationObject = (JSONObject) operation;
-                String method = (String) operationObject.get("method");
-                JSONArray swagger2ParamObjects = (JSONArray) operationObject.get("parameters");
-                JSONObject swagger2OperationsObj = new JSONObject();
-                JSONArray newParameters = new JSONArray();
-                for (Object swagger2ParamObj : swagger2ParamObjects) {
-                    JSONObject oldParam = (JSONObject) swagger2ParamObj;
-                    JSONObject paramObj = new JSONObject();
-                    paramObj.put("name", oldParam.get("name"));
-                    paramObj.put("in", oldParam.get("paramType"));
-                    paramObj.put("required", oldParam.get("required"));
-                    if (paramObj.containsKey("description")) {
-                        paramObj.put("description", oldParam.get("description"));
-                    } else {
-                        paramObj.put("description", "");
-                    }
-                    newParameters.add(paramObj);
-                }
-
-                //generate the Operation object
-                // (https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#operationObject)
-                swagger2OperationsObj.put("operationId", operationObject.get("nickname"));
-                //setting operation level params
-                swagger2OperationsObj.put("parameters", newParameters);
-                if (operationObject.containsKey("notes")) {
-                    swagger2OperationsObj.put("description", operationObject.get("notes"));
-                }
-                if (operationObject.containsKey("summary")) {
-                    swagger2OperationsObj.put("summary", operationObject.get("summary"));
-                }
-
-
-                //set pathItem object for the resource
-                //(https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#pathItemObject)
-                pathItemObj.put(method.toLowerCase(), swagger2OperationsObj);
-
-                //set the responseObject
-                //(https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#responsesObject)
-                JSONObject responseObject = null;
-                if (operationObject.containsKey("responseMessages")) {
-                    responseObject = new JSONObject();
-                    JSONArray responseMessages = (JSONArray) operationObject.get("responseMessages");
-                    for (Object responseMessage : responseMessages) {
-                        JSONObject errorObj = (JSONObject) responseMessage;
-                        responseObject.put(errorObj.get("code"), errorObj.get("message"));
-                    }
-                }
-                if (responseObject == null) {
-                    //set a default response message since this is required field
-                    responseObject = (JSONObject) jsonParser.parse(Constants.DEFAULT_RESPONSE);
-                }
-                swagger2OperationsObj.put("responses", responseObject);
-            }
-            pathsObj.put(key, pathItemObj);
+    private static class PendingSwaggerMigration {
+
+        private final String artifactId;
+        private final String swagger2location;
+        //null if the API does not have a swagger v1.2 doc
+        private final Swagger12To20Converter.Conversion conversion;
+
+        PendingSwaggerMigration(String artifactId, String swagger2location,
+                                Swagger12To20Converter.Conversion conversion) {
+            this.artifactId = artifactId;
+            this.swagger2location = swagger2location;
+            this.conversion = conversion;
         }
-        return pathsObj;
     }
 
 
@@ -747,41 +619,69 @@ public class MigrateFrom18to19 implements MigrationClient {
     public void cleanOldResources() throws APIMigrationException {
         log.info("Resource cleanup started for API Manager 1.9.0");
         try {
-            for (Tenant tenant : tenantsArray) {
-                PrivilegedCarbonContext.startTenantFlow();
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenant.getDomain());
-                PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenant.getId());
-
-                String adminName = ServiceHolder.getRealmService().getTenantUserRealm(
-                        tenant.getId()).getRealmConfiguration().getAdminUserName();
-                ServiceHolder.getTenantRegLoader().loadTenantRegistry(tenant.getId());
-                Registry registry = ServiceHolder.getRegistryService().getGovernanceUserRegistry(adminName,
-                        tenant.getId());
-                GenericArtifactManager manager = new GenericArtifactManager(registry, "api");
-                GovernanceUtils.loadGovernanceArtifacts((UserRegistry) registry);
-                GenericArtifact[] artifacts = manager.getAllGenericArtifacts();
-
-                for (GenericArtifact artifact : artifacts) {
-                    API api;
-
-                    api = APIUtil.getAPI(artifact, registry);
-
-                    APIIdentifier apiIdentifier = api.getId();
-                    String apiName = apiIdentifier.getApiName();
-                    String apiVersion = apiIdentifier.getVersion();
-                    String apiProviderName = apiIdentifier.getProviderName();
-
-                    String swagger12location = ResourceUtil.getSwagger12ResourceLocation(apiName, apiVersion,
-                            apiProviderName);
+            tenantMigrationExecutor.execute(Constants.RESOURCE_CLEANUP_PHASE, tenantsArray, new TenantMigrationTask() {
+                @Override
+                public void migrate(Tenant tenant) throws APIMigrationException {
+                    cleanOldResources(tenant);
+                }
+            });
+        } finally {
+            checkpoint.close();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("old resources cleaned up.");
+        }
+    }
 
-                    if (registry.resourceExists(swagger12location)) {
+    /**
+     * This method is used to clean the old swagger v1.2 registry resources of a single tenant
+     *
+     * @param tenant tenant to be cleaned up
+     * @throws APIMigrationException
+     */
+    void cleanOldResources(Tenant tenant) throws APIMigrationException {
+        if (checkpoint.isTenantCompleted(Constants.RESOURCE_CLEANUP_PHASE, tenant.getId())) {
+            log.info("Resource cleanup already completed for tenant " + tenant.getDomain() + ". Skipping.");
+            return;
+        }
+        try {
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantDomain(tenant.getDomain());
+            PrivilegedCarbonContext.getThreadLocalCarbonContext().setTenantId(tenant.getId());
+
+            String adminName = ServiceHolder.getRealmService().getTenantUserRealm(
+                    tenant.getId()).getRealmConfiguration().getAdminUserName();
+            ServiceHolder.getTenantRegLoader().loadTenantRegistry(tenant.getId());
+            Registry registry = ServiceHolder.getRegistryService().getGovernanceUserRegistry(adminName,
+                    tenant.getId());
+            GenericArtifactManager manager = new GenericArtifactManager(registry, "api");
+            GovernanceUtils.loadGovernanceArtifacts((UserRegistry) registry);
+            GenericArtifactIterator artifacts = new GenericArtifactIterator(manager,
+                    checkpoint.getLastArtifactId(Constants.RESOURCE_CLEANUP_PHASE, tenant.getId()));
+            GenericArtifact artifact;
+            while ((artifact = artifacts.next()) != null) {
+                API api;
+
+                api = APIUtil.getAPI(artifact, registry);
+
+                APIIdentifier apiIdentifier = api.getId();
+                String apiName = apiIdentifier.getApiName();
+                String apiVersion = apiIdentifier.getVersion();
+                String apiProviderName = apiIdentifier.getProviderName();
+
+                String swagger12location = ResourceUtil.getSwagger12ResourceLocation(apiName, apiVersion,
+                        apiProviderName);
+
+                if (registry.resourceExists(swagger12location)) {
+                    if (!report.isDryRun()) {
                         registry.delete(APIConstants.API_DOC_LOCATION);
                         log.info("Resource deleted from the registry.");
-
                     }
-
+                    report.itemMigrated(Constants.RESOURCE_CLEANUP_PHASE, tenant.getId());
                 }
+                checkpoint.artifactCompleted(Constants.RESOURCE_CLEANUP_PHASE, tenant.getId(), artifact.getId());
             }
+            checkpoint.tenantCompleted(Constants.RESOURCE_CLEANUP_PHASE, tenant.getId());
+            logSkippedArtifacts(Constants.RESOURCE_CLEANUP_PHASE, tenant, artifacts);
         } catch (APIManagementException e) {
             ResourceUtil.handleException("API Management Exception occurred while migrating rxt.", e);
         } catch (UserStoreException e) {
@@ -789,51 +689,106 @@ public class MigrateFrom18to19 implements MigrationClient {
         } catch (RegistryException e) {
             ResourceUtil.handleException("Error occurred while accessing the registry.", e);
         }
-        if (log.isDebugEnabled()) {
-            log.debug("old resources cleaned up.");
-        }
     }
 
     /**
      * This method is used to migrate all the file system components
      * such as sequences and synapse files
+     * The synapse configurations of all the tenants are discovered once and the synapse API and sequence files are
+     * then migrated at the same time, since the two phases do not share any file
      *
      * @throws APIMigrationException
      */
     @Override
     public void fileSystemMigration() throws APIMigrationException {
-        synapseAPIMigration();
-        sequenceMigration();
+        final SynapseConfigManifest manifest = SynapseConfigManifest.build(tenantsArray,
+                new File(CarbonUtils.getCarbonRepository(), "synapse-configs"),
+                new File(CarbonUtils.getCarbonTenantsDirPath()));
+
+        ExecutorService sequenceMigrationExecutor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> sequenceMigration = sequenceMigrationExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws APIMigrationException {
+                    sequenceMigration(manifest);
+                    return null;
+                }
+            });
+            try {
+                synapseAPIMigration(manifest);
+            } finally {
+                //the sequence migration is completed before a failure of the synapse API migration is reported
+                awaitQuietly(sequenceMigration);
+            }
+            sequenceMigration.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ResourceUtil.handleException("Interrupted while waiting for the sequence migration", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof APIMigrationException) {
+                throw (APIMigrationException) e.getCause();
+            }
+            ResourceUtil.handleException("Error occurred while migrating sequences", e.getCause());
+        } finally {
+            sequenceMigrationExecutor.shutdownNow();
+        }
+    }
+
+    private static void awaitQuietly(Future<?> future) throws InterruptedException {
+        try {
+            future.get();
+        } catch (ExecutionException ignored) {
+            //reported by the caller, which gets the result of the future again
+        }
     }
 
     /**
      * This method is used to migrate sequence files
      * This adds cors_request_handler_ to sequences
      *
+     * @param manifest synapse configurations of the tenants
      * @throws APIMigrationException
      */
-    void sequenceMigration() throws APIMigrationException {
-        String repository = CarbonUtils.getCarbonRepository();
-        String TenantRepo = CarbonUtils.getCarbonTenantsDirPath();
-        for (Tenant tenant : tenantsArray) {
-            String SequenceFilePath;
-            if (tenant.getId() != MultitenantConstants.SUPER_TENANT_ID) {
-                SequenceFilePath = TenantRepo + "/" + tenant.getId() +
-                        "/synapse-configs/default/sequences/";
-            } else {
-                SequenceFilePath = repository + "synapse-configs/default/sequences/";
+    void sequenceMigration(final SynapseConfigManifest manifest) throws APIMigrationException {
+        tenantMigrationExecutor.execute(Constants.SEQUENCE_MIGRATION_PHASE, tenantsArray, new TenantMigrationTask() {
+            @Override
+            public void migrate(Tenant tenant) throws APIMigrationException {
+                sequenceMigration(tenant, manifest.getTenantConfig(tenant.getId()));
             }
-            try {
+        });
+    }
+
+    /**
+     * This method is used to migrate the sequence files of a single tenant
+     *
+     * @param tenant tenant to be migrated
+     * @param config synapse configuration files of the tenant
+     * @throws APIMigrationException
+     */
+    void sequenceMigration(Tenant tenant, SynapseConfigManifest.TenantSynapseConfig config)
+            throws APIMigrationException {
+        File sequenceDirectory = config.getSequenceDirectory();
+        if (sequenceDirectory == null) {
+            log.warn("Sequence directory is not available for tenant " + tenant.getDomain());
+            return;
+        }
+        String SequenceFilePath = sequenceDirectory.getPath() + File.separator;
+        try {
+            if (!report.isDryRun()) {
                 FileUtils.copyInputStreamToFile(MigrateFrom18to19.class.getResourceAsStream(
                                 "/18to19Migration/sequence-scripts/_cors_request_handler_.xml"),
                         new File(SequenceFilePath + "_cors_request_handler_.xml"));
-                ResourceUtil.copyNewSequenceToExistingSequences(SequenceFilePath, "_auth_failure_handler_");
-                ResourceUtil.copyNewSequenceToExistingSequences(SequenceFilePath, "_throttle_out_handler_");
-                ResourceUtil.copyNewSequenceToExistingSequences(SequenceFilePath, "_token_fault_");
-                ResourceUtil.copyNewSequenceToExistingSequences(SequenceFilePath, "fault");
-            } catch (IOException e) {
-                ResourceUtil.handleException("Error occurred while reading file to copy.", e);
             }
+            for (File sequenceFile : config.getSequenceFiles()) {
+                String sequenceName = sequenceFile.getName().substring(0, sequenceFile.getName().length() -
+                        ".xml".length());
+                if (ResourceUtil.copyNewSequenceToExistingSequences(SequenceFilePath, sequenceName,
+                        report.isDryRun())) {
+                    report.itemMigrated(Constants.SEQUENCE_MIGRATION_PHASE, tenant.getId());
+                }
+            }
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while reading file to copy.", e);
         }
     }
 
@@ -842,35 +797,40 @@ public class MigrateFrom18to19 implements MigrationClient {
      * This method is used to migrate synapse files
      * This changes the synapse api and add the new handlers
      *
+     * @param manifest synapse configurations of the tenants
      * @throws APIMigrationException
      */
 
-    void synapseAPIMigration() throws APIMigrationException {
-        String repository = CarbonUtils.getCarbonRepository();
-        String tenantRepository = CarbonUtils.getCarbonTenantsDirPath();
-        for (Tenant tenant : tenantsArray) {
-
-            String SequenceFilePath;
-            if (tenant.getId() != MultitenantConstants.SUPER_TENANT_ID) {
-                SequenceFilePath = tenantRepository + "/" + tenant.getId() +
-                        "/synapse-configs/default/api";
-            } else {
-                SequenceFilePath = repository + "synapse-configs/default/api";
+    void synapseAPIMigration(final SynapseConfigManifest manifest) throws APIMigrationException {
+        tenantMigrationExecutor.execute(Constants.SYNAPSE_API_MIGRATION_PHASE, tenantsArray, new TenantMigrationTask() {
+            @Override
+            public void migrate(Tenant tenant) throws APIMigrationException {
+                synapseAPIMigration(tenant, manifest.getTenantConfig(tenant.getId()));
             }
-            File APIFiles = new File(SequenceFilePath);
-            File[] synapseFiles = APIFiles.listFiles();
-            for (File synapseFile : synapseFiles) {
-                if (tenant.getId() == MultitenantConstants.SUPER_TENANT_ID) {
-                    if (synapseFile.getName().matches("[\\w+][--][\\w+][__v]")) {
-                        ResourceUtil.updateSynapseAPI(synapseFile, "ENDPOINT");
-                    }
-                } else {
-                    if (synapseFile.getName().matches("[\\w+][-AT-]" + tenant.getDomain() + "[--][\\w+][--v]]")) {
-                        ResourceUtil.updateSynapseAPI(synapseFile, "ENDPOINT");
-                    }
-                }
+        });
+    }
 
-            }
+    /**
+     * This method is used to migrate the synapse api files of a single tenant
+     *
+     * @param tenant tenant to be migrated
+     * @param config synapse configuration files of the tenant
+     * @throws APIMigrationException
+     */
+    void synapseAPIMigration(Tenant tenant, SynapseConfigManifest.TenantSynapseConfig config)
+            throws APIMigrationException {
+        if (config.getApiDirectory() == null) {
+            log.warn("Synapse API directory is not available for tenant " + tenant.getDomain());
+            return;
+        }
+        for (File synapseFile : config.getApiFiles()) {
+            updateSynapseAPI(tenant, synapseFile);
+        }
+    }
+
+    private void updateSynapseAPI(Tenant tenant, File synapseFile) throws APIMigrationException {
+        if (ResourceUtil.updateSynapseAPI(synapseFile, "ENDPOINT", report.isDryRun())) {
+            report.itemMigrated(Constants.SYNAPSE_API_MIGRATION_PHASE, tenant.getId());
         }
     }
 }
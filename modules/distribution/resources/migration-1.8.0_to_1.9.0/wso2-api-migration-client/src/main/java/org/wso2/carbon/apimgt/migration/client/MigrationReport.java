@@ -0,0 +1,222 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.client;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class collects the time taken, the number of migrated items and the peak heap usage of each migration phase
+ * and logs a throughput report per phase and for the whole migration. In a dry run the migration reads and
+ * transforms all the resources without writing them, so the report can be used to size the maintenance window and
+ * to find slow tenants before migrating for real.
+ */
+public class MigrationReport {
+
+    private static final Log log = LogFactory.getLog(MigrationReport.class);
+
+    //number of the slowest tenants of a phase logged at info level. All the tenants are logged at debug level
+    private static final int SLOWEST_TENANT_COUNT = 10;
+
+    private final boolean dryRun;
+    private final ConcurrentMap<String, AtomicLong> itemCounts = new ConcurrentHashMap<String, AtomicLong>();
+    private final Map<String, PhaseSummary> phaseSummaries = new LinkedHashMap<String, PhaseSummary>();
+
+    /**
+     * @param dryRun whether the migration is run without writing anything
+     */
+    public MigrationReport(boolean dryRun) {
+        this.dryRun = dryRun;
+    }
+
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * This method is called before a phase starts. It resets the peak usage of the heap memory pools, so that the
+     * peak heap usage of the phase can be reported.
+     *
+     * @param phase name of the migration phase
+     */
+    public void phaseStarted(String phase) {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                pool.resetPeakUsage();
+            }
+        }
+        if (dryRun) {
+            log.info(phase + " started in dry run mode. Nothing will be written.");
+        }
+    }
+
+    /**
+     * Records an item of a tenant which is migrated, or would be migrated in a dry run
+     *
+     * @param phase    name of the migration phase
+     * @param tenantId id of the tenant
+     */
+    public void itemMigrated(String phase, int tenantId) {
+        itemsMigrated(phase, tenantId, 1);
+    }
+
+    /**
+     * Records a number of items of a tenant which are migrated, or would be migrated in a dry run
+     *
+     * @param phase    name of the migration phase
+     * @param tenantId id of the tenant
+     * @param count    number of items
+     */
+    public void itemsMigrated(String phase, int tenantId, long count) {
+        String key = phase + ":" + tenantId;
+        AtomicLong itemCount = itemCounts.get(key);
+        if (itemCount == null) {
+            AtomicLong newCount = new AtomicLong();
+            itemCount = itemCounts.putIfAbsent(key, newCount);
+            if (itemCount == null) {
+                itemCount = newCount;
+            }
+        }
+        itemCount.addAndGet(count);
+    }
+
+    /**
+     * @param phase    name of the migration phase
+     * @param tenantId id of the tenant
+     * @return number of items of the tenant migrated in the given phase
+     */
+    public long getItemCount(String phase, int tenantId) {
+        AtomicLong itemCount = itemCounts.get(phase + ":" + tenantId);
+        return itemCount != null ? itemCount.get() : 0;
+    }
+
+    /**
+     * This method is called when a phase is completed. It logs the throughput of the phase and the time taken by the
+     * slowest tenants.
+     *
+     * @param phase     name of the migration phase
+     * @param results   per tenant results of the phase
+     * @param timeTaken time taken by the phase in milliseconds
+     */
+    public void phaseCompleted(String phase, List<TenantMigrationResult> results, long timeTaken) {
+        long peakHeapUsage = getPeakHeapUsage();
+        long totalItems = 0;
+        for (TenantMigrationResult result : results) {
+            totalItems += getItemCount(phase, result.getTenantId());
+        }
+        PhaseSummary summary = new PhaseSummary(phase, results.size(), totalItems, timeTaken, peakHeapUsage);
+        synchronized (phaseSummaries) {
+            phaseSummaries.put(phase, summary);
+        }
+        log.info(summary);
+
+        List<TenantMigrationResult> sorted = new ArrayList<TenantMigrationResult>(results);
+        Collections.sort(sorted, new Comparator<TenantMigrationResult>() {
+            @Override
+            public int compare(TenantMigrationResult r1, TenantMigrationResult r2) {
+                return r1.getTimeTaken() < r2.getTimeTaken() ? 1 : (r1.getTimeTaken() == r2.getTimeTaken() ? 0 : -1);
+            }
+        });
+        for (int i = 0; i < sorted.size(); i++) {
+            TenantMigrationResult result = sorted.get(i);
+            long itemCount = getItemCount(phase, result.getTenantId());
+            String message = phase + " of tenant " + result + " : " + itemCount + " items in " +
+                    result.getTimeTaken() + " ms (" + formatRate(itemCount, result.getTimeTaken()) + " items/s)";
+            if (i < SLOWEST_TENANT_COUNT) {
+                log.info(message);
+            } else if (log.isDebugEnabled()) {
+                log.debug(message);
+            }
+        }
+    }
+
+    /**
+     * Logs the summary of all the completed phases
+     */
+    public void logSummary() {
+        List<PhaseSummary> summaries;
+        synchronized (phaseSummaries) {
+            summaries = new ArrayList<PhaseSummary>(phaseSummaries.values());
+        }
+        if (summaries.isEmpty()) {
+            return;
+        }
+        long totalTime = 0;
+        long peakHeapUsage = 0;
+        StringBuilder report = new StringBuilder();
+        report.append("API Manager migration ").append(dryRun ? "dry run " : "").append("report");
+        for (PhaseSummary summary : summaries) {
+            report.append("\n\t").append(summary);
+            totalTime += summary.timeTaken;
+            peakHeapUsage = Math.max(peakHeapUsage, summary.peakHeapUsage);
+        }
+        report.append("\n\tTotal time taken ").append(totalTime).append(" ms, peak heap usage ")
+                .append(peakHeapUsage / (1024 * 1024)).append(" MB");
+        log.info(report);
+    }
+
+    private static String formatRate(long count, long timeTaken) {
+        return String.format("%.2f", count * 1000.0 / Math.max(1, timeTaken));
+    }
+
+    private static long getPeakHeapUsage() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static class PhaseSummary {
+
+        private final String phase;
+        private final int tenantCount;
+        private final long itemCount;
+        private final long timeTaken;
+        private final long peakHeapUsage;
+
+        PhaseSummary(String phase, int tenantCount, long itemCount, long timeTaken, long peakHeapUsage) {
+            this.phase = phase;
+            this.tenantCount = tenantCount;
+            this.itemCount = itemCount;
+            this.timeTaken = timeTaken;
+            this.peakHeapUsage = peakHeapUsage;
+        }
+
+        @Override
+        public String toString() {
+            return phase + " : " + itemCount + " items of " + tenantCount + " tenants in " + timeTaken + " ms (" +
+                    formatRate(itemCount, timeTaken) + " items/s), peak heap usage " +
+                    peakHeapUsage / (1024 * 1024) + " MB";
+        }
+    }
+}
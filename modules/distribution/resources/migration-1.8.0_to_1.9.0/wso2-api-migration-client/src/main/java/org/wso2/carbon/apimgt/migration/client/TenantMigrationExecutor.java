@@ -0,0 +1,172 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.client;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+import org.wso2.carbon.context.PrivilegedCarbonContext;
+import org.wso2.carbon.user.api.Tenant;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class executes a {@link TenantMigrationTask} for a list of tenants using a bounded pool of worker threads.
+ * Each tenant is migrated inside its own tenant flow on the worker thread. A failure of one tenant does not stop the
+ * migration of the remaining tenants, but the phase fails once all the tenants are processed.
+ */
+public class TenantMigrationExecutor {
+
+    private static final Log log = LogFactory.getLog(TenantMigrationExecutor.class);
+
+    private final int threadCount;
+    private final MigrationReport report;
+
+    /**
+     * @param threadCount maximum number of tenants migrated concurrently. Values less than 1 are treated as 1
+     * @param report      report to which the time taken by each phase and tenant is added
+     */
+    public TenantMigrationExecutor(int threadCount, MigrationReport report) {
+        this.threadCount = Math.max(1, threadCount);
+        this.report = report;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    /**
+     * This method is used to run the given task for all the tenants
+     *
+     * @param phase   name of the migration phase, used for logging and thread names
+     * @param tenants tenants to be migrated
+     * @param task    migration task to run for each tenant
+     * @return per tenant migration results in the same order as the given tenants
+     * @throws APIMigrationException if the migration failed for any of the tenants or the executor is interrupted
+     *                               while waiting for the tenants
+     */
+    public List<TenantMigrationResult> execute(String phase, List<Tenant> tenants, final TenantMigrationTask task)
+            throws APIMigrationException {
+        List<TenantMigrationResult> results = new ArrayList<TenantMigrationResult>(tenants.size());
+        if (tenants.isEmpty()) {
+            return results;
+        }
+        report.phaseStarted(phase);
+        long startTime = System.currentTimeMillis();
+        int poolSize = Math.min(threadCount, tenants.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(poolSize, new MigrationThreadFactory(phase));
+
+        try {
+            List<Future<TenantMigrationResult>> futures = new ArrayList<Future<TenantMigrationResult>>(tenants.size());
+            for (final Tenant tenant : tenants) {
+                futures.add(executorService.submit(new Callable<TenantMigrationResult>() {
+                    @Override
+                    public TenantMigrationResult call() {
+                        return migrateTenant(tenant, task);
+                    }
+                }));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    Tenant tenant = tenants.get(i);
+                    results.add(new TenantMigrationResult(tenant.getDomain(), tenant.getId(), 0, e.getCause()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIMigrationException("Interrupted while waiting for " + phase + " of the tenants", e);
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        long timeTaken = System.currentTimeMillis() - startTime;
+        List<TenantMigrationResult> failed = logSummary(phase, results, timeTaken);
+        report.phaseCompleted(phase, results, timeTaken);
+        if (!failed.isEmpty()) {
+            throw new APIMigrationException(phase + " failed for " + failed.size() + " of " + results.size() +
+                    " tenants " + failed, failed.get(0).getError());
+        }
+        return results;
+    }
+
+    private TenantMigrationResult migrateTenant(Tenant tenant, TenantMigrationTask task) {
+        long startTime = System.currentTimeMillis();
+        Throwable error = null;
+        PrivilegedCarbonContext.startTenantFlow();
+        try {
+            task.migrate(tenant);
+        } catch (Throwable e) {
+            error = e;
+        } finally {
+            PrivilegedCarbonContext.endTenantFlow();
+        }
+        long timeTaken = System.currentTimeMillis() - startTime;
+        if (error != null) {
+            log.error("Migration failed for tenant " + tenant.getDomain() + "[" + tenant.getId() + "]", error);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Migration completed for tenant " + tenant.getDomain() + "[" + tenant.getId() + "] in " +
+                    timeTaken + " ms");
+        }
+        return new TenantMigrationResult(tenant.getDomain(), tenant.getId(), timeTaken, error);
+    }
+
+    private List<TenantMigrationResult> logSummary(String phase, List<TenantMigrationResult> results,
+                                                   long timeTaken) {
+        List<TenantMigrationResult> failed = new ArrayList<TenantMigrationResult>();
+        for (TenantMigrationResult result : results) {
+            if (!result.isSuccess()) {
+                failed.add(result);
+            }
+        }
+        log.info(phase + " completed for " + (results.size() - failed.size()) + " of " + results.size() +
+                " tenants in " + timeTaken + " ms using " + Math.min(threadCount, results.size()) + " threads");
+        if (!failed.isEmpty()) {
+            log.error(phase + " failed for tenants " + failed);
+        }
+        return failed;
+    }
+
+    /**
+     * Thread factory which names the worker threads after the migration phase
+     */
+    private static class MigrationThreadFactory implements ThreadFactory {
+
+        private final String namePrefix;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        MigrationThreadFactory(String phase) {
+            this.namePrefix = "APIMigration-" + phase.replace(' ', '-') + "-";
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
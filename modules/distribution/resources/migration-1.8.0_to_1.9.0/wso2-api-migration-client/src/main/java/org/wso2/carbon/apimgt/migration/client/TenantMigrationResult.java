@@ -0,0 +1,66 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.client;
+
+/**
+ * Outcome of a {@link TenantMigrationTask} for a single tenant
+ */
+public class TenantMigrationResult {
+
+    private final String tenantDomain;
+    private final int tenantId;
+    private final long timeTaken;
+    private final Throwable error;
+
+    public TenantMigrationResult(String tenantDomain, int tenantId, long timeTaken, Throwable error) {
+        this.tenantDomain = tenantDomain;
+        this.tenantId = tenantId;
+        this.timeTaken = timeTaken;
+        this.error = error;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public int getTenantId() {
+        return tenantId;
+    }
+
+    /**
+     * @return time taken to migrate the tenant in milliseconds
+     */
+    public long getTimeTaken() {
+        return timeTaken;
+    }
+
+    /**
+     * @return the error which caused the tenant migration to fail or null if it was successful
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return tenantDomain + "[" + tenantId + "]";
+    }
+}
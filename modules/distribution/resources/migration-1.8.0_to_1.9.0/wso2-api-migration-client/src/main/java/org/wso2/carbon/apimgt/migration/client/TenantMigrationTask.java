@@ -0,0 +1,36 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.client;
+
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+import org.wso2.carbon.user.api.Tenant;
+
+/**
+ * A unit of migration work which is performed for a single tenant.
+ * Tasks are executed by the {@link TenantMigrationExecutor} inside a tenant flow which is already started
+ * on the worker thread, so the task only needs to set the tenant details on the carbon context.
+ */
+public interface TenantMigrationTask {
+
+    /**
+     * This method is used to migrate the resources of the given tenant
+     *
+     * @param tenant tenant to be migrated
+     * @throws APIMigrationException
+     */
+    public void migrate(Tenant tenant) throws APIMigrationException;
+}
@@ -24,6 +24,7 @@ import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
 import org.wso2.carbon.apimgt.migration.APIMigrationException;
 import org.wso2.carbon.apimgt.migration.client.MigrateFrom18to19;
 import org.wso2.carbon.apimgt.migration.client.MigrationClient;
+import org.wso2.carbon.apimgt.migration.client.MigrationReport;
 import org.wso2.carbon.apimgt.migration.util.Constants;
 import org.wso2.carbon.registry.core.service.RegistryService;
 import org.wso2.carbon.registry.core.service.TenantRegistryLoader;
@@ -68,6 +69,12 @@ public class APIMMigrationServiceComponent {
         boolean isDBMigrationNeeded = false;
         boolean isRegistryMigrationNeeded = false;
         boolean isFileSystemMigrationNeeded = false;
+        int migrationThreadCount = Constants.DEFAULT_MIGRATION_THREAD_COUNT;
+        int dbBatchSize = Constants.DEFAULT_DB_BATCH_SIZE;
+        int dbCommitInterval = Constants.DEFAULT_DB_COMMIT_INTERVAL;
+        int artifactBatchSize = Constants.DEFAULT_ARTIFACT_BATCH_SIZE;
+        String checkpointFilePath = null;
+        boolean dryRun = false;
 
         try {
             APIMgtDBUtil.initialize();
@@ -81,6 +88,12 @@ public class APIMMigrationServiceComponent {
         argsMap.put("isDBMigrationNeeded", System.getProperty("migrateDB"));
         argsMap.put("isRegMigrationNeeded", System.getProperty("migrateReg"));
         argsMap.put("isFileSysMigrationNeeded", System.getProperty("migrateFS"));
+        argsMap.put("migrationThreadCount", System.getProperty("migrationThreads"));
+        argsMap.put("dbBatchSize", System.getProperty("migrationDBBatchSize"));
+        argsMap.put("dbCommitInterval", System.getProperty("migrationDBCommitInterval"));
+        argsMap.put("artifactBatchSize", System.getProperty("migrationArtifactBatchSize"));
+        argsMap.put("checkpointFile", System.getProperty("migrationCheckpoint"));
+        argsMap.put("dryRun", System.getProperty("migrationDryRun"));
 
 
         if (!argsMap.isEmpty()) {
@@ -97,6 +110,14 @@ public class APIMMigrationServiceComponent {
             if (argsMap.get("isFileSysMigrationNeeded") != null) {
                 isFileSystemMigrationNeeded = Boolean.parseBoolean(argsMap.get("isFileSysMigrationNeeded"));
             }
+            migrationThreadCount = getIntArgument(argsMap, "migrationThreadCount", migrationThreadCount);
+            dbBatchSize = getIntArgument(argsMap, "dbBatchSize", dbBatchSize);
+            dbCommitInterval = getIntArgument(argsMap, "dbCommitInterval", dbCommitInterval);
+            artifactBatchSize = getIntArgument(argsMap, "artifactBatchSize", artifactBatchSize);
+            checkpointFilePath = argsMap.get("checkpointFile");
+            if (argsMap.get("dryRun") != null) {
+                dryRun = Boolean.parseBoolean(argsMap.get("dryRun"));
+            }
         }
 
         try {
@@ -106,7 +127,9 @@ public class APIMMigrationServiceComponent {
 
                     // Create a thread and wait till the APIManager DBUtils is initialized
 
-                    MigrationClient migrateFrom18to19 = new MigrateFrom18to19();
+                    MigrationReport report = new MigrationReport(dryRun);
+                    MigrationClient migrateFrom18to19 = new MigrateFrom18to19(migrationThreadCount, dbBatchSize,
+                            dbCommitInterval, artifactBatchSize, checkpointFilePath, report);
 
                     //Default operation will migrate all three types of resources
                     if (argsMap.get("isDBMigrationNeeded") == null && argsMap.get("isRegMigrationNeeded") == null && argsMap.get("isFileSysMigrationNeeded") == null) {
@@ -136,6 +159,7 @@ public class APIMMigrationServiceComponent {
                         migrateFrom18to19.cleanOldResources();
                         log.info("Old resources cleaned up.");
                     }
+                    report.logSummary();
 
                     if (log.isDebugEnabled()) {
                         log.debug("API Manager 1.8.0 to 1.9.0 migration successfully completed");
@@ -156,6 +180,27 @@ public class APIMMigrationServiceComponent {
         log.info("WSO2 API Manager migration component successfully activated.");
     }
 
+    /**
+     * Method to read a numeric migration argument
+     *
+     * @param argsMap      migration arguments
+     * @param key          argument name
+     * @param defaultValue value used when the argument is not given or is not a number
+     * @return value of the argument
+     */
+    private int getIntArgument(Map<String, String> argsMap, String key, int defaultValue) {
+        String value = argsMap.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            log.error("Invalid value " + value + " given for " + key + ". Using the default value " + defaultValue);
+            return defaultValue;
+        }
+    }
+
     /**
      * Method to deactivate bundle.
      *
@@ -26,6 +26,29 @@ public class Constants {
     public static final String ALTER = "alter";
     public static final String DELIMITER = ";";
 
+    //number of tenants migrated concurrently when -DmigrationThreads is not given
+    public static final int DEFAULT_MIGRATION_THREAD_COUNT = 1;
+
+    public static final String DATABASE_MIGRATION_PHASE = "Database migration";
+
+    //registry migration phases, also used as the keys of the migration checkpoint
+    public static final String SWAGGER_MIGRATION_PHASE = "Swagger migration";
+    public static final String RXT_MIGRATION_PHASE = "Rxt migration";
+    public static final String RESOURCE_CLEANUP_PHASE = "Resource cleanup";
+
+    //file system migration phases
+    public static final String SYNAPSE_API_MIGRATION_PHASE = "Synapse API migration";
+    public static final String SEQUENCE_MIGRATION_PHASE = "Sequence migration";
+
+    //number of DML statements sent in a single JDBC batch when -DmigrationDBBatchSize is not given
+    public static final int DEFAULT_DB_BATCH_SIZE = 100;
+
+    //number of statements executed between two commits when -DmigrationDBCommitInterval is not given
+    public static final int DEFAULT_DB_COMMIT_INTERVAL = 1000;
+
+    //number of API artifacts updated in a single registry transaction when -DmigrationArtifactBatchSize is not given
+    public static final int DEFAULT_ARTIFACT_BATCH_SIZE = 100;
+
 
     //constants for swagger v2
 
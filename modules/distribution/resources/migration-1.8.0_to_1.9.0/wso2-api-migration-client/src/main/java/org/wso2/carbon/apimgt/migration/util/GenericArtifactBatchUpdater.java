@@ -0,0 +1,150 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.governance.api.generic.GenericArtifactManager;
+import org.wso2.carbon.governance.api.generic.dataobjects.GenericArtifact;
+import org.wso2.carbon.registry.core.Registry;
+import org.wso2.carbon.registry.core.exceptions.RegistryException;
+import org.wso2.carbon.registry.indexing.IndexingManager;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Applies the attribute changes of the generic artifacts of a single tenant in batches. The changed artifacts are
+ * collected until the batch is full and are then written in one registry transaction, instead of one transaction for
+ * each artifact. A batch is either written completely or not at all, so the ids returned by {@link #add} and
+ * {@link #flush} can be recorded in the migration checkpoint as soon as they are returned.
+ * <p/>
+ * An instance is not thread safe and is used by the thread migrating the tenant.
+ */
+public class GenericArtifactBatchUpdater {
+
+    private static final Log log = LogFactory.getLog(GenericArtifactBatchUpdater.class);
+
+    private final Registry registry;
+    private final GenericArtifactManager artifactManager;
+    private final int batchSize;
+    private final List<GenericArtifact> pendingArtifacts;
+
+    /**
+     * @param registry        governance registry of the tenant the artifacts belong to
+     * @param artifactManager artifact manager of the artifacts
+     * @param batchSize       number of artifacts written in a single registry transaction
+     */
+    public GenericArtifactBatchUpdater(Registry registry, GenericArtifactManager artifactManager, int batchSize) {
+        this.registry = registry;
+        this.artifactManager = artifactManager;
+        this.batchSize = Math.max(1, batchSize);
+        this.pendingArtifacts = new ArrayList<GenericArtifact>(this.batchSize);
+    }
+
+    /**
+     * Adds a changed artifact to the batch and writes the batch if it is full
+     *
+     * @param artifact changed artifact
+     * @return ids of the artifacts written by this call, empty if the batch is not full yet
+     * @throws RegistryException if the batch cannot be written. None of the artifacts of the batch are written then
+     */
+    public List<String> add(GenericArtifact artifact) throws RegistryException {
+        pendingArtifacts.add(artifact);
+        if (pendingArtifacts.size() < batchSize) {
+            return Collections.emptyList();
+        }
+        return flush();
+    }
+
+    /**
+     * Writes the artifacts added since the last write in a single registry transaction
+     *
+     * @return ids of the written artifacts
+     * @throws RegistryException if the batch cannot be written. None of the artifacts of the batch are written then
+     */
+    public List<String> flush() throws RegistryException {
+        if (pendingArtifacts.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> artifactIds = new ArrayList<String>(pendingArtifacts.size());
+        registry.beginTransaction();
+        try {
+            for (GenericArtifact artifact : pendingArtifacts) {
+                artifactManager.updateGenericArtifact(artifact);
+                artifactIds.add(artifact.getId());
+            }
+            registry.commitTransaction();
+        } catch (RegistryException e) {
+            registry.rollbackTransaction();
+            throw e;
+        } finally {
+            pendingArtifacts.clear();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Updated a batch of " + artifactIds.size() + " artifacts");
+        }
+        return artifactIds;
+    }
+
+    /**
+     * Stops the registry indexer, so that the artifacts written during the migration are indexed once by
+     * {@link #resumeIndexing()} instead of being picked up by every indexing run while the migration is in progress.
+     * The indexer is left as it is if it is not running, since it is disabled in the server then.
+     *
+     * @return true if the indexer was running and has been stopped, in which case it should be resumed
+     */
+    public static boolean suspendIndexing() {
+        IndexingManager indexingManager = IndexingManager.getInstance();
+        if (!isIndexingRunning(indexingManager)) {
+            log.info("Registry indexing is not running, it is not suspended during the artifact migration");
+            return false;
+        }
+        indexingManager.stopIndexing();
+        log.info("Registry indexing suspended until the artifact migration completes");
+        return true;
+    }
+
+    /**
+     * Starts the registry indexer again. The indexer continues from the last indexed registry activity, so all the
+     * artifacts written while it was stopped are indexed in its next run. Should only be called if
+     * {@link #suspendIndexing()} returned true.
+     */
+    public static void resumeIndexing() {
+        IndexingManager.getInstance().startIndexing();
+        log.info("Registry indexing resumed");
+    }
+
+    /**
+     * The indexing manager does not expose whether it is running, so this checks whether its scheduler has been
+     * started. If that cannot be found out the indexer is assumed to be running, which resumes it as before.
+     */
+    private static boolean isIndexingRunning(IndexingManager indexingManager) {
+        try {
+            Field submittingExecutor = IndexingManager.class.getDeclaredField("submittingExecutor");
+            submittingExecutor.setAccessible(true);
+            return submittingExecutor.get(indexingManager) != null;
+        } catch (NoSuchFieldException e) {
+            log.warn("Unable to find out whether registry indexing is running, assuming that it is", e);
+        } catch (IllegalAccessException e) {
+            log.warn("Unable to find out whether registry indexing is running, assuming that it is", e);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.wso2.carbon.governance.api.exception.GovernanceException;
+import org.wso2.carbon.governance.api.generic.GenericArtifactManager;
+import org.wso2.carbon.governance.api.generic.dataobjects.GenericArtifact;
+
+import java.util.Arrays;
+
+/**
+ * This class iterates over the artifacts of a {@link GenericArtifactManager} one artifact at a time.
+ * Only the artifact ids are loaded up front and each artifact is read from the registry when it is requested, so the
+ * memory used does not depend on the number of artifacts. Artifacts are returned in the order of their ids, which
+ * allows an interrupted migration to continue after the last completed artifact.
+ */
+public class GenericArtifactIterator {
+
+    private final GenericArtifactManager artifactManager;
+    private final String[] artifactIds;
+    private final int resumedCount;
+    private int position;
+    private int missingCount;
+    private GenericArtifact nextArtifact;
+
+    /**
+     * @param artifactManager artifact manager to read the artifacts from
+     * @param lastCompletedId id of the last artifact which was already migrated or null to start from the beginning
+     * @throws GovernanceException if the artifact ids cannot be read
+     */
+    public GenericArtifactIterator(GenericArtifactManager artifactManager, String lastCompletedId)
+            throws GovernanceException {
+        this.artifactManager = artifactManager;
+        String[] ids = artifactManager.getAllGenericArtifactIds();
+        this.artifactIds = ids != null ? ids : new String[0];
+        Arrays.sort(this.artifactIds);
+        if (lastCompletedId != null) {
+            int index = Arrays.binarySearch(this.artifactIds, lastCompletedId);
+            position = index >= 0 ? index + 1 : -(index + 1);
+        }
+        resumedCount = position;
+    }
+
+    /**
+     * @return true if there are more artifacts to be read
+     * @throws GovernanceException if the next artifact cannot be read
+     */
+    public boolean hasNext() throws GovernanceException {
+        //Artifacts which are deleted after the ids are read are skipped
+        while (nextArtifact == null && position < artifactIds.length) {
+            nextArtifact = artifactManager.getGenericArtifact(artifactIds[position++]);
+            if (nextArtifact == null) {
+                missingCount++;
+            }
+        }
+        return nextArtifact != null;
+    }
+
+    /**
+     * @return the next artifact or null if there are no more artifacts
+     * @throws GovernanceException if the next artifact cannot be read
+     */
+    public GenericArtifact next() throws GovernanceException {
+        if (!hasNext()) {
+            return null;
+        }
+        GenericArtifact artifact = nextArtifact;
+        nextArtifact = null;
+        return artifact;
+    }
+
+    /**
+     * @return number of artifacts which are skipped because the checkpoint records them as already migrated
+     */
+    public int getResumedCount() {
+        return resumedCount;
+    }
+
+    /**
+     * @return number of artifacts read so far which were deleted after the ids were read
+     */
+    public int getMissingCount() {
+        return missingCount;
+    }
+
+    /**
+     * @return total number of artifacts
+     */
+    public int getTotalCount() {
+        return artifactIds.length;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This class records the progress of the registry migrations in a checkpoint file, so an interrupted migration can
+ * be resumed from where it stopped. Progress is appended to the file as one line per migrated artifact in the form
+ * <code>phase|tenantId|artifactId</code> and flushed immediately. A tenant which is fully migrated is recorded with
+ * the completed marker instead of an artifact id.
+ * <p/>
+ * A checkpoint created without a file does not record anything and reports every tenant as not migrated.
+ * Instances are safe to be used by multiple migration threads.
+ */
+public class MigrationCheckpoint {
+
+    private static final Log log = LogFactory.getLog(MigrationCheckpoint.class);
+
+    private static final String SEPARATOR = "|";
+    private static final String COMPLETED = "__COMPLETED__";
+
+    private final File checkpointFile;
+    private final Map<String, String> progress = new HashMap<String, String>();
+    private Writer writer;
+
+    /**
+     * @param checkpointFilePath path of the checkpoint file or null to disable checkpointing
+     * @throws APIMigrationException if the existing checkpoint file cannot be read
+     */
+    public MigrationCheckpoint(String checkpointFilePath) throws APIMigrationException {
+        if (checkpointFilePath == null) {
+            checkpointFile = null;
+            return;
+        }
+        checkpointFile = new File(checkpointFilePath);
+        try {
+            if (checkpointFile.exists()) {
+                load();
+                log.info("Resuming migration using the checkpoint file " + checkpointFile.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while reading the checkpoint file " +
+                    checkpointFile.getAbsolutePath(), e);
+        }
+    }
+
+    public boolean isEnabled() {
+        return checkpointFile != null;
+    }
+
+    /**
+     * @param phase    migration phase
+     * @param tenantId tenant id
+     * @return true if all the artifacts of the tenant were migrated in the given phase
+     */
+    public synchronized boolean isTenantCompleted(String phase, int tenantId) {
+        return COMPLETED.equals(progress.get(getKey(phase, tenantId)));
+    }
+
+    /**
+     * @param phase    migration phase
+     * @param tenantId tenant id
+     * @return id of the last artifact of the tenant which was migrated in the given phase or null
+     */
+    public synchronized String getLastArtifactId(String phase, int tenantId) {
+        String artifactId = progress.get(getKey(phase, tenantId));
+        return COMPLETED.equals(artifactId) ? null : artifactId;
+    }
+
+    /**
+     * This method is used to record that an artifact of a tenant is migrated
+     *
+     * @param phase      migration phase
+     * @param tenantId   tenant id
+     * @param artifactId id of the migrated artifact
+     * @throws APIMigrationException if the checkpoint cannot be written
+     */
+    public void artifactCompleted(String phase, int tenantId, String artifactId) throws APIMigrationException {
+        record(phase, tenantId, artifactId);
+    }
+
+    /**
+     * This method is used to record that all the artifacts of a tenant are migrated
+     *
+     * @param phase    migration phase
+     * @param tenantId tenant id
+     * @throws APIMigrationException if the checkpoint cannot be written
+     */
+    public void tenantCompleted(String phase, int tenantId) throws APIMigrationException {
+        record(phase, tenantId, COMPLETED);
+    }
+
+    /**
+     * Closes the checkpoint file. The file is opened again when the next progress is recorded
+     */
+    public synchronized void close() {
+        IOUtils.closeQuietly(writer);
+        writer = null;
+    }
+
+    private synchronized void record(String phase, int tenantId, String value) throws APIMigrationException {
+        if (checkpointFile == null) {
+            return;
+        }
+        String key = getKey(phase, tenantId);
+        progress.put(key, value);
+        try {
+            if (writer == null) {
+                writer = new OutputStreamWriter(new FileOutputStream(checkpointFile, true), "UTF-8");
+            }
+            writer.write(key + SEPARATOR + value + "\n");
+            writer.flush();
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while writing to the checkpoint file " +
+                    checkpointFile.getAbsolutePath(), e);
+        }
+    }
+
+    private void load() throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(checkpointFile), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separatorIndex = line.lastIndexOf(SEPARATOR);
+                //Ignore a partially written last line
+                if (separatorIndex <= 0 || separatorIndex == line.length() - 1) {
+                    continue;
+                }
+                progress.put(line.substring(0, separatorIndex), line.substring(separatorIndex + 1));
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
+
+    private static String getKey(String phase, int tenantId) {
+        return phase + SEPARATOR + tenantId;
+    }
+}
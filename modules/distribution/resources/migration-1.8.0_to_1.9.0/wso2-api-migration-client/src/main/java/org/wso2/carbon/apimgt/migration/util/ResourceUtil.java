@@ -18,25 +18,13 @@ package org.wso2.carbon.apimgt.migration.util;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 import org.wso2.carbon.apimgt.impl.APIConstants;
 import org.wso2.carbon.apimgt.impl.utils.APIMgtDBUtil;
 import org.wso2.carbon.apimgt.migration.APIMigrationException;
 import org.wso2.carbon.apimgt.migration.client.MigrationDBCreator;
 import org.wso2.carbon.registry.core.RegistryConstants;
 import org.wso2.carbon.utils.CarbonUtils;
-import org.xml.sax.SAXException;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.stream.XMLStreamWriter;
-import javax.xml.transform.*;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -179,55 +167,15 @@ public class ResourceUtil {
      *
      * @param sequenceDirectoryFilePath sequence directory
      * @param sequenceName              sequence name
+     * @param dryRun                    if true the sequence is not written
+     * @return true if the sequence was updated, or would be updated in a dry run
      * @throws APIMigrationException
      */
-    public static void copyNewSequenceToExistingSequences(String sequenceDirectoryFilePath, String sequenceName)
-            throws APIMigrationException {
-        try {
-            String namespace = "http://ws.apache.org/ns/synapse";
-            String filePath = sequenceDirectoryFilePath + sequenceName + ".xml";
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            docFactory.setNamespaceAware(true);
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            Document doc = docBuilder.parse(filePath);
-            Node sequence = doc.getElementsByTagName("sequence").item(0);
-            Element corsSequence = doc.createElementNS(namespace, "sequence");
-            corsSequence.setAttribute("key", "_cors_request_handler");
-            boolean available = false;
-            for (int i = 0; i < sequence.getChildNodes().getLength(); i++) {
-                Node tempNode = sequence.getChildNodes().item(i);
-                if (tempNode.getNodeType() == Node.ELEMENT_NODE &&"sequence".equals(tempNode.getLocalName()) &&
-                    "_cors_request_handler".equals(tempNode.getAttributes().getNamedItem("key").getTextContent())) {
-                    available = true;
-                    break;
-                }
-            }
-            if (!available) {
-                if ("_throttle_out_handler_".equals(sequenceName)) {
-                    sequence.appendChild(corsSequence);
-                } else if ("_auth_failure_handler_".equals(sequenceName)) {
-                    sequence.appendChild(corsSequence);
-                } else {
-                    sequence.insertBefore(corsSequence, doc.getElementsByTagName("send").item(0));
-                }
-                TransformerFactory transformerFactory = TransformerFactory.newInstance();
-                Transformer transformer = transformerFactory.newTransformer();
-                transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-                DOMSource source = new DOMSource(doc);
-                StreamResult result = new StreamResult(new File(filePath));
-                transformer.transform(source, result);
-            }
-        } catch (ParserConfigurationException e) {
-            handleException("Could not initiate Document Builder.", e);
-        } catch (TransformerConfigurationException e) {
-            handleException("Could not initiate TransformerFactory Builder.", e);
-        } catch (TransformerException e) {
-            handleException("Could not transform the source.", e);
-        } catch (SAXException e) {
-            handleException("SAX exception occurred while parsing the file.", e);
-        } catch (IOException e) {
-            handleException("IO Exception occurred. Please check the file.", e);
-        }
+    public static boolean copyNewSequenceToExistingSequences(String sequenceDirectoryFilePath, String sequenceName,
+                                                             boolean dryRun) throws APIMigrationException {
+        File sequenceFile = new File(sequenceDirectoryFilePath + sequenceName + ".xml");
+        boolean append = "_throttle_out_handler_".equals(sequenceName) || "_auth_failure_handler_".equals(sequenceName);
+        return SynapseConfigTransformer.addCORSSequence(sequenceFile, append, dryRun);
     }
 
     /**
@@ -235,46 +183,12 @@ public class ResourceUtil {
      *
      * @param filePath       file path
      * @param implementation new impl
+     * @param dryRun         if true the synapse API is not written
+     * @return true if the synapse API was updated, or would be updated in a dry run
      * @throws APIMigrationException
      */
-    public static void updateSynapseAPI(File filePath, String implementation) throws APIMigrationException {
-        try {
-            DocumentBuilderFactory docFactory = DocumentBuilderFactory.newInstance();
-            docFactory.setNamespaceAware(true);
-            DocumentBuilder docBuilder = docFactory.newDocumentBuilder();
-            Document doc = null;
-            doc = docBuilder.parse(filePath.getAbsolutePath());
-            Node handlers = doc.getElementsByTagName("handlers").item(0);
-            Element corsHandler = doc.createElement("handler");
-            corsHandler.setAttribute("class", "org.wso2.carbon.apimgt.gateway.handlers.security.CORSRequestHandler");
-            Element property = doc.createElement("property");
-            property.setAttribute("name", "inline");
-            property.setAttribute("value", implementation);
-            corsHandler.appendChild(property);
-            NodeList handlerNodes = doc.getElementsByTagName("handler");
-            for (int i = 0; i < handlerNodes.getLength(); i++) {
-                Node tempNode = handlerNodes.item(i);
-                if ("org.wso2.carbon.apimgt.gateway.handlers.security.CORSRequestHandler"
-                        .equals(tempNode.getAttributes().getNamedItem("class").getTextContent())) {
-                    handlers.removeChild(tempNode);
-                }
-                handlers.insertBefore(corsHandler, handlerNodes.item(0));
-            }
-            TransformerFactory transformerFactory = TransformerFactory.newInstance();
-            Transformer transformer = transformerFactory.newTransformer();
-            DOMSource source = new DOMSource(doc);
-            StreamResult result = new StreamResult(filePath);
-            transformer.transform(source, result);
-        } catch (ParserConfigurationException e) {
-            handleException("Could not initiate Document Builder.", e);
-        } catch (TransformerConfigurationException e) {
-            handleException("Could not initiate TransformerFactory Builder.", e);
-        } catch (TransformerException e) {
-            handleException("Could not transform the source.", e);
-        } catch (SAXException e) {
-            handleException("SAX exception occurred while parsing the file.", e);
-        } catch (IOException e) {
-            handleException("IO Exception occurred. Please check the file.", e);
-        }
+    public static boolean updateSynapseAPI(File filePath, String implementation, boolean dryRun)
+            throws APIMigrationException {
+        return SynapseConfigTransformer.addCORSHandler(filePath, implementation, dryRun);
     }
 }
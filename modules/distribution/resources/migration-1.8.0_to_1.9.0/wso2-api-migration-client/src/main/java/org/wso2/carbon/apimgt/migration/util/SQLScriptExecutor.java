@@ -0,0 +1,205 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * This class executes the statements of a migration sql script over a single connection.
+ * Consecutive DML statements are sent to the database as JDBC batches and the transaction is committed after the
+ * configured number of statements. DDL statements flush the pending batch and are executed on their own.
+ * If a statement fails the uncommitted work is rolled back and the failed statement is reported. The script is not
+ * atomic: MySQL and Oracle commit implicitly on each DDL statement, so the statements executed before the failed one
+ * stay applied and the database has to be restored from a backup before the migration is run again.
+ */
+public class SQLScriptExecutor {
+
+    private static final Log log = LogFactory.getLog(SQLScriptExecutor.class);
+
+    //statements taking longer than this are logged at info level
+    private static final long SLOW_STATEMENT_THRESHOLD = 1000;
+
+    private static final Pattern DML_STATEMENT = Pattern.compile("^\\s*(INSERT|UPDATE|DELETE)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Connection connection;
+    private final String dbType;
+    private final int batchSize;
+    private final int commitInterval;
+
+    private Statement batchStatement;
+    private final List<String> batchedQueries = new ArrayList<String>();
+    private int uncommittedCount;
+    private int executedCount;
+
+    /**
+     * @param connection     connection used to execute the script. Auto commit is disabled while executing
+     * @param dbType         database type as returned by
+     *                       {@link org.wso2.carbon.apimgt.migration.client.MigrationDBCreator}
+     * @param batchSize      maximum number of DML statements sent in a single batch
+     * @param commitInterval number of statements executed between two commits
+     */
+    public SQLScriptExecutor(Connection connection, String dbType, int batchSize, int commitInterval) {
+        this.connection = connection;
+        this.dbType = dbType;
+        this.batchSize = Math.max(1, batchSize);
+        this.commitInterval = Math.max(1, commitInterval);
+    }
+
+    /**
+     * This method is used to execute all the statements in the given script
+     *
+     * @param script content of the sql script
+     * @return number of statements executed
+     * @throws APIMigrationException if a statement fails. The statements which are not committed yet, explicitly or
+     *                               by a DDL statement, are rolled back
+     */
+    public int execute(String script) throws APIMigrationException {
+        List<String> statements = new SQLScriptParser(dbType).parse(script);
+        long startTime = System.currentTimeMillis();
+        boolean autoCommit = true;
+
+        try {
+            autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            for (String statement : statements) {
+                if (isBatchable(statement)) {
+                    addToBatch(statement);
+                } else {
+                    executeBatch();
+                    executeStatement(statement);
+                }
+                if (uncommittedCount >= commitInterval) {
+                    commit();
+                }
+            }
+            commit();
+        } catch (SQLException e) {
+            rollback();
+            throw new APIMigrationException("Error occurred while executing the migration script. " +
+                    executedCount + " of " + statements.size() + " statements were executed.", e);
+        } finally {
+            closeBatchStatement();
+            try {
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException e) {
+                log.error("Error occurred while restoring the auto commit mode of the connection", e);
+            }
+        }
+        log.info("Executed " + statements.size() + " statements of the " + dbType + " migration script in " +
+                (System.currentTimeMillis() - startTime) + " ms");
+        return statements.size();
+    }
+
+    /**
+     * Only plain data manipulation statements can be added to a JDBC batch
+     */
+    private boolean isBatchable(String statement) {
+        return batchSize > 1 && DML_STATEMENT.matcher(statement.trim()).lookingAt();
+    }
+
+    private void addToBatch(String statement) throws SQLException {
+        if (batchStatement == null) {
+            batchStatement = connection.createStatement();
+        }
+        batchStatement.addBatch(statement);
+        batchedQueries.add(statement);
+        if (batchedQueries.size() >= batchSize) {
+            executeBatch();
+        }
+    }
+
+    private void executeBatch() throws SQLException {
+        if (batchedQueries.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            batchStatement.executeBatch();
+        } catch (SQLException e) {
+            log.error("Error occurred while executing a batch of " + batchedQueries.size() + " statements. " +
+                    "First statement of the batch : " + batchedQueries.get(0));
+            throw e;
+        }
+        logTime("Batch of " + batchedQueries.size() + " statements", System.currentTimeMillis() - startTime);
+        batchStatement.clearBatch();
+        executedCount += batchedQueries.size();
+        uncommittedCount += batchedQueries.size();
+        batchedQueries.clear();
+    }
+
+    private void executeStatement(String query) throws SQLException {
+        long startTime = System.currentTimeMillis();
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute(query);
+        } catch (SQLException e) {
+            log.error("Error occurred while executing the statement : " + query);
+            throw e;
+        } finally {
+            statement.close();
+        }
+        logTime(query, System.currentTimeMillis() - startTime);
+        executedCount++;
+        uncommittedCount++;
+    }
+
+    private void commit() throws SQLException {
+        executeBatch();
+        if (uncommittedCount > 0) {
+            connection.commit();
+            uncommittedCount = 0;
+        }
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            log.error("Error occurred while rolling back the migration script", e);
+        }
+    }
+
+    private void closeBatchStatement() {
+        if (batchStatement != null) {
+            try {
+                batchStatement.close();
+            } catch (SQLException e) {
+                log.error("Error occurred while closing the batch statement", e);
+            }
+            batchStatement = null;
+        }
+        batchedQueries.clear();
+    }
+
+    private static void logTime(String query, long timeTaken) {
+        if (timeTaken >= SLOW_STATEMENT_THRESHOLD) {
+            log.info("Executed in " + timeTaken + " ms : " + query);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Executed in " + timeTaken + " ms : " + query);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * This class splits a migration sql script into executable statements according to the database type.
+ * Statements may span multiple lines. Line comments (--, //, REM), block comments and delimiters inside quoted
+ * strings are handled. Oracle PL/SQL blocks are terminated only by a "/" on its own line, PostgreSQL dollar quoted
+ * bodies are kept intact and MSSQL "GO" lines are treated as delimiters.
+ */
+public class SQLScriptParser {
+
+    private static final Pattern PLSQL_BLOCK_START = Pattern.compile(
+            "^(CREATE\\s+(OR\\s+REPLACE\\s+)?(TRIGGER|PROCEDURE|FUNCTION|PACKAGE|TYPE)|BEGIN|DECLARE)\\b.*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final String dbType;
+
+    /**
+     * @param dbType database type as returned by {@link org.wso2.carbon.apimgt.migration.client.MigrationDBCreator}
+     */
+    public SQLScriptParser(String dbType) {
+        this.dbType = dbType == null ? "" : dbType.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * This method is used to split the given script into statements
+     *
+     * @param script content of the sql script
+     * @return list of statements without the trailing delimiters
+     */
+    public List<String> parse(String script) {
+        List<String> statements = new ArrayList<String>();
+        StringBuilder statement = new StringBuilder();
+        boolean inBlockComment = false;
+
+        for (String line : script.split("\r?\n")) {
+            String trimmedLine = line.trim();
+
+            if (inBlockComment) {
+                int commentEnd = trimmedLine.indexOf("*/");
+                if (commentEnd < 0) {
+                    continue;
+                }
+                inBlockComment = false;
+                trimmedLine = trimmedLine.substring(commentEnd + 2).trim();
+            }
+            if (statement.length() == 0 && trimmedLine.startsWith("/*") && !trimmedLine.startsWith("/*+")) {
+                int commentEnd = trimmedLine.indexOf("*/", 2);
+                if (commentEnd < 0) {
+                    inBlockComment = true;
+                    continue;
+                }
+                trimmedLine = trimmedLine.substring(commentEnd + 2).trim();
+            }
+            if (isCommentLine(trimmedLine)) {
+                continue;
+            }
+            //The scripts contain escaped line breaks which are not valid in a statement
+            if (trimmedLine.contains("\\n")) {
+                trimmedLine = trimmedLine.replace("\\n", "");
+            }
+
+            if (isDelimiterLine(trimmedLine)) {
+                addStatement(statements, statement);
+                continue;
+            }
+
+            if (statement.length() > 0) {
+                statement.append('\n');
+            }
+            //the indentation is kept unless a comment or an escaped line break was removed from the line
+            statement.append(trimmedLine.equals(line.trim()) ? line : trimmedLine);
+
+            if (!isBlockStatement(statement)) {
+                int delimiterIndex = getTerminatingDelimiter(statement);
+                if (delimiterIndex >= 0) {
+                    //a trailing line comment is dropped with the delimiter
+                    statement.setLength(delimiterIndex);
+                    addStatement(statements, statement);
+                }
+            }
+        }
+        addStatement(statements, statement);
+        return statements;
+    }
+
+    private boolean isCommentLine(String line) {
+        if (line.length() == 0 || line.startsWith("--") || line.startsWith("//")) {
+            return true;
+        }
+        String upperCaseLine = line.toUpperCase(Locale.ENGLISH);
+        return "REM".equals(upperCaseLine) || upperCaseLine.startsWith("REM ");
+    }
+
+    private boolean isDelimiterLine(String line) {
+        if ("/".equals(line)) {
+            return "oracle".equals(dbType);
+        }
+        return "mssql".equals(dbType) && "GO".equalsIgnoreCase(line);
+    }
+
+    /**
+     * Oracle PL/SQL blocks contain semicolons and can only be terminated by a "/" line
+     */
+    private boolean isBlockStatement(CharSequence statement) {
+        return "oracle".equals(dbType) && PLSQL_BLOCK_START.matcher(statement.toString().trim()).matches();
+    }
+
+    /**
+     * Finds the delimiter which ends the statement, ignoring the delimiters inside quoted strings, PostgreSQL dollar
+     * quoted bodies and line comments
+     *
+     * @return index of the delimiter or -1 if the statement is not terminated yet
+     */
+    private int getTerminatingDelimiter(CharSequence statement) {
+        boolean inSingleQuote = false;
+        boolean inDoubleQuote = false;
+        String dollarTag = null;
+        int lastDelimiter = -1;
+        int lastContent = -1;
+
+        for (int i = 0; i < statement.length(); i++) {
+            char c = statement.charAt(i);
+            if (dollarTag != null) {
+                if (c == '$' && startsWith(statement, i, dollarTag)) {
+                    i += dollarTag.length() - 1;
+                    dollarTag = null;
+                }
+                lastContent = i;
+                continue;
+            }
+            if (inSingleQuote) {
+                if (c == '\'') {
+                    inSingleQuote = false;
+                }
+                lastContent = i;
+                continue;
+            }
+            if (inDoubleQuote) {
+                if (c == '"') {
+                    inDoubleQuote = false;
+                }
+                lastContent = i;
+                continue;
+            }
+            if (c == '-' && startsWith(statement, i, "--")) {
+                //skip the rest of the line
+                while (i < statement.length() && statement.charAt(i) != '\n') {
+                    i++;
+                }
+                continue;
+            }
+            if (c == '\'') {
+                inSingleQuote = true;
+            } else if (c == '"') {
+                inDoubleQuote = true;
+            } else if (c == '$' && "postgresql".equals(dbType)) {
+                int tagEnd = indexOfDollarTagEnd(statement, i);
+                if (tagEnd > 0) {
+                    dollarTag = statement.subSequence(i, tagEnd + 1).toString();
+                    i = tagEnd;
+                }
+            } else if (c == ';') {
+                lastDelimiter = i;
+            }
+            if (!Character.isWhitespace(c)) {
+                lastContent = i;
+            }
+        }
+        boolean terminated = !inSingleQuote && !inDoubleQuote && dollarTag == null && lastDelimiter >= 0 &&
+                lastDelimiter == lastContent;
+        return terminated ? lastDelimiter : -1;
+    }
+
+    private static int indexOfDollarTagEnd(CharSequence statement, int start) {
+        for (int i = start + 1; i < statement.length(); i++) {
+            char c = statement.charAt(i);
+            if (c == '$') {
+                return i;
+            }
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(CharSequence sequence, int offset, String prefix) {
+        if (offset + prefix.length() > sequence.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (sequence.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void addStatement(List<String> statements, StringBuilder statement) {
+        String sql = statement.toString().trim();
+        statement.setLength(0);
+        //Oracle and MSSQL drivers reject the trailing delimiter of a plain statement
+        if (sql.endsWith(Constants.DELIMITER) && !isBlockStatement(sql)) {
+            sql = sql.substring(0, sql.length() - 1).trim();
+        }
+        if (sql.length() > 0) {
+            statements.add(sql);
+        }
+    }
+}
@@ -0,0 +1,602 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * This class converts swagger v1.2 documents of APIs to swagger v2.0 documents on a fork join pool. Each document is
+ * converted by a task which forks a sub task per API declaration, so a single large API uses all the workers as well
+ * as many small ones. The converter does not access the registry, the caller reads the swagger v1.2 resources and
+ * submits them, which lets the registry reads of the next APIs overlap with the conversion of the previous ones.
+ * <p/>
+ * The default swagger v2.0 fragments are parsed once per converter and the security definitions, which are the same
+ * for most of the APIs, are memoized by the authorizations of the swagger v1.2 document.
+ * <p/>
+ * The converter can also be run offline over a directory which contains the swagger v1.2 resources exported from the
+ * registry. See {@link #main(String[])}.
+ */
+@SuppressWarnings("unchecked")
+public class Swagger12To20Converter {
+
+    private static final Log log = LogFactory.getLog(Swagger12To20Converter.class);
+
+    //name of the resource listing of a swagger v1.2 document. All the other resources are API declarations
+    public static final String RESOURCE_LISTING_NAME = "api-doc";
+
+    private static final String SWAGGER2_RESOURCE_NAME = "swagger.json";
+
+    //maximum number of memoized security definitions
+    private static final int MAX_CACHED_SECURITY_DEFINITIONS = 1000;
+
+    private final ForkJoinPool pool;
+    private final JSONObject defaultResponse;
+    private final JSONObject defaultSecurityScheme;
+    private final JSONObject defaultInfo;
+    private final ConcurrentMap<String, JSONObject> securityDefinitionsCache =
+            new ConcurrentHashMap<String, JSONObject>();
+
+    /**
+     * @param parallelism number of threads of the fork join pool. Values less than 1 are treated as 1
+     * @throws APIMigrationException if the default swagger v2.0 fragments cannot be parsed
+     */
+    public Swagger12To20Converter(int parallelism) throws APIMigrationException {
+        JSONParser parser = new JSONParser();
+        try {
+            defaultResponse = (JSONObject) parser.parse(Constants.DEFAULT_RESPONSE);
+            defaultSecurityScheme = (JSONObject) parser.parse(Constants.DEFAULT_SECURITY_SCHEME);
+            defaultInfo = (JSONObject) parser.parse(Constants.DEFAULT_INFO);
+        } catch (ParseException e) {
+            throw new APIMigrationException("Error occurred while parsing the default swagger v2.0 fragments", e);
+        }
+        pool = new ForkJoinPool(Math.max(1, parallelism));
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * This method is used to submit a swagger v1.2 document for conversion
+     *
+     * @param document swagger v1.2 document
+     * @return pending conversion of the document
+     */
+    public Conversion submit(Swagger12Document document) {
+        return new Conversion(document.getName(), pool.submit(new DocumentConversionTask(document)));
+    }
+
+    /**
+     * Stops the worker threads of the converter after the submitted conversions are completed
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * This method is used to convert all the swagger v1.2 documents in a directory which contains the registry
+     * resources of the API documents. Each directory which contains an api-doc resource is treated as a swagger v1.2
+     * document, and the swagger v2.0 document is written to the same relative directory of the output directory.
+     *
+     * @param inputDirectory  directory which contains the swagger v1.2 resources
+     * @param outputDirectory directory to which the swagger v2.0 documents are written
+     * @return number of documents converted
+     * @throws APIMigrationException if a document cannot be read, converted or written
+     */
+    public int convertAll(File inputDirectory, File outputDirectory) throws APIMigrationException {
+        final List<File> documentDirectories = new ArrayList<File>();
+        try {
+            Files.walkFileTree(inputDirectory.toPath(), new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                    if (RESOURCE_LISTING_NAME.equals(file.getFileName().toString())) {
+                        documentDirectories.add(file.getParent().toFile());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while reading the directory " + inputDirectory, e);
+        }
+        Collections.sort(documentDirectories);
+
+        //read ahead a bounded number of documents while the previous ones are converted
+        int window = getParallelism() * 2;
+        LinkedList<Conversion> pending = new LinkedList<Conversion>();
+        for (File documentDirectory : documentDirectories) {
+            pending.add(submit(readDocument(inputDirectory, documentDirectory)));
+            if (pending.size() >= window) {
+                writeDocument(outputDirectory, pending.removeFirst());
+            }
+        }
+        while (!pending.isEmpty()) {
+            writeDocument(outputDirectory, pending.removeFirst());
+        }
+        return documentDirectories.size();
+    }
+
+    private static Swagger12Document readDocument(File inputDirectory, File documentDirectory)
+            throws APIMigrationException {
+        String name = inputDirectory.toURI().relativize(documentDirectory.toURI()).getPath();
+        String resourceListing = null;
+        List<String> apiDeclarations = new ArrayList<String>();
+        File[] files = documentDirectory.listFiles();
+        if (files != null) {
+            //sort the declarations so that the conversion does not depend on the order of the file system
+            Arrays.sort(files);
+            try {
+                for (File file : files) {
+                    if (!file.isFile()) {
+                        continue;
+                    }
+                    if (RESOURCE_LISTING_NAME.equals(file.getName())) {
+                        resourceListing = FileUtils.readFileToString(file, "UTF-8");
+                    } else {
+                        apiDeclarations.add(FileUtils.readFileToString(file, "UTF-8"));
+                    }
+                }
+            } catch (IOException e) {
+                ResourceUtil.handleException("Error occurred while reading the swagger v1.2 document " + name, e);
+            }
+        }
+        return new Swagger12Document(name, resourceListing, apiDeclarations);
+    }
+
+    private static void writeDocument(File outputDirectory, Conversion conversion) throws APIMigrationException {
+        File swagger2File = new File(new File(outputDirectory, conversion.getName()), SWAGGER2_RESOURCE_NAME);
+        try {
+            FileUtils.writeStringToFile(swagger2File, conversion.get(), "UTF-8");
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while writing the file " + swagger2File, e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Swagger v2.0 document written to " + swagger2File);
+        }
+    }
+
+    /**
+     * Converts the swagger v1.2 documents exported from the registry without a running server.
+     * Usage: Swagger12To20Converter &lt;input directory&gt; &lt;output directory&gt; [thread count]
+     *
+     * @param args input directory, output directory and the optional number of conversion threads
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: Swagger12To20Converter <input directory> <output directory> [thread count]");
+            System.exit(1);
+        }
+        int parallelism = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Swagger12To20Converter converter = null;
+        try {
+            converter = new Swagger12To20Converter(parallelism);
+            long startTime = System.currentTimeMillis();
+            int count = converter.convertAll(new File(args[0]), new File(args[1]));
+            System.out.println("Converted " + count + " swagger v1.2 documents in " +
+                    (System.currentTimeMillis() - startTime) + " ms");
+        } catch (APIMigrationException e) {
+            System.out.println("Swagger conversion failed : " + e.getMessage());
+            System.exit(1);
+        } finally {
+            if (converter != null) {
+                converter.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Generate Swagger v2.0 document using Swagger v1.2 resources
+     *
+     * @param swagger12doc      Old Swagger Document
+     * @param paths             Swagger v2 paths object of all the API declarations
+     * @param swagger12BasePath Location of swagger v1.2 document
+     * @return Swagger v2.0 document as a JSON object
+     * @throws MalformedURLException
+     */
+    private JSONObject generateSwagger2Document(JSONObject swagger12doc, JSONObject paths, String swagger12BasePath)
+            throws MalformedURLException {
+        //create swagger 2.0 doc
+        JSONObject swagger20doc = new JSONObject();
+
+        //set swagger version
+        swagger20doc.put("swagger", "2.0");
+
+        //set the info object
+        JSONObject info = generateInfoObject(swagger12doc);
+        //update info object
+        swagger20doc.put("info", info);
+
+        //set the paths object
+        swagger20doc.put("paths", paths);
+
+        URL url = new URL(swagger12BasePath);
+        swagger20doc.put("host", url.getHost());
+        swagger20doc.put("basePath", url.getPath());
+
+        JSONArray schemes = new JSONArray();
+        schemes.add(url.getProtocol());
+        swagger20doc.put("schemes", schemes);
+
+        //securityDefinitions
+        if (swagger12doc.containsKey("authorizations")) {
+            JSONObject securityDefinitions = getSecurityDefinitionsObject(swagger12doc);
+            swagger20doc.put("securityDefinitions", securityDefinitions);
+        }
+
+        return swagger20doc;
+    }
+
+    /**
+     * Returns the memoized security definitions object for the authorizations of the given document. The returned
+     * object is shared by the documents and must not be modified.
+     *
+     * @param swagger12doc Old Swagger Document
+     * @return security definition object
+     */
+    private JSONObject getSecurityDefinitionsObject(JSONObject swagger12doc) {
+        JSONObject authorizations = (JSONObject) swagger12doc.get("authorizations");
+        String key = authorizations.toJSONString();
+        JSONObject securityDefinitionObject = securityDefinitionsCache.get(key);
+        if (securityDefinitionObject == null) {
+            securityDefinitionObject = generateSecurityDefinitionsObject(authorizations);
+            if (securityDefinitionsCache.size() < MAX_CACHED_SECURITY_DEFINITIONS) {
+                securityDefinitionsCache.putIfAbsent(key, securityDefinitionObject);
+            }
+        }
+        return securityDefinitionObject;
+    }
+
+    /**
+     * Generate swagger v2 security definition object
+     * See <a href="https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#securityDefinitionsObject">
+     * Swagger v2 definition object</a>
+     *
+     * @param authorizations authorizations of the Old Swagger Document
+     * @return security definition object
+     */
+    private JSONObject generateSecurityDefinitionsObject(JSONObject authorizations) {
+        JSONObject securityDefinitionObject = new JSONObject();
+        JSONObject securitySchemeObject = new JSONObject();
+        securitySchemeObject.putAll(defaultSecurityScheme);
+
+        Set authTypes = authorizations.keySet();
+
+        for (Object obj : authTypes) {
+            JSONObject authObj = (JSONObject) authorizations.get(obj.toString());
+            if (authObj.containsKey("scopes")) {
+                //Put it to custom WSO2 scopes
+                securitySchemeObject.put("x-wso2-scopes", authObj.get("scopes"));
+            }
+            securityDefinitionObject.put(obj.toString(), securitySchemeObject);
+        }
+        return securityDefinitionObject;
+    }
+
+    /**
+     * generate swagger v2 info object using swagger 1.2 doc.
+     * See <a href="https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#infoObject">Swagger v2 info
+     * object</a>
+     *
+     * @param swagger12doc Old Swagger Document
+     * @return swagger v2 infoObject
+     */
+    private JSONObject generateInfoObject(JSONObject swagger12doc) {
+
+        JSONObject infoObj = (JSONObject) swagger12doc.get("info");
+        JSONObject swagger2InfoObj = new JSONObject();
+        swagger2InfoObj.putAll(defaultInfo);
+
+        //set the required parameters first
+        String title = (String) infoObj.get("title");
+        String version = (String) swagger12doc.get("apiVersion");
+
+        swagger2InfoObj.put("title", title);
+        swagger2InfoObj.put("version", version);
+
+        if (infoObj.containsKey("description")) {
+            swagger2InfoObj.put("description", infoObj.get("description"));
+        }
+        if (infoObj.containsKey("termsOfServiceUrl")) {
+            swagger2InfoObj.put("termsOfService", infoObj.get("termsOfServiceUrl"));
+        }
+
+        //contact object
+        if (infoObj.containsKey("contact")) {
+            JSONObject contactsObj = new JSONObject();
+            String contact = (String) infoObj.get("contact");
+            if (contact.contains("http")) {
+                contactsObj.put("url", contact);
+            } else if (contact.contains("@")) {
+                contactsObj.put("email", contact);
+            } else {
+                contactsObj.put("name", contact);
+            }
+            swagger2InfoObj.put("contact", contactsObj);
+        }
+
+        //licence object
+        JSONObject licenseObj = new JSONObject();
+        if (infoObj.containsKey("license")) {
+            licenseObj.put("name", infoObj.get("license"));
+        }
+        if (infoObj.containsKey("licenseUrl")) {
+            licenseObj.put("url", infoObj.get("licenseUrl"));
+        }
+        if (!licenseObj.isEmpty()) {
+            swagger2InfoObj.put("license", licenseObj);
+        }
+        return swagger2InfoObj;
+    }
+
+    /**
+     * Generate Swagger v2 paths object from a swagger v1.2 API declaration
+     * See <a href="https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#paths-object">Swagger v2
+     * paths object</a>
+     *
+     * @param apiArray apis of the API declaration
+     * @return swagger v2 paths object
+     */
+    private JSONObject generatePathsObj(JSONArray apiArray) {
+        JSONObject pathsObj = new JSONObject();
+
+        for (Object anApiArray : apiArray) {
+            JSONObject api = (JSONObject) anApiArray;
+            String key = (String) api.get("path");
+            JSONArray operations = (JSONArray) api.get("operations");
+            JSONObject pathItemObj = new JSONObject();
+            for (Object operation : operations) {
+                JSONObject operationObject = (JSONObject) operation;
+                String method = (String) operationObject.get("method");
+                JSONArray swagger2ParamObjects = (JSONArray) operationObject.get("parameters");
+                JSONObject swagger2OperationsObj = new JSONObject();
+                JSONArray newParameters = new JSONArray();
+                for (Object swagger2ParamObj : swagger2ParamObjects) {
+                    JSONObject oldParam = (JSONObject) swagger2ParamObj;
+                    JSONObject paramObj = new JSONObject();
+                    paramObj.put("name", oldParam.get("name"));
+                    paramObj.put("in", oldParam.get("paramType"));
+                    paramObj.put("required", oldParam.get("required"));
+                    if (paramObj.containsKey("description")) {
+                        paramObj.put("description", oldParam.get("description"));
+                    } else {
+                        paramObj.put("description", "");
+                    }
+                    newParameters.add(paramObj);
+                }
+
+                //generate the Operation object
+                // (https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#operationObject)
+                swagger2OperationsObj.put("operationId", operationObject.get("nickname"));
+                //setting operation level params
+                swagger2OperationsObj.put("parameters", newParameters);
+                if (operationObject.containsKey("notes")) {
+                    swagger2OperationsObj.put("description", operationObject.get("notes"));
+                }
+                if (operationObject.containsKey("summary")) {
+                    swagger2OperationsObj.put("summary", operationObject.get("summary"));
+                }
+
+
+                //set pathItem object for the resource
+                //(https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#pathItemObject)
+                pathItemObj.put(method.toLowerCase(), swagger2OperationsObj);
+
+                //set the responseObject
+                //(https://github.com/swagger-api/swagger-spec/blob/master/versions/2.0.md#responsesObject)
+                JSONObject responseObject = null;
+                if (operationObject.containsKey("responseMessages")) {
+                    responseObject = new JSONObject();
+                    JSONArray responseMessages = (JSONArray) operationObject.get("responseMessages");
+                    for (Object responseMessage : responseMessages) {
+                        JSONObject errorObj = (JSONObject) responseMessage;
+                        responseObject.put(errorObj.get("code"), errorObj.get("message"));
+                    }
+                }
+                if (responseObject == null) {
+                    //set a default response message since this is required field. The default response is shared
+                    //by the operations, which is safe since the documents are only serialized
+                    responseObject = defaultResponse;
+                }
+                swagger2OperationsObj.put("responses", responseObject);
+            }
+            pathsObj.put(key, pathItemObj);
+        }
+        return pathsObj;
+    }
+
+    private static JSONObject parse(String json) {
+        try {
+            //JSONParser keeps the state of the current parse, hence a new parser for each resource
+            return (JSONObject) new JSONParser().parse(json);
+        } catch (ParseException e) {
+            throw new ConversionException("Error occurred while parsing swagger v1.2 resource", e);
+        }
+    }
+
+    /**
+     * Converts a whole swagger v1.2 document. The API declarations are converted by forked sub tasks and the
+     * resulting paths are merged in the order of the declarations.
+     */
+    private class DocumentConversionTask extends RecursiveTask<String> {
+
+        private final Swagger12Document document;
+
+        DocumentConversionTask(Swagger12Document document) {
+            this.document = document;
+        }
+
+        @Override
+        protected String compute() {
+            if (document.getResourceListing() == null) {
+                throw new ConversionException("Swagger v1.2 document " + document.getName() +
+                        " does not have an " + RESOURCE_LISTING_NAME + " resource", null);
+            }
+            List<DeclarationConversionTask> declarationTasks = new ArrayList<DeclarationConversionTask>();
+            for (String apiDeclaration : document.getApiDeclarations()) {
+                DeclarationConversionTask declarationTask = new DeclarationConversionTask(apiDeclaration);
+                declarationTask.fork();
+                declarationTasks.add(declarationTask);
+            }
+            JSONObject swagger12doc = parse(document.getResourceListing());
+
+            JSONObject paths = new JSONObject();
+            String swagger12BasePath = null;
+            for (DeclarationConversionTask declarationTask : declarationTasks) {
+                declarationTask.join();
+                //get the base path. this is same for all api definitions.
+                swagger12BasePath = declarationTask.basePath;
+                paths.putAll(declarationTask.paths);
+            }
+            try {
+                return generateSwagger2Document(swagger12doc, paths, swagger12BasePath).toJSONString();
+            } catch (MalformedURLException e) {
+                throw new ConversionException("Invalid base path " + swagger12BasePath, e);
+            }
+        }
+    }
+
+    /**
+     * Parses a single swagger v1.2 API declaration and generates its swagger v2 paths
+     */
+    private class DeclarationConversionTask extends RecursiveTask<Void> {
+
+        private final String apiDeclaration;
+        private String basePath;
+        private JSONObject paths;
+
+        DeclarationConversionTask(String apiDeclaration) {
+            this.apiDeclaration = apiDeclaration;
+        }
+
+        @Override
+        protected Void compute() {
+            JSONObject apiDef = parse(apiDeclaration);
+            basePath = (String) apiDef.get("basePath");
+            paths = generatePathsObj((JSONArray) apiDef.get("apis"));
+            return null;
+        }
+    }
+
+    /**
+     * Raw swagger v1.2 resources of an API
+     */
+    public static class Swagger12Document {
+
+        private final String name;
+        private final String resourceListing;
+        private final List<String> apiDeclarations;
+
+        /**
+         * @param name            name of the document, used in the error messages and as the output location of
+         *                        the offline conversion
+         * @param resourceListing content of the api-doc resource
+         * @param apiDeclarations contents of the API declaration resources
+         */
+        public Swagger12Document(String name, String resourceListing, List<String> apiDeclarations) {
+            this.name = name;
+            this.resourceListing = resourceListing;
+            this.apiDeclarations = apiDeclarations;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getResourceListing() {
+            return resourceListing;
+        }
+
+        public List<String> getApiDeclarations() {
+            return apiDeclarations;
+        }
+    }
+
+    /**
+     * A submitted conversion of a swagger v1.2 document
+     */
+    public static class Conversion {
+
+        private final String name;
+        private final ForkJoinTask<String> task;
+
+        Conversion(String name, ForkJoinTask<String> task) {
+            this.name = name;
+            this.task = task;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Waits for the conversion to complete
+         *
+         * @return swagger v2.0 document as a JSON string
+         * @throws APIMigrationException if the conversion has failed
+         */
+        public String get() throws APIMigrationException {
+            try {
+                return task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIMigrationException("Interrupted while waiting for the swagger v2.0 document of " +
+                        name, e);
+            } catch (ExecutionException e) {
+                throw new APIMigrationException("Error occurred while generating the swagger v2.0 document of " +
+                        name, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Unchecked exception used to report a conversion failure from the fork join tasks
+     */
+    private static class ConversionException extends RuntimeException {
+
+        ConversionException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
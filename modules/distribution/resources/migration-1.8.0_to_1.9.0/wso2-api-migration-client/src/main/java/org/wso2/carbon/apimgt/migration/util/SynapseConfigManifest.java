@@ -0,0 +1,266 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+import org.wso2.carbon.base.MultitenantConstants;
+import org.wso2.carbon.user.api.Tenant;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Manifest of the synapse API and sequence files of all the tenants which are migrated. The manifest is built by
+ * walking the synapse configuration directory of the super tenant and <code>repository/tenants/*&#47;synapse-configs</code>
+ * once, so the migration phases do not have to list the directories of each tenant again. Only the
+ * <code>default/api</code> and <code>default/sequences</code> directories are visited, every other directory of a
+ * tenant is skipped without being read.
+ * <p/>
+ * The manifest is not modified after it is built and can be read by multiple migration threads.
+ */
+public class SynapseConfigManifest {
+
+    private static final Log log = LogFactory.getLog(SynapseConfigManifest.class);
+
+    //file name of a synapse API, <provider>[-AT-<tenant domain>]--<api name>_v<version>.xml
+    private static final Pattern SYNAPSE_API_FILE_PATTERN = Pattern.compile("(.+?)(?:-AT-(.+?))?--(.+)_v(.+)\\.xml");
+    private static final int TENANT_DOMAIN_GROUP = 2;
+
+    //sequences to which the CORS request handler sequence is added
+    private static final Pattern SEQUENCE_FILE_PATTERN =
+            Pattern.compile("(_auth_failure_handler_|_throttle_out_handler_|_token_fault_|fault)\\.xml");
+
+    private static final String SYNAPSE_CONFIGS_DIRECTORY = "synapse-configs";
+    private static final String DEFAULT_DIRECTORY = "default";
+    private static final String API_DIRECTORY = "api";
+    private static final String SEQUENCES_DIRECTORY = "sequences";
+
+    //depth of the path elements below the tenants directory, tenants/<id>/synapse-configs/default/api/<file>
+    private static final int TENANT_LEVEL = 1;
+    private static final int SYNAPSE_CONFIGS_LEVEL = 2;
+    private static final int DEFAULT_LEVEL = 3;
+    private static final int ARTIFACT_DIRECTORY_LEVEL = 4;
+    private static final int FILE_LEVEL = 5;
+
+    private final Map<Integer, TenantSynapseConfig> tenantConfigs = new HashMap<Integer, TenantSynapseConfig>();
+    private int apiFileCount;
+    private int sequenceFileCount;
+
+    private SynapseConfigManifest() {
+    }
+
+    /**
+     * Builds the manifest of the given tenants
+     *
+     * @param tenants                   tenants to be migrated, including the super tenant
+     * @param superTenantSynapseConfigs synapse configuration directory of the super tenant
+     * @param tenantsDirectory          directory which contains a directory for each tenant, named by the tenant id
+     * @return manifest of the synapse API and sequence files
+     * @throws APIMigrationException if a directory cannot be walked
+     */
+    public static SynapseConfigManifest build(List<Tenant> tenants, File superTenantSynapseConfigs,
+                                              File tenantsDirectory) throws APIMigrationException {
+        long startTime = System.currentTimeMillis();
+        SynapseConfigManifest manifest = new SynapseConfigManifest();
+        Map<Integer, String> tenantDomains = new HashMap<Integer, String>();
+        for (Tenant tenant : tenants) {
+            manifest.tenantConfigs.put(tenant.getId(), new TenantSynapseConfig());
+            tenantDomains.put(tenant.getId(), tenant.getDomain());
+        }
+        try {
+            if (tenantDomains.containsKey(MultitenantConstants.SUPER_TENANT_ID) &&
+                superTenantSynapseConfigs.isDirectory()) {
+                Files.walkFileTree(superTenantSynapseConfigs.toPath(), manifest.new SynapseConfigVisitor(
+                        superTenantSynapseConfigs.toPath(), MultitenantConstants.SUPER_TENANT_ID, tenantDomains));
+            }
+            if (tenantsDirectory.isDirectory()) {
+                Files.walkFileTree(tenantsDirectory.toPath(), manifest.new SynapseConfigVisitor(
+                        tenantsDirectory.toPath(), null, tenantDomains));
+            }
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while reading the synapse configurations", e);
+        }
+        log.info("Found " + manifest.apiFileCount + " synapse API files and " + manifest.sequenceFileCount +
+                " sequence files of " + tenants.size() + " tenants in " + (System.currentTimeMillis() - startTime) +
+                " ms");
+        return manifest;
+    }
+
+    /**
+     * @param tenantId id of the tenant
+     * @return synapse API and sequence files of the tenant. The directories are null if they do not exist
+     */
+    public TenantSynapseConfig getTenantConfig(int tenantId) {
+        TenantSynapseConfig config = tenantConfigs.get(tenantId);
+        return config != null ? config : new TenantSynapseConfig();
+    }
+
+    public int getApiFileCount() {
+        return apiFileCount;
+    }
+
+    public int getSequenceFileCount() {
+        return sequenceFileCount;
+    }
+
+    /**
+     * Synapse API and sequence files of a single tenant
+     */
+    public static class TenantSynapseConfig {
+
+        private File apiDirectory;
+        private File sequenceDirectory;
+        private final List<File> apiFiles = new ArrayList<File>();
+        private final List<File> sequenceFiles = new ArrayList<File>();
+
+        public File getApiDirectory() {
+            return apiDirectory;
+        }
+
+        public File getSequenceDirectory() {
+            return sequenceDirectory;
+        }
+
+        public List<File> getApiFiles() {
+            return Collections.unmodifiableList(apiFiles);
+        }
+
+        public List<File> getSequenceFiles() {
+            return Collections.unmodifiableList(sequenceFiles);
+        }
+    }
+
+    /**
+     * Visits the synapse configurations of the tenants below a root directory. The root is either the tenants
+     * directory, or the synapse configuration directory of a single tenant.
+     */
+    private class SynapseConfigVisitor extends SimpleFileVisitor<Path> {
+
+        private final Path root;
+        private final Integer rootTenantId;
+        private final Map<Integer, String> tenantDomains;
+
+        /**
+         * @param root          directory the walk starts from
+         * @param rootTenantId  id of the tenant if the root is its synapse configuration directory, or null if the
+         *                      root is the tenants directory
+         * @param tenantDomains domains of the tenants to be migrated by their ids
+         */
+        SynapseConfigVisitor(Path root, Integer rootTenantId, Map<Integer, String> tenantDomains) {
+            this.root = root;
+            this.rootTenantId = rootTenantId;
+            this.tenantDomains = tenantDomains;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+            if (dir.equals(root)) {
+                return FileVisitResult.CONTINUE;
+            }
+            String name = dir.getFileName().toString();
+            switch (getLevel(dir)) {
+                case TENANT_LEVEL:
+                    return tenantDomains.containsKey(getTenantId(dir)) ? FileVisitResult.CONTINUE :
+                           FileVisitResult.SKIP_SUBTREE;
+                case SYNAPSE_CONFIGS_LEVEL:
+                    return SYNAPSE_CONFIGS_DIRECTORY.equals(name) ? FileVisitResult.CONTINUE :
+                           FileVisitResult.SKIP_SUBTREE;
+                case DEFAULT_LEVEL:
+                    return DEFAULT_DIRECTORY.equals(name) ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+                case ARTIFACT_DIRECTORY_LEVEL:
+                    if (API_DIRECTORY.equals(name)) {
+                        tenantConfigs.get(getTenantId(dir)).apiDirectory = dir.toFile();
+                        return FileVisitResult.CONTINUE;
+                    } else if (SEQUENCES_DIRECTORY.equals(name)) {
+                        tenantConfigs.get(getTenantId(dir)).sequenceDirectory = dir.toFile();
+                        return FileVisitResult.CONTINUE;
+                    }
+                    return FileVisitResult.SKIP_SUBTREE;
+                default:
+                    return FileVisitResult.SKIP_SUBTREE;
+            }
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+            if (!attrs.isRegularFile() || getLevel(file) != FILE_LEVEL) {
+                return FileVisitResult.CONTINUE;
+            }
+            int tenantId = getTenantId(file);
+            String name = file.getFileName().toString();
+            TenantSynapseConfig config = tenantConfigs.get(tenantId);
+            if (API_DIRECTORY.equals(file.getParent().getFileName().toString())) {
+                Matcher matcher = SYNAPSE_API_FILE_PATTERN.matcher(name);
+                if (matcher.matches() && isTenantDomain(tenantId, matcher.group(TENANT_DOMAIN_GROUP))) {
+                    config.apiFiles.add(file.toFile());
+                    apiFileCount++;
+                }
+            } else if (SEQUENCE_FILE_PATTERN.matcher(name).matches()) {
+                config.sequenceFiles.add(file.toFile());
+                sequenceFileCount++;
+            }
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) {
+            log.warn("Unable to read " + file + ". Skipping.", e);
+            return FileVisitResult.CONTINUE;
+        }
+
+        private boolean isTenantDomain(int tenantId, String domain) {
+            if (tenantId == MultitenantConstants.SUPER_TENANT_ID) {
+                return domain == null;
+            }
+            return tenantDomains.get(tenantId).equalsIgnoreCase(domain);
+        }
+
+        /**
+         * @param path path below the root
+         * @return depth of the path as if it were below the tenants directory
+         */
+        private int getLevel(Path path) {
+            int depth = root.relativize(path).getNameCount();
+            return rootTenantId != null ? depth + SYNAPSE_CONFIGS_LEVEL : depth;
+        }
+
+        private int getTenantId(Path path) {
+            if (rootTenantId != null) {
+                return rootTenantId;
+            }
+            try {
+                return Integer.parseInt(root.relativize(path).getName(0).toString());
+            } catch (NumberFormatException e) {
+                return Integer.MIN_VALUE;
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Streaming transformer for the synapse configuration files of the gateway. Each file is read once with StAX, the
+ * events are copied to an in memory buffer while the {@link StreamEdit} adds or drops elements on the fly, and the
+ * file is rewritten only when the edit has changed something. Comments, whitespace and namespace declarations of the
+ * original file are kept as they are. In a dry run the file is transformed but never written.
+ * <p/>
+ * The factories are created once and shared by all threads, since creating readers and writers from a configured
+ * factory is thread safe.
+ */
+public final class SynapseConfigTransformer {
+
+    private static final String CORS_HANDLER_CLASS =
+            "org.wso2.carbon.apimgt.gateway.handlers.security.CORSRequestHandler";
+    private static final String CORS_SEQUENCE_KEY = "_cors_request_handler";
+
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private static final XMLEventFactory eventFactory = XMLEventFactory.newInstance();
+
+    static {
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+    }
+
+    private SynapseConfigTransformer() {
+    }
+
+    /**
+     * Adds the CORS request handler as the first handler of a synapse API, replacing any CORS handler already
+     * present in the API.
+     *
+     * @param apiFile        synapse API file
+     * @param implementation value of the inline property of the handler
+     * @param dryRun         if true the file is not written
+     * @return true if the file was rewritten, or would be rewritten in a dry run
+     * @throws APIMigrationException
+     */
+    public static boolean addCORSHandler(File apiFile, final String implementation, boolean dryRun)
+            throws APIMigrationException {
+        return transform(apiFile, dryRun, new StreamEdit() {
+            private boolean inserted;
+
+            @Override
+            boolean handle(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+                if (event.isStartElement()) {
+                    StartElement element = event.asStartElement();
+                    String name = element.getName().getLocalPart();
+                    if (!inserted && "handlers".equals(name)) {
+                        writer.add(event);
+                        writeCORSHandler(element.getName(), implementation, writer);
+                        inserted = true;
+                        modified = true;
+                        return true;
+                    }
+                    if ("handler".equals(name) && CORS_HANDLER_CLASS.equals(getAttributeValue(element, "class"))) {
+                        skipElement();
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Adds a reference to the CORS request handler sequence to a fault or error sequence, unless the sequence
+     * already has one. The reference is appended to the sequence when <code>append</code> is true, otherwise it is
+     * added before the first send mediator of the sequence.
+     *
+     * @param sequenceFile sequence file
+     * @param append       whether the reference is appended to the end of the sequence
+     * @param dryRun       if true the file is not written
+     * @return true if the file was rewritten, or would be rewritten in a dry run
+     * @throws APIMigrationException
+     */
+    public static boolean addCORSSequence(File sequenceFile, final boolean append, boolean dryRun)
+            throws APIMigrationException {
+        return transform(sequenceFile, dryRun, new StreamEdit() {
+            private int depth;
+            private QName rootName;
+            private boolean inserted;
+
+            @Override
+            boolean handle(XMLEvent event, XMLEventWriter writer) throws XMLStreamException {
+                if (event.isStartElement()) {
+                    StartElement element = event.asStartElement();
+                    if (depth == 0) {
+                        rootName = element.getName();
+                    } else if (depth == 1 && "sequence".equals(element.getName().getLocalPart())
+                               && CORS_SEQUENCE_KEY.equals(getAttributeValue(element, "key"))) {
+                        //the sequence is already migrated, leave the file untouched
+                        cancel();
+                        return true;
+                    } else if (!append && !inserted && depth == 1
+                               && "send".equals(element.getName().getLocalPart())) {
+                        writeCORSSequence(rootName, writer);
+                        inserted = true;
+                    }
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                    if (depth == 0 && !inserted) {
+                        writeCORSSequence(rootName, writer);
+                        inserted = true;
+                    }
+                }
+                modified = inserted;
+                return false;
+            }
+        });
+    }
+
+    /**
+     * Streams the given file through the edit and rewrites it if the edit has modified it
+     *
+     * @param file   file to be transformed
+     * @param dryRun if true the file is not written
+     * @param edit   edit applied to the events of the file
+     * @return true if the file was rewritten, or would be rewritten in a dry run
+     * @throws APIMigrationException
+     */
+    static boolean transform(File file, boolean dryRun, StreamEdit edit) throws APIMigrationException {
+        InputStream in = null;
+        XMLEventReader reader = null;
+        XMLEventWriter writer = null;
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) file.length() + 512);
+        try {
+            in = new FileInputStream(file);
+            reader = inputFactory.createXMLEventReader(in);
+            edit.reader = reader;
+
+            String encoding = "UTF-8";
+            XMLEvent first = reader.peek();
+            if (first != null && first.isStartDocument() && ((StartDocument) first).encodingSet()) {
+                encoding = ((StartDocument) first).getCharacterEncodingScheme();
+            }
+            writer = outputFactory.createXMLEventWriter(out, encoding);
+
+            while (reader.hasNext() && !edit.cancelled) {
+                XMLEvent event = reader.nextEvent();
+                if (!edit.handle(event, writer)) {
+                    writer.add(event);
+                }
+            }
+            writer.flush();
+        } catch (XMLStreamException e) {
+            ResourceUtil.handleException("Error occurred while streaming the file " + file.getAbsolutePath(), e);
+        } catch (IOException e) {
+            ResourceUtil.handleException("IO Exception occurred. Please check the file " + file.getAbsolutePath(), e);
+        } finally {
+            closeQuietly(reader, writer);
+            IOUtils.closeQuietly(in);
+        }
+
+        if (edit.cancelled || !edit.modified) {
+            return false;
+        }
+        if (dryRun) {
+            return true;
+        }
+        try {
+            FileUtils.writeByteArrayToFile(file, out.toByteArray());
+        } catch (IOException e) {
+            ResourceUtil.handleException("Error occurred while writing the file " + file.getAbsolutePath(), e);
+        }
+        return true;
+    }
+
+    private static void writeCORSHandler(QName parent, String implementation, XMLEventWriter writer)
+            throws XMLStreamException {
+        writer.add(eventFactory.createStartElement(parent.getPrefix(), parent.getNamespaceURI(), "handler"));
+        writer.add(eventFactory.createAttribute("class", CORS_HANDLER_CLASS));
+        writer.add(eventFactory.createStartElement(parent.getPrefix(), parent.getNamespaceURI(), "property"));
+        writer.add(eventFactory.createAttribute("name", "inline"));
+        writer.add(eventFactory.createAttribute("value", implementation));
+        writer.add(eventFactory.createEndElement(parent.getPrefix(), parent.getNamespaceURI(), "property"));
+        writer.add(eventFactory.createEndElement(parent.getPrefix(), parent.getNamespaceURI(), "handler"));
+    }
+
+    private static void writeCORSSequence(QName parent, XMLEventWriter writer) throws XMLStreamException {
+        writer.add(eventFactory.createStartElement(parent.getPrefix(), parent.getNamespaceURI(), "sequence"));
+        writer.add(eventFactory.createAttribute("key", CORS_SEQUENCE_KEY));
+        writer.add(eventFactory.createEndElement(parent.getPrefix(), parent.getNamespaceURI(), "sequence"));
+    }
+
+    private static String getAttributeValue(StartElement element, String name) {
+        Attribute attribute = element.getAttributeByName(new QName(name));
+        return attribute != null ? attribute.getValue() : null;
+    }
+
+    private static void closeQuietly(XMLEventReader reader, XMLEventWriter writer) {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (XMLStreamException ignore) {
+            //nothing to do, the underlying stream is closed by the caller
+        }
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+        } catch (XMLStreamException ignore) {
+            //nothing to do, the output is an in memory buffer
+        }
+    }
+
+    /**
+     * An edit applied to the event stream of a single file. The transformer copies every event the edit does not
+     * consume to the output.
+     */
+    abstract static class StreamEdit {
+
+        private XMLEventReader reader;
+        private boolean cancelled;
+        boolean modified;
+
+        /**
+         * Handles an event of the input
+         *
+         * @param event  current event
+         * @param writer output of the transformation
+         * @return true if the event was consumed by the edit and must not be copied to the output
+         * @throws XMLStreamException
+         */
+        abstract boolean handle(XMLEvent event, XMLEventWriter writer) throws XMLStreamException;
+
+        /**
+         * Drops the remaining events of the element whose start event is being handled
+         *
+         * @throws XMLStreamException
+         */
+        void skipElement() throws XMLStreamException {
+            int depth = 1;
+            while (depth > 0 && reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (event.isStartElement()) {
+                    depth++;
+                } else if (event.isEndElement()) {
+                    depth--;
+                }
+            }
+            modified = true;
+        }
+
+        /**
+         * Stops the transformation and leaves the file untouched
+         */
+        void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the splitting of the migration sql scripts into statements
+ */
+public class SQLScriptParserTest {
+
+    @Test
+    public void testStatementsSpanningLines() {
+        List<String> statements = new SQLScriptParser("mysql").parse(
+                "ALTER TABLE AM_API\n" +
+                "    ADD COLUMN CONTEXT_TEMPLATE VARCHAR(256);\n" +
+                "UPDATE AM_API SET CONTEXT_TEMPLATE = CONTEXT;\n");
+        assertEquals(Arrays.asList("ALTER TABLE AM_API\n    ADD COLUMN CONTEXT_TEMPLATE VARCHAR(256)",
+                "UPDATE AM_API SET CONTEXT_TEMPLATE = CONTEXT"), statements);
+    }
+
+    @Test
+    public void testStatementWithoutTrailingDelimiter() {
+        assertEquals(Arrays.asList("DELETE FROM AM_API_SCOPES", "DELETE FROM AM_API_URL_MAPPING"),
+                new SQLScriptParser("h2").parse("DELETE FROM AM_API_SCOPES;\nDELETE FROM AM_API_URL_MAPPING"));
+    }
+
+    @Test
+    public void testLineComments() {
+        List<String> statements = new SQLScriptParser("oracle").parse(
+                "-- add the context template\n" +
+                "// not executed\n" +
+                "REM executed by sqlplus only\n" +
+                "rem\n" +
+                "\n" +
+                "UPDATE AM_API SET CONTEXT_TEMPLATE = CONTEXT; -- keep the context\n" +
+                "REMOVE_ME_NOT;\n");
+        assertEquals(Arrays.asList("UPDATE AM_API SET CONTEXT_TEMPLATE = CONTEXT", "REMOVE_ME_NOT"), statements);
+    }
+
+    @Test
+    public void testBlockComments() {
+        List<String> statements = new SQLScriptParser("mysql").parse(
+                "/* single line comment */\n" +
+                "/*\n" +
+                " * multi line comment; with a delimiter\n" +
+                " */ UPDATE AM_API SET API_TIER = NULL;\n" +
+                "SELECT /*+ INDEX(AM_API) */ API_ID FROM AM_API;\n");
+        assertEquals(Arrays.asList("UPDATE AM_API SET API_TIER = NULL",
+                "SELECT /*+ INDEX(AM_API) */ API_ID FROM AM_API"), statements);
+    }
+
+    @Test
+    public void testDelimiterInQuotedStrings() {
+        List<String> statements = new SQLScriptParser("mysql").parse(
+                "INSERT INTO IDN_OAUTH2_SCOPE (NAME, DESCRIPTION) VALUES ('read;write', 'a\n" +
+                "multi line; description');\n" +
+                "SELECT \"API;ID\" FROM AM_API;\n");
+        assertEquals(Arrays.asList("INSERT INTO IDN_OAUTH2_SCOPE (NAME, DESCRIPTION) VALUES ('read;write', 'a\n" +
+                "multi line; description')", "SELECT \"API;ID\" FROM AM_API"), statements);
+    }
+
+    @Test
+    public void testEscapedLineBreaksAreRemoved() {
+        assertEquals(Arrays.asList("ALTER TABLE AM_API ADD CREATED_BY VARCHAR(100)"),
+                new SQLScriptParser("mssql").parse("ALTER TABLE AM_API ADD CREATED_BY VARCHAR(100);\\n\n"));
+    }
+
+    @Test
+    public void testOraclePlSqlBlock() {
+        String trigger = "CREATE OR REPLACE TRIGGER AM_API_TRIGGER\n" +
+                "    BEFORE INSERT ON AM_API\n" +
+                "    FOR EACH ROW\n" +
+                "BEGIN\n" +
+                "    SELECT AM_API_SEQUENCE.nextval INTO :NEW.API_ID FROM dual;\n" +
+                "END;";
+        List<String> statements = new SQLScriptParser("oracle").parse(
+                "CREATE SEQUENCE AM_API_SEQUENCE START WITH 1 INCREMENT BY 1;\n" +
+                trigger + "\n" +
+                "/\n" +
+                "UPDATE AM_API SET API_TIER = NULL\n" +
+                "/\n");
+        assertEquals(Arrays.asList("CREATE SEQUENCE AM_API_SEQUENCE START WITH 1 INCREMENT BY 1", trigger,
+                "UPDATE AM_API SET API_TIER = NULL"), statements);
+    }
+
+    @Test
+    public void testSlashIsOnlyADelimiterForOracle() {
+        assertEquals(Arrays.asList("UPDATE AM_API SET API_TIER = NULL\n/\nUPDATE AM_API SET API_TIER = NULL"),
+                new SQLScriptParser("mysql").parse("UPDATE AM_API SET API_TIER = NULL\n/\n" +
+                        "UPDATE AM_API SET API_TIER = NULL;"));
+    }
+
+    @Test
+    public void testMssqlGoDelimiter() {
+        List<String> statements = new SQLScriptParser("mssql").parse(
+                "IF NOT EXISTS (SELECT * FROM SYS.OBJECTS WHERE NAME = 'AM_API_SCOPES')\n" +
+                "CREATE TABLE AM_API_SCOPES (API_ID INTEGER NOT NULL)\n" +
+                "go\n" +
+                "DELETE FROM AM_API_SCOPES;\n");
+        assertEquals(Arrays.asList("IF NOT EXISTS (SELECT * FROM SYS.OBJECTS WHERE NAME = 'AM_API_SCOPES')\n" +
+                "CREATE TABLE AM_API_SCOPES (API_ID INTEGER NOT NULL)", "DELETE FROM AM_API_SCOPES"), statements);
+    }
+
+    @Test
+    public void testPostgresqlDollarQuotedBody() {
+        String function = "CREATE OR REPLACE FUNCTION update_modified_column() RETURNS TRIGGER AS $body$\n" +
+                "BEGIN\n" +
+                "    NEW.TIME_CREATED = now();\n" +
+                "    RETURN NEW;\n" +
+                "END;\n" +
+                "$body$ LANGUAGE plpgsql";
+        List<String> statements = new SQLScriptParser("postgresql").parse(
+                function + ";\n" +
+                "DELETE FROM AM_API_SCOPES;\n");
+        assertEquals(Arrays.asList(function, "DELETE FROM AM_API_SCOPES"), statements);
+    }
+
+    @Test
+    public void testDatabaseTypeIsNotCaseSensitive() {
+        assertEquals(Arrays.asList("DELETE FROM AM_API_SCOPES", "DELETE FROM AM_API_URL_MAPPING"),
+                new SQLScriptParser("Oracle").parse("DELETE FROM AM_API_SCOPES\n/\nDELETE FROM AM_API_URL_MAPPING;"));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+* Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+
+package org.wso2.carbon.apimgt.migration.util;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the rewrite of the synapse APIs and sequences of an API Manager 1.8.0 gateway. The fixtures are copies of
+ * the files deployed by 1.8.0, and each test works on its own copy in a temporary folder.
+ */
+public class SynapseConfigTransformerTest {
+
+    private static final String SYNAPSE_NAMESPACE = "http://ws.apache.org/ns/synapse";
+    private static final String CORS_HANDLER_CLASS =
+            "org.wso2.carbon.apimgt.gateway.handlers.security.CORSRequestHandler";
+    private static final String CORS_SEQUENCE_KEY = "_cors_request_handler";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testCORSHandlerAddedAsFirstHandler() throws Exception {
+        File api = copyFixture("api/admin--PizzaShackAPI_v1.0.0.xml");
+
+        assertTrue(SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", false));
+
+        List<Element> handlers = getChildElements(getElement(parse(api), "handlers"));
+        assertEquals(6, handlers.size());
+        assertEquals(CORS_HANDLER_CLASS, handlers.get(0).getAttribute("class"));
+        assertEquals(SYNAPSE_NAMESPACE, handlers.get(0).getNamespaceURI());
+        Element property = getChildElements(handlers.get(0)).get(0);
+        assertEquals("inline", property.getAttribute("name"));
+        assertEquals("ENDPOINT", property.getAttribute("value"));
+        assertEquals("org.wso2.carbon.apimgt.gateway.handlers.security.APIAuthenticationHandler",
+                handlers.get(1).getAttribute("class"));
+        assertEquals("org.wso2.carbon.apimgt.gateway.handlers.ext.APIManagerExtensionHandler",
+                handlers.get(5).getAttribute("class"));
+    }
+
+    @Test
+    public void testAPIOtherwiseUnchanged() throws Exception {
+        File api = copyFixture("api/admin--PizzaShackAPI_v1.0.0.xml");
+        Document original = parse(api);
+
+        SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", false);
+
+        Document migrated = parse(api);
+        Element handlers = getElement(migrated, "handlers");
+        handlers.removeChild(getChildElements(handlers).get(0));
+        assertTrue(original.getDocumentElement().isEqualNode(migrated.getDocumentElement()));
+    }
+
+    @Test
+    public void testCORSHandlerNotDuplicated() throws Exception {
+        File api = copyFixture("api/admin--PizzaShackAPI_v1.0.0.xml");
+        SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", false);
+        byte[] migrated = FileUtils.readFileToByteArray(api);
+
+        SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", false);
+
+        assertArrayEquals(migrated, FileUtils.readFileToByteArray(api));
+    }
+
+    @Test
+    public void testCORSHandlerReplaced() throws Exception {
+        File api = copyFixture("api/admin--PizzaShackAPI_v1.0.0.xml");
+        SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", false);
+
+        SynapseConfigTransformer.addCORSHandler(api, "NONE", false);
+
+        List<Element> handlers = getChildElements(getElement(parse(api), "handlers"));
+        assertEquals(6, handlers.size());
+        assertEquals("NONE", getChildElements(handlers.get(0)).get(0).getAttribute("value"));
+        for (Element handler : handlers.subList(1, handlers.size())) {
+            assertFalse(CORS_HANDLER_CLASS.equals(handler.getAttribute("class")));
+        }
+    }
+
+    @Test
+    public void testCORSSequenceAddedBeforeSend() throws Exception {
+        File fault = copyFixture("sequences/fault.xml");
+
+        assertTrue(SynapseConfigTransformer.addCORSSequence(fault, false, false));
+
+        List<Element> mediators = getChildElements(parse(fault).getDocumentElement());
+        Element cors = mediators.get(mediators.size() - 2);
+        assertEquals("sequence", cors.getLocalName());
+        assertEquals(SYNAPSE_NAMESPACE, cors.getNamespaceURI());
+        assertEquals(CORS_SEQUENCE_KEY, cors.getAttribute("key"));
+        assertEquals("send", mediators.get(mediators.size() - 1).getLocalName());
+    }
+
+    @Test
+    public void testCORSSequenceKeepsEncodingAndComments() throws Exception {
+        File fault = copyFixture("sequences/fault.xml");
+
+        SynapseConfigTransformer.addCORSSequence(fault, false, false);
+
+        String migrated = FileUtils.readFileToString(fault, "ISO-8859-1");
+        assertTrue(migrated.startsWith("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?>"));
+        assertTrue(migrated.contains("Copyright (c) 2005-2010, WSO2 Inc."));
+        assertTrue(migrated.contains("<property name=\"STATUS\" value=\"Executing default 'fault' sequence\""));
+    }
+
+    @Test
+    public void testCORSSequenceAppended() throws Exception {
+        for (String name : new String[]{"_throttle_out_handler_", "_auth_failure_handler_"}) {
+            File sequence = copyFixture("sequences/" + name + ".xml");
+
+            assertTrue(SynapseConfigTransformer.addCORSSequence(sequence, true, false));
+
+            List<Element> mediators = getChildElements(parse(sequence).getDocumentElement());
+            Element cors = mediators.get(mediators.size() - 1);
+            assertEquals("sequence", cors.getLocalName());
+            assertEquals(CORS_SEQUENCE_KEY, cors.getAttribute("key"));
+        }
+    }
+
+    @Test
+    public void testMigratedSequenceLeftUntouched() throws Exception {
+        File fault = copyFixture("sequences/fault.xml");
+        SynapseConfigTransformer.addCORSSequence(fault, false, false);
+        byte[] migrated = FileUtils.readFileToByteArray(fault);
+        long lastModified = fault.lastModified();
+
+        assertFalse(SynapseConfigTransformer.addCORSSequence(fault, false, false));
+
+        assertArrayEquals(migrated, FileUtils.readFileToByteArray(fault));
+        assertEquals(lastModified, fault.lastModified());
+    }
+
+    @Test
+    public void testDryRunDoesNotWrite() throws Exception {
+        File api = copyFixture("api/admin--PizzaShackAPI_v1.0.0.xml");
+        File fault = copyFixture("sequences/fault.xml");
+        byte[] originalAPI = FileUtils.readFileToByteArray(api);
+        byte[] originalFault = FileUtils.readFileToByteArray(fault);
+
+        assertTrue(SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", true));
+        assertTrue(SynapseConfigTransformer.addCORSSequence(fault, false, true));
+
+        assertArrayEquals(originalAPI, FileUtils.readFileToByteArray(api));
+        assertArrayEquals(originalFault, FileUtils.readFileToByteArray(fault));
+    }
+
+    @Test(expected = APIMigrationException.class)
+    public void testMalformedFileNotWritten() throws Exception {
+        File api = folder.newFile("broken.xml");
+        FileUtils.writeStringToFile(api, "<api xmlns=\"" + SYNAPSE_NAMESPACE + "\"><handlers></api>", "UTF-8");
+
+        try {
+            SynapseConfigTransformer.addCORSHandler(api, "ENDPOINT", false);
+        } finally {
+            assertEquals("<api xmlns=\"" + SYNAPSE_NAMESPACE + "\"><handlers></api>",
+                    FileUtils.readFileToString(api, "UTF-8"));
+        }
+    }
+
+    private File copyFixture(String path) throws IOException, URISyntaxException {
+        File fixture = new File(getClass().getResource("/synapse-configs/" + path).toURI());
+        File copy = new File(folder.getRoot(), fixture.getName());
+        FileUtils.copyFile(fixture, copy);
+        return copy;
+    }
+
+    private static Document parse(File file) throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        return factory.newDocumentBuilder().parse(file);
+    }
+
+    private static Element getElement(Document document, String name) {
+        return (Element) document.getElementsByTagNameNS(SYNAPSE_NAMESPACE, name).item(0);
+    }
+
+    private static List<Element> getChildElements(Element parent) {
+        List<Element> elements = new ArrayList<Element>();
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node.getNodeType() == Node.ELEMENT_NODE) {
+                elements.add((Element) node);
+            }
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.generic.APIMTestCaseUtils;
+import org.wso2.carbon.apimgt.api.model.APIIdentifier;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the parsing of the publisher and store responses by {@link APIMTestCaseUtils}, which the tests and
+ * the test tooling run over the full API list of a tenant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class APIResponseParsingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int apiCount;
+
+    private HttpResponse apiListResponse;
+    private HttpResponse[] apiResponses;
+
+    @Setup
+    public void setUp() throws Exception {
+        apiListResponse = new HttpResponse(BenchmarkFixtures.createAPIListResponse(apiCount), 200);
+        apiResponses = new HttpResponse[apiCount];
+        for (int i = 0; i < apiCount; i++) {
+            apiResponses[i] = new HttpResponse(BenchmarkFixtures.createAPIResponse(i), 200);
+        }
+    }
+
+    /**
+     * Parse the identifiers of all the APIs of a single API list response
+     */
+    @Benchmark
+    public List<APIIdentifier> getAPIIdentifierList() throws APIManagerIntegrationTestException {
+        return APIMTestCaseUtils.getAPIIdentifierListFromHttpResponse(apiListResponse);
+    }
+
+    /**
+     * Create the API beans of the responses of all the APIs, one response per API as the publisher returns them
+     */
+    @Benchmark
+    public void getAPIBeans(Blackhole blackhole) throws APIManagerIntegrationTestException {
+        for (HttpResponse apiResponse : apiResponses) {
+            blackhole.consume(APIMTestCaseUtils.getAPIBeanFromHttpResponse(apiResponse));
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.benchmark;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.apimgt.migration.util.Swagger12To20Converter.Swagger12Document;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the API fixtures of the benchmarks. The fixtures have the shape of the publisher and store responses, the
+ * swagger v1.2 registry resources and the gateway synapse APIs of an API Manager 1.8.0 deployment, with a few
+ * resources per API, so that the cost of a benchmark grows with the number of APIs as it does in a real deployment.
+ */
+final class BenchmarkFixtures {
+
+    static final String PROVIDER = "admin";
+    static final String VERSION = "1.0.0";
+    private static final String[] RESOURCE_PATHS = {"/customers", "/customers/{id}", "/orders", "/orders/{id}"};
+    private static final String[] HTTP_METHODS = {"GET", "POST", "PUT", "DELETE"};
+
+    private BenchmarkFixtures() {
+    }
+
+    static String getAPIName(int index) {
+        return "BenchmarkAPI" + index;
+    }
+
+    /**
+     * Build the body of the publisher response which lists the given number of APIs
+     *
+     * @param apiCount - number of APIs
+     * @return - response body with an "apis" array
+     * @throws JSONException - if the response cannot be built
+     */
+    static String createAPIListResponse(int apiCount) throws JSONException {
+        JSONArray apis = new JSONArray();
+        for (int i = 0; i < apiCount; i++) {
+            JSONObject api = new JSONObject();
+            api.put("name", getAPIName(i));
+            api.put("version", VERSION);
+            api.put("provider", PROVIDER);
+            api.put("status", "PUBLISHED");
+            api.put("thumb", JSONObject.NULL);
+            api.put("subs", i % 7);
+            apis.put(api);
+        }
+        JSONObject response = new JSONObject();
+        response.put("error", false);
+        response.put("apis", apis);
+        return response.toString();
+    }
+
+    /**
+     * Build the body of the publisher response of a single API
+     *
+     * @param index - index of the API
+     * @return - response body with an "api" object
+     * @throws JSONException - if the response cannot be built
+     */
+    static String createAPIResponse(int index) throws JSONException {
+        String name = getAPIName(index);
+        JSONObject api = new JSONObject();
+        api.put("name", name);
+        api.put("version", VERSION);
+        api.put("provider", PROVIDER);
+        api.put("context", "/" + name.toLowerCase());
+        api.put("description", "Description of " + name);
+        api.put("wsdl", "");
+        api.put("wadl", "");
+        api.put("tags", "benchmark,api" + index);
+        api.put("availableTiers", "Gold,Silver,Bronze,Unlimited");
+        api.put("availableTiersDisplayNames", "Gold,Silver,Bronze,Unlimited");
+        api.put("thumb", "");
+        api.put("sandbox", "http://localhost:8280/sandbox/" + name);
+        api.put("bizOwner", "owner" + index);
+        api.put("bizOwnerMail", "owner" + index + "@wso2.com");
+        api.put("techOwner", "tech" + index);
+        api.put("techOwnerMail", "tech" + index + "@wso2.com");
+        api.put("visibility", "public");
+        api.put("roles", "");
+        api.put("epUsername", "");
+        api.put("epPassword", "");
+        api.put("endpointTypeSecured", "false");
+        api.put("transport_http", "checked");
+        api.put("transport_https", "checked");
+        api.put("inSequence", "");
+        api.put("outSequence", "");
+        api.put("endpointConfig", "{\"production_endpoints\":{\"url\":\"http://localhost:8280/" + name +
+                                  "\",\"config\":null},\"endpoint_type\":\"http\"}");
+        JSONObject response = new JSONObject();
+        response.put("error", false);
+        response.put("api", api);
+        return response.toString();
+    }
+
+    /**
+     * Build the swagger v1.2 documents of the given number of APIs, each with a resource listing and a single API
+     * declaration, as they are stored in the registry by API Manager 1.8.0
+     *
+     * @param apiCount - number of APIs
+     * @return - swagger v1.2 documents
+     * @throws JSONException - if a document cannot be built
+     */
+    static List<Swagger12Document> createSwagger12Documents(int apiCount) throws JSONException {
+        List<Swagger12Document> documents = new ArrayList<Swagger12Document>(apiCount);
+        for (int i = 0; i < apiCount; i++) {
+            List<String> apiDeclarations = new ArrayList<String>(1);
+            apiDeclarations.add(createAPIDeclaration(i));
+            documents.add(new Swagger12Document(PROVIDER + "/" + getAPIName(i) + "/" + VERSION,
+                                                createResourceListing(i), apiDeclarations));
+        }
+        return documents;
+    }
+
+    private static String createResourceListing(int index) throws JSONException {
+        JSONObject info = new JSONObject();
+        info.put("title", getAPIName(index));
+        info.put("description", "Description of " + getAPIName(index));
+        info.put("contact", "tech" + index + "@wso2.com");
+        info.put("license", "Apache 2.0");
+        info.put("licenseUrl", "http://www.apache.org/licenses/LICENSE-2.0.html");
+
+        JSONArray scopes = new JSONArray();
+        JSONObject scope = new JSONObject();
+        scope.put("name", "read");
+        scope.put("description", "Read access");
+        scope.put("key", "read");
+        scope.put("roles", "internal/subscriber");
+        scopes.put(scope);
+        JSONObject oauth2 = new JSONObject();
+        oauth2.put("type", "oauth2");
+        oauth2.put("scopes", scopes);
+        JSONObject authorizations = new JSONObject();
+        authorizations.put("oauth2", oauth2);
+
+        JSONArray apis = new JSONArray();
+        JSONObject api = new JSONObject();
+        api.put("path", "/default");
+        api.put("description", "");
+        apis.put(api);
+
+        JSONObject resourceListing = new JSONObject();
+        resourceListing.put("apiVersion", VERSION);
+        resourceListing.put("swaggerVersion", "1.2");
+        resourceListing.put("info", info);
+        resourceListing.put("authorizations", authorizations);
+        resourceListing.put("apis", apis);
+        return resourceListing.toString();
+    }
+
+    private static String createAPIDeclaration(int index) throws JSONException {
+        JSONArray apis = new JSONArray();
+        for (String path : RESOURCE_PATHS) {
+            JSONArray operations = new JSONArray();
+            for (String method : HTTP_METHODS) {
+                JSONArray parameters = new JSONArray();
+                if (path.endsWith("{id}")) {
+                    parameters.put(createParameter("id", "path", true));
+                }
+                if ("POST".equals(method) || "PUT".equals(method)) {
+                    parameters.put(createParameter("body", "body", true));
+                } else {
+                    parameters.put(createParameter("limit", "query", false));
+                }
+                JSONObject operation = new JSONObject();
+                operation.put("method", method);
+                operation.put("nickname", method.toLowerCase() + "_" + path.replaceAll("[^a-z]", ""));
+                operation.put("summary", method + " " + path);
+                operation.put("auth_type", "Application & Application User");
+                operation.put("throttling_tier", "Unlimited");
+                operation.put("parameters", parameters);
+                operations.put(operation);
+            }
+            JSONObject api = new JSONObject();
+            api.put("path", path);
+            api.put("operations", operations);
+            apis.put(api);
+        }
+        JSONObject apiDeclaration = new JSONObject();
+        apiDeclaration.put("apiVersion", VERSION);
+        apiDeclaration.put("swaggerVersion", "1.2");
+        apiDeclaration.put("basePath", "http://localhost:8280/" + getAPIName(index).toLowerCase() + "/" + VERSION);
+        apiDeclaration.put("resourcePath", "/default");
+        apiDeclaration.put("apis", apis);
+        return apiDeclaration.toString();
+    }
+
+    private static JSONObject createParameter(String name, String paramType, boolean required)
+            throws JSONException {
+        JSONObject parameter = new JSONObject();
+        parameter.put("name", name);
+        parameter.put("paramType", paramType);
+        parameter.put("required", required);
+        parameter.put("type", "string");
+        parameter.put("allowMultiple", false);
+        return parameter;
+    }
+
+    /**
+     * Write the synapse APIs of the given number of APIs to a directory, in the form the gateway of API Manager
+     * 1.8.0 deploys them
+     *
+     * @param directory - directory to write the APIs to
+     * @param apiCount  - number of APIs
+     * @return - synapse API files
+     * @throws IOException - if a file cannot be written
+     */
+    static List<File> writeSynapseAPIs(File directory, int apiCount) throws IOException {
+        List<File> files = new ArrayList<File>(apiCount);
+        for (int i = 0; i < apiCount; i++) {
+            File file = new File(directory, PROVIDER + "--" + getAPIName(i) + "_v" + VERSION + ".xml");
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try {
+                writer.write(createSynapseAPI(i));
+            } finally {
+                writer.close();
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static String createSynapseAPI(int index) {
+        String name = getAPIName(index);
+        StringBuilder api = new StringBuilder();
+        api.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        api.append("<api xmlns=\"http://ws.apache.org/ns/synapse\" name=\"").append(PROVIDER).append("--")
+           .append(name).append("\" context=\"/").append(name.toLowerCase()).append("/").append(VERSION)
+           .append("\" version=\"").append(VERSION).append("\" version-type=\"url\">\n");
+        for (String path : RESOURCE_PATHS) {
+            api.append("    <resource methods=\"GET POST PUT DELETE\" url-mapping=\"").append(path).append("\">\n");
+            api.append("        <inSequence>\n");
+            api.append("            <property name=\"POST_TO_URI\" value=\"true\" scope=\"axis2\"/>\n");
+            api.append("            <filter source=\"$ctx:AM_KEY_TYPE\" regex=\"PRODUCTION\">\n");
+            api.append("                <then>\n");
+            api.append("                    <send>\n");
+            api.append("                        <endpoint name=\"").append(PROVIDER).append("--").append(name)
+               .append("_APIproductionEndpoint_0\">\n");
+            api.append("                            <http uri-template=\"http://localhost:8280/").append(name)
+               .append("\"/>\n");
+            api.append("                        </endpoint>\n");
+            api.append("                    </send>\n");
+            api.append("                </then>\n");
+            api.append("                <else>\n");
+            api.append("                    <sequence key=\"_sandbox_key_error_\"/>\n");
+            api.append("                </else>\n");
+            api.append("            </filter>\n");
+            api.append("        </inSequence>\n");
+            api.append("        <outSequence>\n");
+            api.append("            <send/>\n");
+            api.append("        </outSequence>\n");
+            api.append("    </resource>\n");
+        }
+        api.append("    <handlers>\n");
+        api.append("        <handler class=\"org.wso2.carbon.apimgt.gateway.handlers.security.APIAuthenticationHandler\"/>\n");
+        api.append("        <handler class=\"org.wso2.carbon.apimgt.gateway.handlers.throttling.APIThrottleHandler\">\n");
+        api.append("            <property name=\"id\" value=\"A\"/>\n");
+        api.append("            <property name=\"policyKey\" value=\"gov:/apimgt/applicationdata/tiers.xml\"/>\n");
+        api.append("        </handler>\n");
+        api.append("        <handler class=\"org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageHandler\"/>\n");
+        api.append("        <handler class=\"org.wso2.carbon.apimgt.gateway.handlers.ext.APIManagerExtensionHandler\"/>\n");
+        api.append("    </handlers>\n");
+        api.append("</api>\n");
+        return api.toString();
+    }
+}
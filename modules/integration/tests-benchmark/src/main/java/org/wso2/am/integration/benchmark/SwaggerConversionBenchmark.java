@@ -0,0 +1,86 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+import org.wso2.carbon.apimgt.migration.util.Swagger12To20Converter;
+import org.wso2.carbon.apimgt.migration.util.Swagger12To20Converter.Conversion;
+import org.wso2.carbon.apimgt.migration.util.Swagger12To20Converter.Swagger12Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the swagger v1.2 to v2.0 conversion of the 1.8.0 to 1.9.0 migration, which generates the swagger v2.0
+ * document and paths object of every API of every tenant. The documents of all the APIs are submitted at once and the
+ * benchmark waits for all the conversions, as the migration client does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SwaggerConversionBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int apiCount;
+
+    @Param({"1", "4"})
+    private int parallelism;
+
+    private List<Swagger12Document> documents;
+    private Swagger12To20Converter converter;
+
+    @Setup
+    public void setUp() throws Exception {
+        documents = BenchmarkFixtures.createSwagger12Documents(apiCount);
+        converter = new Swagger12To20Converter(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        converter.shutdown();
+    }
+
+    @Benchmark
+    public void convert(Blackhole blackhole) throws APIMigrationException {
+        List<Conversion> conversions = new ArrayList<Conversion>(documents.size());
+        for (Swagger12Document document : documents) {
+            conversions.add(converter.submit(document));
+        }
+        for (Conversion conversion : conversions) {
+            blackhole.consume(conversion.get());
+        }
+    }
+}
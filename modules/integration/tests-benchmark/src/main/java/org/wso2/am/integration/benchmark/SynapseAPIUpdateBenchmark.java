@@ -0,0 +1,93 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wso2.carbon.apimgt.migration.APIMigrationException;
+import org.wso2.carbon.apimgt.migration.util.ResourceUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the addition of the CORS handler to the synapse APIs of the gateway by the 1.8.0 to 1.9.0 migration.
+ * The APIs are updated in a dry run, so every invocation reads and transforms the same unmodified files and the
+ * benchmark measures the transformation without the cost of rewriting the files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SynapseAPIUpdateBenchmark {
+
+    private static final String CORS_HANDLER_IMPLEMENTATION = "ENDPOINT";
+
+    @Param({"10", "1000", "10000"})
+    private int apiCount;
+
+    private File directory;
+    private List<File> apiFiles;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = File.createTempFile("synapse-apis", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Unable to create the directory " + directory.getAbsolutePath());
+        }
+        apiFiles = BenchmarkFixtures.writeSynapseAPIs(directory, apiCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File apiFile : apiFiles) {
+            if (!apiFile.delete()) {
+                apiFile.deleteOnExit();
+            }
+        }
+        if (!directory.delete()) {
+            directory.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public int updateSynapseAPIs() throws APIMigrationException {
+        int updatedCount = 0;
+        for (File apiFile : apiFiles) {
+            if (ResourceUtil.updateSynapseAPI(apiFile, CORS_HANDLER_IMPLEMENTATION, true)) {
+                updatedCount++;
+            }
+        }
+        return updatedCount;
+    }
+}
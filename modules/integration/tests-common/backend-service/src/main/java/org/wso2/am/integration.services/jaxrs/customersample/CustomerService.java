@@ -16,19 +16,24 @@
 
 package org.wso2.am.integration.services.jaxrs.customersample;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.wso2.am.integration.services.jaxrs.customersample.bean.Customer;
 import org.wso2.am.integration.services.jaxrs.customersample.bean.Order;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.Response;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Path("/customerservice/")
 public class CustomerService {
-    long currentId = 123;
-    Map<Long, Customer> customers = new HashMap<Long, Customer>();
-    Map<Long, Order> orders = new HashMap<Long, Order>();
+    private static final Log log = LogFactory.getLog(CustomerService.class);
+    //the service is a singleton which is invoked by concurrent requests
+    final AtomicLong currentId = new AtomicLong(123);
+    Map<Long, Customer> customers = new ConcurrentHashMap<Long, Customer>();
+    Map<Long, Order> orders = new ConcurrentHashMap<Long, Order>();
 
     public CustomerService() {
         init();
@@ -37,7 +42,9 @@ public class CustomerService {
     @GET
     @Path("/customers/{id}/")
     public Customer getCustomer(@PathParam("id") String id) {
-        System.out.println("----invoking getCustomer, Customer id is: " + id);
+        if (log.isDebugEnabled()) {
+            log.debug("----invoking getCustomer, Customer id is: " + id);
+        }
         long idNumber = Long.parseLong(id);
         Customer c = customers.get(idNumber);
         return c;
@@ -46,11 +53,11 @@ public class CustomerService {
     @PUT
     @Path("/customers/")
     public Response updateCustomer(Customer customer) {
-        System.out.println("----invoking updateCustomer, Customer name is: " + customer.getName());
-        Customer c = customers.get(customer.getId());
+        if (log.isDebugEnabled()) {
+            log.debug("----invoking updateCustomer, Customer name is: " + customer.getName());
+        }
         Response r;
-        if (c != null) {
-            customers.put(customer.getId(), customer);
+        if (customers.replace(customer.getId(), customer) != null) {
             r = Response.ok().build();
         } else {
             r = Response.notModified().build();
@@ -62,8 +69,10 @@ public class CustomerService {
     @POST
     @Path("/customers/")
     public Response addCustomer(Customer customer) {
-        System.out.println("----invoking addCustomer, Customer name is: " + customer.getName());
-        customer.setId(++currentId);
+        if (log.isDebugEnabled()) {
+            log.debug("----invoking addCustomer, Customer name is: " + customer.getName());
+        }
+        customer.setId(currentId.incrementAndGet());
 
         customers.put(customer.getId(), customer);
 
@@ -77,21 +86,22 @@ public class CustomerService {
     @Consumes("text/plain")
     @Produces("text/plain")
     public String getCustomerName(String id) {
-        System.out.println("----invoking getCustomerName, Customer id is: " + id);
+        if (log.isDebugEnabled()) {
+            log.debug("----invoking getCustomerName, Customer id is: " + id);
+        }
         return "Isuru Suriarachchi";
     }
 
     @DELETE
     @Path("/customers/{id}/")
     public Response deleteCustomer(@PathParam("id") String id) {
-        System.out.println("----invoking deleteCustomer, Customer id is: " + id);
+        if (log.isDebugEnabled()) {
+            log.debug("----invoking deleteCustomer, Customer id is: " + id);
+        }
         long idNumber = Long.parseLong(id);
-        Customer c = customers.get(idNumber);
-
         Response r;
-        if (c != null) {
+        if (customers.remove(idNumber) != null) {
             r = Response.ok().build();
-            customers.remove(idNumber);
         } else {
             r = Response.notModified().build();
         }
@@ -101,7 +111,9 @@ public class CustomerService {
 
     @Path("/orders/{orderId}/")
     public Order getOrder(@PathParam("orderId") String orderId) {
-        System.out.println("----invoking getOrder, Order id is: " + orderId);
+        if (log.isDebugEnabled()) {
+            log.debug("----invoking getOrder, Order id is: " + orderId);
+        }
         long idNumber = Long.parseLong(orderId);
         Order c = orders.get(idNumber);
         return c;
@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.IOException;
 
 import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
 import org.apache.catalina.loader.WebappLoader;
 import org.apache.catalina.startup.Tomcat;
 import org.apache.commons.logging.Log;
@@ -29,17 +31,37 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.cxf.transport.servlet.CXFServlet;
 import org.springframework.web.context.ContextLoaderListener;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.wso2.am.integration.services.jaxrs.perfsample.BackendConfiguration;
+import org.wso2.am.integration.services.jaxrs.perfsample.PerformanceBackendServlet;
 
+/**
+ * Starts the backend services on an embedded Tomcat. The port and the connector are configured with the system
+ * properties described in {@link BackendConfiguration}. The connector uses the NIO protocol, so idle keep-alive
+ * connections of the load generators do not hold a request thread each.
+ */
 public class Starter {
     private final static Log log = LogFactory.getLog(Starter.class);
+    private static final String NIO_PROTOCOL = "org.apache.coyote.http11.Http11NioProtocol";
+
+    private final BackendConfiguration configuration;
+
+    public Starter() {
+        this(BackendConfiguration.fromSystemProperties());
+    }
+
+    public Starter(BackendConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Starter().startPerformanceService();
+    }
 
     public void startPeopleService() throws Exception {
         final File base = createBaseDirectory();
         log.info("Using base folder: " + base.getAbsolutePath());
 
-        final Tomcat tomcat = new Tomcat();
-        tomcat.setPort(8080);
-        tomcat.setBaseDir(base.getAbsolutePath());
+        final Tomcat tomcat = createTomcat(base);
 
         Context context = tomcat.addContext("/", base.getAbsolutePath());
         Tomcat.addServlet(context, "CXFServlet", new CXFServlet());
@@ -55,8 +77,46 @@ public class Starter {
         tomcat.getServer().await();
     }
 
+    /**
+     * Starts the performance backend, which serves every request below /perf with a configured response, and
+     * returns its request counters at /perf/stats
+     *
+     * @throws Exception if Tomcat cannot be started
+     */
+    public void startPerformanceService() throws Exception {
+        final File base = createBaseDirectory();
+        log.info("Using base folder: " + base.getAbsolutePath());
+
+        final Tomcat tomcat = createTomcat(base);
+
+        Context context = tomcat.addContext("/", base.getAbsolutePath());
+        Wrapper wrapper = Tomcat.addServlet(context, "PerformanceBackendServlet",
+                                            new PerformanceBackendServlet(configuration));
+        wrapper.setAsyncSupported(true);
+        wrapper.setLoadOnStartup(1);
+        context.addServletMapping("/perf/*", "PerformanceBackendServlet");
+
+        tomcat.start();
+        log.info("Performance backend listening on port " + configuration.getPort());
+        tomcat.getServer().await();
+    }
+
+    private Tomcat createTomcat(File base) {
+        final Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(base.getAbsolutePath());
+
+        Connector connector = new Connector(NIO_PROTOCOL);
+        connector.setPort(configuration.getPort());
+        connector.setProperty("maxThreads", String.valueOf(configuration.getMaxThreads()));
+        connector.setProperty("acceptCount", "1000");
+        connector.setProperty("maxKeepAliveRequests", "-1");
+        tomcat.getService().addConnector(connector);
+        tomcat.setConnector(connector);
+        return tomcat;
+    }
+
     private static File createBaseDirectory() throws IOException {
-        final File base = File.createTempFile("tmp-", "", new File("/home/dharshana/reaserch/jetty/jetty2/src/main/resources"));
+        final File base = File.createTempFile("tmp-", "", new File(System.getProperty("java.io.tmpdir")));
 
         if (!base.delete()) {
             throw new IOException("Cannot (re)create base folder: " + base.getAbsolutePath());
@@ -65,6 +125,7 @@ public class Starter {
         if (!base.mkdir()) {
             throw new IOException("Cannot create base folder: " + base.getAbsolutePath());
         }
+        base.deleteOnExit();
         return base;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.services.jaxrs.perfsample;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Response behaviour of the performance backend. The defaults are read from the system properties below, and the
+ * size, latency and status of a single response can be overridden with the size, latency and status query parameters
+ * of its request.
+ * <ul>
+ * <li>backend.service.port - HTTP port of the backend, 8080 by default</li>
+ * <li>backend.service.responseSize - size of the response body in bytes, 1024 by default</li>
+ * <li>backend.service.latency - time in millis a response is delayed, 0 by default</li>
+ * <li>backend.service.latencyJitter - maximum random time in millis added to the latency, 0 by default</li>
+ * <li>backend.service.statusMix - status codes of the responses with their weights, ex: 200:95,500:5.
+ * 200 by default</li>
+ * <li>backend.service.async - whether delayed responses are completed asynchronously, without holding a request
+ * thread during the latency, true by default</li>
+ * <li>backend.service.maxThreads - maximum number of request threads of the connector, 200 by default</li>
+ * </ul>
+ */
+public class BackendConfiguration {
+
+    private static final String PROPERTY_PREFIX = "backend.service.";
+
+    private final int port;
+    private final int responseSize;
+    private final long latency;
+    private final long latencyJitter;
+    private final boolean async;
+    private final int maxThreads;
+    private final int[] statusCodes;
+    //cumulative weights of the status codes
+    private final int[] statusWeights;
+
+    public BackendConfiguration(int port, int responseSize, long latency, long latencyJitter, String statusMix,
+                                boolean async, int maxThreads) {
+        this.port = port;
+        this.responseSize = responseSize;
+        this.latency = latency;
+        this.latencyJitter = latencyJitter;
+        this.async = async;
+        this.maxThreads = maxThreads;
+
+        Map<Integer, Integer> mix = parseStatusMix(statusMix);
+        statusCodes = new int[mix.size()];
+        statusWeights = new int[mix.size()];
+        int index = 0;
+        int totalWeight = 0;
+        for (Map.Entry<Integer, Integer> entry : mix.entrySet()) {
+            totalWeight += entry.getValue();
+            statusCodes[index] = entry.getKey();
+            statusWeights[index] = totalWeight;
+            index++;
+        }
+    }
+
+    /**
+     * @return configuration given by the system properties
+     */
+    public static BackendConfiguration fromSystemProperties() {
+        return new BackendConfiguration(
+                Integer.getInteger(PROPERTY_PREFIX + "port", 8080),
+                Integer.getInteger(PROPERTY_PREFIX + "responseSize", 1024),
+                Long.getLong(PROPERTY_PREFIX + "latency", 0),
+                Long.getLong(PROPERTY_PREFIX + "latencyJitter", 0),
+                System.getProperty(PROPERTY_PREFIX + "statusMix", "200"),
+                Boolean.parseBoolean(System.getProperty(PROPERTY_PREFIX + "async", "true")),
+                Integer.getInteger(PROPERTY_PREFIX + "maxThreads", 200));
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getResponseSize() {
+        return responseSize;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    /**
+     * @param random random of the request thread
+     * @return latency of a response, with the jitter applied
+     */
+    public long nextLatency(Random random) {
+        if (latencyJitter <= 0) {
+            return latency;
+        }
+        return latency + (long) (random.nextDouble() * latencyJitter);
+    }
+
+    /**
+     * @param random random of the request thread
+     * @return status code of a response, chosen by the weights of the status mix
+     */
+    public int nextStatusCode(Random random) {
+        if (statusCodes.length == 1) {
+            return statusCodes[0];
+        }
+        int value = random.nextInt(statusWeights[statusWeights.length - 1]);
+        for (int i = 0; i < statusWeights.length; i++) {
+            if (value < statusWeights[i]) {
+                return statusCodes[i];
+            }
+        }
+        return statusCodes[statusCodes.length - 1];
+    }
+
+    private static Map<Integer, Integer> parseStatusMix(String statusMix) {
+        Map<Integer, Integer> mix = new LinkedHashMap<Integer, Integer>();
+        for (String entry : statusMix.split(",")) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = entry.split(":");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                mix.put(Integer.parseInt(parts[0].trim()), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("Invalid status mix " + statusMix);
+        }
+        return mix;
+    }
+}
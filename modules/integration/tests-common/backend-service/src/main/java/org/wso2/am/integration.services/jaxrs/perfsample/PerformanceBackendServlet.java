@@ -0,0 +1,205 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.services.jaxrs.perfsample;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mock backend for gateway performance tests. Every request to the servlet is answered with a JSON body of the
+ * configured size and a status code of the configured mix, after the configured latency. In async mode the delayed
+ * responses are completed by a scheduler, so the latency does not hold a request thread and the backend can keep a
+ * large number of slow requests in flight.
+ * <p/>
+ * The size query parameter is limited to {@value #MAX_RESPONSE_SIZE} bytes. The bodies of at most
+ * {@value #MAX_CACHED_PAYLOADS} distinct sizes are cached, and the bodies of any other sizes are built for each
+ * response, so that requests with arbitrary sizes cannot grow the memory of the backend.
+ * <p/>
+ * GET /stats returns the request counters, and DELETE /stats resets them.
+ */
+public class PerformanceBackendServlet extends HttpServlet {
+
+    private static final Log log = LogFactory.getLog(PerformanceBackendServlet.class);
+    private static final String STATS_PATH = "/stats";
+    private static final String CONTENT_TYPE = "application/json";
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_RESPONSE_SIZE = 10 * 1024 * 1024;
+    private static final int MAX_CACHED_PAYLOADS = 16;
+
+    private final BackendConfiguration configuration;
+    private final RequestCounters counters = new RequestCounters();
+    //response bodies by size, shared by all the responses of a size
+    private final ConcurrentMap<Integer, byte[]> payloads = new ConcurrentHashMap<Integer, byte[]>();
+    private ScheduledExecutorService scheduler;
+
+    public PerformanceBackendServlet(BackendConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
+    @Override
+    public void init() throws ServletException {
+        scheduler = Executors.newScheduledThreadPool(Runtime.getRuntime().availableProcessors());
+        log.info("Performance backend started with response size " + configuration.getResponseSize() +
+                 " bytes, " + (configuration.isAsync() ? "async" : "sync") + " mode");
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    public RequestCounters getCounters() {
+        return counters;
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (STATS_PATH.equals(request.getPathInfo())) {
+            serveStats(request, response);
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        final long requestSize = drain(request.getInputStream());
+        final int statusCode = getIntParameter(request, "status", configuration.nextStatusCode(random));
+        int size = getIntParameter(request, "size", configuration.getResponseSize());
+        if (size < 0 || size > MAX_RESPONSE_SIZE) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                               "size should be between 0 and " + MAX_RESPONSE_SIZE + " bytes");
+            return;
+        }
+        final byte[] payload = getPayload(size);
+        long latency = getIntParameter(request, "latency", (int) configuration.nextLatency(random));
+
+        if (latency <= 0) {
+            writeResponse(response, statusCode, payload, requestSize);
+        } else if (configuration.isAsync() && request.isAsyncSupported()) {
+            final AsyncContext asyncContext = request.startAsync();
+            asyncContext.setTimeout(latency + TimeUnit.MINUTES.toMillis(1));
+            scheduler.schedule(new Runnable() {
+                public void run() {
+                    try {
+                        writeResponse((HttpServletResponse) asyncContext.getResponse(), statusCode, payload,
+                                      requestSize);
+                    } catch (IOException e) {
+                        log.warn("Error writing the delayed response", e);
+                    } finally {
+                        asyncContext.complete();
+                    }
+                }
+            }, latency, TimeUnit.MILLISECONDS);
+        } else {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            writeResponse(response, statusCode, payload, requestSize);
+        }
+    }
+
+    private void writeResponse(HttpServletResponse response, int statusCode, byte[] payload, long requestSize)
+            throws IOException {
+        response.setStatus(statusCode);
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(payload.length);
+        response.getOutputStream().write(payload);
+        counters.requestServed(statusCode, requestSize, payload.length);
+    }
+
+    private void serveStats(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if ("DELETE".equals(request.getMethod())) {
+            counters.reset();
+        }
+        byte[] stats = counters.toJson().getBytes("UTF-8");
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(stats.length);
+        response.getOutputStream().write(stats);
+    }
+
+    /**
+     * @param size size of the body in bytes
+     * @return JSON body of the given size, cached unless the bodies of {@value #MAX_CACHED_PAYLOADS} other sizes
+     * are cached already
+     */
+    private byte[] getPayload(int size) {
+        byte[] payload = payloads.get(size);
+        if (payload == null) {
+            payload = createPayload(size);
+            //the bound can be exceeded by a few entries when threads add new sizes at the same time
+            if (payloads.size() < MAX_CACHED_PAYLOADS) {
+                byte[] existing = payloads.putIfAbsent(size, payload);
+                if (existing != null) {
+                    payload = existing;
+                }
+            }
+        }
+        return payload;
+    }
+
+    private static byte[] createPayload(int size) {
+        byte[] prefix = "{\"data\":\"".getBytes();
+        byte[] suffix = "\"}".getBytes();
+        byte[] payload = new byte[size];
+        if (size < prefix.length + suffix.length) {
+            Arrays.fill(payload, (byte) ' ');
+        } else {
+            System.arraycopy(prefix, 0, payload, 0, prefix.length);
+            Arrays.fill(payload, prefix.length, size - suffix.length, (byte) 'x');
+            System.arraycopy(suffix, 0, payload, size - suffix.length, suffix.length);
+        }
+        return payload;
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[READ_BUFFER_SIZE];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+        }
+        return total;
+    }
+
+    private static int getIntParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
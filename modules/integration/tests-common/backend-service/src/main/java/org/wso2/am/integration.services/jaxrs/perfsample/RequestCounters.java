@@ -0,0 +1,95 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.services.jaxrs.perfsample;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters of the requests served by the performance backend. The counters are updated without locking, so they do
+ * not add contention between the request threads.
+ */
+public class RequestCounters {
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final ConcurrentMap<Integer, AtomicLong> statusCounts = new ConcurrentHashMap<Integer, AtomicLong>();
+    private volatile long startTime = System.currentTimeMillis();
+
+    /**
+     * Records a served request
+     *
+     * @param statusCode    status code of the response
+     * @param requestSize   number of bytes of the request body
+     * @param responseSize  number of bytes of the response body
+     */
+    public void requestServed(int statusCode, long requestSize, long responseSize) {
+        requestCount.incrementAndGet();
+        requestBytes.addAndGet(requestSize);
+        responseBytes.addAndGet(responseSize);
+        AtomicLong statusCount = statusCounts.get(statusCode);
+        if (statusCount == null) {
+            AtomicLong newCount = new AtomicLong();
+            statusCount = statusCounts.putIfAbsent(statusCode, newCount);
+            if (statusCount == null) {
+                statusCount = newCount;
+            }
+        }
+        statusCount.incrementAndGet();
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    public void reset() {
+        requestCount.set(0);
+        requestBytes.set(0);
+        responseBytes.set(0);
+        statusCounts.clear();
+        startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @return counters as a JSON object
+     */
+    public String toJson() {
+        long elapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+        long requests = requestCount.get();
+        StringBuilder json = new StringBuilder("{\"requests\":").append(requests)
+                .append(",\"requestBytes\":").append(requestBytes.get())
+                .append(",\"responseBytes\":").append(responseBytes.get())
+                .append(",\"elapsedMillis\":").append(elapsedTime)
+                .append(",\"requestsPerSecond\":").append(requests * 1000 / elapsedTime)
+                .append(",\"statusCodes\":{");
+        boolean first = true;
+        for (Map.Entry<Integer, AtomicLong> entry : new TreeMap<Integer, AtomicLong>(statusCounts).entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            json.append('"').append(entry.getKey()).append("\":").append(entry.getValue().get());
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+}
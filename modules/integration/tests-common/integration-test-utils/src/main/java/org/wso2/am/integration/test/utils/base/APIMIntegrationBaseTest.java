@@ -23,12 +23,16 @@ import org.apache.commons.logging.LogFactory;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.testng.annotations.AfterClass;
 import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.APIMURLBean;
 import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
 import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
 import org.wso2.am.integration.test.utils.generic.APIMTestCaseUtils;
 import org.wso2.am.integration.test.utils.generic.ServiceDeploymentUtil;
+import org.wso2.am.integration.test.utils.http.PooledHttpTransport;
+import org.wso2.am.integration.test.utils.latency.LatencyRecorder;
+import org.wso2.am.integration.test.utils.latency.LatencyTag;
 import org.wso2.carbon.automation.engine.context.AutomationContext;
 import org.wso2.carbon.automation.engine.context.TestUserMode;
 import org.wso2.carbon.automation.engine.frameworkutils.FrameworkPathUtil;
@@ -39,7 +43,15 @@ import javax.xml.stream.XMLStreamException;
 import javax.xml.xpath.XPathExpressionException;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.regex.Matcher;
 
 import static org.testng.Assert.assertTrue;
@@ -51,11 +63,16 @@ import static org.testng.Assert.assertTrue;
 public class APIMIntegrationBaseTest {
 
     private static final Log log = LogFactory.getLog(APIMIntegrationBaseTest.class);
+    private static final String CLEANUP_THREAD_COUNT_PROPERTY = "apim.test.cleanup.threads";
+    private static final int DEFAULT_CLEANUP_THREAD_COUNT = 10;
+    private static final String TENANT_ADMIN_USER_KEY = "admin";
+    private static final String TENANT_USER_KEY = "user1";
     protected AutomationContext storeContext, publisherContext, gatewayContext;
     protected OMElement synapseConfiguration;
     protected APIMTestCaseUtils apimTestCaseUtils;
     protected TestUserMode userMode;
     protected APIMURLBean storeUrls, publisherUrls, gatewayUrls;
+    protected final LatencyRecorder latencyRecorder = new LatencyRecorder();
 
 
     /**
@@ -70,13 +87,23 @@ public class APIMIntegrationBaseTest {
     }
 
     /**
-     * init the object with user mode , create context objects and get session cookies
+     * init the object with user mode , create context objects and get session cookies. When worker tenants are
+     * configured, the tenant user modes run in the tenant allocated to the current thread by
+     * {@link WorkerTenantAllocator}, so that parallel test classes do not share a tenant.
      *
      * @param userMode - user mode to run the tests
      * @throws APIManagerIntegrationTestException - if test configuration init fails
      */
     protected void init(TestUserMode userMode) throws APIManagerIntegrationTestException {
 
+        if (WorkerTenantAllocator.isEnabled() &&
+            (userMode == TestUserMode.TENANT_ADMIN || userMode == TestUserMode.TENANT_USER)) {
+            String userKey = userMode == TestUserMode.TENANT_ADMIN ? TENANT_ADMIN_USER_KEY : TENANT_USER_KEY;
+            init(WorkerTenantAllocator.getTenantKey(), userKey, APIMIntegrationConstants.AM_PUBLISHER_INSTANCE,
+                 APIMIntegrationConstants.AM_STORE_INSTANCE, APIMIntegrationConstants.AM_GATEWAY_INSTANCE);
+            return;
+        }
+
         apimTestCaseUtils = new APIMTestCaseUtils();
 
         try {
@@ -286,12 +313,37 @@ public class APIMIntegrationBaseTest {
         }
     }
 
+    /**
+     * Get the latency tag of the invocations of an API of the gateway tenant
+     *
+     * @param apiName - name of the invoked API
+     * @param tier    - tier of the invocation
+     * @return - latency tag
+     */
+    protected LatencyTag getLatencyTag(String apiName, String tier) {
+        return new LatencyTag(apiName, tier, gatewayContext.getContextTenant().getDomain());
+    }
+
+    /**
+     * Write the latency report of the gateway invocations recorded by the test class, if there are any. The report
+     * of a test class run in several user modes is written per user mode.
+     *
+     * @throws IOException - if the report cannot be written
+     */
+    @AfterClass(alwaysRun = true)
+    public void writeLatencyReport() throws IOException {
+        String testName = getClass().getSimpleName();
+        latencyRecorder.writeReport(userMode != null ? testName + "-" + userMode : testName);
+    }
+
     public static void cleanup(){
 
     }
 
     /**
-     * Cleaning up the API manager by removing all APIs and applications other than default application
+     * Cleaning up the API manager by removing all APIs and applications other than default application.
+     * Subscriptions are removed first, in parallel per application, then the APIs are deleted in parallel and then
+     * the applications. The number of parallel requests is given by the apim.test.cleanup.threads system property.
      *
      * @param userName     - username of the api created tenant
      * @param passWord     - password of the api created tenant
@@ -304,51 +356,129 @@ public class APIMIntegrationBaseTest {
                                String publisherUrl) throws APIManagerIntegrationTestException,
                                                            JSONException {
 
-        APIStoreRestClient apiStore = new APIStoreRestClient(storeUrl);
+        final APIStoreRestClient apiStore =
+                new APIStoreRestClient(storeUrl, PooledHttpTransport.getSharedInstance());
         apiStore.login(userName, passWord);
-        APIPublisherRestClient publisherRestClient = new APIPublisherRestClient(publisherUrl);
+        final APIPublisherRestClient publisherRestClient =
+                new APIPublisherRestClient(publisherUrl, PooledHttpTransport.getSharedInstance());
         publisherRestClient.login(userName, passWord);
-        String subscriptionData = apiStore.getAllSubscriptions().getData();
-        JSONObject jsonSubscription = new JSONObject(subscriptionData);
 
-        if(jsonSubscription.getString("error").equals("false")) {
-            JSONObject jsonSubscriptionsObject = jsonSubscription.getJSONObject("subscriptions");
-            JSONArray jsonApplicationsArray = jsonSubscriptionsObject.getJSONArray("applications");
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Integer.getInteger(CLEANUP_THREAD_COUNT_PROPERTY, DEFAULT_CLEANUP_THREAD_COUNT));
+        StringBuilder summary = new StringBuilder("Cleaned up ").append(userName).append(':');
+        try {
+            String subscriptionData = apiStore.getAllSubscriptions().getData();
+            JSONObject jsonSubscription = new JSONObject(subscriptionData);
 
             //Remove API Subscriptions
-            for (int i = 0; i < jsonApplicationsArray.length(); i++) {
-                JSONObject appObject = jsonApplicationsArray.getJSONObject(i);
-                int id = appObject.getInt("id");
-                JSONArray subscribedAPIJSONArray = appObject.getJSONArray("subscriptions");
-                for (int j = 0; j < subscribedAPIJSONArray.length(); j++) {
-                    JSONObject subscribedAPI = subscribedAPIJSONArray.getJSONObject(j);
-                    apiStore.removeAPISubscription(subscribedAPI.getString("name"), subscribedAPI.getString("version"),
-                                                   subscribedAPI.getString("provider"), String.valueOf(id));
+            List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+            if (jsonSubscription.getString("error").equals("false")) {
+                JSONObject jsonSubscriptionsObject = jsonSubscription.getJSONObject("subscriptions");
+                JSONArray jsonApplicationsArray = jsonSubscriptionsObject.getJSONArray("applications");
+                for (int i = 0; i < jsonApplicationsArray.length(); i++) {
+                    JSONObject appObject = jsonApplicationsArray.getJSONObject(i);
+                    final String id = String.valueOf(appObject.getInt("id"));
+                    final JSONArray subscribedAPIJSONArray = appObject.getJSONArray("subscriptions");
+                    tasks.add(new Callable<Integer>() {
+                        public Integer call() throws APIManagerIntegrationTestException, JSONException {
+                            for (int j = 0; j < subscribedAPIJSONArray.length(); j++) {
+                                JSONObject subscribedAPI = subscribedAPIJSONArray.getJSONObject(j);
+                                apiStore.removeAPISubscription(subscribedAPI.getString("name"),
+                                                               subscribedAPI.getString("version"),
+                                                               subscribedAPI.getString("provider"), id);
+                            }
+                            return subscribedAPIJSONArray.length();
+                        }
+                    });
                 }
             }
+            runCleanupPhase("subscriptions", tasks, executor, summary);
+
+            //delete all APIs
+            String apiData = apiStore.getAPI().getData();
+            JSONObject jsonAPIData = new JSONObject(apiData);
+            JSONArray jsonAPIArray = jsonAPIData.getJSONArray("apis");
+            tasks.clear();
+            for (int i = 0; i < jsonAPIArray.length(); i++) {
+                JSONObject api = jsonAPIArray.getJSONObject(i);
+                final String apiName = api.getString("name");
+                final String apiVersion = api.getString("version");
+                final String provider = userName;
+                tasks.add(new Callable<Integer>() {
+                    public Integer call() throws APIManagerIntegrationTestException {
+                        publisherRestClient.deleteAPI(apiName, apiVersion, provider);
+                        return 1;
+                    }
+                });
+            }
+            runCleanupPhase("APIs", tasks, executor, summary);
+
+            //delete all application other than default application
+            String applicationData = apiStore.getAllApplications().getData();
+            JSONObject jsonApplicationData = new JSONObject(applicationData);
+            JSONArray applicationArray = jsonApplicationData.getJSONArray("applications");
+            tasks.clear();
+            for (int i = 0; i < applicationArray.length(); i++) {
+                JSONObject jsonApplication = applicationArray.getJSONObject(i);
+                final String applicationName = jsonApplication.getString("name");
+                if (!applicationName.equals("DefaultApplication")) {
+                    tasks.add(new Callable<Integer>() {
+                        public Integer call() throws APIManagerIntegrationTestException {
+                            apiStore.removeApplication(applicationName);
+                            return 1;
+                        }
+                    });
+                }
+            }
+            runCleanupPhase("applications", tasks, executor, summary);
+        } finally {
+            executor.shutdownNow();
         }
+        log.info(summary);
+    }
 
-        String apiData = apiStore.getAPI().getData();
-        JSONObject jsonAPIData = new JSONObject(apiData);
-        JSONArray jsonAPIArray = jsonAPIData.getJSONArray("apis");
-
-        //delete all APIs
-        for (int i = 0; i < jsonAPIArray.length(); i++) {
-            JSONObject api = jsonAPIArray.getJSONObject(i);
-            publisherRestClient.deleteAPI(api.getString("name"), api.getString("version"), userName);
+    /**
+     * Run the removal tasks of a cleanup phase in parallel and wait until all of them are completed
+     *
+     * @param name     - name of the removed items
+     * @param tasks    - removal tasks, each returning the number of removed items
+     * @param executor - executor which runs the tasks
+     * @param summary  - summary to which the number of removed items and the time taken are appended
+     * @throws APIManagerIntegrationTestException - if a removal task failed
+     * @throws JSONException                      - if a removal task could not read the json
+     */
+    private static void runCleanupPhase(String name, List<Callable<Integer>> tasks,
+                                        ExecutorService executor, StringBuilder summary)
+            throws APIManagerIntegrationTestException, JSONException {
+        long startTime = System.currentTimeMillis();
+        List<Future<Integer>> results;
+        try {
+            results = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while removing " + name, e);
         }
-
-        //delete all application other than default application
-        String applicationData = apiStore.getAllApplications().getData();
-        JSONObject jsonApplicationData = new JSONObject(applicationData);
-        JSONArray applicationArray = jsonApplicationData.getJSONArray("applications");
-        for (int i = 0; i < applicationArray.length(); i++) {
-            JSONObject jsonApplication = applicationArray.getJSONObject(i);
-            if (!jsonApplication.getString("name").equals("DefaultApplication")) {
-                apiStore.removeApplication(jsonApplication.getString("name"));
+        int removed = 0;
+        Throwable failure = null;
+        for (Future<Integer> result : results) {
+            try {
+                removed += result.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIManagerIntegrationTestException("Interrupted while removing " + name, e);
             }
         }
-
+        summary.append(' ').append(removed).append(' ').append(name).append(" in ")
+                .append(System.currentTimeMillis() - startTime).append(" ms,");
+        if (failure instanceof JSONException) {
+            throw (JSONException) failure;
+        } else if (failure != null) {
+            throw new APIManagerIntegrationTestException("Unable to remove the " + name, failure);
+        }
     }
 
 
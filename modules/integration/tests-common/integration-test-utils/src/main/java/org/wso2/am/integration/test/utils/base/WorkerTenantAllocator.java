@@ -0,0 +1,92 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.base;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocates a dedicated tenant to each thread which runs tests, so that the tests run in tenant mode by parallel
+ * TestNG workers do not see or clean up the APIs, applications and subscriptions of each other. The tenants are the
+ * automation.xml tenant keys given as a comma separated list by the apim.test.worker.tenants system property. Each
+ * worker thread gets the next tenant of the list the first time it asks for one and keeps it for all the test classes
+ * it runs. Tenant isolation is disabled if the property is not set.
+ */
+public final class WorkerTenantAllocator {
+
+    private static final Log log = LogFactory.getLog(WorkerTenantAllocator.class);
+    public static final String WORKER_TENANTS_PROPERTY = "apim.test.worker.tenants";
+
+    private static final List<String> tenantKeys = getTenantKeys(System.getProperty(WORKER_TENANTS_PROPERTY));
+    private static final AtomicInteger allocatedTenantCount = new AtomicInteger();
+    private static final ThreadLocal<String> workerTenantKey = new ThreadLocal<String>() {
+        @Override
+        protected String initialValue() {
+            int index = allocatedTenantCount.getAndIncrement();
+            if (index >= tenantKeys.size()) {
+                log.warn("More test threads than worker tenants, tenant " + tenantKeys.get(index % tenantKeys.size()) +
+                         " is shared by " + Thread.currentThread().getName());
+            }
+            String tenantKey = tenantKeys.get(index % tenantKeys.size());
+            log.info("Tenant " + tenantKey + " allocated to " + Thread.currentThread().getName());
+            return tenantKey;
+        }
+    };
+
+    private WorkerTenantAllocator() {
+    }
+
+    /**
+     * @return - whether worker tenants are configured
+     */
+    public static boolean isEnabled() {
+        return !tenantKeys.isEmpty();
+    }
+
+    /**
+     * Get the automation.xml key of the tenant of the current worker thread
+     *
+     * @return - tenant key
+     * @throws IllegalStateException - if no worker tenants are configured
+     */
+    public static String getTenantKey() {
+        if (!isEnabled()) {
+            throw new IllegalStateException("No worker tenants are configured by " + WORKER_TENANTS_PROPERTY);
+        }
+        return workerTenantKey.get();
+    }
+
+    private static List<String> getTenantKeys(String property) {
+        if (property == null) {
+            return Collections.emptyList();
+        }
+        List<String> keys = new ArrayList<String>();
+        for (String key : property.split(",")) {
+            if (!key.trim().isEmpty()) {
+                keys.add(key.trim());
+            }
+        }
+        return Collections.unmodifiableList(keys);
+    }
+}
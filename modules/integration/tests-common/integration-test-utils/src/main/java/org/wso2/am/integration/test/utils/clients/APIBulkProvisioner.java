@@ -0,0 +1,359 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.clients;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.bean.APICreationRequestBean;
+import org.wso2.am.integration.test.utils.bean.APILifeCycleState;
+import org.wso2.am.integration.test.utils.bean.APILifeCycleStateRequest;
+import org.wso2.am.integration.test.utils.bean.APPKeyRequestGenerator;
+import org.wso2.am.integration.test.utils.bean.SubscriptionRequest;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Provisions API fixtures in bulk. The added APIs are created and published, the added applications are created,
+ * each application is subscribed to each API and the keys of the applications are generated. The requests of each
+ * phase are sent in parallel through the given publisher and store clients, which have to be logged in. Using clients
+ * created with a {@link org.wso2.am.integration.test.utils.http.PooledHttpTransport} keeps the connections to the
+ * server open between the requests.
+ * <p/>
+ * Example:
+ * <pre>
+ * APIBulkProvisioner provisioner = new APIBulkProvisioner(publisherRestClient, storeRestClient)
+ *         .setThreadCount(20)
+ *         .setSubscriptionTier("Unlimited");
+ * for (int i = 0; i &lt; apiCount; i++) {
+ *     provisioner.addAPI(new APICreationRequestBean("BulkAPI" + i, "bulk" + i, "1.0.0", "admin", endpointUrl));
+ * }
+ * provisioner.addApplication("BulkApplication", "Unlimited");
+ * APIBulkProvisioner.ProvisioningReport report = provisioner.provision();
+ * </pre>
+ */
+public class APIBulkProvisioner {
+
+    private static final Log log = LogFactory.getLog(APIBulkProvisioner.class);
+
+    private static final int DEFAULT_THREAD_COUNT = 10;
+
+    private final APIPublisherRestClient publisherRestClient;
+    private final APIStoreRestClient storeRestClient;
+    private final List<APICreationRequestBean> apis = new ArrayList<APICreationRequestBean>();
+    private final Map<String, String> applications = new LinkedHashMap<String, String>();
+    private int threadCount = DEFAULT_THREAD_COUNT;
+    private String subscriptionTier = "Gold";
+    private boolean generateKeys = true;
+
+    /**
+     * @param publisherRestClient - publisher client which is logged in as the provider of the APIs
+     * @param storeRestClient     - store client which is logged in as the subscriber
+     */
+    public APIBulkProvisioner(APIPublisherRestClient publisherRestClient, APIStoreRestClient storeRestClient) {
+        this.publisherRestClient = publisherRestClient;
+        this.storeRestClient = storeRestClient;
+    }
+
+    /**
+     * @param threadCount - number of requests sent in parallel
+     * @return - this provisioner
+     */
+    public APIBulkProvisioner setThreadCount(int threadCount) {
+        this.threadCount = Math.max(1, threadCount);
+        return this;
+    }
+
+    /**
+     * @param subscriptionTier - tier of the subscriptions
+     * @return - this provisioner
+     */
+    public APIBulkProvisioner setSubscriptionTier(String subscriptionTier) {
+        this.subscriptionTier = subscriptionTier;
+        return this;
+    }
+
+    /**
+     * @param generateKeys - whether the production keys of the applications are generated
+     * @return - this provisioner
+     */
+    public APIBulkProvisioner setGenerateKeys(boolean generateKeys) {
+        this.generateKeys = generateKeys;
+        return this;
+    }
+
+    /**
+     * @param api - API to be created and published
+     * @return - this provisioner
+     */
+    public APIBulkProvisioner addAPI(APICreationRequestBean api) {
+        apis.add(api);
+        return this;
+    }
+
+    /**
+     * @param application - name of the application to be created
+     * @param tier        - throttling tier of the application
+     * @return - this provisioner
+     */
+    public APIBulkProvisioner addApplication(String application, String tier) {
+        applications.put(application, tier);
+        return this;
+    }
+
+    /**
+     * Provisions the added APIs and applications. A phase is started when all the requests of the previous phase are
+     * completed, and the provisioning stops with the first phase which has a failed request.
+     *
+     * @return - results of the phases
+     * @throws APIManagerIntegrationTestException - throws if a request of a phase fails
+     */
+    public ProvisioningReport provision() throws APIManagerIntegrationTestException {
+        final ProvisioningReport report = new ProvisioningReport();
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Callable<String>> tasks = new ArrayList<Callable<String>>();
+            for (final APICreationRequestBean api : apis) {
+                tasks.add(new Callable<String>() {
+                    public String call() throws APIManagerIntegrationTestException {
+                        return checkResponse(publisherRestClient.addAPI(api), "Add API " + getAPIId(api));
+                    }
+                });
+            }
+            runPhase("Create APIs", tasks, executor, report);
+
+            tasks.clear();
+            for (final APICreationRequestBean api : apis) {
+                tasks.add(new Callable<String>() {
+                    public String call() throws APIManagerIntegrationTestException {
+                        APILifeCycleStateRequest publishRequest = new APILifeCycleStateRequest(
+                                api.getName(), api.getProvider(), APILifeCycleState.PUBLISHED);
+                        publishRequest.setVersion(api.getVersion());
+                        return checkResponse(publisherRestClient.changeAPILifeCycleStatus(publishRequest),
+                                             "Publish API " + getAPIId(api));
+                    }
+                });
+            }
+            runPhase("Publish APIs", tasks, executor, report);
+
+            tasks.clear();
+            for (final Map.Entry<String, String> application : applications.entrySet()) {
+                tasks.add(new Callable<String>() {
+                    public String call() throws APIManagerIntegrationTestException {
+                        return checkResponse(storeRestClient.addApplication(application.getKey(),
+                                                                            application.getValue(), "", ""),
+                                             "Add application " + application.getKey());
+                    }
+                });
+            }
+            runPhase("Create applications", tasks, executor, report);
+
+            tasks.clear();
+            for (final String application : applications.keySet()) {
+                for (final APICreationRequestBean api : apis) {
+                    tasks.add(new Callable<String>() {
+                        public String call() throws APIManagerIntegrationTestException {
+                            SubscriptionRequest subscriptionRequest = new SubscriptionRequest(
+                                    api.getName(), api.getVersion(), api.getProvider(), application,
+                                    subscriptionTier);
+                            return checkResponse(storeRestClient.subscribe(subscriptionRequest),
+                                                 "Subscribe " + application + " to " + getAPIId(api));
+                        }
+                    });
+                }
+            }
+            runPhase("Subscribe applications", tasks, executor, report);
+
+            if (generateKeys) {
+                tasks.clear();
+                for (final String application : applications.keySet()) {
+                    tasks.add(new Callable<String>() {
+                        public String call() throws APIManagerIntegrationTestException {
+                            String keyResponse = checkResponse(
+                                    storeRestClient.generateApplicationKey(new APPKeyRequestGenerator(application)),
+                                    "Generate keys of " + application);
+                            report.applicationKeys.put(application, keyResponse);
+                            return keyResponse;
+                        }
+                    });
+                }
+                runPhase("Generate application keys", tasks, executor, report);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return report;
+    }
+
+    private void runPhase(String name, List<Callable<String>> tasks, ExecutorService executor,
+                          ProvisioningReport report) throws APIManagerIntegrationTestException {
+        long startTime = System.currentTimeMillis();
+        List<Future<String>> results = new ArrayList<Future<String>>(tasks.size());
+        for (Callable<String> task : tasks) {
+            results.add(executor.submit(task));
+        }
+        List<String> failures = new ArrayList<String>();
+        Throwable firstFailure = null;
+        for (Future<String> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause().getMessage());
+                if (firstFailure == null) {
+                    firstFailure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIManagerIntegrationTestException("Interrupted while waiting for phase " + name, e);
+            }
+        }
+        PhaseResult phaseResult = new PhaseResult(name, tasks.size() - failures.size(), failures,
+                                                  System.currentTimeMillis() - startTime);
+        report.phases.add(phaseResult);
+        log.info(phaseResult);
+        if (firstFailure != null) {
+            throw new APIManagerIntegrationTestException(failures.size() + " of " + tasks.size() +
+                                                         " requests of phase " + name + " failed",
+                                                         firstFailure);
+        }
+    }
+
+    /**
+     * Checks that a request succeeded and its response has no error flag
+     *
+     * @param response    - response of the request
+     * @param description - description of the request
+     * @return - data of the response
+     * @throws APIManagerIntegrationTestException - throws if the request failed
+     */
+    private static String checkResponse(HttpResponse response, String description)
+            throws APIManagerIntegrationTestException {
+        if (response.getResponseCode() != 200) {
+            throw new APIManagerIntegrationTestException(description + " failed. Response Code:" +
+                                                         response.getResponseCode() + " Response Data :" +
+                                                         response.getData());
+        }
+        try {
+            if (new JSONObject(response.getData()).getBoolean("error")) {
+                throw new APIManagerIntegrationTestException(description + " failed. Response Data :" +
+                                                             response.getData());
+            }
+        } catch (JSONException e) {
+            throw new APIManagerIntegrationTestException(description + " returned an invalid response :" +
+                                                         response.getData(), e);
+        }
+        return response.getData();
+    }
+
+    private static String getAPIId(APICreationRequestBean api) {
+        return api.getProvider() + "-" + api.getName() + "-" + api.getVersion();
+    }
+
+    /**
+     * Results of the provisioning phases
+     */
+    public static class ProvisioningReport {
+
+        private final List<PhaseResult> phases = Collections.synchronizedList(new ArrayList<PhaseResult>());
+        private final Map<String, String> applicationKeys = new ConcurrentHashMap<String, String>();
+
+        public List<PhaseResult> getPhases() {
+            return Collections.unmodifiableList(phases);
+        }
+
+        /**
+         * @return - responses of the key generation requests by application name
+         */
+        public Map<String, String> getApplicationKeys() {
+            return Collections.unmodifiableMap(applicationKeys);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            for (PhaseResult phase : phases) {
+                builder.append(phase).append('\n');
+            }
+            return builder.toString();
+        }
+    }
+
+    /**
+     * Result of a provisioning phase
+     */
+    public static class PhaseResult {
+
+        private final String name;
+        private final int succeeded;
+        private final List<String> failures;
+        private final long elapsedTime;
+
+        PhaseResult(String name, int succeeded, List<String> failures, long elapsedTime) {
+            this.name = name;
+            this.succeeded = succeeded;
+            this.failures = failures;
+            this.elapsedTime = elapsedTime;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSucceeded() {
+            return succeeded;
+        }
+
+        public List<String> getFailures() {
+            return Collections.unmodifiableList(failures);
+        }
+
+        /**
+         * @return - time taken by the phase in millis
+         */
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        /**
+         * @return - completed requests per second
+         */
+        public double getThroughput() {
+            return elapsedTime > 0 ? succeeded * 1000.0 / elapsedTime : succeeded;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + succeeded + " succeeded, " + failures.size() + " failed in " + elapsedTime +
+                   " millis (" + String.format("%.2f", getThroughput()) + " requests/sec)";
+        }
+    }
+}
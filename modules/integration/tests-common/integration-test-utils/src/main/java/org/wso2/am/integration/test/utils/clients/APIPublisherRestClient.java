@@ -20,18 +20,21 @@ package org.wso2.am.integration.test.utils.clients;
 
 import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.*;
+import org.wso2.am.integration.test.utils.http.DefaultHttpTransport;
+import org.wso2.am.integration.test.utils.http.HttpTransport;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class APIPublisherRestClient {
     private String backendURL;
     private static final String URL_SUFFIX = "publisher/site/blocks";
-    private Map<String, String> requestHeaders = new HashMap<String, String>();
+    private final HttpTransport transport;
+    //request headers and session cookie of the client, which can be used by multiple threads
+    private Map<String, String> requestHeaders = new ConcurrentHashMap<String, String>();
 
     /**
      * construct of API rest client
@@ -39,7 +42,18 @@ public class APIPublisherRestClient {
      * @param backendURL - backend URL of the publisher Jaggery app
      */
     public APIPublisherRestClient(String backendURL) {
+        this(backendURL, new DefaultHttpTransport());
+    }
+
+    /**
+     * construct of API rest client which sends the requests through the given transport
+     *
+     * @param backendURL - backend URL of the publisher Jaggery app
+     * @param transport  - transport used to send the requests, which may be shared with other clients
+     */
+    public APIPublisherRestClient(String backendURL, HttpTransport transport) {
         this.backendURL = backendURL;
+        this.transport = transport;
         if (requestHeaders.get("Content-Type") == null) {
             this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
         }
@@ -58,7 +72,7 @@ public class APIPublisherRestClient {
         HttpResponse response;
         try {
             response =
-                    HttpRequestUtil.doPost(
+                    transport.doPost(
                             new URL(backendURL + URL_SUFFIX + "/user/login/ajax/login.jag"),
                             "action=login&username=" + userName + "&password=" + password + "",
                             requestHeaders);
@@ -84,7 +98,7 @@ public class APIPublisherRestClient {
      */
     public HttpResponse logout() throws APIManagerIntegrationTestException {
         try {
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + URL_SUFFIX + "/user/login/ajax/login.jag?action=logout",
                     requestHeaders);
         } catch (Exception e) {
@@ -102,7 +116,7 @@ public class APIPublisherRestClient {
     public HttpResponse addAPI(APIRequest apiRequest) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
                     apiRequest.generateRequestParameters(),
                     requestHeaders);
@@ -128,7 +142,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + URL_SUFFIX + "/overview/ajax/overview.jag"),
                     "action=createNewAPI&provider=" + provider + "&apiName=" + apiName + "&version="
                     + oldVersion + "&newVersion=" + newVersion + "&isDefaultVersion=" + isDefaultVersion,
@@ -150,7 +164,7 @@ public class APIPublisherRestClient {
             throws Exception {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
+            return transport.doPost(new URL(backendURL + URL_SUFFIX + "/item-add/ajax/add.jag"),
                                           apiRequest.generateRequestParameters("updateAPI"),
                                           requestHeaders);
 
@@ -171,7 +185,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/life-cycles/ajax/life-cycles.jag"),
                     updateRequest.generateRequestParameters(),
                     requestHeaders);
@@ -194,7 +208,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/listing/ajax/item-list.jag"),
                     "action=getAPI&name=" + apiName + "&version=1.0.0&provider=" + provider + "",
                     requestHeaders);
@@ -217,7 +231,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/item-add/ajax/remove.jag"),
                     "action=removeAPI&name=" + apiName + "&version=" + version + "&provider=" + provider,
                     requestHeaders);
@@ -262,7 +276,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/documentation/ajax/docs.jag"),
                     "action=removeDocumentation" + "&provider=" + provider + "&apiName=" +
                     apiName + "&version=" + version + "&docName=" + docName + "&docType=" +
@@ -285,7 +299,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/tokens/ajax/revokeToken.jag"),
                     "action=revokeAccessToken" + "&accessToken=" + accessToken + "&authUser=" +
                     authUser + "&consumerKey=" + consumerKey, requestHeaders);
@@ -308,7 +322,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/tiers/ajax/tiers.jag"),
                     "action=updatePermissions" + "&tierName=" + tierName + "&permissiontype=" +
                     permissionType + "&roles=" + roles, requestHeaders);
@@ -333,7 +347,7 @@ public class APIPublisherRestClient {
         try {
             checkAuthentication();
             this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/item-design/ajax/add.jag"),
                     "action=manage" + "&provider=" + provider + "&name=" + apiName + "&version=" +
                     version + "&swagger=" + swaggerRes, requestHeaders);
@@ -356,7 +370,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/listing/ajax/item-list.jag"),
                     "action=getAPI&name=" + apiName + "&version=" + version + "&provider=" + provider + "",
                     requestHeaders);
@@ -378,7 +392,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "publisher/site/blocks/item-add/ajax/add.jag"),
                     "action=isURLValid&" + "type=" + type + "&url=" + endpointUrl, requestHeaders);
         } catch (Exception e) {
@@ -409,7 +423,7 @@ public class APIPublisherRestClient {
             if (isRequireReSubscription) {
                 requestParameters += "&requireResubscription=true";
             }
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "/publisher/site/blocks/life-cycles/ajax/life-cycles.jag"), requestParameters,
                     requestHeaders);
         } catch (Exception e) {
@@ -431,7 +445,7 @@ public class APIPublisherRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "/publisher/site/blocks/listing/ajax/item-list.jag"), "action=getAPI&name=" +
                             apiName + "&version=" + version + "&provider=" + provider + "", requestHeaders);
         } catch (Exception e) {
@@ -444,12 +458,12 @@ public class APIPublisherRestClient {
      *
      * @return HttpResponse - Response that contains the Tier Permission Page
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            transport.doGet() method call
      */
     public HttpResponse getTierPermissionsPage() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(backendURL + "/publisher/site/pages/tiers.jag", requestHeaders);
+            return transport.doGet(backendURL + "/publisher/site/pages/tiers.jag", requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when retrieving the Tier Permissions page", e);
         }
@@ -463,13 +477,13 @@ public class APIPublisherRestClient {
      * @param version  - Version of the API.
      * @return HttpResponse - Response that contains the API Manage Page
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            transport.doGet() method call
      */
     public HttpResponse getAPIManagePage(String apiName, String provider, String version)
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "/publisher/manage?name=" + apiName + "&version=" + version + "&provider=" + provider,
                     requestHeaders);
         } catch (Exception e) {
@@ -486,13 +500,13 @@ public class APIPublisherRestClient {
      * @param version  - Version of the API.
      * @return HttpResponse - Response that contains the API Information Page
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            transport.doGet() method call
      */
     public HttpResponse getAPIInformationPage(String apiName, String provider, String version)
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "/publisher/info?name=" + apiName + "&version=" + version + "&provider=" + provider,
                     requestHeaders);
         } catch (Exception e) {
@@ -514,14 +528,14 @@ public class APIPublisherRestClient {
      * @param docLocation - Document Location
      * @return HttpResponse - Response  with Document adding result.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            transport.doPost() method call
      */
     public HttpResponse addDocument(String apiName, String version, String provider, String docName, String docType,
                                     String sourceType, String docUrl, String summary, String docLocation)
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "/publisher/site/blocks/documentation/ajax/docs.jag"),
                     "action=addDocumentation&provider=" + provider + "&apiName=" + apiName + "&version=" + version +
                             "&docName=" + docName + "&docType=" + docType + "&sourceType=" + sourceType + "&docUrl" + docUrl +
@@ -538,12 +552,12 @@ public class APIPublisherRestClient {
      * @param addDocRequestBean - Bean that contains all the values that needed to create a Document.
      * @return HttpResponse -  Response  with Document adding result.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            transport.doPost() method call
      */
     public HttpResponse addDocument(AddDocumentRequestBean addDocRequestBean) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "/publisher/site/blocks/documentation/ajax/docs.jag"),
                     "action=addDocumentation&provider=" + addDocRequestBean.getApiProvider() + "&apiName=" +
                             addDocRequestBean.getApiName() + "&version=" + addDocRequestBean.getApiVersion() + "&docName=" +
@@ -561,12 +575,12 @@ public class APIPublisherRestClient {
      *
      * @return HttpResponse - Response that contains all available APIs for the user
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doGet() method call
+     *                                            transport.doGet() method call
      */
     public HttpResponse getAllAPIs() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "/publisher/site/blocks/listing/ajax/item-list.jag?action=getAllAPIs", requestHeaders);
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Exception when Retrieve the All APIs available for the user in Publisher", e);
@@ -580,12 +594,12 @@ public class APIPublisherRestClient {
      * @param creationRequestBean - Instance of APICreationRequestBean object with all needed information to create the API.
      * @return HttpResponse - Response that contains the result of APi creation activity.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            transport.doPost() method call
      */
     public HttpResponse addAPI(APICreationRequestBean creationRequestBean) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "/publisher/site/blocks/item-add/ajax/add.jag"),
                     creationRequestBean.generateRequestParameters(), requestHeaders);
         } catch (Exception e) {
@@ -600,12 +614,12 @@ public class APIPublisherRestClient {
      * @param creationRequestBean - Instance of APICreationRequestBean object with all needed information to Update the API.
      * @return HttpResponse - Response that contains the result of APi creation activity.
      * @throws APIManagerIntegrationTestException - Exception throws from checkAuthentication() method and
-     *                                            HttpRequestUtil.doPost() method call
+     *                                            transport.doPost() method call
      */
     public HttpResponse updateAPI(APICreationRequestBean creationRequestBean) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "/publisher/site/blocks/item-add/ajax/add.jag"),
                     creationRequestBean.generateRequestParameters("updateAPI"), requestHeaders);
         } catch (Exception e) {
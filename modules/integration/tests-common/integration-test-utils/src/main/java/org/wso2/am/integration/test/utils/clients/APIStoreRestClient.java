@@ -25,6 +25,8 @@ import org.json.JSONObject;
 import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.APPKeyRequestGenerator;
 import org.wso2.am.integration.test.utils.bean.SubscriptionRequest;
+import org.wso2.am.integration.test.utils.http.DefaultHttpTransport;
+import org.wso2.am.integration.test.utils.http.HttpTransport;
 import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
@@ -32,16 +34,32 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Provides set of method to invoke publisher API
  */
 public class APIStoreRestClient {
     private String backendURL;
-    private Map<String, String> requestHeaders = new HashMap<String, String>();
+    private final HttpTransport transport;
+    //request headers and session cookie of the client, which can be used by multiple threads
+    private Map<String, String> requestHeaders = new ConcurrentHashMap<String, String>();
+    //ids of the applications of the logged in user by application name
+    private final Map<String, String> applicationIds = new ConcurrentHashMap<String, String>();
 
     public APIStoreRestClient(String backendURL) {
+        this(backendURL, new DefaultHttpTransport());
+    }
+
+    /**
+     * Construct a store client which sends the requests through the given transport
+     *
+     * @param backendURL - backend URL of the store Jaggery app
+     * @param transport  - transport used to send the requests, which may be shared with other clients
+     */
+    public APIStoreRestClient(String backendURL, HttpTransport transport) {
         this.backendURL = backendURL;
+        this.transport = transport;
         if (requestHeaders.get("Content-Type") == null) {
             this.requestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
         }
@@ -59,7 +77,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         HttpResponse response;
         try {
-            response = HttpRequestUtil.doPost(
+            response = transport.doPost(
                     new URL(backendURL + "store/site/blocks/user/login/ajax/login.jag"),
                     "action=login&username=" + userName + "&password=" + password + "",
                     requestHeaders);
@@ -74,6 +92,7 @@ public class APIStoreRestClient {
         }
 
         setSession(session);
+        applicationIds.clear();
         return response;
     }
 
@@ -88,7 +107,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-add/ajax/subscription-add.jag"),
                     subscriptionRequest.generateRequestParameters(), requestHeaders);
         } catch (Exception e) {
@@ -107,11 +126,9 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            HttpResponse responseApp = getAllApplications();
-            String appId = getApplicationId(responseApp.getData(), generateAppKeyRequest.getApplication());
-            generateAppKeyRequest.setAppId(appId);
+            generateAppKeyRequest.setAppId(getApplicationId(generateAppKeyRequest.getApplication()));
 
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-add/ajax/subscription-add.jag"),
                     generateAppKeyRequest.generateRequestParameters(), requestHeaders);
 
@@ -130,7 +147,7 @@ public class APIStoreRestClient {
     public HttpResponse getAPI() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/api/listing/ajax/list.jag?action=getAllPublishedAPIs"),
                     "", requestHeaders);
         } catch (Exception e) {
@@ -181,7 +198,7 @@ public class APIStoreRestClient {
             authenticationRequestHeaders.put("Content-Type", "application/x-www-form-urlencoded");
             authenticationRequestHeaders.put("Authorization", "Basic " + new String(encodedBytes, "UTF-8"));
 
-            return HttpRequestUtil.doPost(tokenEndpointURL, messageBody, authenticationRequestHeaders);
+            return transport.doPost(tokenEndpointURL, messageBody, authenticationRequestHeaders);
 
         } catch (Exception e) {
             throw new APIManagerIntegrationTestException("Unable to generate API access token ", e);
@@ -197,7 +214,7 @@ public class APIStoreRestClient {
     public HttpResponse getAllPublishedAPIs() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/api/listing/ajax/list.jag?action=getAllPublishedAPIs",
                     requestHeaders);
         } catch (Exception e) {
@@ -214,7 +231,7 @@ public class APIStoreRestClient {
     public HttpResponse getAllApplications() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/application/application-list/ajax/" +
                     "application-list.jag?action=getApplications",
                     requestHeaders);
@@ -235,7 +252,7 @@ public class APIStoreRestClient {
         try {
 
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/subscription/subscription-list/ajax/" +
                     "subscription-list.jag?action=getSubscriptionByApplication&app=" +
                     applicationName, requestHeaders);
@@ -261,7 +278,7 @@ public class APIStoreRestClient {
                                        String rating) throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/api/api-info/ajax/api-info.jag?" +
                     "action=addRating&name=" + apiName + "&version=" + version + "&provider=" +
                     provider + "&rating=" + rating, requestHeaders);
@@ -284,7 +301,7 @@ public class APIStoreRestClient {
         try {
 
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/api/api-info/ajax/api-info.jag?" +
                     "action=removeRating&name=" + apiName + "&version=" + version +
                     "&provider=" + provider, requestHeaders);
@@ -304,7 +321,7 @@ public class APIStoreRestClient {
     public HttpResponse isRatingActivated() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/api/api-info/ajax/api-info.jag?" +
                     "action=isRatingActivated", requestHeaders);
         } catch (Exception e) {
@@ -325,7 +342,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/api/listing/ajax/list.jag?" +
                     "action=getAllDocumentationOfAPI&name=" + apiName +
                     "&version=" + version + "&provider=" + provider, requestHeaders);
@@ -350,7 +367,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(backendURL + "store/site/blocks/api/listing/ajax/list.jag?" +
+            return transport.doGet(backendURL + "store/site/blocks/api/listing/ajax/list.jag?" +
                                          "action=getAllPaginatedPublishedAPIs&tenant=" + tenant +
                                          "&start=" + start + "&end=" + end, requestHeaders);
         } catch (Exception e) {
@@ -370,7 +387,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/api/listing/ajax/list.jag?action=getAllPublishedAPIs&tenant=" +
                             tenant), "", requestHeaders);
         } catch (Exception e) {
@@ -395,7 +412,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL +
                             "store/site/blocks/application/application-add" +
                             "/ajax/application-add.jag?action=addApplication&tier=" +
@@ -417,7 +434,7 @@ public class APIStoreRestClient {
     public HttpResponse getApplications() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/application/application-list/ajax/" +
                             "application-list.jag?action=getApplications"), "", requestHeaders);
         } catch (Exception e) {
@@ -437,7 +454,8 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            applicationIds.remove(application);
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/application/application-remove/ajax/application-remove.jag?" +
                             "action=removeApplication&application=" + application), "", requestHeaders);
         } catch (Exception e) {
@@ -462,7 +480,8 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            applicationIds.remove(applicationOld);
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/application/application-update/ajax/application-update.jag?" +
                             "action=updateApplication&applicationOld=" + applicationOld + "&applicationNew=" +
                             applicationNew + "&callbackUrlNew=" + callbackUrlNew + "&descriptionNew=" +
@@ -484,7 +503,7 @@ public class APIStoreRestClient {
     public HttpResponse getAllSubscriptions() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-list/ajax/subscription-list.jag?" +
                             "action=getAllSubscriptions"), "", requestHeaders);
         } catch (Exception e) {
@@ -508,7 +527,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/subscription/subscription-remove/ajax/subscription-remove.jag?" +
                             "action=removeSubscription&name=" + API + "&version=" + version + "&provider=" + provider +
                             "&applicationId=" + applicationId), "", requestHeaders);
@@ -528,7 +547,7 @@ public class APIStoreRestClient {
         try {
             checkAuthentication();
 
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/tag/tag-cloud/ajax/list.jag?action=getAllTags"),
                     "", requestHeaders);
 
@@ -553,7 +572,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/comment/comment-add/ajax/comment-add.jag?" +
                             "action=addComment&name=" + apiName + "&version=" + version + "&provider=" +
                             provider + "&comment=" + comment), "", requestHeaders);
@@ -571,7 +590,7 @@ public class APIStoreRestClient {
     public HttpResponse isCommentActivated() throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/site/blocks/comment/comment-add/ajax/comment-add.jag?" +
                     "action=isCommentActivated", requestHeaders);
         } catch (Exception e) {
@@ -591,7 +610,7 @@ public class APIStoreRestClient {
             throws APIManagerIntegrationTestException {
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(
+            return transport.doPost(
                     new URL(backendURL + "store/site/blocks/api/" +
                             "recently-added/ajax/list.jag?action=getRecentlyAddedAPIs&tenant=" +
                             tenant + "&limit=" + limit), "", requestHeaders);
@@ -601,23 +620,37 @@ public class APIStoreRestClient {
         }
     }
 
-    private String getApplicationId(String jsonStringOfApplications, String applicationName)
+    /**
+     * Get the id of an application. The ids of all the applications of the user are cached when an application is
+     * not found in the cache, so looking up the ids of many applications costs a single application list request.
+     *
+     * @param applicationName - application name
+     * @return - id of the application, or null if the user has no application with the given name
+     * @throws org.wso2.am.integration.test.utils.APIManagerIntegrationTestException - throws if the applications
+     *                                                                                 cannot be retrieved
+     */
+    public String getApplicationId(String applicationName) throws APIManagerIntegrationTestException {
+        String applicationId = applicationIds.get(applicationName);
+        if (applicationId == null) {
+            cacheApplicationIds(getAllApplications().getData());
+            applicationId = applicationIds.get(applicationName);
+        }
+        return applicationId;
+    }
+
+    private void cacheApplicationIds(String jsonStringOfApplications)
             throws APIManagerIntegrationTestException {
-        String applicationId = null;
         JSONObject obj;
         try {
             obj = new JSONObject(jsonStringOfApplications);
             JSONArray arr = obj.getJSONArray("applications");
             for (int i = 0; i < arr.length(); i++) {
-                String appName = arr.getJSONObject(i).getString("name");
-                if (applicationName.equals(appName)) {
-                    applicationId = arr.getJSONObject(i).getString("id");
-                }
+                applicationIds.put(arr.getJSONObject(i).getString("name"),
+                                   arr.getJSONObject(i).getString("id"));
             }
         } catch (JSONException e) {
             throw new APIManagerIntegrationTestException("getting application Id failed ", e);
         }
-        return applicationId;
     }
 
     /**
@@ -643,7 +676,7 @@ public class APIStoreRestClient {
      * @param subscriptionRequest -SubscriptionRequest request instance  with API subscription information.
      * @return HttpResponse - Response f the subscription server REST call
      * @throws APIManagerIntegrationTestException - Exception throws when check the Authentication and
-     *                                            HttpRequestUtil.doPost() method call.
+     *                                            transport.doPost() method call.
      */
     public HttpResponse subscribeToAPI(SubscriptionRequest subscriptionRequest) throws APIManagerIntegrationTestException {
         //This method  do the same functionality as subscribe(), except this method  always returns the response object
@@ -651,7 +684,7 @@ public class APIStoreRestClient {
         // 200 or else it will return an Exception.
         try {
             checkAuthentication();
-            return HttpRequestUtil.doPost(new URL(backendURL +
+            return transport.doPost(new URL(backendURL +
                     "/store/site/blocks/subscription/subscription-add/ajax/subscription-add.jag")
                     , subscriptionRequest.generateRequestParameters(), requestHeaders);
         } catch (Exception ex) {
@@ -665,12 +698,12 @@ public class APIStoreRestClient {
      *
      * @param storeTenantDomain - Tenant domain of store that need to  get the page.
      * @return HttpResponse - Response with API store page of the provided domain.
-     * @throws APIManagerIntegrationTestException - IOException throws from HttpRequestUtil.doGet() method call
+     * @throws APIManagerIntegrationTestException - IOException throws from transport.doGet() method call
      */
 
     public HttpResponse getAPIStorePageAsAnonymousUser(String storeTenantDomain) throws APIManagerIntegrationTestException {
         try {
-            return HttpRequestUtil.doGet(
+            return transport.doGet(
                     backendURL + "store/?tenant=" + storeTenantDomain, requestHeaders);
         } catch (Exception ioE) {
             throw new APIManagerIntegrationTestException(
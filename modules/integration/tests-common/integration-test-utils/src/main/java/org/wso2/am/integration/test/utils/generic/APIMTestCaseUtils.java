@@ -41,6 +41,7 @@ import org.wso2.am.admin.clients.template.EndpointTemplateAdminServiceClient;
 import org.wso2.am.admin.clients.template.SequenceTemplateAdminServiceClient;
 import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.APIBean;
+import org.wso2.am.integration.test.utils.generic.SynapseDeploymentWaiter.ArtifactType;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import org.wso2.carbon.endpoint.stub.types.EndpointAdminEndpointAdminException;
@@ -60,9 +61,11 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import static org.testng.Assert.assertTrue;
@@ -84,6 +87,8 @@ public class APIMTestCaseUtils {
     private static final String NAME = "name";
     private static final String VERSION = "version";
 
+    private SynapseDeploymentWaiter deploymentWaiter;
+
     /**
      * Loads the specified resource from the classpath and returns its content as an OMElement.
      *
@@ -179,7 +184,6 @@ public class APIMTestCaseUtils {
 
         checkPriorityExecutors(synapseConfig, backendURL, sessionCookie, priorityMediationAdminClient);
 
-        Thread.sleep(1000);
         verifySynapseDeployment(synapseConfig, backendURL, sessionCookie);
         log.info("Synapse configuration  Deployed");
 
@@ -495,329 +499,65 @@ public class APIMTestCaseUtils {
 
     public boolean isProxyDeployed(String backEndUrl, String sessionCookie, String proxyName)
             throws RemoteException {
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Proxy deployment " +
-                 proxyName);
-
-        boolean isServiceDeployed = false;
-        ServiceAdminClient adminServiceService = new ServiceAdminClient(backEndUrl, sessionCookie);
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            if (adminServiceService.isServiceExists(proxyName)) {
-                isServiceDeployed = true;
-                log.info(proxyName + " Proxy Deployed in " + time + " millis");
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException ignored) {
-
-            }
-        }
-
-        return isServiceDeployed;
-
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.PROXY, proxyName);
     }
 
     public boolean isEndpointDeployed(String backEndUrl, String sessionCookie, String endpointName)
             throws EndpointAdminEndpointAdminException, RemoteException {
-        EndPointAdminClient endPointAdminClient = new EndPointAdminClient(backEndUrl,
-                                                                          sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Endpoint " + endpointName);
-        boolean isEndpointExist = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] endpoints = endPointAdminClient.getEndpointNames();
-            if (endpoints != null && endpoints.length > 0) {
-                for (String endpoint : endpoints) {
-
-                    if (endpointName.equals(endpoint)) {
-                        isEndpointExist = true;
-                        log.info(endpointName + " Endpoint Found in " + time + " millis");
-                        break;
-                    }
-                }
-            }
-            if (isEndpointExist) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isEndpointExist;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.ENDPOINT, endpointName);
     }
 
     public boolean isMessageProcessorDeployed(String backEndUrl, String sessionCookie,
                                               String messageProcessorName)
             throws SequenceEditorException, RemoteException {
-        MessageProcessorClient messageProcessorClient =
-                new MessageProcessorClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Message Processor " +
-                 messageProcessorName);
-        boolean isMessageStoreExist = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] messageProcessors = messageProcessorClient.getMessageProcessorNames();
-            if (messageProcessors != null && messageProcessors.length > 0) {
-                for (String mp : messageProcessors) {
-
-                    if (mp.equals(messageProcessorName)) {
-                        isMessageStoreExist = true;
-                        log.info(messageProcessorName + " Message Processor Found in " + time +
-                                 " millis");
-                        break;
-                    }
-                }
-            }
-            if (isMessageStoreExist) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isMessageStoreExist;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.MESSAGE_PROCESSOR, messageProcessorName);
     }
 
     public boolean isSequenceDeployed(String backEndUrl, String sessionCookie, String sequenceName)
             throws SequenceEditorException, RemoteException {
-        SequenceAdminServiceClient sequenceAdminServiceClient =
-                new SequenceAdminServiceClient(backEndUrl,
-                                               sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Sequence " + sequenceName);
-        boolean isSequenceExist = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] sequences = sequenceAdminServiceClient.getSequences();
-            if (sequences != null && sequences.length > 0) {
-                for (String sequence : sequences) {
-
-                    if (sequence.equals(sequenceName)) {
-                        isSequenceExist = true;
-                        log.info(sequenceName + " Sequence Found in " + time + " millis");
-                        break;
-                    }
-                }
-            }
-            if (isSequenceExist) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isSequenceExist;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.SEQUENCE, sequenceName);
     }
 
     public boolean isMessageStoreDeployed(String backEndUrl, String sessionCookie,
                                           String messageStoreName)
             throws SequenceEditorException, RemoteException {
-        MessageStoreAdminClient messageStoreAdminClient =
-                new MessageStoreAdminClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Message Store " +
-                 messageStoreName);
-        boolean isMessageStoreExist = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] messageStores = messageStoreAdminClient.getMessageStores();
-            if (messageStores != null && messageStores.length > 0) {
-                for (String ms : messageStores) {
-
-                    if (ms.equals(messageStoreName)) {
-                        isMessageStoreExist = true;
-                        log.info(messageStoreName + " Message Store Found in " + time + " millis");
-                        break;
-                    }
-                }
-            }
-            if (isMessageStoreExist) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isMessageStoreExist;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.MESSAGE_STORE, messageStoreName);
     }
 
     public boolean isSequenceTemplateDeployed(String backEndUrl, String sessionCookie,
                                               String sequenceTemplateName) throws RemoteException {
-        SequenceTemplateAdminServiceClient sequenceTemplateAdminServiceClient =
-                new SequenceTemplateAdminServiceClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Sequence Template " +
-                 sequenceTemplateName);
-        boolean isSequenceTmpFound = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] templates = sequenceTemplateAdminServiceClient.getSequenceTemplates();
-            if (templates != null && templates.length > 0) {
-                for (String tmpl : templates) {
-
-                    if (tmpl.equals(sequenceTemplateName)) {
-                        isSequenceTmpFound = true;
-                        log.info(sequenceTemplateName + " Sequence Template Found in " + time +
-                                 " millis");
-                        break;
-                    }
-                }
-            }
-            if (isSequenceTmpFound) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isSequenceTmpFound;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.SEQUENCE_TEMPLATE, sequenceTemplateName);
     }
 
     public boolean isEndpointTemplateDeployed(String backEndUrl, String sessionCookie,
                                               String endpointTemplateName) throws RemoteException {
-        EndpointTemplateAdminServiceClient endpointTemplateAdminServiceClient =
-                new EndpointTemplateAdminServiceClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Endpoint Template " +
-                 endpointTemplateName);
-        boolean isEndpointTmpFound = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] templates = endpointTemplateAdminServiceClient.getEndpointTemplates();
-            if (templates != null && templates.length > 0) {
-                for (String tmpl : templates) {
-
-                    if (tmpl.equals(endpointTemplateName)) {
-                        isEndpointTmpFound = true;
-                        log.info(endpointTemplateName + " Endpoint Template Found in " + time +
-                                 " millis");
-                        break;
-                    }
-                }
-            }
-            if (isEndpointTmpFound) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isEndpointTmpFound;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.ENDPOINT_TEMPLATE, endpointTemplateName);
     }
 
     public boolean isApiDeployed(String backEndUrl, String sessionCookie, String apiName)
             throws RemoteException, RestApiAdminAPIException {
-        RestApiAdminClient apiAdminClient = new RestApiAdminClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for API " + apiName);
-        boolean isApiFound = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] apiList = apiAdminClient.getApiNames();
-            if (apiList != null && apiList.length > 0) {
-                for (String restApi : apiList) {
-
-                    if (restApi.equals(apiName)) {
-                        isApiFound = true;
-                        log.info(apiName + " API Found in " + time + " millis");
-                        break;
-                    }
-                }
-            }
-            if (isApiFound) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isApiFound;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.API, apiName);
     }
 
     public boolean isPriorityExecutorDeployed(String backEndUrl, String sessionCookie,
                                               String executorName)
             throws RemoteException {
-        PriorityMediationAdminClient priorityMediationAdminClient =
-                new PriorityMediationAdminClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Priority Executor " +
-                 executorName);
-        boolean isExecutorFound = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] executorList = priorityMediationAdminClient.getExecutorList();
-            if (executorList != null && executorList.length > 0) {
-                for (String executor : executorList) {
-
-                    if (executor.equals(executorName)) {
-                        isExecutorFound = true;
-                        log.info(executorName + " Priority Executor Found in " + time + " millis");
-                        break;
-                    }
-                }
-            }
-            if (isExecutorFound) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isExecutorFound;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.PRIORITY_EXECUTOR, executorName);
     }
 
     public boolean isScheduleTaskDeployed(String backEndUrl, String sessionCookie, String taskName)
             throws RemoteException, TaskManagementException {
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Task deployment " + taskName);
-
-        boolean isTaskDeployed = false;
-        TaskAdminClient taskAdminClient = new TaskAdminClient(backEndUrl, sessionCookie);
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            if (taskAdminClient.getScheduleTaskList().contains(taskName)) {
-                isTaskDeployed = true;
-                log.info(taskName + " Task Deployed in " + time + " millis");
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException ignored) {
-
-            }
-        }
-
-        return isTaskDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.TASK, taskName);
     }
 
     public boolean isProxyServiceExist(String backEndUrl, String sessionCookie, String proxyName)
@@ -1029,397 +769,128 @@ public class APIMTestCaseUtils {
 
     public boolean isProxyUnDeployed(String backEndUrl, String sessionCookie, String proxyName)
             throws RemoteException {
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Proxy undeployment");
-        ServiceAdminClient adminServiceService = new ServiceAdminClient(backEndUrl, sessionCookie);
-        boolean isServiceDeleted = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            if (!adminServiceService.isServiceExists(proxyName)) {
-                isServiceDeleted = true;
-                log.info(proxyName + " Proxy undeployed in " + time + " millis");
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-
-            }
-        }
-        return isServiceDeleted;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.PROXY, proxyName);
     }
 
     public boolean isMessageStoreUnDeployed(String backEndUrl, String sessionCookie,
                                             String messageStoreName)
             throws SequenceEditorException, RemoteException {
-        MessageStoreAdminClient messageStoreAdminClient =
-                new MessageStoreAdminClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Undeployment Message Store " +
-                 messageStoreName);
-        boolean isMessageStoreDeleted = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] mStores = messageStoreAdminClient.getMessageStores();
-            if (!ArrayUtils.contains(mStores, messageStoreName)) {
-                isMessageStoreDeleted = true;
-                break;
-            }
-
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isMessageStoreDeleted;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.MESSAGE_STORE, messageStoreName);
     }
 
     public boolean isMessageProcessorUnDeployed(String backEndUrl, String sessionCookie,
                                                 String messageProcessorName)
             throws SequenceEditorException, RemoteException {
-        MessageProcessorClient messageProcessorClient =
-                new MessageProcessorClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY +
-                 " millis for Undeployment Message Processor " + messageProcessorName);
-        boolean isMessageProcessorDeleted = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] mProcessors = messageProcessorClient.getMessageProcessorNames();
-            if (!ArrayUtils.contains(mProcessors, messageProcessorName)) {
-                isMessageProcessorDeleted = true;
-                break;
-            }
-
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isMessageProcessorDeleted;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.MESSAGE_PROCESSOR, messageProcessorName);
     }
 
     public boolean isLocalEntryDeployed(String backEndUrl, String sessionCookie,
                                         String localEntryName)
             throws LocalEntryAdminException, RemoteException {
-        LocalEntriesAdminClient localEntryAdminServiceClient =
-                new LocalEntriesAdminClient(backEndUrl,
-                                            sessionCookie);
-        log.info(
-                "waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for LocalEntry " + localEntryName);
-        boolean isLocalEntryExist = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] localEntries = localEntryAdminServiceClient.getEntryNames();
-            if (localEntries != null && localEntries.length > 0) {
-                for (String localEntry : localEntries) {
-
-                    if (localEntryName.equals(localEntry)) {
-                        isLocalEntryExist = true;
-                        log.info(localEntryName + " LocalEntry Found in " + time + " millis");
-                        break;
-                    }
-                }
-            }
-            if (isLocalEntryExist) {
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isLocalEntryExist;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForDeployment(ArtifactType.LOCAL_ENTRY, localEntryName);
     }
 
     public boolean isLocalEntryUnDeployed(String backEndUrl, String sessionCookie,
                                           String localEntryName)
             throws LocalEntryAdminException, RemoteException {
-        LocalEntriesAdminClient localEntryAdminServiceClient =
-                new LocalEntriesAdminClient(backEndUrl,
-                                            sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Undeployment LocalEntry " +
-                 localEntryName);
-        boolean isLocalEntryUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] localEntries = localEntryAdminServiceClient.getEntryNames();
-            if (!ArrayUtils.contains(localEntries, localEntryName)) {
-                isLocalEntryUnDeployed = true;
-                break;
-            }
-
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isLocalEntryUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.LOCAL_ENTRY, localEntryName);
     }
 
     public boolean isSequenceUnDeployed(String backEndUrl, String sessionCookie,
                                         String sequenceName)
             throws SequenceEditorException, RemoteException {
-        SequenceAdminServiceClient sequenceAdminServiceClient =
-                new SequenceAdminServiceClient(backEndUrl,
-                                               sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Undeployment Sequence " +
-                 sequenceName);
-        boolean isSequenceUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] sequences = sequenceAdminServiceClient.getSequences();
-            if (!ArrayUtils.contains(sequences, sequenceName)) {
-                isSequenceUnDeployed = true;
-                break;
-            }
-
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isSequenceUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.SEQUENCE, sequenceName);
     }
 
     public boolean isEndpointUnDeployed(String backEndUrl, String sessionCookie,
                                         String endpointName)
             throws EndpointAdminEndpointAdminException, RemoteException {
-        EndPointAdminClient endPointAdminClient = new EndPointAdminClient(backEndUrl,
-                                                                          sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Undeployment Endpoint " +
-                 endpointName);
-        boolean isEndpointUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] endpoints = endPointAdminClient.getEndpointNames();
-            if (!ArrayUtils.contains(endpoints, endpointName)) {
-                isEndpointUnDeployed = true;
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isEndpointUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.ENDPOINT, endpointName);
     }
 
     public boolean isEndpointTemplateUnDeployed(String backEndUrl, String sessionCookie,
                                                 String endpointTemplateName)
             throws EndpointAdminEndpointAdminException, RemoteException {
-        EndpointTemplateAdminServiceClient endpointTemplateAdminServiceClient =
-                new EndpointTemplateAdminServiceClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY +
-                 " millis for Undeployment Endpoint Template " + endpointTemplateName);
-        boolean isEndpointTemplateUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] endpointTemplates = endpointTemplateAdminServiceClient.getEndpointTemplates();
-            if (!ArrayUtils.contains(endpointTemplates, endpointTemplateName)) {
-                isEndpointTemplateUnDeployed = true;
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isEndpointTemplateUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.ENDPOINT_TEMPLATE, endpointTemplateName);
     }
 
     public boolean isSequenceTemplateUnDeployed(String backEndUrl, String sessionCookie,
                                                 String sequenceTemplateName)
             throws EndpointAdminEndpointAdminException, RemoteException {
-        SequenceTemplateAdminServiceClient sequenceTemplateAdminServiceClient =
-                new SequenceTemplateAdminServiceClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY +
-                 " millis for Undeployment Sequence Template " + sequenceTemplateName);
-        boolean isSequenceTemplateUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] sequenceTemplates = sequenceTemplateAdminServiceClient.getSequenceTemplates();
-            if (!ArrayUtils.contains(sequenceTemplates, sequenceTemplateName)) {
-                isSequenceTemplateUnDeployed = true;
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isSequenceTemplateUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.SEQUENCE_TEMPLATE, sequenceTemplateName);
     }
 
     public boolean isApiUnDeployed(String backEndUrl, String sessionCookie,
                                    String apiName)
             throws RemoteException, RestApiAdminAPIException {
-        RestApiAdminClient apiAdminClient = new RestApiAdminClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Undeployment API " + apiName);
-        boolean isApiUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] apiList = apiAdminClient.getApiNames();
-            if (!ArrayUtils.contains(apiList, apiName)) {
-                isApiUnDeployed = true;
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isApiUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.API, apiName);
     }
 
     public boolean isPriorityExecutorUnDeployed(String backEndUrl, String sessionCookie,
                                                 String executorName)
             throws RemoteException {
-        PriorityMediationAdminClient priorityMediationAdminClient =
-                new PriorityMediationAdminClient(backEndUrl, sessionCookie);
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY +
-                 " millis for Undeployment Priority Executor " + executorName);
-        boolean isExecutorUnDeployed = false;
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            String[] executorList = priorityMediationAdminClient.getExecutorList();
-            if (!ArrayUtils.contains(executorList, executorName)) {
-                isExecutorUnDeployed = true;
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException e) {
-                //ignore
-            }
-        }
-        return isExecutorUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.PRIORITY_EXECUTOR, executorName);
     }
 
     public boolean isScheduleTaskUnDeployed(String backEndUrl, String sessionCookie,
                                             String taskName)
             throws RemoteException, TaskManagementException {
-        log.info("waiting " + SERVICE_DEPLOYMENT_DELAY + " millis for Task Undeployment " +
-                 taskName);
-
-        boolean isTaskUnDeployed = false;
-        TaskAdminClient taskAdminClient = new TaskAdminClient(backEndUrl, sessionCookie);
-        Calendar startTime = Calendar.getInstance();
-        long time;
-        while ((time = (Calendar.getInstance().getTimeInMillis() - startTime.getTimeInMillis())) <
-               SERVICE_DEPLOYMENT_DELAY) {
-            if (!taskAdminClient.getScheduleTaskList().contains(taskName)) {
-                isTaskUnDeployed = true;
-                log.info(taskName + " Task UnDeployed in " + time + " millis");
-                break;
-            }
-            try {
-                Thread.sleep(500);
-            } catch (InterruptedException ignored) {
-
-            }
-        }
-
-        return isTaskUnDeployed;
+        return getDeploymentWaiter(backEndUrl, sessionCookie)
+                .waitForUndeployment(ArtifactType.TASK, taskName);
     }
 
+    /**
+     * Waits until all the artifacts of a synapse configuration are deployed. The artifacts are waited for together,
+     * so the deployed artifacts of each type are read once per poll instead of once per artifact.
+     *
+     * @param synapseConfig - synapse configuration
+     * @param backendURL    - back end URL of the server
+     * @param sessionCookie - session cookie of the admin services
+     */
     public void verifySynapseDeployment(OMElement synapseConfig, String backendURL,
                                         String sessionCookie)
             throws LocalEntryAdminException, RemoteException, EndpointAdminEndpointAdminException,
                    SequenceEditorException, RestApiAdminAPIException {
+        Map<ArtifactType, List<String>> artifacts =
+                new EnumMap<ArtifactType, List<String>>(ArtifactType.class);
+        for (ArtifactType type : ArtifactType.values()) {
+            artifacts.put(type, new ArrayList<String>());
+        }
+
         Iterator localEntries = synapseConfig.getChildrenWithLocalName(LOCAL_ENTRY);
         while (localEntries.hasNext()) {
             OMElement leOM = (OMElement) localEntries.next();
-            String le = leOM.getAttributeValue(new QName(KEY));
-            assertTrue(isLocalEntryDeployed(backendURL, sessionCookie, le),
-                       le + " LocalEntry deployment not found or time out");
-        }
-
-        Iterator endpoints = synapseConfig.getChildrenWithLocalName(ENDPOINT);
-        while (endpoints.hasNext()) {
-            OMElement epOM = (OMElement) endpoints.next();
-            String ep = epOM.getAttributeValue(new QName(NAME));
-            assertTrue(isEndpointDeployed(backendURL, sessionCookie, ep),
-                       ep + " Endpoint deployment not found or time out");
-        }
-
-        Iterator sequences = synapseConfig.getChildrenWithLocalName(SEQUENCE);
-        while (sequences.hasNext()) {
-            OMElement sqnOM = (OMElement) sequences.next();
-            String sqn = sqnOM.getAttributeValue(new QName(NAME));
-            assertTrue(isSequenceDeployed(backendURL, sessionCookie, sqn),
-                       sqn + " Sequence deployment not found or time out");
-        }
-
-        Iterator proxies = synapseConfig.getChildrenWithLocalName(PROXY);
-        while (proxies.hasNext()) {
-            OMElement proxyOM = (OMElement) proxies.next();
-            String proxy = proxyOM.getAttributeValue(new QName(NAME));
-            assertTrue(isProxyDeployed(backendURL, sessionCookie, proxy),
-                       proxy + " Proxy Deployment not found or time out");
-        }
-
-        Iterator messageStores = synapseConfig.getChildrenWithLocalName(MESSAGE_STORE);
-        while (messageStores.hasNext()) {
-            OMElement mStoreOM = (OMElement) messageStores.next();
-            String mStore = mStoreOM.getAttributeValue(new QName(NAME));
-            assertTrue(isMessageStoreDeployed(backendURL, sessionCookie, mStore),
-                       mStore + " Message Store Deployment not found or time out");
-        }
-
-        Iterator messageProcessor =
-                synapseConfig.getChildrenWithLocalName(MESSAGE_PROCESSOR);
-        while (messageProcessor.hasNext()) {
-            OMElement mProcessorOM = (OMElement) messageProcessor.next();
-            String mProcessor = mProcessorOM.getAttributeValue(new QName(NAME));
-            assertTrue(isMessageProcessorDeployed(backendURL, sessionCookie, mProcessor),
-                       mProcessor + " Message Processor Deployment not found or time out");
+            artifacts.get(ArtifactType.LOCAL_ENTRY).add(leOM.getAttributeValue(new QName(KEY)));
         }
+        addArtifactNames(synapseConfig, ENDPOINT, artifacts.get(ArtifactType.ENDPOINT));
+        addArtifactNames(synapseConfig, SEQUENCE, artifacts.get(ArtifactType.SEQUENCE));
+        addArtifactNames(synapseConfig, PROXY, artifacts.get(ArtifactType.PROXY));
+        addArtifactNames(synapseConfig, MESSAGE_STORE, artifacts.get(ArtifactType.MESSAGE_STORE));
+        addArtifactNames(synapseConfig, MESSAGE_PROCESSOR,
+                         artifacts.get(ArtifactType.MESSAGE_PROCESSOR));
 
         Iterator templates = synapseConfig.getChildrenWithLocalName(TEMPLATE);
-
         while (templates.hasNext()) {
             OMElement template = (OMElement) templates.next();
             String templateName = template.getAttributeValue(new QName(NAME));
 
             if (template.getFirstChildWithName(new QName(template.getNamespace().getNamespaceURI(),
                                                          SEQUENCE)) != null) {
-                assertTrue(isSequenceTemplateDeployed(backendURL, sessionCookie, templateName),
-                           templateName + " Sequence Template Deployment not found or time out");
+                artifacts.get(ArtifactType.SEQUENCE_TEMPLATE).add(templateName);
             } else {
-
-                assertTrue(isEndpointTemplateDeployed(backendURL, sessionCookie, templateName),
-                           templateName + " Endpoint Template Deployment not found or time out");
+                artifacts.get(ArtifactType.ENDPOINT_TEMPLATE).add(templateName);
             }
-            log.info("Template Uploaded");
         }
 
         Iterator apiList = synapseConfig.getChildrenWithLocalName(API);
@@ -1430,18 +901,40 @@ public class APIMTestCaseUtils {
             if (version != null && !version.equals("")) {
                 apiName = apiName + ":v" + version;
             }
-            assertTrue(isApiDeployed(backendURL, sessionCookie, apiName),
-                       apiName + " API Deployment not found or time out");
+            artifacts.get(ArtifactType.API).add(apiName);
         }
+        addArtifactNames(synapseConfig, PRIORITY_EXECUTOR,
+                         artifacts.get(ArtifactType.PRIORITY_EXECUTOR));
 
-        Iterator executorList =
-                synapseConfig.getChildrenWithLocalName(PRIORITY_EXECUTOR);
-        while (executorList.hasNext()) {
-            OMElement executorNameOM = (OMElement) executorList.next();
-            String executorName = executorNameOM.getAttributeValue(new QName(NAME));
-            assertTrue(isPriorityExecutorDeployed(backendURL, sessionCookie, executorName),
-                       executorName + " Priority Executor Deployment not found or time out");
+        Map<ArtifactType, Set<String>> notDeployed =
+                getDeploymentWaiter(backendURL, sessionCookie).waitForDeployment(artifacts);
+        assertTrue(notDeployed.isEmpty(), notDeployed + " Deployment not found or time out");
+    }
+
+    private void addArtifactNames(OMElement synapseConfig, String localName, List<String> names) {
+        Iterator artifacts = synapseConfig.getChildrenWithLocalName(localName);
+        while (artifacts.hasNext()) {
+            OMElement artifact = (OMElement) artifacts.next();
+            names.add(artifact.getAttributeValue(new QName(NAME)));
+        }
+    }
+
+    /**
+     * Returns the deployment waiter of the given server. The waiter and its admin clients are reused while the
+     * same server and session are used.
+     *
+     * @param backEndUrl    - back end URL of the server
+     * @param sessionCookie - session cookie of the admin services
+     * @return - deployment waiter
+     */
+    private synchronized SynapseDeploymentWaiter getDeploymentWaiter(String backEndUrl,
+                                                                     String sessionCookie) {
+        if (deploymentWaiter == null || !backEndUrl.equals(deploymentWaiter.getBackEndUrl()) ||
+            !sessionCookie.equals(deploymentWaiter.getSessionCookie())) {
+            deploymentWaiter =
+                    new SynapseDeploymentWaiter(backEndUrl, sessionCookie, SERVICE_DEPLOYMENT_DELAY);
         }
+        return deploymentWaiter;
     }
 
     /**
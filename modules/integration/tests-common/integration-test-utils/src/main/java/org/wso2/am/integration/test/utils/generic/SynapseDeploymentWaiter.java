@@ -0,0 +1,329 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.generic;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.am.admin.clients.endpoint.EndPointAdminClient;
+import org.wso2.am.admin.clients.localentry.LocalEntriesAdminClient;
+import org.wso2.am.admin.clients.mediation.MessageProcessorClient;
+import org.wso2.am.admin.clients.mediation.MessageStoreAdminClient;
+import org.wso2.am.admin.clients.mediation.PriorityMediationAdminClient;
+import org.wso2.am.admin.clients.rest.api.RestApiAdminClient;
+import org.wso2.am.admin.clients.sequences.SequenceAdminServiceClient;
+import org.wso2.am.admin.clients.service.mgt.ServiceAdminClient;
+import org.wso2.am.admin.clients.tasks.TaskAdminClient;
+import org.wso2.am.admin.clients.template.EndpointTemplateAdminServiceClient;
+import org.wso2.am.admin.clients.template.SequenceTemplateAdminServiceClient;
+import org.wso2.carbon.endpoint.stub.types.EndpointAdminEndpointAdminException;
+import org.wso2.carbon.localentry.stub.types.LocalEntryAdminException;
+import org.wso2.carbon.rest.api.stub.RestApiAdminAPIException;
+import org.wso2.carbon.sequences.stub.types.SequenceEditorException;
+import org.wso2.carbon.task.stub.TaskManagementException;
+
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Waits until synapse artifacts are deployed or undeployed on a server. Each poll reads the artifact names of a type
+ * once, with a single admin service call, and checks all the pending artifacts of that type against them, so waiting
+ * for a whole synapse configuration costs one call per artifact type and poll instead of one polling loop per artifact.
+ * The poll interval starts small and is doubled up to MAX_POLL_INTERVAL, so artifacts which are deployed quickly are
+ * found without waiting for a fixed interval while slow deployments do not flood the admin services.
+ * <p/>
+ * The admin clients are created once and reused by the following waits. An instance is not thread safe.
+ */
+public class SynapseDeploymentWaiter {
+
+    private static final Log log = LogFactory.getLog(SynapseDeploymentWaiter.class);
+
+    private static final long INITIAL_POLL_INTERVAL = 50;
+    private static final long MAX_POLL_INTERVAL = 1000;
+
+    /**
+     * Synapse artifact types, by the admin service which lists the deployed artifacts of the type
+     */
+    public enum ArtifactType {
+        LOCAL_ENTRY("LocalEntry"),
+        ENDPOINT("Endpoint"),
+        SEQUENCE("Sequence"),
+        PROXY("Proxy"),
+        MESSAGE_STORE("Message Store"),
+        MESSAGE_PROCESSOR("Message Processor"),
+        SEQUENCE_TEMPLATE("Sequence Template"),
+        ENDPOINT_TEMPLATE("Endpoint Template"),
+        API("API"),
+        PRIORITY_EXECUTOR("Priority Executor"),
+        TASK("Task");
+
+        private final String displayName;
+
+        ArtifactType(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    private final String backEndUrl;
+    private final String sessionCookie;
+    private final long timeout;
+
+    private LocalEntriesAdminClient localEntriesAdminClient;
+    private EndPointAdminClient endPointAdminClient;
+    private SequenceAdminServiceClient sequenceAdminServiceClient;
+    private ServiceAdminClient serviceAdminClient;
+    private MessageStoreAdminClient messageStoreAdminClient;
+    private MessageProcessorClient messageProcessorClient;
+    private SequenceTemplateAdminServiceClient sequenceTemplateAdminServiceClient;
+    private EndpointTemplateAdminServiceClient endpointTemplateAdminServiceClient;
+    private RestApiAdminClient restApiAdminClient;
+    private PriorityMediationAdminClient priorityMediationAdminClient;
+    private TaskAdminClient taskAdminClient;
+
+    /**
+     * @param backEndUrl    - back end URL of the server
+     * @param sessionCookie - session cookie of the admin services
+     * @param timeout       - time in millis to wait for the artifacts
+     */
+    public SynapseDeploymentWaiter(String backEndUrl, String sessionCookie, long timeout) {
+        this.backEndUrl = backEndUrl;
+        this.sessionCookie = sessionCookie;
+        this.timeout = timeout;
+    }
+
+    public String getBackEndUrl() {
+        return backEndUrl;
+    }
+
+    public String getSessionCookie() {
+        return sessionCookie;
+    }
+
+    /**
+     * Waits until a single artifact is deployed
+     *
+     * @param type - type of the artifact
+     * @param name - name of the artifact
+     * @return - true if the artifact was deployed before the timeout
+     * @throws RemoteException - if the deployed artifacts cannot be read
+     */
+    public boolean waitForDeployment(ArtifactType type, String name) throws RemoteException {
+        return waitForDeployment(Collections.singletonMap(type, Collections.singleton(name))).isEmpty();
+    }
+
+    /**
+     * Waits until a single artifact is undeployed
+     *
+     * @param type - type of the artifact
+     * @param name - name of the artifact
+     * @return - true if the artifact was undeployed before the timeout
+     * @throws RemoteException - if the deployed artifacts cannot be read
+     */
+    public boolean waitForUndeployment(ArtifactType type, String name) throws RemoteException {
+        return waitForUndeployment(Collections.singletonMap(type, Collections.singleton(name))).isEmpty();
+    }
+
+    /**
+     * Waits until all the given artifacts are deployed
+     *
+     * @param artifacts - names of the artifacts by their type
+     * @return - artifacts which were not deployed before the timeout, empty if all of them were deployed
+     * @throws RemoteException - if the deployed artifacts cannot be read
+     */
+    public Map<ArtifactType, Set<String>> waitForDeployment(
+            Map<ArtifactType, ? extends Collection<String>> artifacts) throws RemoteException {
+        return waitFor(artifacts, true);
+    }
+
+    /**
+     * Waits until all the given artifacts are undeployed
+     *
+     * @param artifacts - names of the artifacts by their type
+     * @return - artifacts which were still deployed when the timeout expired, empty if all of them were undeployed
+     * @throws RemoteException - if the deployed artifacts cannot be read
+     */
+    public Map<ArtifactType, Set<String>> waitForUndeployment(
+            Map<ArtifactType, ? extends Collection<String>> artifacts) throws RemoteException {
+        return waitFor(artifacts, false);
+    }
+
+    private Map<ArtifactType, Set<String>> waitFor(Map<ArtifactType, ? extends Collection<String>> artifacts,
+                                                   boolean deployed) throws RemoteException {
+        Map<ArtifactType, Set<String>> pending = new EnumMap<ArtifactType, Set<String>>(ArtifactType.class);
+        for (Map.Entry<ArtifactType, ? extends Collection<String>> entry : artifacts.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                pending.put(entry.getKey(), new LinkedHashSet<String>(entry.getValue()));
+            }
+        }
+        if (pending.isEmpty()) {
+            return pending;
+        }
+        String action = deployed ? "deployment" : "undeployment";
+        log.info("waiting " + timeout + " millis for " + action + " of " + pending);
+
+        long startTime = System.currentTimeMillis();
+        long pollInterval = INITIAL_POLL_INTERVAL;
+        while (true) {
+            long time = System.currentTimeMillis() - startTime;
+            Iterator<Map.Entry<ArtifactType, Set<String>>> pendingTypes = pending.entrySet().iterator();
+            while (pendingTypes.hasNext()) {
+                Map.Entry<ArtifactType, Set<String>> entry = pendingTypes.next();
+                Set<String> deployedNames = getDeployedNames(entry.getKey(), entry.getValue());
+                Iterator<String> names = entry.getValue().iterator();
+                while (names.hasNext()) {
+                    String name = names.next();
+                    if (deployedNames.contains(name) == deployed) {
+                        log.info(name + " " + entry.getKey() + " " + action + " found in " + time + " millis");
+                        names.remove();
+                    }
+                }
+                if (entry.getValue().isEmpty()) {
+                    pendingTypes.remove();
+                }
+            }
+
+            long remaining = timeout - (System.currentTimeMillis() - startTime);
+            if (pending.isEmpty() || remaining <= 0) {
+                break;
+            }
+            try {
+                Thread.sleep(Math.min(pollInterval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            pollInterval = Math.min(pollInterval * 2, MAX_POLL_INTERVAL);
+        }
+
+        if (!pending.isEmpty()) {
+            log.warn(action + " of " + pending + " not found in " + timeout + " millis");
+        }
+        return pending;
+    }
+
+    /**
+     * Reads the names of the deployed artifacts of a type
+     *
+     * @param type  - artifact type
+     * @param names - names of the artifacts waited for. Proxy services cannot be listed by name, so only these are
+     *              looked up
+     * @return - names of the deployed artifacts
+     * @throws RemoteException - if the admin service call fails
+     */
+    private Set<String> getDeployedNames(ArtifactType type, Set<String> names) throws RemoteException {
+        try {
+            switch (type) {
+                case LOCAL_ENTRY:
+                    if (localEntriesAdminClient == null) {
+                        localEntriesAdminClient = new LocalEntriesAdminClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(localEntriesAdminClient.getEntryNames());
+                case ENDPOINT:
+                    if (endPointAdminClient == null) {
+                        endPointAdminClient = new EndPointAdminClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(endPointAdminClient.getEndpointNames());
+                case SEQUENCE:
+                    if (sequenceAdminServiceClient == null) {
+                        sequenceAdminServiceClient = new SequenceAdminServiceClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(sequenceAdminServiceClient.getSequences());
+                case PROXY:
+                    if (serviceAdminClient == null) {
+                        serviceAdminClient = new ServiceAdminClient(backEndUrl, sessionCookie);
+                    }
+                    Set<String> proxies = new HashSet<String>();
+                    for (String name : names) {
+                        if (serviceAdminClient.isServiceExists(name)) {
+                            proxies.add(name);
+                        }
+                    }
+                    return proxies;
+                case MESSAGE_STORE:
+                    if (messageStoreAdminClient == null) {
+                        messageStoreAdminClient = new MessageStoreAdminClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(messageStoreAdminClient.getMessageStores());
+                case MESSAGE_PROCESSOR:
+                    if (messageProcessorClient == null) {
+                        messageProcessorClient = new MessageProcessorClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(messageProcessorClient.getMessageProcessorNames());
+                case SEQUENCE_TEMPLATE:
+                    if (sequenceTemplateAdminServiceClient == null) {
+                        sequenceTemplateAdminServiceClient =
+                                new SequenceTemplateAdminServiceClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(sequenceTemplateAdminServiceClient.getSequenceTemplates());
+                case ENDPOINT_TEMPLATE:
+                    if (endpointTemplateAdminServiceClient == null) {
+                        endpointTemplateAdminServiceClient =
+                                new EndpointTemplateAdminServiceClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(endpointTemplateAdminServiceClient.getEndpointTemplates());
+                case API:
+                    if (restApiAdminClient == null) {
+                        restApiAdminClient = new RestApiAdminClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(restApiAdminClient.getApiNames());
+                case PRIORITY_EXECUTOR:
+                    if (priorityMediationAdminClient == null) {
+                        priorityMediationAdminClient = new PriorityMediationAdminClient(backEndUrl, sessionCookie);
+                    }
+                    return toSet(priorityMediationAdminClient.getExecutorList());
+                case TASK:
+                    if (taskAdminClient == null) {
+                        taskAdminClient = new TaskAdminClient(backEndUrl, sessionCookie);
+                    }
+                    return new HashSet<String>(taskAdminClient.getScheduleTaskList());
+                default:
+                    throw new IllegalArgumentException("Unsupported artifact type " + type);
+            }
+        } catch (LocalEntryAdminException e) {
+            throw new RemoteException("Error while reading the deployed local entries", e);
+        } catch (EndpointAdminEndpointAdminException e) {
+            throw new RemoteException("Error while reading the deployed endpoints", e);
+        } catch (SequenceEditorException e) {
+            throw new RemoteException("Error while reading the deployed sequences", e);
+        } catch (RestApiAdminAPIException e) {
+            throw new RemoteException("Error while reading the deployed APIs", e);
+        } catch (TaskManagementException e) {
+            throw new RemoteException("Error while reading the deployed tasks", e);
+        }
+    }
+
+    private static Set<String> toSet(String[] names) {
+        if (names == null) {
+            return Collections.emptySet();
+        }
+        return new HashSet<String>(Arrays.asList(names));
+    }
+}
@@ -0,0 +1,258 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.generic;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.latency.LatencyRecorder;
+import org.wso2.am.integration.test.utils.latency.LatencyTag;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test harness for the throttling of an API resource. Instead of invoking the API one request at a time,
+ * {@link #fireBurst} sends a number of requests at once and counts how many of them are accepted and how many are
+ * throttled out, which gives the limit the gateway enforced under concurrent requests. Instead of sleeping for a
+ * fixed time, {@link #waitForWindowRollover} waits until the end of the throttling window opened by the requests of
+ * the harness and then polls the API until it accepts a request again.
+ * <p/>
+ * The request which detects the rollover is the first request of the new window, so one request less of the limit
+ * is left for the requests which follow it.
+ */
+public class ThrottlingTestHarness {
+
+    private static final Log log = LogFactory.getLog(ThrottlingTestHarness.class);
+    private static final String CONCURRENCY_PROPERTY = "apim.test.throttling.concurrency";
+    private static final int DEFAULT_CONCURRENCY = 20;
+    private static final long POLL_INTERVAL = 250;
+    private static final int HTTP_RESPONSE_CODE_OK = 200;
+    private static final int HTTP_RESPONSE_CODE_TOO_MANY_REQUESTS = 429;
+    private static final int HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE = 503;
+
+    private final String endpoint;
+    private final long unitTime;
+    private final LatencyRecorder latencyRecorder;
+    //upper bound of the time at which the gateway opened the current throttling window, in nanoseconds
+    private long windowStartTime;
+    private boolean windowStarted;
+
+    /**
+     * @param endpoint        - gateway URL of the throttled API resource
+     * @param unitTime        - unit time of the throttling tiers in milliseconds
+     * @param latencyRecorder - recorder of the latencies of the requests
+     */
+    public ThrottlingTestHarness(String endpoint, long unitTime, LatencyRecorder latencyRecorder) {
+        this.endpoint = endpoint;
+        this.unitTime = unitTime;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    /**
+     * Send the given number of GET requests at once and classify the responses
+     *
+     * @param tag          - latency tag of the requests
+     * @param headers      - request headers
+     * @param requestCount - number of requests to send
+     * @return - accepted and throttled responses of the burst
+     * @throws APIManagerIntegrationTestException - if a request fails
+     */
+    public BurstResult fireBurst(LatencyTag tag, final Map<String, String> headers, int requestCount)
+            throws APIManagerIntegrationTestException {
+        int concurrency = Math.min(requestCount, Integer.getInteger(CONCURRENCY_PROPERTY, DEFAULT_CONCURRENCY));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency));
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        final LatencyTag latencyTag = tag;
+        List<Callable<TimedResponse>> requests = new ArrayList<Callable<TimedResponse>>();
+        for (int i = 0; i < requestCount; i++) {
+            requests.add(new Callable<TimedResponse>() {
+                public TimedResponse call() throws IOException, InterruptedException {
+                    startSignal.await();
+                    HttpResponse response = latencyRecorder.doGet(latencyTag, endpoint, headers);
+                    return new TimedResponse(response, System.nanoTime());
+                }
+            });
+        }
+        List<Future<TimedResponse>> futures = new ArrayList<Future<TimedResponse>>();
+        BurstResult result = new BurstResult();
+        long startTime = System.nanoTime();
+        long firstCompletionTime = Long.MAX_VALUE;
+        try {
+            for (Callable<TimedResponse> request : requests) {
+                futures.add(executor.submit(request));
+            }
+            startTime = System.nanoTime();
+            startSignal.countDown();
+            for (Future<TimedResponse> future : futures) {
+                TimedResponse timedResponse = future.get();
+                firstCompletionTime = Math.min(firstCompletionTime, timedResponse.completionTime);
+                result.addResponse(timedResponse.response);
+            }
+        } catch (ExecutionException e) {
+            throw new APIManagerIntegrationTestException("Error while invoking " + endpoint, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while invoking " + endpoint, e);
+        } finally {
+            executor.shutdownNow();
+        }
+        result.elapsedTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (!windowStarted) {
+            startWindow(firstCompletionTime);
+        }
+        log.info("Burst to " + endpoint + ": " + result);
+        return result;
+    }
+
+    /**
+     * Wait until the throttling window opened by the requests of the harness is over and the API accepts a request
+     * again. The accepted request is the first request of the new throttling window.
+     *
+     * @param tag     - latency tag of the requests
+     * @param headers - request headers
+     * @param timeout - maximum time to wait in milliseconds
+     * @return - accepted response
+     * @throws APIManagerIntegrationTestException - if the API does not accept a request within the timeout
+     */
+    public HttpResponse waitForWindowRollover(LatencyTag tag, Map<String, String> headers, long timeout)
+            throws APIManagerIntegrationTestException {
+        long startTime = System.nanoTime();
+        long deadline = startTime + TimeUnit.MILLISECONDS.toNanos(timeout);
+        try {
+            if (windowStarted) {
+                long windowEndTime = windowStartTime + TimeUnit.MILLISECONDS.toNanos(unitTime);
+                long waitTime = Math.min(windowEndTime, deadline) - System.nanoTime();
+                if (waitTime > 0) {
+                    TimeUnit.NANOSECONDS.sleep(waitTime);
+                }
+            }
+            while (true) {
+                HttpResponse response = latencyRecorder.doGet(tag, endpoint, headers);
+                long completionTime = System.nanoTime();
+                if (!isThrottled(response)) {
+                    startWindow(completionTime);
+                    log.info("Throttling window of " + endpoint + " rolled over after " +
+                             TimeUnit.NANOSECONDS.toMillis(completionTime - startTime) + " ms");
+                    return response;
+                }
+                if (completionTime + TimeUnit.MILLISECONDS.toNanos(POLL_INTERVAL) > deadline) {
+                    throw new APIManagerIntegrationTestException("Throttling window of " + endpoint +
+                                                                 " did not roll over within " + timeout + " ms");
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException("Error while invoking " + endpoint, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while waiting for the throttling window of " +
+                                                         endpoint, e);
+        }
+    }
+
+    private void startWindow(long completionTime) {
+        windowStartTime = completionTime;
+        windowStarted = true;
+    }
+
+    private static boolean isThrottled(HttpResponse response) {
+        return response.getResponseCode() == HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE ||
+               response.getResponseCode() == HTTP_RESPONSE_CODE_TOO_MANY_REQUESTS;
+    }
+
+    private static class TimedResponse {
+
+        private final HttpResponse response;
+        private final long completionTime;
+
+        private TimedResponse(HttpResponse response, long completionTime) {
+            this.response = response;
+            this.completionTime = completionTime;
+        }
+    }
+
+    /**
+     * Responses of a burst, classified as accepted, throttled out or other
+     */
+    public static class BurstResult {
+
+        private final List<HttpResponse> acceptedResponses = new ArrayList<HttpResponse>();
+        private final List<HttpResponse> throttledResponses = new ArrayList<HttpResponse>();
+        private final List<HttpResponse> otherResponses = new ArrayList<HttpResponse>();
+        private long elapsedTime;
+
+        private void addResponse(HttpResponse response) {
+            if (response.getResponseCode() == HTTP_RESPONSE_CODE_OK) {
+                acceptedResponses.add(response);
+            } else if (isThrottled(response)) {
+                throttledResponses.add(response);
+            } else {
+                otherResponses.add(response);
+            }
+        }
+
+        public int getAcceptedCount() {
+            return acceptedResponses.size();
+        }
+
+        public int getThrottledCount() {
+            return throttledResponses.size();
+        }
+
+        public List<HttpResponse> getAcceptedResponses() {
+            return Collections.unmodifiableList(acceptedResponses);
+        }
+
+        public List<HttpResponse> getThrottledResponses() {
+            return Collections.unmodifiableList(throttledResponses);
+        }
+
+        /**
+         * @return - responses which are neither accepted nor throttled out
+         */
+        public List<HttpResponse> getOtherResponses() {
+            return Collections.unmodifiableList(otherResponses);
+        }
+
+        /**
+         * @return - time taken by the burst in milliseconds
+         */
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        @Override
+        public String toString() {
+            return acceptedResponses.size() + " accepted, " + throttledResponses.size() + " throttled, " +
+                   otherResponses.size() + " other responses in " + elapsedTime + " ms";
+        }
+    }
+}
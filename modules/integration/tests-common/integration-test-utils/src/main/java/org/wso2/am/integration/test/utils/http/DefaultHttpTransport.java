@@ -0,0 +1,55 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.http;
+
+import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Transport which sends each request through {@link HttpRequestUtil}, opening a new connection for every request.
+ * This is the transport used by the REST clients unless another transport is given.
+ */
+public class DefaultHttpTransport implements HttpTransport {
+
+    @Override
+    public HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException {
+        try {
+            return HttpRequestUtil.doPost(endpoint, postBody, headers);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to send the POST request to " + endpoint, e);
+        }
+    }
+
+    @Override
+    public HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        try {
+            return HttpRequestUtil.doGet(endpoint, headers);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to send the GET request to " + endpoint, e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.http;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transport which sends the requests over a pool of keep-alive connections, so a connection and its TLS session are
+ * reused by the following requests to the same host instead of being set up for every request. The transport can be
+ * shared by any number of REST clients and threads. The number of pooled connections limits the number of requests
+ * in flight at a time, and is read from the {@value #MAX_CONNECTIONS_PROPERTY} system property for the shared
+ * instance. The shared instance is shut down when the JVM exits.
+ * <p/>
+ * Cookies are not managed by the transport, since clients logged in as different users share the same connections.
+ * Each REST client sends its own session cookie with the request headers.
+ */
+public class PooledHttpTransport implements HttpTransport {
+
+    public static final String MAX_CONNECTIONS_PROPERTY = "apim.test.http.maxConnections";
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+    private static final Log log = LogFactory.getLog(PooledHttpTransport.class);
+
+    private static PooledHttpTransport sharedInstance;
+
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * @param maxConnections - maximum number of connections kept open, in total and to a single host
+     */
+    public PooledHttpTransport(int maxConnections) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .disableCookieManagement()
+                .build();
+    }
+
+    /**
+     * Get the transport shared by all the clients of the test run
+     *
+     * @return shared pooled transport
+     */
+    public static synchronized PooledHttpTransport getSharedInstance() {
+        if (sharedInstance == null) {
+            sharedInstance = new PooledHttpTransport(Integer.getInteger(MAX_CONNECTIONS_PROPERTY,
+                                                                        DEFAULT_MAX_CONNECTIONS));
+            //the shared instance is used until the end of the test run, so it is closed with the JVM
+            Runtime.getRuntime().addShutdownHook(new Thread("PooledHttpTransport-shutdown") {
+                @Override
+                public void run() {
+                    shutdownSharedInstance();
+                }
+            });
+        }
+        return sharedInstance;
+    }
+
+    @Override
+    public HttpResponse doPost(URL endpoint, String postBody, Map<String, String> headers) throws IOException {
+        HttpPost post = new HttpPost(endpoint.toString());
+        //content type of the request is taken from the headers
+        post.setEntity(new StringEntity(postBody, "UTF-8"));
+        return execute(post, headers);
+    }
+
+    @Override
+    public HttpResponse doGet(String endpoint, Map<String, String> headers) throws IOException {
+        return execute(new HttpGet(endpoint), headers);
+    }
+
+    /**
+     * Close all the pooled connections. The transport cannot be used afterwards.
+     */
+    public void shutdown() {
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            log.warn("Error while closing the pooled connections", e);
+        }
+    }
+
+    /**
+     * Close the connections of the shared instance, if it has been created. A new shared instance is created if it is
+     * requested afterwards.
+     */
+    public static synchronized void shutdownSharedInstance() {
+        if (sharedInstance != null) {
+            sharedInstance.shutdown();
+            sharedInstance = null;
+        }
+    }
+
+    private HttpResponse execute(HttpRequestBase request, Map<String, String> headers) throws IOException {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            request.setHeader(header.getKey(), header.getValue());
+        }
+        CloseableHttpResponse response = httpClient.execute(request);
+        try {
+            HttpEntity entity = response.getEntity();
+            //reading the entity completely returns the connection to the pool
+            String data = entity != null ? EntityUtils.toString(entity, "UTF-8") : "";
+
+            Map<String, String> responseHeaders = new HashMap<String, String>();
+            for (Header header : response.getAllHeaders()) {
+                if (!responseHeaders.containsKey(header.getName())) {
+                    responseHeaders.put(header.getName(), header.getValue());
+                }
+            }
+            return new HttpResponse(data, response.getStatusLine().getStatusCode(), responseHeaders);
+        } finally {
+            //releases the connection if the entity could not be read
+            response.close();
+        }
+    }
+}
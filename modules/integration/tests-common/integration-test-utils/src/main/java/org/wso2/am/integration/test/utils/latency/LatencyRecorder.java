@@ -0,0 +1,167 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.latency;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latencies of gateway invocations by {@link LatencyTag}. The invocations are sent with
+ * {@link HttpRequestUtil} as the tests did before, and the time of each request is recorded in the histogram of its
+ * tag. {@link #writeReport(String)} writes the request count, mean, p50, p95, p99 and max latency of each tag to a JSON
+ * file named after the test class, in the directory given by the apim.test.latency.reportDir system property.
+ */
+public class LatencyRecorder {
+
+    private static final Log log = LogFactory.getLog(LatencyRecorder.class);
+    public static final String REPORT_DIRECTORY_PROPERTY = "apim.test.latency.reportDir";
+    private static final String DEFAULT_REPORT_DIRECTORY = "target" + File.separator + "latency-reports";
+
+    private final ConcurrentMap<LatencyTag, LatencyHistogram> histograms =
+            new ConcurrentHashMap<LatencyTag, LatencyHistogram>();
+
+    /**
+     * Send a GET request and record its latency
+     *
+     * @param tag      - tag of the invocation
+     * @param endpoint - endpoint to send the request to
+     * @param headers  - request headers
+     * @return - http response
+     * @throws IOException - if the request fails
+     */
+    public HttpResponse doGet(LatencyTag tag, String endpoint, Map<String, String> headers) throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            return HttpRequestUtil.doGet(endpoint, headers);
+        } finally {
+            record(tag, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Send a GET request with the given query parameters and record its latency
+     *
+     * @param tag             - tag of the invocation
+     * @param endpoint        - endpoint to send the request to
+     * @param requestParameters - query parameters, can be null
+     * @return - http response
+     * @throws IOException - if the request fails
+     */
+    public HttpResponse sendGetRequest(LatencyTag tag, String endpoint, String requestParameters)
+            throws IOException {
+        long startTime = System.nanoTime();
+        try {
+            return HttpRequestUtil.sendGetRequest(endpoint, requestParameters);
+        } finally {
+            record(tag, System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Record the latency of an invocation
+     *
+     * @param tag   - tag of the invocation
+     * @param nanos - latency in nanoseconds
+     */
+    public void record(LatencyTag tag, long nanos) {
+        LatencyHistogram histogram = histograms.get(tag);
+        if (histogram == null) {
+            LatencyHistogram newHistogram = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(tag, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * @param tag - tag of the invocations
+     * @return - histogram of the tag, or null if no invocation of the tag is recorded
+     */
+    public LatencyHistogram getHistogram(LatencyTag tag) {
+        return histograms.get(tag);
+    }
+
+    /**
+     * Write the latency report of the recorded invocations. Nothing is written if no invocation is recorded.
+     *
+     * @param testName - name of the test, used as the file name of the report
+     * @return - report file, or null if nothing is recorded
+     * @throws IOException - if the report cannot be written
+     */
+    public File writeReport(String testName) throws IOException {
+        if (histograms.isEmpty()) {
+            return null;
+        }
+        File directory = new File(System.getProperty(REPORT_DIRECTORY_PROPERTY, DEFAULT_REPORT_DIRECTORY));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the latency report directory " + directory.getAbsolutePath());
+        }
+        File reportFile = new File(directory, testName + ".json");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(reportFile), "UTF-8");
+        try {
+            writer.write(toJSON().toString(2));
+        } catch (JSONException e) {
+            throw new IOException("Unable to create the latency report of " + testName, e);
+        } finally {
+            writer.close();
+        }
+        log.info("Latency report of " + testName + " written to " + reportFile.getAbsolutePath());
+        return reportFile;
+    }
+
+    private JSONObject toJSON() throws JSONException {
+        JSONArray latencies = new JSONArray();
+        for (Map.Entry<LatencyTag, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyTag tag = entry.getKey();
+            LatencyHistogram histogram = entry.getValue();
+            JSONObject latency = new JSONObject();
+            latency.put("api", tag.getApi());
+            latency.put("tier", tag.getTier() != null ? tag.getTier() : JSONObject.NULL);
+            latency.put("tenant", tag.getTenant() != null ? tag.getTenant() : JSONObject.NULL);
+            latency.put("count", histogram.getTotalCount());
+            latency.put("meanMicros", Math.round(histogram.getMean()));
+            latency.put("p50Micros", histogram.getValueAtPercentile(50));
+            latency.put("p95Micros", histogram.getValueAtPercentile(95));
+            latency.put("p99Micros", histogram.getValueAtPercentile(99));
+            latency.put("maxMicros", histogram.getMaxValue());
+            latencies.put(latency);
+        }
+        JSONObject report = new JSONObject();
+        report.put("timestamp", System.currentTimeMillis());
+        report.put("latencies", latencies);
+        return report;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.integration.test.utils.latency;
+
+/**
+ * Identifies the latencies of the invocations of an API under a tier by a tenant
+ */
+public class LatencyTag {
+
+    private final String api;
+    private final String tier;
+    private final String tenant;
+
+    /**
+     * @param api    - name of the invoked API
+     * @param tier   - tier of the invocation, can be null
+     * @param tenant - tenant domain of the API
+     */
+    public LatencyTag(String api, String tier, String tenant) {
+        this.api = api;
+        this.tier = tier;
+        this.tenant = tenant;
+    }
+
+    public String getApi() {
+        return api;
+    }
+
+    public String getTier() {
+        return tier;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof LatencyTag)) {
+            return false;
+        }
+        LatencyTag tag = (LatencyTag) o;
+        return equals(api, tag.api) && equals(tier, tag.tier) && equals(tenant, tag.tenant);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = api != null ? api.hashCode() : 0;
+        result = 31 * result + (tier != null ? tier.hashCode() : 0);
+        result = 31 * result + (tenant != null ? tenant.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return api + "/" + tier + "@" + tenant;
+    }
+
+    private static boolean equals(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+}
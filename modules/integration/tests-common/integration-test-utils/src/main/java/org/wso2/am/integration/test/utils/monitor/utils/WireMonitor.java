@@ -1,13 +1,13 @@
 /*
  * Copyright (c) 2005-2010, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
- * 
+ *
  * WSO2 Inc. licenses this file to you under the Apache License,
  * Version 2.0 (the "License"); you may not use this file except
  * in compliance with the License.
  * You may obtain a copy of the License at
- * 
+ *
  * http://www.apache.org/licenses/LICENSE-2.0
- * 
+ *
  * Unless required by applicable law or agreed to in writing,
  * software distributed under the License is distributed on an
  * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
@@ -22,103 +22,371 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.util.Iterator;
 
+/**
+ * Selector based listener of the wire monitor. A single thread accepts the connections and reads the HTTP messages
+ * sent on them. The messages are framed by their Content-Length header or chunked transfer encoding while they are
+ * read, and each complete message is handed to the {@link WireMonitorServer} and answered with 202 Accepted. The
+ * connections are kept alive, so a client can send any number of messages on a connection.
+ */
 class WireMonitor extends Thread {
-    private Log log = LogFactory.getLog(WireMonitor.class);
-    private int port;
-    private ServerSocket providerSocket;
-    private Socket connection = null;
-    private WireMonitorServer trigger;
+    private static final Log log = LogFactory.getLog(WireMonitor.class);
+    private static final Charset MESSAGE_CHARSET = Charset.forName("ISO-8859-1");
+    private static final byte[] ACCEPTED_RESPONSE =
+            "HTTP/1.1 202 Accepted\r\nContent-Length: 0\r\n\r\n".getBytes(MESSAGE_CHARSET);
+    private static final byte[] ACCEPTED_CLOSE_RESPONSE =
+            "HTTP/1.1 202 Accepted\r\nContent-Length: 0\r\nConnection: close\r\n\r\n".getBytes(MESSAGE_CHARSET);
+    //interval in which incomplete messages are checked for the read time out
+    private static final long SELECT_TIMEOUT = 100;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
 
-    public void run() {
+    private final int port;
+    private final WireMonitorServer trigger;
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running = true;
+
+    public WireMonitor(int listenPort, WireMonitorServer trigger) {
+        super("WireMonitor-" + listenPort);
+        port = listenPort;
+        this.trigger = trigger;
+        setDaemon(true);
+    }
+
+    /**
+     * Binds the listening socket, so that the port is ready when the server is started
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    void bind() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.socket().setReuseAddress(true);
+        serverChannel.socket().bind(new InetSocketAddress(port), 128);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        log.info("Waiting for connections on port " + port);
+    }
 
-        OutputStream out = null;
-        InputStream in = null;
+    /**
+     * Stops the listener and closes all the connections
+     */
+    void shutdown() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
 
+    public void run() {
         try {
-            // creating a server socket
-            providerSocket = new ServerSocket(port, 10);
-
-            log.info("Waiting for connection");
-            connection = providerSocket.accept();
-            log.info("Connection received from " +
-                     connection.getInetAddress().getHostName());
-            in = connection.getInputStream();
-            int ch;
-            StringBuilder buffer = new StringBuilder();
-            StringBuffer headerBuffer = new StringBuffer();
-            Long time = System.currentTimeMillis();
-            int contentLength = -1;
-            while ((ch = in.read()) != 1) {
-                buffer.append((char) ch);
-                //message headers end with
-                if (contentLength == -1 && buffer.toString().endsWith("\r\n\r\n")) {
-                    headerBuffer = new StringBuffer(buffer.toString());
-                    if (buffer.toString().contains("Content-Length")) {
-                        String headers = buffer.toString();
-                        //getting content-length header
-                        String contentLengthHeader = headers.substring(headers.indexOf("Content-Length:"));
-                        contentLengthHeader = contentLengthHeader.substring(0, contentLengthHeader.indexOf("\r\n"));
-                        contentLength = Integer.parseInt(contentLengthHeader.split(":")[1].trim());
-                        //clear the buffer
-                        buffer.setLength(0);
+            while (running) {
+                selector.select(SELECT_TIMEOUT);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (key.isReadable()) {
+                                read(key);
+                            }
+                            if (key.isValid() && key.isWritable()) {
+                                write(key);
+                            }
+                        }
+                    } catch (IOException e) {
+                        log.warn("Error on wire monitor connection", e);
+                        close(key);
+                    } catch (NumberFormatException e) {
+                        log.warn("Invalid message length received by the wire monitor", e);
+                        close(key);
                     }
                 }
+                checkReadTimeOuts();
+            }
+        } catch (IOException ioException) { //Throw run exception - IllegalStateException
+            throw new IllegalStateException("wire monitor error occurred", ioException);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                close(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                log.warn("Error closing wire monitor selector", e);
+            }
+        }
+    }
 
-                //braking loop since whole message is read
-                if (buffer.toString().length() == contentLength) {
-                    break;
-                }
-                // In this case no need of reading more than timeout value
-                if ((System.currentTimeMillis() > (time + trigger.READ_TIME_OUT)) || buffer.toString().contains("</soapenv:Envelope>")) {
-                    break;
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+        if (log.isDebugEnabled()) {
+            log.debug("Connection received from " + channel.socket().getInetAddress().getHostName());
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        int read;
+        while ((read = channel.read(readBuffer)) > 0) {
+            readBuffer.flip();
+            connection.append(readBuffer);
+            readBuffer.clear();
+        }
+        while (key.isValid() && connection.hasCompleteMessage()) {
+            messageReceived(key, connection, connection.takeMessage());
+        }
+        if (read < 0 && key.isValid()) {
+            //the client closed the connection. A message without framing ends with the connection
+            if (connection.hasPartialMessage()) {
+                messageReceived(key, connection, connection.takePartialMessage());
+            }
+            close(key);
+        }
+    }
+
+    private void checkReadTimeOuts() {
+        long now = System.currentTimeMillis();
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid() && key.attachment() instanceof Connection) {
+                Connection connection = (Connection) key.attachment();
+                if (connection.hasPartialMessage() &&
+                    now - connection.messageStartTime > trigger.READ_TIME_OUT) {
+                    // In this case no need of reading more than timeout value
+                    messageReceived(key, connection, connection.takePartialMessage());
                 }
             }
+        }
+    }
 
-            // Signaling Main thread to continue
-            trigger.response = headerBuffer.toString() + buffer.toString();
-            trigger.setFinished(true);
+    private void messageReceived(SelectionKey key, Connection connection, String message) {
+        boolean acceptMore = trigger.messageReceived(message);
+        boolean keepAlive = acceptMore && connection.keepAlive;
+        connection.respond(keepAlive ? ACCEPTED_RESPONSE : ACCEPTED_CLOSE_RESPONSE, !keepAlive);
+        try {
+            write(key);
+        } catch (IOException e) {
+            log.warn("Error writing wire monitor response", e);
+            close(key);
+        }
+        if (!acceptMore) {
+            //all the expected messages are captured, stop listening once the responses are written
+            running = false;
+        }
+    }
 
-            out = connection.getOutputStream();
-            out.write(("HTTP/1.1 202 Accepted" + "\r\n\r\n").getBytes(Charset.defaultCharset()));
-            out.flush();
+    private void write(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        Connection connection = (Connection) key.attachment();
+        ByteBuffer output = connection.output;
+        if (output != null) {
+            channel.write(output);
+            if (output.hasRemaining()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+                return;
+            }
+            connection.output = null;
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (connection.closeAfterWrite) {
+                close(key);
+            }
+        }
+    }
 
+    private void close(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            log.warn("Error closing provide socket or connection");
+        }
+    }
 
-        } catch (IOException ioException) { //Throw run exception - IllegalStateException
-            throw new IllegalStateException("wire monitor error occurred", ioException);
+    /**
+     * Read state of a connection. The received bytes are kept until the message they belong to is complete, and the
+     * framing of the message is parsed incrementally as the bytes arrive, so each byte is scanned once.
+     */
+    private static class Connection {
 
-        } finally {
-            if (out != null) {
-                try {
-                    out.close();
-                } catch (IOException e) {
-                    log.warn("Stream close exception", e);
+        private static final int CHUNKED = -2;
+        private static final int UNKNOWN = -1;
+
+        private byte[] data = new byte[1024];
+        private int length;
+        //position up to which the header end is searched, or the position of the next chunk header
+        private int scanPosition;
+        private int headerEnd = -1;
+        //end of the message, UNKNOWN until the headers are read and CHUNKED until the last chunk is read
+        private int messageEnd = UNKNOWN;
+        private boolean keepAlive = true;
+        private long messageStartTime;
+        private ByteBuffer output;
+        private boolean closeAfterWrite;
+
+        void append(ByteBuffer buffer) {
+            if (length == 0) {
+                messageStartTime = System.currentTimeMillis();
+            }
+            int required = length + buffer.remaining();
+            if (required > data.length) {
+                byte[] newData = new byte[Math.max(required, data.length * 2)];
+                System.arraycopy(data, 0, newData, 0, length);
+                data = newData;
+            }
+            buffer.get(data, length, buffer.remaining());
+            length = required;
+        }
+
+        boolean hasPartialMessage() {
+            return length > 0;
+        }
+
+        boolean hasCompleteMessage() {
+            if (headerEnd < 0) {
+                int end = indexOfCrlfCrlf(Math.max(0, scanPosition - 3));
+                if (end < 0) {
+                    scanPosition = length;
+                    return false;
                 }
+                headerEnd = end + 4;
+                parseHeaders();
+            }
+            if (messageEnd == CHUNKED) {
+                readChunks();
             }
+            return messageEnd >= 0 && length >= messageEnd;
+        }
 
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException e) {
-                    log.warn("Stream close exception", e);
+        private void parseHeaders() {
+            String[] lines = new String(data, 0, headerEnd, MESSAGE_CHARSET).split("\r\n");
+            keepAlive = !lines[0].endsWith("HTTP/1.0");
+            int contentLength = 0;
+            boolean chunked = false;
+            for (int i = 1; i < lines.length; i++) {
+                int separator = lines[i].indexOf(':');
+                if (separator < 0) {
+                    continue;
+                }
+                String name = lines[i].substring(0, separator).trim();
+                String value = lines[i].substring(separator + 1).trim();
+                if ("Content-Length".equalsIgnoreCase(name)) {
+                    contentLength = Integer.parseInt(value);
+                } else if ("Transfer-Encoding".equalsIgnoreCase(name)) {
+                    chunked = value.toLowerCase().contains("chunked");
+                } else if ("Connection".equalsIgnoreCase(name)) {
+                    keepAlive = !"close".equalsIgnoreCase(value);
                 }
             }
-            try {
-                connection.close();
-                providerSocket.close();
-            } catch (IOException e) {
-                log.warn("Error closing provide socket or connection");
+            if (chunked) {
+                messageEnd = CHUNKED;
+                scanPosition = headerEnd;
+            } else {
+                messageEnd = headerEnd + contentLength;
             }
         }
-    }
 
-    public WireMonitor(int listenPort, WireMonitorServer trigger) {
-        port = listenPort;
-        this.trigger = trigger;
+        /**
+         * Skips the chunks which are received completely. Sets the end of the message once the last chunk and the
+         * trailer are received.
+         */
+        private void readChunks() {
+            while (true) {
+                int lineEnd = indexOfCrlf(scanPosition);
+                if (lineEnd < 0) {
+                    return;
+                }
+                String sizeLine = new String(data, scanPosition, lineEnd - scanPosition, MESSAGE_CHARSET);
+                int extension = sizeLine.indexOf(';');
+                int chunkSize = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(),
+                                                 16);
+                int chunkStart = lineEnd + 2;
+                if (chunkSize == 0) {
+                    //the trailer ends with an empty line
+                    if (length >= chunkStart + 2 && data[chunkStart] == '\r' && data[chunkStart + 1] == '\n') {
+                        messageEnd = chunkStart + 2;
+                    } else {
+                        int trailerEnd = indexOfCrlfCrlf(chunkStart);
+                        if (trailerEnd >= 0) {
+                            messageEnd = trailerEnd + 4;
+                        }
+                    }
+                    return;
+                }
+                if (length < chunkStart + chunkSize + 2) {
+                    return;
+                }
+                scanPosition = chunkStart + chunkSize + 2;
+            }
+        }
+
+        String takeMessage() {
+            String message = new String(data, 0, messageEnd, MESSAGE_CHARSET);
+            //keep the bytes of a pipelined message which follows
+            System.arraycopy(data, messageEnd, data, 0, length - messageEnd);
+            length -= messageEnd;
+            reset();
+            if (length > 0) {
+                messageStartTime = System.currentTimeMillis();
+            }
+            return message;
+        }
+
+        String takePartialMessage() {
+            String message = new String(data, 0, length, MESSAGE_CHARSET);
+            length = 0;
+            reset();
+            return message;
+        }
+
+        void respond(byte[] response, boolean close) {
+            output = ByteBuffer.wrap(response);
+            closeAfterWrite = close;
+        }
+
+        private void reset() {
+            scanPosition = 0;
+            headerEnd = -1;
+            messageEnd = UNKNOWN;
+        }
+
+        private int indexOfCrlf(int from) {
+            for (int i = from; i < length - 1; i++) {
+                if (data[i] == '\r' && data[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int indexOfCrlfCrlf(int from) {
+            for (int i = from; i < length - 3; i++) {
+                if (data[i] == '\r' && data[i + 1] == '\n' && data[i + 2] == '\r' && data[i + 3] == '\n') {
+                    return i;
+                }
+            }
+            return -1;
+        }
     }
 }
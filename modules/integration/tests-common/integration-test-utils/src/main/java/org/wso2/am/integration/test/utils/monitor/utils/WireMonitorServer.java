@@ -18,14 +18,32 @@
 
 package org.wso2.am.integration.test.utils.monitor.utils;
 
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
- * This class can be used to capture wire messages
+ * This class can be used to capture wire messages. The server accepts any number of concurrent connections and
+ * captures the HTTP messages sent on them, which are returned in the order they are received by
+ * {@link #getCapturedMessage()}.
+ * <p/>
+ * By default the server stops listening once the expected number of messages is captured. Started with
+ * {@link #start(int)} and a message count of 0, it listens until {@link #stop()} is called, and can be used as a sink
+ * backend of throughput tests with the message capture disabled by {@link #setCaptureMessages(boolean)}.
  */
 public class WireMonitorServer {
 	private static final int TIMEOUT_VALUE = 60000;
-	int READ_TIME_OUT = 30000;
-	public boolean isFinished = false;
-	String response;
+	private static final int UNLIMITED = -1;
+	volatile int READ_TIME_OUT = 30000;
+	private final BlockingQueue<String> capturedMessages = new LinkedBlockingQueue<String>();
+	private final AtomicLong receivedMessageCount = new AtomicLong();
+	private volatile boolean captureMessages = true;
+	private WireMonitor monitor;
+	//messages to be captured before the listener stops, the listener decrements it without locking the server
+	private final AtomicInteger remainingMessages = new AtomicInteger();
 	int port;
 
 	/**
@@ -37,34 +55,137 @@ public class WireMonitorServer {
 		this.port = port;
 	}
 
+	/**
+	 * Start listening until the next message is captured
+	 */
 	public void start() {
-		response = "";
-		Thread thread = new WireMonitor(port, this);
-		thread.start();
+		start(1);
+	}
+
+	/**
+	 * Start listening until the given number of messages are captured. If the server is already listening, it
+	 * listens for the given number of messages more.
+	 *
+	 * @param messageCount number of messages to be captured, or 0 to listen until the server is stopped
+	 */
+	public synchronized void start(int messageCount) {
+		while (monitor != null) {
+			int remaining = remainingMessages.get();
+			if (remaining == 0) {
+				break;
+			}
+			int updated = (messageCount <= 0 || remaining == UNLIMITED) ? UNLIMITED : remaining + messageCount;
+			if (remainingMessages.compareAndSet(remaining, updated)) {
+				return;
+			}
+		}
+		//wait until the previous listener released the port
+		joinMonitor();
+		capturedMessages.clear();
+		remainingMessages.set(messageCount <= 0 ? UNLIMITED : messageCount);
+		monitor = new WireMonitor(port, this);
+		try {
+			monitor.bind();
+		} catch (IOException e) {
+			monitor = null;
+			throw new IllegalStateException("wire monitor error occurred", e);
+		}
+		monitor.start();
 	}
 
+	/**
+	 * Stop listening and close all the connections
+	 */
+	public synchronized void stop() {
+		if (monitor != null) {
+			monitor.shutdown();
+			joinMonitor();
+		}
+	}
 
 	/**
 	 * Wait until response is received and returns
 	 *
-	 * @return will return null if response is not received
+	 * @return will return an empty string if response is not received
 	 */
 	public String getCapturedMessage() {
-		Long time = System.currentTimeMillis();
-		while (!isFinished) {
-			// If wire monitor is not responding than 2min this will continue
-			if (System.currentTimeMillis() > (time + TIMEOUT_VALUE)) {
-				break;
-			}
+		return getCapturedMessage(TIMEOUT_VALUE);
+	}
+
+	/**
+	 * Wait until the next message is captured
+	 *
+	 * @param timeout time to wait in millis
+	 * @return captured message, or an empty string if no message is captured in time
+	 */
+	public String getCapturedMessage(long timeout) {
+		try {
+			String message = capturedMessages.poll(timeout, TimeUnit.MILLISECONDS);
+			return message != null ? message : "";
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return "";
 		}
-		return response;
+	}
+
+	/**
+	 * @return number of messages received since the server was created, including the messages which were not
+	 * captured
+	 */
+	public long getReceivedMessageCount() {
+		return receivedMessageCount.get();
+	}
+
+	/**
+	 * @param captureMessages false to only count the received messages, without keeping them
+	 */
+	public void setCaptureMessages(boolean captureMessages) {
+		this.captureMessages = captureMessages;
 	}
 
 	public void setReadTimeOut (int timeout) {
 		READ_TIME_OUT = timeout;
 	}
 
+	/**
+	 * @param isFinished false to discard the messages which are captured and not read yet
+	 */
 	public void setFinished(boolean isFinished) {
-		this.isFinished = isFinished;
+		if (!isFinished) {
+			capturedMessages.clear();
+		}
+	}
+
+	/**
+	 * Called by the listener for each received message
+	 *
+	 * @param message received message
+	 * @return true if the server continues listening
+	 */
+	boolean messageReceived(String message) {
+		receivedMessageCount.incrementAndGet();
+		if (captureMessages) {
+			capturedMessages.offer(message);
+		}
+		while (true) {
+			int remaining = remainingMessages.get();
+			if (remaining <= 0) {
+				return remaining != 0;
+			}
+			if (remainingMessages.compareAndSet(remaining, remaining - 1)) {
+				return remaining > 1;
+			}
+		}
+	}
+
+	private void joinMonitor() {
+		if (monitor != null) {
+			try {
+				monitor.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			monitor = null;
+		}
 	}
 }
@@ -29,6 +29,7 @@ import org.wso2.am.integration.test.utils.base.APIMIntegrationBaseTest;
 import org.wso2.am.integration.test.utils.bean.*;
 import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
 import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.generic.ThrottlingTestHarness;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
 import org.wso2.carbon.automation.engine.frameworkutils.FrameworkPathUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
@@ -39,6 +40,8 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 
+import static org.testng.Assert.assertTrue;
+
 /**
  * Base test class for all API Manager lifecycle test cases. This class contents the all the
  * common variables and t methods.
@@ -68,7 +71,9 @@ public class APIManagerLifecycleBaseTest extends APIMIntegrationBaseTest {
                     "You have exceeded your quota</amt:description>";
     protected static final int THROTTLING_UNIT_TIME = 60000;
     protected static final int THROTTLING_ADDITIONAL_WAIT_TIME = 5000;
-    protected static String gatewayWebAppUrl;
+    //number of invocations of a concurrent burst the gateway may accept over the limit before the counter catches up
+    protected static final int THROTTLING_TOLERANCE = Integer.getInteger("apim.test.throttling.tolerance", 2);
+    protected String gatewayWebAppUrl;
 
     @BeforeClass(alwaysRun = true)
     public void init() throws APIManagerIntegrationTestException {
@@ -407,4 +412,51 @@ public class APIManagerLifecycleBaseTest extends APIMIntegrationBaseTest {
             }
         }
     }
+
+    /**
+     * Number of invocations to send in a burst, so that some of them are throttled out even if the gateway accepts
+     * up to {@link #THROTTLING_TOLERANCE} invocations over the limit
+     *
+     * @param acceptedCount - number of invocations which should be accepted
+     * @return - number of invocations of the burst
+     */
+    protected static int getBurstSize(int acceptedCount) {
+        return acceptedCount + THROTTLING_TOLERANCE + 1;
+    }
+
+    /**
+     * Assert that a burst of invocations was throttled out after the given number of accepted invocations. The
+     * requests of the burst are concurrent, so the gateway may accept up to {@link #THROTTLING_TOLERANCE}
+     * invocations over the limit. The over-admission is logged when it happens.
+     *
+     * @param burstResult     - responses of the burst
+     * @param acceptedCount   - number of invocations which should be accepted
+     * @param responseData    - data which the accepted responses should contain
+     * @param tierDescription - description of the tiers for the assertion messages
+     */
+    protected void assertThrottledAfter(ThrottlingTestHarness.BurstResult burstResult, int acceptedCount,
+                                        String responseData, String tierDescription) {
+        assertTrue(burstResult.getOtherResponses().isEmpty(), "Unexpected responses under " + tierDescription +
+                ": " + burstResult);
+        int overAdmission = burstResult.getAcceptedCount() - acceptedCount;
+        if (overAdmission > 0) {
+            log.info("Gateway accepted " + overAdmission + " invocations over the limit of " + acceptedCount +
+                    " under " + tierDescription + ": " + burstResult);
+        }
+        assertTrue(overAdmission >= 0, "Fewer invocations than the limit of " + acceptedCount + " were accepted " +
+                "under " + tierDescription + ": " + burstResult);
+        assertTrue(overAdmission <= THROTTLING_TOLERANCE, overAdmission + " invocations over the limit of " +
+                acceptedCount + " were accepted under " + tierDescription + ", more than the tolerance of " +
+                THROTTLING_TOLERANCE + ": " + burstResult);
+        assertTrue(burstResult.getThrottledCount() > 0, "Invocations were not throttled out under " +
+                tierDescription + ": " + burstResult);
+        for (HttpResponse acceptedResponse : burstResult.getAcceptedResponses()) {
+            assertTrue(acceptedResponse.getData().contains(responseData), "Response data mismatched under " +
+                    tierDescription + ". Response data:" + acceptedResponse.getData());
+        }
+        for (HttpResponse throttledResponse : burstResult.getThrottledResponses()) {
+            assertTrue(throttledResponse.getData().contains(MESSAGE_THROTTLED_OUT), "Throttled response data " +
+                    "mismatched under " + tierDescription + ". Response data:" + throttledResponse.getData());
+        }
+    }
 }
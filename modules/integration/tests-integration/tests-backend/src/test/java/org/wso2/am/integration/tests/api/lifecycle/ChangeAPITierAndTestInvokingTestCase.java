@@ -25,8 +25,8 @@ import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.APICreationRequestBean;
 import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
 import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.generic.ThrottlingTestHarness;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
 import javax.xml.xpath.XPathExpressionException;
@@ -63,6 +63,7 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
     private APICreationRequestBean apiCreationRequestBean;
     private APIPublisherRestClient apiPublisherClientUser1;
     private APIStoreRestClient apiStoreClientUser1;
+    private ThrottlingTestHarness throttlingTestHarness;
 
     @BeforeClass(alwaysRun = true)
     public void initialize() throws APIManagerIntegrationTestException, XPathExpressionException {
@@ -80,6 +81,8 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
         apiStoreClientUser1.login(storeContext.getContextTenant().getContextUser().getUserName(),
                 storeContext.getContextTenant().getContextUser().getPassword());
         apiIdentifier = new APIIdentifier(providerName, API_NAME, API_VERSION_1_0_0);
+        throttlingTestHarness = new ThrottlingTestHarness(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
+                API_END_POINT_METHOD, THROTTLING_UNIT_TIME, latencyRecorder);
     }
 
 
@@ -104,47 +107,25 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
         requestHeadersGoldTier = new HashMap<String, String>();
         requestHeadersGoldTier.put("Authorization", "Bearer " + accessToken);
         requestHeadersGoldTier.put("accept", "text/xml");
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= GOLD_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeadersGoldTier);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" +
-                API_VERSION_1_0_0 + API_END_POINT_METHOD, requestHeadersGoldTier);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API level tier");
+        //Invoke API until it is throttled out
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_GOLD), requestHeadersGoldTier,
+                getBurstSize(GOLD_INVOCATION_LIMIT_PER_MIN));
+        assertThrottledAfter(burstResult, GOLD_INVOCATION_LIMIT_PER_MIN, API_RESPONSE_DATA, "Gold API level tier");
     }
 
 
     @Test(groups = {"wso2.am"}, description = "test  invocation of APi after expire the throttling block time.",
             dependsOnMethods = "testInvokingWithGoldTier")
-    public void testInvokingAfterExpireThrottleExpireTime() throws InterruptedException, IOException {
-        //wait millisecond to expire the throttling block
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-        HttpResponse invokeResponse =
-                HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                        API_END_POINT_METHOD, requestHeadersGoldTier);
+    public void testInvokingAfterExpireThrottleExpireTime() throws APIManagerIntegrationTestException {
+        //wait until the throttling block is expired
+        HttpResponse invokeResponse = throttlingTestHarness.waitForWindowRollover(
+                getLatencyTag(API_NAME, TIER_GOLD), requestHeadersGoldTier,
+                THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
         assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK, "Response code mismatched, " +
-                "Invocation fails after wait " + (THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME) +
-                "millisecond to expire the throttling block");
+                "Invocation fails after the throttling block is expired");
         assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA), "Response data mismatched. " +
-                "Invocation fails after wait " + (THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME) +
-                "millisecond to expire the throttling block");
+                "Invocation fails after the throttling block is expired");
     }
 
     @Test(groups = {"wso2.am"}, description = "Test changing of the API Tier from Gold to Silver",
@@ -168,7 +149,7 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
 
     @Test(groups = {"wso2.am"}, description = "test  invocation of  api under tier Silver.",
             dependsOnMethods = "testEditAPITierToSilver")
-    public void testInvokingWithSilverTier() throws APIManagerIntegrationTestException, InterruptedException, IOException {
+    public void testInvokingWithSilverTier() throws APIManagerIntegrationTestException {
         applicationNameSilver = APPLICATION_NAME + TIER_SILVER;
         // create new application
         apiStoreClientUser1.addApplication(applicationNameSilver, TIER_GOLD, "", "");
@@ -181,32 +162,14 @@ public class ChangeAPITierAndTestInvokingTestCase extends APIManagerLifecycleBas
         Map<String, String> requestHeadersSilverTier = new HashMap<String, String>();
         requestHeadersSilverTier.put("accept", "text/xml");
         requestHeadersSilverTier.put("Authorization", "Bearer " + accessToken);
-        //millisecond to expire the throttling block
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= SILVER_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeadersSilverTier);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK, "Response code mismatched. " +
-                    "Invocation attempt:" + invocationCount + " failed  during :" + (currentTime - startTime) +
-                    " milliseconds under Silver API level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA), "Response data mismatched." +
-                    " Invocation attempt:" + invocationCount + " failed  during :" + (currentTime - startTime) +
-                    " milliseconds under Silver API level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeadersSilverTier);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Silver API level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Silver API level tier");
+        //wait until the throttling window is expired, the first invocation of the new window is done by the wait
+        throttlingTestHarness.waitForWindowRollover(getLatencyTag(API_NAME, TIER_SILVER), requestHeadersSilverTier,
+                THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_SILVER), requestHeadersSilverTier,
+                getBurstSize(SILVER_INVOCATION_LIMIT_PER_MIN - 1));
+        assertThrottledAfter(burstResult, SILVER_INVOCATION_LIMIT_PER_MIN - 1, API_RESPONSE_DATA,
+                "Silver API level tier");
     }
 
 
@@ -25,20 +25,15 @@ import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.APICreationRequestBean;
 import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
 import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.generic.ThrottlingTestHarness;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
-import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
 import javax.xml.xpath.XPathExpressionException;
-import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.assertTrue;
-
 /**
  * Change the API Application tier and test the throttling.
  */
@@ -62,6 +57,7 @@ public class ChangeApplicationTierAndTestInvokingTestCase extends APIManagerLife
     private APIPublisherRestClient apiPublisherClientUser1;
     private APIStoreRestClient apiStoreClientUser1;
     private APICreationRequestBean apiCreationRequestBean;
+    private ThrottlingTestHarness throttlingTestHarness;
 
     @BeforeClass(alwaysRun = true)
     public void initialize() throws APIManagerIntegrationTestException, XPathExpressionException, MalformedURLException {
@@ -88,12 +84,13 @@ public class ChangeApplicationTierAndTestInvokingTestCase extends APIManagerLife
                 storeContext.getContextTenant().getContextUser().getUserName(),
                 storeContext.getContextTenant().getContextUser().getPassword());
         apiIdentifier = new APIIdentifier(providerName, API_NAME, API_VERSION_1_0_0);
-
+        throttlingTestHarness = new ThrottlingTestHarness(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
+                API_END_POINT_METHOD, THROTTLING_UNIT_TIME, latencyRecorder);
     }
 
 
     @Test(groups = {"wso2.am"}, description = "test  invocation of  api under  API tier Gold  and Application Tire Silver.")
-    public void testInvokingWithAPIGoldTierApplicationSilver() throws APIManagerIntegrationTestException, IOException {
+    public void testInvokingWithAPIGoldTierApplicationSilver() throws APIManagerIntegrationTestException {
         applicationNameSilver = APPLICATION_NAME + TIER_SILVER;
         apiStoreClientUser1.addApplication(applicationNameSilver, TIER_SILVER, "", "");
         //Create publish and subscribe a API
@@ -109,104 +106,44 @@ public class ChangeApplicationTierAndTestInvokingTestCase extends APIManagerLife
         requestHeaders = new HashMap<String, String>();
         requestHeaders.put("accept", "text/xml");
         requestHeaders.put("Authorization", "Bearer " + accessToken);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= SILVER_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeaders);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API  and Silver Application level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API and Silver Application level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API level tier");
+        //Invoke API until it is throttled out
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_SILVER), requestHeaders,
+                getBurstSize(SILVER_INVOCATION_LIMIT_PER_MIN));
+        assertThrottledAfter(burstResult, SILVER_INVOCATION_LIMIT_PER_MIN, API_RESPONSE_DATA,
+                "Gold API and Silver Application level tier");
     }
 
 
     @Test(groups = {"wso2.am"}, description = "test  invocation of  api under API tier Gold  and Application Tire Gold..",
             dependsOnMethods = "testInvokingWithAPIGoldTierApplicationSilver")
-    public void testInvokingWithAPIGoldTierApplicationGold() throws APIManagerIntegrationTestException,
-            InterruptedException, IOException {
+    public void testInvokingWithAPIGoldTierApplicationGold() throws APIManagerIntegrationTestException {
         applicationNameGold = APPLICATION_NAME + TIER_GOLD;
         apiStoreClientUser1.updateApplication(applicationNameSilver, applicationNameGold, "", "", TIER_GOLD);
-        //Sleep until throttling unit time is passed.
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= GOLD_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeaders);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API  and Gold Application level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API and Gold Application level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE, "Response code mismatched." +
-                " Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) + " passed  during :" +
-                (currentTime - startTime) + " milliseconds under Gold API level tier and Gold Application level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT), "Response data mismatched. Invocation attempt:"
-                + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) + " passed  during :" + (currentTime - startTime) +
-                " milliseconds under Gold API level tier " + "and Gold Application level tier");
+        //Wait until the throttling window is expired, the first invocation of the new window is done by the wait
+        throttlingTestHarness.waitForWindowRollover(getLatencyTag(API_NAME, TIER_GOLD), requestHeaders,
+                THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_GOLD), requestHeaders,
+                getBurstSize(GOLD_INVOCATION_LIMIT_PER_MIN - 1));
+        assertThrottledAfter(burstResult, GOLD_INVOCATION_LIMIT_PER_MIN - 1, API_RESPONSE_DATA,
+                "Gold API and Gold Application level tier");
     }
 
 
     @Test(groups = {"wso2.am"}, description = "test  invocation of  api under API tier Gold  and Application Tire Silver." +
             "Change the Application tire to silver and test ", dependsOnMethods = "testInvokingWithAPIGoldTierApplicationGold")
-    public void testInvokingWithAPIGoldTierApplicationSilverFor2ndTime() throws APIManagerIntegrationTestException,
-            InterruptedException, IOException {
+    public void testInvokingWithAPIGoldTierApplicationSilverFor2ndTime() throws APIManagerIntegrationTestException {
         applicationNameSilver = APPLICATION_NAME + TIER_SILVER;
         apiStoreClientUser1.updateApplication(applicationNameGold, applicationNameSilver, "", "", TIER_SILVER);
-        //Sleep until throttling unit time is passed.
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= SILVER_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeaders);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API  and Gold Application level tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API and Gold Application level tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE, "Response code mismatched." +
-                " Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) + " passed  during :" +
-                (currentTime - startTime) + " milliseconds under Gold API level tier and Gold Application level tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT), "Response data mismatched. Invocation attempt:"
-                + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) + " passed  during :" + (currentTime - startTime) +
-                " milliseconds under Gold API level tier " + "and Gold Application level tier");
+        //Wait until the throttling window is expired, the first invocation of the new window is done by the wait
+        throttlingTestHarness.waitForWindowRollover(getLatencyTag(API_NAME, TIER_SILVER), requestHeaders,
+                THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_SILVER), requestHeaders,
+                getBurstSize(SILVER_INVOCATION_LIMIT_PER_MIN - 1));
+        assertThrottledAfter(burstResult, SILVER_INVOCATION_LIMIT_PER_MIN - 1, API_RESPONSE_DATA,
+                "Gold API and Silver Application level tier");
     }
 
     @AfterClass(alwaysRun = true)
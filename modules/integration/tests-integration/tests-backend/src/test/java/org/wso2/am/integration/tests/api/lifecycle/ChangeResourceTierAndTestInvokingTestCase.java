@@ -25,17 +25,13 @@ import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
 import org.wso2.am.integration.test.utils.bean.APICreationRequestBean;
 import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
 import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.generic.ThrottlingTestHarness;
 import org.wso2.carbon.apimgt.api.model.APIIdentifier;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
-import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
 
-import static org.testng.Assert.assertEquals;
-import static org.testng.Assert.assertTrue;
-
 /**
  * Change the API resource tier and test the throttling.
  */
@@ -57,6 +53,7 @@ public class ChangeResourceTierAndTestInvokingTestCase extends APIManagerLifecyc
     private APIPublisherRestClient apiPublisherClientUser1;
     private APIStoreRestClient apiStoreClientUser1;
     private APICreationRequestBean apiCreationRequestBean;
+    private ThrottlingTestHarness throttlingTestHarness;
 
     @BeforeClass(alwaysRun = true)
     public void initialize() throws Exception {
@@ -83,6 +80,8 @@ public class ChangeResourceTierAndTestInvokingTestCase extends APIManagerLifecyc
                 storeContext.getContextTenant().getContextUser().getUserName(),
                 storeContext.getContextTenant().getContextUser().getPassword());
         apiIdentifier = new APIIdentifier(providerName, API_NAME, API_VERSION_1_0_0);
+        throttlingTestHarness = new ThrottlingTestHarness(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
+                API_END_POINT_METHOD, THROTTLING_UNIT_TIME, latencyRecorder);
     }
 
 
@@ -102,36 +101,12 @@ public class ChangeResourceTierAndTestInvokingTestCase extends APIManagerLifecyc
         requestHeaders = new HashMap<String, String>();
         requestHeaders.put("accept", "text/xml");
         requestHeaders.put("Authorization", "Bearer " + accessToken);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= GOLD_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeaders);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API , Gold Application level tier" +
-                            " and Unlimited Resource tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API , Gold Application level tier" +
-                            "  and Unlimited Resource tier");
-        }
-
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API , " +
-                        "Gold Application level tier and Unlimited Resource tier.");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API , " +
-                        "Gold Application level tier and Unlimited Resource tier.");
-
+        //Invoke API until it is throttled out
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_UNLIMITED), requestHeaders,
+                getBurstSize(GOLD_INVOCATION_LIMIT_PER_MIN));
+        assertThrottledAfter(burstResult, GOLD_INVOCATION_LIMIT_PER_MIN, API_RESPONSE_DATA,
+                "Gold API , Gold Application level tier and Unlimited Resource tier");
     }
 
 
@@ -139,7 +114,6 @@ public class ChangeResourceTierAndTestInvokingTestCase extends APIManagerLifecyc
             "Resource Tier: Silver.", dependsOnMethods = "testInvokingWithAPIGoldTierApplicationGoldResourceUnlimited")
     public void testInvokingWithAPIGoldTierApplicationGoldResourceSilver() throws Exception {
 
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
         String swagger = " {\"paths\":{\"/*\":{\"get\":{\"x-auth-type\":\"Application \",\"x-throttling-tier\":" +
                 "\"Silver\",\"responses\":{\"200\":\"{}\"}}}},\"swagger\":\"2.0\",\"securityDefinitions\":{\"apim\"" +
                 ":{\"x-wso2-scopes\":[]}},\"info\":{\"licence\":{},\"title\":\"" + API_NAME + "\",\"description\":" +
@@ -147,44 +121,20 @@ public class ChangeResourceTierAndTestInvokingTestCase extends APIManagerLifecyc
                 "\"version\":\"" + API_VERSION_1_0_0 + "\"}}";
 
         apiPublisherClientUser1.updateResourceOfAPI(providerName, API_NAME, API_VERSION_1_0_0, swagger);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= SILVER_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeaders);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API  and Gold Application level tier" +
-                            "  and Silver Resource tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API and Gold Application level tier" +
-                            " and Silver Resource tier");
-        }
-
-        currentTime = System.currentTimeMillis();
-
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API  and Gold" +
-                        " Application level tier and Silver Resource tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (SILVER_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API  and Gold " +
-                        "Application level tier and Silver Resource tier");
+        //Wait until the throttling window is expired, the first invocation of the new window is done by the wait
+        throttlingTestHarness.waitForWindowRollover(getLatencyTag(API_NAME, TIER_SILVER), requestHeaders,
+                THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_SILVER), requestHeaders,
+                getBurstSize(SILVER_INVOCATION_LIMIT_PER_MIN - 1));
+        assertThrottledAfter(burstResult, SILVER_INVOCATION_LIMIT_PER_MIN - 1, API_RESPONSE_DATA,
+                "Gold API  and Gold Application level tier and Silver Resource tier");
     }
 
 
     @Test(groups = {"wso2.am"}, description = "test  the  throttling of a API. API Tier :Gold, Application Tier: GOLD, " +
             "Resource Tier: Gold.", dependsOnMethods = "testInvokingWithAPIGoldTierApplicationGoldResourceSilver")
     public void testInvokingWithAPIGoldTierApplicationGoldResourceGold() throws Exception {
-        Thread.sleep(THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
-
         String swagger = " {\"paths\":{\"/*\":{\"get\":{\"x-auth-type\":\"Application \",\"x-throttling-tier\":" +
                 "\"Gold\",\"responses\":{\"200\":\"{}\"}}}},\"swagger\":\"2.0\",\"securityDefinitions\":{\"apim\"" +
                 ":{\"x-wso2-scopes\":[]}},\"info\":{\"licence\":{},\"title\":\"" + API_NAME + "\",\"description\":" +
@@ -192,34 +142,14 @@ public class ChangeResourceTierAndTestInvokingTestCase extends APIManagerLifecyc
                 "\"version\":\"" + API_VERSION_1_0_0 + "\"}}";
 
         apiPublisherClientUser1.updateResourceOfAPI(providerName, API_NAME, API_VERSION_1_0_0, swagger);
-        long startTime = System.currentTimeMillis();
-        long currentTime;
-        for (int invocationCount = 1; invocationCount <= GOLD_INVOCATION_LIMIT_PER_MIN; invocationCount++) {
-            currentTime = System.currentTimeMillis();
-            //Invoke  API
-            HttpResponse invokeResponse =
-                    HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                            API_END_POINT_METHOD, requestHeaders);
-            assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_OK,
-                    "Response code mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API  and Gold Application level tier" +
-                            " and Gold Resource tier");
-            assertTrue(invokeResponse.getData().contains(API_RESPONSE_DATA),
-                    "Response data mismatched. Invocation attempt:" + invocationCount + " failed  during :" +
-                            (currentTime - startTime) + " milliseconds under Gold API and Gold  Application level tier" +
-                            " and Gold Resource tier");
-        }
-        currentTime = System.currentTimeMillis();
-        HttpResponse invokeResponse = HttpRequestUtil.doGet(gatewayWebAppUrl + API_CONTEXT + "/" + API_VERSION_1_0_0 +
-                API_END_POINT_METHOD, requestHeaders);
-        assertEquals(invokeResponse.getResponseCode(), HTTP_RESPONSE_CODE_SERVICE_UNAVAILABLE,
-                "Response code mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API  and Gold " +
-                        "Application level tier and Gold Resource tier");
-        assertTrue(invokeResponse.getData().contains(MESSAGE_THROTTLED_OUT),
-                "Response data mismatched. Invocation attempt:" + (GOLD_INVOCATION_LIMIT_PER_MIN + 1) +
-                        " passed  during :" + (currentTime - startTime) + " milliseconds under Gold API  and Gold " +
-                        "Application level tier and Gold Resource tier");
+        //Wait until the throttling window is expired, the first invocation of the new window is done by the wait
+        throttlingTestHarness.waitForWindowRollover(getLatencyTag(API_NAME, TIER_GOLD), requestHeaders,
+                THROTTLING_UNIT_TIME + THROTTLING_ADDITIONAL_WAIT_TIME);
+        ThrottlingTestHarness.BurstResult burstResult = throttlingTestHarness.fireBurst(
+                getLatencyTag(API_NAME, TIER_GOLD), requestHeaders,
+                getBurstSize(GOLD_INVOCATION_LIMIT_PER_MIN - 1));
+        assertThrottledAfter(burstResult, GOLD_INVOCATION_LIMIT_PER_MIN - 1, API_RESPONSE_DATA,
+                "Gold API  and Gold Application level tier and Gold Resource tier");
     }
 
 
@@ -25,7 +25,7 @@ import org.wso2.am.integration.test.utils.bean.APILifeCycleState;
 import org.wso2.am.integration.test.utils.bean.APILifeCycleStateRequest;
 import org.wso2.am.integration.test.utils.bean.APIRequest;
 import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
+import org.wso2.am.integration.test.utils.latency.LatencyTag;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 import org.wso2.carbon.integration.common.admin.client.TenantManagementServiceClient;
 
@@ -90,8 +90,9 @@ public class APIInvocationFailureTestCase extends APIMIntegrationBaseTest {
         requestHeaders.put("Authorization", "Bearer xxxxxxxxxxxx");
         Thread.sleep(2000);
 
-        HttpResponse youTubeResponse = HttpRequestUtil.doGet(gatewayUrls.getWebAppURLNhttp() + "t/" + tenantDomain + "/" +
-                APIContext + "/" + APIVersion + "/most_popular", requestHeaders);
+        HttpResponse youTubeResponse = latencyRecorder.doGet(new LatencyTag(APIName, null, tenantDomain),
+                gatewayUrls.getWebAppURLNhttp() + "t/" + tenantDomain + "/" + APIContext + "/" + APIVersion +
+                "/most_popular", requestHeaders);
         assertEquals(youTubeResponse.getResponseCode(), Response.Status.UNAUTHORIZED.getStatusCode(),
                 "Response code mismatched when api invocation");
         assertTrue(youTubeResponse.getData().contains("900901"), "Error code mismach");
@@ -128,8 +129,8 @@ public class APIInvocationFailureTestCase extends APIMIntegrationBaseTest {
         requestHeaders.put("Authorization", "Bearer xxxxxxxxxxxx");
         Thread.sleep(2000);
 
-        HttpResponse youTubeResponse = HttpRequestUtil.doGet(gatewayUrls.getWebAppURLNhttp() + APIContext +
-                "/" + APIVersion + "/most_popular", requestHeaders);
+        HttpResponse youTubeResponse = latencyRecorder.doGet(getLatencyTag(APIName, null),
+                gatewayUrls.getWebAppURLNhttp() + APIContext + "/" + APIVersion + "/most_popular", requestHeaders);
         assertEquals(youTubeResponse.getResponseCode(), Response.Status.UNAUTHORIZED.getStatusCode(),
                 "Response code mismatched when api invocation");
         assertTrue(youTubeResponse.getData().contains("900901"), "Error code mismach");
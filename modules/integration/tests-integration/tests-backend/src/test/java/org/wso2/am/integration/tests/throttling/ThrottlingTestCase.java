@@ -27,7 +27,6 @@ import org.testng.annotations.Test;
 import org.wso2.am.admin.clients.registry.ResourceAdminServiceClient;
 import org.wso2.am.integration.test.utils.base.APIMIntegrationBaseTest;
 import org.wso2.carbon.automation.engine.context.TestUserMode;
-import org.wso2.carbon.automation.test.utils.http.client.HttpRequestUtil;
 import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
 
 import javax.activation.DataHandler;
@@ -96,7 +95,7 @@ public class ThrottlingTestCase extends APIMIntegrationBaseTest {
             gatewayUrl = gatewayUrls.getWebAppURLNhttp() + "t/" + gatewayContext.getContextTenant().getDomain() +
                          "/stockquote" + "/test/";
         }
-        HttpResponse response = HttpRequestUtil.sendGetRequest(gatewayUrl, null);
+        HttpResponse response = latencyRecorder.sendGetRequest(getLatencyTag("stockquote", null), gatewayUrl, null);
         assertEquals(response.getResponseCode(), Response.Status.OK.getStatusCode(), "Response code mismatch " +
                                                                                      "did not receive 200");
 
@@ -20,37 +20,280 @@ package org.wso2.carbon.am.jmeter;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
-import org.wso2.carbon.automation.extensions.jmeter.JMeterTest;
-import org.wso2.carbon.automation.extensions.jmeter.JMeterTestManager;
-import org.wso2.carbon.automation.test.utils.common.TestConfigurationProvider;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.base.APIMIntegrationBaseTest;
+import org.wso2.am.integration.test.utils.bean.APICreationRequestBean;
+import org.wso2.am.integration.test.utils.clients.APIBulkProvisioner;
+import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
+import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.http.PooledHttpTransport;
+import org.wso2.carbon.am.jmeter.load.ApplicationKeys;
+import org.wso2.carbon.am.jmeter.load.CacheEvictionProbe;
+import org.wso2.carbon.am.jmeter.load.GatewayCacheConfiguration;
+import org.wso2.carbon.am.jmeter.load.LoadScenario;
+import org.wso2.carbon.am.jmeter.load.LoadStep;
+import org.wso2.carbon.am.jmeter.load.LoadTestReport;
+import org.wso2.carbon.am.jmeter.load.LoadTestRunner;
+import org.wso2.carbon.am.jmeter.load.PerformanceBaseline;
+import org.wso2.carbon.am.jmeter.load.StubBackend;
+import org.wso2.carbon.am.jmeter.load.VirtualUser;
+import org.wso2.carbon.automation.engine.frameworkutils.FrameworkPathUtil;
+import org.wso2.carbon.integration.common.utils.mgt.ServerConfigurationManager;
+import org.wso2.carbon.utils.FileManipulator;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-public class APIMANAGER2937CacheEvictionTestCase {
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Benchmarks the caches of the gateway and the key manager. For each cache configuration the server is restarted with
+ * the configuration, the APIs are invoked through the gateway under load, and while the load runs an access token is
+ * revoked and the tier of an application is changed, to measure how long the gateway keeps honouring the old state.
+ * The invocation latency and the propagation times of all the configurations are written to
+ * CacheEvictionBenchmark.json in the load test report directory. The configurations are all the caches off and all
+ * the caches on, and each cache alone if {@value #SINGLE_CACHES_PROPERTY} is true.
+ */
+public class APIMANAGER2937CacheEvictionTestCase extends APIMIntegrationBaseTest {
 
     protected Log log = LogFactory.getLog(APIMANAGER2937CacheEvictionTestCase.class);
 
-    @Test(groups = "wso2.am")
+    public static final String SINGLE_CACHES_PROPERTY = "apim.test.cacheBenchmark.singleCaches";
+    private static final String SCENARIO_NAME = "CacheEviction";
+    private static final String API_VERSION = "1.0.0";
+    private static final String TIER_UNLIMITED = "Unlimited";
+    private static final String TIER_SILVER = "Silver";
+    private static final int CONCURRENCY = 10;
+    private static final long RAMP_UP_TIME = 10000;
+    //time the probes wait for the API to be invoked or a change to reach the gateway
+    private static final long PROPAGATION_TIMEOUT = 50000;
+    //the probes warm up and poll for each of the two changes, the load lasts for all of them to run under load
+    private static final long DURATION = 4 * PROPAGATION_TIMEOUT + 20000;
+
+    private StubBackend backend;
+    private ServerConfigurationManager serverConfigurationManager;
+    private File originalConfiguration;
+    private File configurationDirectory;
+    private String userName;
+    private String password;
+
+    @BeforeClass(alwaysRun = true)
+    public void setEnvironment() throws Exception {
+        super.init();
+        userName = publisherContext.getContextTenant().getContextUser().getUserName();
+        password = publisherContext.getContextTenant().getContextUser().getPassword();
+        backend = new StubBackend(CONCURRENCY * 2);
+        serverConfigurationManager = new ServerConfigurationManager(gatewayContext);
+
+        //the configurations are written from a copy of the configuration of the server, which is restored at the end
+        File apiManagerXml = new File(FrameworkPathUtil.getCarbonHome() + File.separator + "repository" +
+                                      File.separator + "conf" + File.separator + "api-manager.xml");
+        configurationDirectory = new File(LoadTestReport.getReportDirectory(), "cache-configurations");
+        File originalDirectory = new File(configurationDirectory, "original");
+        if (!originalDirectory.isDirectory() && !originalDirectory.mkdirs()) {
+            throw new APIManagerIntegrationTestException("Unable to create " + originalDirectory.getAbsolutePath());
+        }
+        originalConfiguration = new File(originalDirectory, apiManagerXml.getName());
+        FileManipulator.copyFile(apiManagerXml, originalConfiguration);
+    }
+
+    @Test(groups = "wso2.am", description = "Measure the invocation latency and the eviction times of the caches")
     public void testCacheEviction() throws Exception {
 
         log.info("Starting CacheEviction Test.");
-        JMeterTest publishScript = new JMeterTest(new File(TestConfigurationProvider.getResourceLocation() +
-                File.separator + "artifacts" + File.separator + "AM" + File.separator + "scripts"
-                + File.separator + "eviction_test_publish_and_subscribe_script.jmx"));
+        JSONArray results = new JSONArray();
+        List<String> failures = new ArrayList<String>();
+        for (GatewayCacheConfiguration configuration : getConfigurations()) {
+            log.info("Benchmarking cache configuration " + configuration);
+            serverConfigurationManager.applyConfiguration(
+                    configuration.writeConfiguration(originalConfiguration,
+                                                     new File(configurationDirectory, configuration.getName())));
+            results.put(benchmark(configuration, failures));
+        }
 
-        JMeterTestManager manager = new JMeterTestManager();
-        manager.runTest(publishScript);
+        JSONObject benchmark = new JSONObject();
+        benchmark.put("timestamp", System.currentTimeMillis());
+        benchmark.put("configurations", results);
+        File reportFile = new File(LoadTestReport.getReportDirectory(), "CacheEvictionBenchmark.json");
+        LoadTestReport.writeJSON(reportFile, benchmark);
+        log.info("Cache benchmark written to " + reportFile.getAbsolutePath());
 
-        log.info("Finished creating API. Starting run the load.");
-        Thread.sleep(1000);
+        assertTrue(failures.isEmpty(), "Cache benchmark failed: " + failures);
+        log.info("Finished running load test");
+    }
 
-        JMeterTest scriptGET = new JMeterTest(new File(TestConfigurationProvider.getResourceLocation() + File.separator
-                + "artifacts" + File.separator + "AM" + File.separator + "scripts"
-                + File.separator + "eviction_test_run_load.jmx"));
+    private JSONObject benchmark(final GatewayCacheConfiguration configuration, List<String> failures)
+            throws Exception {
+        String revocationApplication = SCENARIO_NAME + "Revocation" + configuration.getName();
+        String tierApplication = SCENARIO_NAME + "Tier" + configuration.getName();
+        String probeAPI = SCENARIO_NAME + "Probe" + configuration.getName();
+        APIPublisherRestClient publisherRestClient =
+                new APIPublisherRestClient(publisherUrls.getWebAppURLHttp(), PooledHttpTransport.getSharedInstance());
+        publisherRestClient.login(userName, password);
+        APIStoreRestClient storeRestClient =
+                new APIStoreRestClient(storeUrls.getWebAppURLHttp(), PooledHttpTransport.getSharedInstance());
+        storeRestClient.login(userName, password);
 
-        manager.runTest(scriptGET);
+        APICreationRequestBean api = new APICreationRequestBean(probeAPI, probeAPI.toLowerCase(), API_VERSION,
+                                                                userName, backend.getURL());
+        api.setTiersCollection(TIER_UNLIMITED);
+        APIBulkProvisioner.ProvisioningReport fixtures =
+                new APIBulkProvisioner(publisherRestClient, storeRestClient)
+                        .setSubscriptionTier(TIER_UNLIMITED)
+                        .addAPI(api)
+                        .addApplication(revocationApplication, TIER_UNLIMITED)
+                        .addApplication(tierApplication, TIER_UNLIMITED)
+                        .provision();
+        Map<String, String> keyResponses = fixtures.getApplicationKeys();
 
-        log.info("Finished running load test");
+        final LoadScenario scenario = new LoadScenario(SCENARIO_NAME + "-" + configuration.getName())
+                .setAPICount(5)
+                .setApplicationCount(5)
+                .setEndpointUrl(backend.getURL())
+                .setGenerateKeys(true)
+                .setConcurrency(CONCURRENCY)
+                .setRampUpTime(RAMP_UP_TIME)
+                .setDuration(DURATION)
+                .addStep(new LoadStep("invokeAPI") {
+                    public void execute(VirtualUser user) throws Exception {
+                        Map<String, String> headers = new HashMap<String, String>();
+                        headers.put("Authorization",
+                                    "Bearer " + user.getAccessToken(user.getRandomApplicationName()));
+                        checkResponseCode(PooledHttpTransport.getSharedInstance()
+                                                  .doGet(user.getAPIURL(user.getRandomAPIName()), headers));
+                    }
+                });
+        final LoadTestRunner runner = new LoadTestRunner(scenario);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        long revocationTime;
+        long tierChangeTime;
+        boolean probedUnderLoad;
+        LoadTestReport report;
+        try {
+            Future<LoadTestReport> load = executor.submit(new Callable<LoadTestReport>() {
+                public LoadTestReport call() throws APIManagerIntegrationTestException {
+                    return runner.run();
+                }
+            });
+            //the probes start once the fixtures of the scenario are provisioned and its users are ramped up
+            if (!runner.awaitMeasurement()) {
+                load.get();
+                throw new APIManagerIntegrationTestException("Load of " + configuration.getName() +
+                                                             " ended before it was measured");
+            }
+            String apiURL = gatewayUrls.getWebAppURLNhttp() + probeAPI.toLowerCase() + "/" + API_VERSION + "/";
+            CacheEvictionProbe probe = new CacheEvictionProbe(apiURL, PROPAGATION_TIMEOUT);
+            revocationTime = probe.measureRevocation(publisherRestClient,
+                                                     ApplicationKeys.fromResponse(
+                                                             keyResponses.get(revocationApplication)),
+                                                     userName);
+            tierChangeTime = probe.measureTierChange(storeRestClient, tierApplication, TIER_SILVER,
+                                                     ApplicationKeys.fromResponse(
+                                                             keyResponses.get(tierApplication)).getAccessToken());
+            probedUnderLoad = runner.isMeasuring();
+            report = load.get();
+        } catch (ExecutionException e) {
+            throw new APIManagerIntegrationTestException("Load of " + configuration.getName() + " failed",
+                                                         e.getCause());
+        } finally {
+            executor.shutdownNow();
+            removeFixtures(storeRestClient, publisherRestClient, probeAPI, revocationApplication, tierApplication);
+        }
+        report.writeReport();
+
+        if (!probedUnderLoad) {
+            log.warn(configuration.getName() + ": the propagation times were measured after the load ended");
+        }
+        if (revocationTime < 0) {
+            failures.add(configuration.getName() + ": revoked token was accepted after " + PROPAGATION_TIMEOUT +
+                         " ms");
+        }
+        //the tier change is reported but not checked, since the time depends on the throttling window
+        if (tierChangeTime < 0) {
+            log.warn(configuration.getName() + ": tier change was not applied within " + PROPAGATION_TIMEOUT +
+                     " ms");
+        }
+        for (String regression : PerformanceBaseline.verify(report)) {
+            failures.add(configuration.getName() + ": " + regression);
+        }
+
+        LoadTestReport.StepResult invocations = report.getStepResult("invokeAPI");
+        JSONObject result = new JSONObject();
+        result.put("name", configuration.getName());
+        result.put("caches", new JSONObject(configuration.getCaches()));
+        result.put("concurrency", report.getConcurrency());
+        result.put("throughput", invocations.getThroughput());
+        result.put("errorRate", invocations.getErrorRate());
+        result.put("p50Micros", invocations.getValueAtPercentile(50));
+        result.put("p95Micros", invocations.getValueAtPercentile(95));
+        result.put("p99Micros", invocations.getValueAtPercentile(99));
+        result.put("revocationMillis", revocationTime);
+        result.put("tierChangeMillis", tierChangeTime);
+        result.put("probedUnderLoad", probedUnderLoad);
+        return result;
+    }
+
+    /**
+     * Remove the applications and the API of the probes. Failures are logged so that they do not hide the failure of
+     * the benchmark.
+     *
+     * @param storeRestClient     - store client logged in as the owner of the applications
+     * @param publisherRestClient - publisher client logged in as the provider of the API
+     * @param probeAPI            - name of the API
+     * @param applicationNames    - names of the applications
+     */
+    private void removeFixtures(APIStoreRestClient storeRestClient, APIPublisherRestClient publisherRestClient,
+                                String probeAPI, String... applicationNames) {
+        for (String applicationName : applicationNames) {
+            try {
+                storeRestClient.removeApplication(applicationName);
+            } catch (APIManagerIntegrationTestException e) {
+                log.warn("Unable to remove application " + applicationName, e);
+            }
+        }
+        try {
+            publisherRestClient.deleteAPI(probeAPI, API_VERSION, userName);
+        } catch (APIManagerIntegrationTestException e) {
+            log.warn("Unable to delete API " + probeAPI, e);
+        }
+    }
+
+    private static List<GatewayCacheConfiguration> getConfigurations() {
+        List<GatewayCacheConfiguration> configurations = new ArrayList<GatewayCacheConfiguration>();
+        configurations.add(GatewayCacheConfiguration.allCaches(false));
+        configurations.add(GatewayCacheConfiguration.allCaches(true));
+        if (Boolean.getBoolean(SINGLE_CACHES_PROPERTY)) {
+            for (String cache : GatewayCacheConfiguration.getCacheNames()) {
+                configurations.add(GatewayCacheConfiguration.onlyCache(cache));
+            }
+        }
+        return Collections.unmodifiableList(configurations);
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void destroy() throws Exception {
+        try {
+            if (originalConfiguration != null && originalConfiguration.isFile()) {
+                serverConfigurationManager.applyConfiguration(originalConfiguration);
+            }
+        } finally {
+            if (backend != null) {
+                backend.stop();
+            }
+        }
     }
 }
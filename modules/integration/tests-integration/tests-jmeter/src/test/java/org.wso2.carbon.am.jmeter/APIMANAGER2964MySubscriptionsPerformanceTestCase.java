@@ -21,28 +21,51 @@ package org.wso2.carbon.am.jmeter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.testng.annotations.Test;
-import org.wso2.carbon.automation.extensions.jmeter.JMeterTest;
-import org.wso2.carbon.automation.extensions.jmeter.JMeterTestManager;
-import org.wso2.carbon.automation.test.utils.common.TestConfigurationProvider;
+import org.wso2.carbon.am.jmeter.load.LoadScenario;
+import org.wso2.carbon.am.jmeter.load.LoadStep;
+import org.wso2.carbon.am.jmeter.load.LoadTestReport;
+import org.wso2.carbon.am.jmeter.load.LoadTestRunner;
+import org.wso2.carbon.am.jmeter.load.PerformanceBaseline;
+import org.wso2.carbon.am.jmeter.load.VirtualUser;
 
-import java.io.File;
+import java.util.List;
 
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Loads the subscription list of the My Subscriptions page of the store, for a subscriber whose applications are
+ * subscribed to many APIs, and fails if the latency or error rate of the list regresses from the MySubscriptions
+ * baseline, or if no list is loaded successfully.
+ * <p/>
+ * The baseline holds the latency bound of the former APIMANAGER2964MySubscriptionScript.jmx, which is kept until a
+ * throughput baseline is recorded with -Dapim.test.load.recordBaselines=true and shipped.
+ */
 public class APIMANAGER2964MySubscriptionsPerformanceTestCase  {
 
     protected Log log = LogFactory.getLog(APIMANAGER2964MySubscriptionsPerformanceTestCase.class);
 
-    @Test(groups = "wso2.am", description = "Login to api manager as user2")
+    @Test(groups = "wso2.am", description = "Load the subscriptions of the store as a subscriber of many APIs")
     public void testListServices() throws Exception {
 
         log.info("Starting APIMANAGER2964MySubscriptionsPerformanceTestCase");
 
-        JMeterTest script =
-                new JMeterTest(new File(TestConfigurationProvider.getResourceLocation() + File.separator + "artifacts"
-                        + File.separator + "AM" + File.separator + "scripts"
-                        + File.separator + "APIMANAGER2964MySubscriptionScript.jmx"));
+        LoadScenario scenario = new LoadScenario("MySubscriptions")
+                .addTenant("superTenant", "admin")
+                .setAPICount(20)
+                .setApplicationCount(10)
+                .setConcurrency(10)
+                .setRampUpTime(10000)
+                .setDuration(60000)
+                .addStep(new LoadStep("getAllSubscriptions") {
+                    public void execute(VirtualUser user) throws Exception {
+                        checkResponse(user.getStoreRestClient().getAllSubscriptions());
+                    }
+                });
 
-        JMeterTestManager manager = new JMeterTestManager();
-        manager.runTest(script);
+        LoadTestReport report = new LoadTestRunner(scenario).run();
+        report.writeReport();
+        List<String> regressions = PerformanceBaseline.verify(report);
+        assertTrue(regressions.isEmpty(), "My subscriptions performance regressed: " + regressions);
         log.info("Successfully completed APIMANAGER2964MySubscriptionsPerformanceTestCase");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+
+/**
+ * Production keys of an application, as returned by the key generation request of the store
+ */
+public class ApplicationKeys {
+
+    private final String consumerKey;
+    private final String consumerSecret;
+    private final String accessToken;
+
+    private ApplicationKeys(String consumerKey, String consumerSecret, String accessToken) {
+        this.consumerKey = consumerKey;
+        this.consumerSecret = consumerSecret;
+        this.accessToken = accessToken;
+    }
+
+    /**
+     * Read the keys of a key generation response
+     *
+     * @param keyResponse - data of the key generation response
+     * @return - keys of the application
+     * @throws APIManagerIntegrationTestException - throws if the response has no keys
+     */
+    public static ApplicationKeys fromResponse(String keyResponse) throws APIManagerIntegrationTestException {
+        try {
+            JSONObject key = new JSONObject(keyResponse).getJSONObject("data").getJSONObject("key");
+            return new ApplicationKeys(key.getString("consumerKey"), key.getString("consumerSecret"),
+                                       key.getString("accessToken"));
+        } catch (JSONException e) {
+            throw new APIManagerIntegrationTestException("No application keys in the response " + keyResponse, e);
+        }
+    }
+
+    public String getConsumerKey() {
+        return consumerKey;
+    }
+
+    public String getConsumerSecret() {
+        return consumerSecret;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+}
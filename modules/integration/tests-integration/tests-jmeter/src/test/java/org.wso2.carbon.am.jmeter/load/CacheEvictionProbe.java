@@ -0,0 +1,146 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
+import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.http.PooledHttpTransport;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures how long changes made in the key manager take to reach the gateway, by invoking an API until the gateway
+ * applies the change. The time is measured from the completion of the request which made the change, and includes
+ * the time the gateway keeps serving from its caches, so it is the time a revoked token or an old tier stays usable.
+ */
+public class CacheEvictionProbe {
+
+    private static final Log log = LogFactory.getLog(CacheEvictionProbe.class);
+    private static final long POLL_INTERVAL = 100;
+    private static final Collection<Integer> UNAUTHORIZED = Collections.singleton(401);
+    private static final Collection<Integer> THROTTLED = Arrays.asList(429, 503);
+    private static final Collection<Integer> OK = Collections.singleton(200);
+
+    private final String apiURL;
+    private final long timeout;
+
+    /**
+     * @param apiURL  - gateway URL of the API to invoke
+     * @param timeout - time in millis to wait for a change to reach the gateway
+     */
+    public CacheEvictionProbe(String apiURL, long timeout) {
+        this.apiURL = apiURL;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Invoke the API until it succeeds, so that the gateway caches the validation of the token
+     *
+     * @param accessToken - access token to invoke the API with
+     * @throws APIManagerIntegrationTestException - throws if the API cannot be invoked within the timeout
+     */
+    public void warmUp(String accessToken) throws APIManagerIntegrationTestException {
+        if (pollUntil(accessToken, OK) < 0) {
+            throw new APIManagerIntegrationTestException("API " + apiURL + " cannot be invoked");
+        }
+    }
+
+    /**
+     * Revoke an access token and measure the time until the gateway rejects it
+     *
+     * @param publisherRestClient - publisher client logged in as the owner of the token
+     * @param keys                - keys of the application the token belongs to
+     * @param userName            - name of the owner of the token
+     * @return - time in millis until the token was rejected, or -1 if it was not rejected within the timeout
+     * @throws APIManagerIntegrationTestException - throws if the token cannot be revoked
+     */
+    public long measureRevocation(APIPublisherRestClient publisherRestClient, ApplicationKeys keys, String userName)
+            throws APIManagerIntegrationTestException {
+        warmUp(keys.getAccessToken());
+        HttpResponse response =
+                publisherRestClient.revokeAccessToken(keys.getAccessToken(), keys.getConsumerKey(), userName);
+        if (response.getResponseCode() != 200) {
+            throw new APIManagerIntegrationTestException("Unable to revoke the access token of " + userName +
+                                                         ", response code " + response.getResponseCode());
+        }
+        long propagationTime = pollUntil(keys.getAccessToken(), UNAUTHORIZED);
+        log.info("Revocation of a token reached the gateway in " + propagationTime + " ms");
+        return propagationTime;
+    }
+
+    /**
+     * Change the tier of an application to a throttled tier and measure the time until the gateway throttles it. The
+     * time includes the requests the new tier allows before throttling.
+     *
+     * @param storeRestClient - store client logged in as the owner of the application
+     * @param applicationName - name of the application
+     * @param tier            - new tier of the application
+     * @param accessToken     - access token of the application
+     * @return - time in millis until the application was throttled, or -1 if it was not throttled within the timeout
+     * @throws APIManagerIntegrationTestException - throws if the tier cannot be changed
+     */
+    public long measureTierChange(APIStoreRestClient storeRestClient, String applicationName, String tier,
+                                  String accessToken) throws APIManagerIntegrationTestException {
+        warmUp(accessToken);
+        HttpResponse response = storeRestClient.updateApplication(applicationName, applicationName, "", "", tier);
+        if (response.getResponseCode() != 200) {
+            throw new APIManagerIntegrationTestException("Unable to change the tier of " + applicationName +
+                                                         ", response code " + response.getResponseCode());
+        }
+        long propagationTime = pollUntil(accessToken, THROTTLED);
+        log.info("Change of " + applicationName + " to tier " + tier + " reached the gateway in " +
+                 propagationTime + " ms");
+        return propagationTime;
+    }
+
+    private long pollUntil(String accessToken, Collection<Integer> responseCodes)
+            throws APIManagerIntegrationTestException {
+        Map<String, String> headers = new HashMap<String, String>();
+        headers.put("Authorization", "Bearer " + accessToken);
+        long startTime = System.currentTimeMillis();
+        while (true) {
+            try {
+                HttpResponse response = PooledHttpTransport.getSharedInstance().doGet(apiURL, headers);
+                if (responseCodes.contains(response.getResponseCode())) {
+                    return System.currentTimeMillis() - startTime;
+                }
+            } catch (IOException e) {
+                throw new APIManagerIntegrationTestException("Unable to invoke " + apiURL, e);
+            }
+            if (System.currentTimeMillis() - startTime > timeout) {
+                return -1;
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new APIManagerIntegrationTestException("Interrupted while invoking " + apiURL, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A combination of the caches of the gateway and the key manager which are enabled in api-manager.xml. The
+ * configuration is written as a copy of the api-manager.xml of the server with the cache flags replaced, to be applied
+ * with a ServerConfigurationManager. JWT generation is enabled in every configuration, since the JWT cache is not used
+ * otherwise, so that the configurations only differ by their caches.
+ */
+public class GatewayCacheConfiguration {
+
+    public static final String GATEWAY_KEY_CACHE = "EnableGatewayKeyCache";
+    public static final String GATEWAY_RESOURCE_CACHE = "EnableGatewayResourceCache";
+    public static final String JWT_CACHE = "EnableJWTCache";
+    public static final String KEY_MGT_VALIDATION_INFO_CACHE = "EnableKeyMgtValidationInfoCache";
+    private static final String TOKEN_GENERATION = "EnableTokenGeneration";
+
+    //element of api-manager.xml which holds each flag, for flags which are commented out in the server configuration
+    private static final Map<String, String> PARENT_ELEMENTS = new LinkedHashMap<String, String>();
+
+    static {
+        PARENT_ELEMENTS.put(GATEWAY_KEY_CACHE, "APIGateway");
+        PARENT_ELEMENTS.put(GATEWAY_RESOURCE_CACHE, "APIGateway");
+        PARENT_ELEMENTS.put(JWT_CACHE, "APIKeyValidator");
+        PARENT_ELEMENTS.put(KEY_MGT_VALIDATION_INFO_CACHE, "APIKeyValidator");
+        PARENT_ELEMENTS.put(TOKEN_GENERATION, "APIConsumerAuthentication");
+    }
+
+    private final String name;
+    private final Map<String, Boolean> caches = new LinkedHashMap<String, Boolean>();
+
+    private GatewayCacheConfiguration(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param enabled - whether the caches are enabled
+     * @return - configuration with all the caches enabled or disabled
+     */
+    public static GatewayCacheConfiguration allCaches(boolean enabled) {
+        GatewayCacheConfiguration configuration = new GatewayCacheConfiguration(enabled ? "cachesOn" : "cachesOff");
+        for (String cache : getCacheNames()) {
+            configuration.caches.put(cache, enabled);
+        }
+        return configuration;
+    }
+
+    /**
+     * @param cache - flag of the cache, one of the cache constants of this class
+     * @return - configuration with only the given cache enabled
+     */
+    public static GatewayCacheConfiguration onlyCache(String cache) {
+        GatewayCacheConfiguration configuration = new GatewayCacheConfiguration(cache);
+        for (String cacheName : getCacheNames()) {
+            configuration.caches.put(cacheName, cacheName.equals(cache));
+        }
+        return configuration;
+    }
+
+    /**
+     * @return - flags of the caches which can be configured
+     */
+    public static List<String> getCacheNames() {
+        List<String> cacheNames = new ArrayList<String>(PARENT_ELEMENTS.keySet());
+        cacheNames.remove(TOKEN_GENERATION);
+        return cacheNames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return - whether each cache is enabled, by the flag of the cache
+     */
+    public Map<String, Boolean> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+
+    /**
+     * Write the configuration as a copy of the given api-manager.xml
+     *
+     * @param apiManagerXml - api-manager.xml of the server
+     * @param directory     - directory to write the configuration to
+     * @return - api-manager.xml with the caches of this configuration
+     * @throws APIManagerIntegrationTestException - throws if the configuration cannot be written
+     */
+    public File writeConfiguration(File apiManagerXml, File directory) throws APIManagerIntegrationTestException {
+        try {
+            Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(apiManagerXml);
+            for (Map.Entry<String, Boolean> cache : caches.entrySet()) {
+                setFlag(document, cache.getKey(), cache.getValue());
+            }
+            setFlag(document, TOKEN_GENERATION, true);
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create the directory " + directory.getAbsolutePath());
+            }
+            File configurationFile = new File(directory, apiManagerXml.getName());
+            TransformerFactory.newInstance().newTransformer()
+                    .transform(new DOMSource(document), new StreamResult(configurationFile));
+            return configurationFile;
+        } catch (ParserConfigurationException e) {
+            throw new APIManagerIntegrationTestException("Unable to write the cache configuration " + name, e);
+        } catch (SAXException e) {
+            throw new APIManagerIntegrationTestException("Invalid configuration " + apiManagerXml, e);
+        } catch (IOException e) {
+            throw new APIManagerIntegrationTestException("Unable to write the cache configuration " + name, e);
+        } catch (TransformerException e) {
+            throw new APIManagerIntegrationTestException("Unable to write the cache configuration " + name, e);
+        }
+    }
+
+    private static void setFlag(Document document, String flag, boolean enabled)
+            throws APIManagerIntegrationTestException {
+        NodeList elements = document.getElementsByTagName(flag);
+        Element element;
+        if (elements.getLength() > 0) {
+            element = (Element) elements.item(0);
+        } else {
+            NodeList parents = document.getElementsByTagName(PARENT_ELEMENTS.get(flag));
+            if (parents.getLength() == 0) {
+                throw new APIManagerIntegrationTestException("No " + PARENT_ELEMENTS.get(flag) +
+                                                             " element to add " + flag + " to");
+            }
+            element = document.createElement(flag);
+            parents.item(0).appendChild(element);
+        }
+        element.setTextContent(String.valueOf(enabled));
+    }
+
+    @Override
+    public String toString() {
+        return name + " " + caches;
+    }
+}
@@ -0,0 +1,279 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A load scenario defined in Java instead of a JMeter script. The scenario provisions apiCount published APIs and
+ * applicationCount applications subscribed to all of them in each of its tenants, then runs concurrency virtual users
+ * spread over the tenants. The users are started one after the other over the ramp up time, and each of them runs the
+ * steps of the scenario in order until duration millis after the ramp up. Only the steps executed after the ramp up
+ * are measured.
+ * <p/>
+ * The concurrency, ramp up time and duration can be overridden with the {@value #CONCURRENCY_PROPERTY},
+ * {@value #RAMP_UP_TIME_PROPERTY} and {@value #DURATION_PROPERTY} system properties, so that the same scenario can be
+ * run as a short check in the integration build and as a longer test on a dedicated machine.
+ * <p/>
+ * Example:
+ * <pre>
+ * LoadScenario scenario = new LoadScenario("MySubscriptions")
+ *         .addTenant("superTenant", "admin")
+ *         .setAPICount(20)
+ *         .setApplicationCount(20)
+ *         .setConcurrency(10)
+ *         .setRampUpTime(10000)
+ *         .setDuration(60000)
+ *         .addStep(getAllSubscriptionsStep);
+ * LoadTestReport report = new LoadTestRunner(scenario).run();
+ * </pre>
+ */
+public class LoadScenario {
+
+    public static final String CONCURRENCY_PROPERTY = "apim.test.load.concurrency";
+    public static final String RAMP_UP_TIME_PROPERTY = "apim.test.load.rampUpTime";
+    public static final String DURATION_PROPERTY = "apim.test.load.duration";
+
+    private final String name;
+    private final List<TenantUser> tenants = new ArrayList<TenantUser>();
+    private final List<LoadStep> steps = new ArrayList<LoadStep>();
+    private int apiCount;
+    private int applicationCount;
+    private String apiVersion = "1.0.0";
+    private String subscriptionTier = "Unlimited";
+    private String applicationTier = "Unlimited";
+    private URL endpointUrl;
+    private boolean generateKeys;
+    private int concurrency = 1;
+    private long rampUpTime;
+    private long duration = 60000;
+
+    /**
+     * @param name - name of the scenario, used as the prefix of the provisioned APIs and applications and as the file
+     *             name of its report and baseline
+     */
+    public LoadScenario(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add a tenant to run the scenario in. The scenario runs in the super tenant as admin if no tenant is added.
+     *
+     * @param domainKey - key of the tenant in automation.xml
+     * @param userKey   - key of the user of the tenant in automation.xml, who provisions the fixtures and runs the
+     *                  steps
+     * @return - this scenario
+     */
+    public LoadScenario addTenant(String domainKey, String userKey) {
+        tenants.add(new TenantUser(domainKey, userKey));
+        return this;
+    }
+
+    /**
+     * @param apiCount - number of APIs provisioned in each tenant
+     * @return - this scenario
+     */
+    public LoadScenario setAPICount(int apiCount) {
+        this.apiCount = apiCount;
+        return this;
+    }
+
+    /**
+     * @param applicationCount - number of applications provisioned in each tenant
+     * @return - this scenario
+     */
+    public LoadScenario setApplicationCount(int applicationCount) {
+        this.applicationCount = applicationCount;
+        return this;
+    }
+
+    /**
+     * @param apiVersion - version of the provisioned APIs
+     * @return - this scenario
+     */
+    public LoadScenario setAPIVersion(String apiVersion) {
+        this.apiVersion = apiVersion;
+        return this;
+    }
+
+    /**
+     * @param subscriptionTier - tier of the subscriptions of the applications to the APIs
+     * @return - this scenario
+     */
+    public LoadScenario setSubscriptionTier(String subscriptionTier) {
+        this.subscriptionTier = subscriptionTier;
+        return this;
+    }
+
+    /**
+     * @param applicationTier - throttling tier of the provisioned applications
+     * @return - this scenario
+     */
+    public LoadScenario setApplicationTier(String applicationTier) {
+        this.applicationTier = applicationTier;
+        return this;
+    }
+
+    /**
+     * @param endpointUrl - production endpoint of the provisioned APIs, the store of the tenant is used by default
+     * @return - this scenario
+     */
+    public LoadScenario setEndpointUrl(URL endpointUrl) {
+        this.endpointUrl = endpointUrl;
+        return this;
+    }
+
+    /**
+     * @param generateKeys - whether the production keys of the provisioned applications are generated, which the
+     *                     steps need to invoke the APIs through the gateway
+     * @return - this scenario
+     */
+    public LoadScenario setGenerateKeys(boolean generateKeys) {
+        this.generateKeys = generateKeys;
+        return this;
+    }
+
+    /**
+     * @param concurrency - number of virtual users
+     * @return - this scenario
+     */
+    public LoadScenario setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+        return this;
+    }
+
+    /**
+     * @param rampUpTime - time in millis over which the virtual users are started
+     * @return - this scenario
+     */
+    public LoadScenario setRampUpTime(long rampUpTime) {
+        this.rampUpTime = rampUpTime;
+        return this;
+    }
+
+    /**
+     * @param duration - time in millis the steps are measured for, after the ramp up
+     * @return - this scenario
+     */
+    public LoadScenario setDuration(long duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * @param step - step executed by each virtual user, after the steps added before it
+     * @return - this scenario
+     */
+    public LoadScenario addStep(LoadStep step) {
+        steps.add(step);
+        return this;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return - tenants of the scenario, the super tenant admin if no tenant is added
+     */
+    public List<TenantUser> getTenants() {
+        if (tenants.isEmpty()) {
+            return Collections.singletonList(new TenantUser("superTenant", "admin"));
+        }
+        return Collections.unmodifiableList(tenants);
+    }
+
+    public List<LoadStep> getSteps() {
+        return Collections.unmodifiableList(steps);
+    }
+
+    public int getAPICount() {
+        return apiCount;
+    }
+
+    public int getApplicationCount() {
+        return applicationCount;
+    }
+
+    public String getAPIVersion() {
+        return apiVersion;
+    }
+
+    public String getSubscriptionTier() {
+        return subscriptionTier;
+    }
+
+    public String getApplicationTier() {
+        return applicationTier;
+    }
+
+    public URL getEndpointUrl() {
+        return endpointUrl;
+    }
+
+    public boolean isGenerateKeys() {
+        return generateKeys;
+    }
+
+    /**
+     * @return - number of virtual users, overridden by the {@value #CONCURRENCY_PROPERTY} system property
+     */
+    public int getConcurrency() {
+        return Integer.getInteger(CONCURRENCY_PROPERTY, concurrency);
+    }
+
+    /**
+     * @return - ramp up time in millis, overridden by the {@value #RAMP_UP_TIME_PROPERTY} system property
+     */
+    public long getRampUpTime() {
+        return Long.getLong(RAMP_UP_TIME_PROPERTY, rampUpTime);
+    }
+
+    /**
+     * @return - measured duration in millis, overridden by the {@value #DURATION_PROPERTY} system property
+     */
+    public long getDuration() {
+        return Long.getLong(DURATION_PROPERTY, duration);
+    }
+
+    /**
+     * A tenant of the scenario and the user who runs the scenario in it, by their automation.xml keys
+     */
+    public static class TenantUser {
+
+        private final String domainKey;
+        private final String userKey;
+
+        TenantUser(String domainKey, String userKey) {
+            this.domainKey = domainKey;
+            this.userKey = userKey;
+        }
+
+        public String getDomainKey() {
+            return domainKey;
+        }
+
+        public String getUserKey() {
+            return userKey;
+        }
+    }
+}
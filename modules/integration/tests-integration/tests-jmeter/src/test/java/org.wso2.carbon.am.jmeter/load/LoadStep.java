@@ -0,0 +1,96 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.carbon.automation.test.utils.http.client.HttpResponse;
+
+/**
+ * A step of a load scenario, the Java counterpart of a sampler of a JMeter script. Each virtual user executes the
+ * steps of the scenario in order, over and over until the scenario ends, and the latency of each execution is recorded
+ * against the name of the step. An execution which throws is counted as an error of the step.
+ * <p/>
+ * Example:
+ * <pre>
+ * scenario.addStep(new LoadStep("getAllSubscriptions") {
+ *     public void execute(VirtualUser user) throws Exception {
+ *         checkResponse(user.getStoreRestClient().getAllSubscriptions());
+ *     }
+ * });
+ * </pre>
+ */
+public abstract class LoadStep {
+
+    private final String name;
+
+    /**
+     * @param name - name of the step, used in the reports and baselines
+     */
+    protected LoadStep(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Execute the step once
+     *
+     * @param user - virtual user which executes the step
+     * @throws Exception - if the step fails
+     */
+    public abstract void execute(VirtualUser user) throws Exception;
+
+    /**
+     * Checks that a request succeeded, for requests such as API invocations whose response is not a store or
+     * publisher response
+     *
+     * @param response - response of the request
+     * @throws APIManagerIntegrationTestException - throws if the request failed
+     */
+    protected void checkResponseCode(HttpResponse response) throws APIManagerIntegrationTestException {
+        if (response.getResponseCode() != 200) {
+            throw new APIManagerIntegrationTestException("Step " + name + " failed with response code " +
+                                                         response.getResponseCode());
+        }
+    }
+
+    /**
+     * Checks that a request of the store or publisher succeeded and its response has no error flag
+     *
+     * @param response - response of the request
+     * @throws APIManagerIntegrationTestException - throws if the request failed
+     */
+    protected void checkResponse(HttpResponse response) throws APIManagerIntegrationTestException {
+        checkResponseCode(response);
+        try {
+            JSONObject data = new JSONObject(response.getData());
+            if (data.optBoolean("error", false)) {
+                throw new APIManagerIntegrationTestException("Step " + name + " failed: " +
+                                                             data.optString("message"));
+            }
+        } catch (JSONException e) {
+            throw new APIManagerIntegrationTestException("Step " + name + " returned an invalid response " +
+                                                         response.getData(), e);
+        }
+    }
+}
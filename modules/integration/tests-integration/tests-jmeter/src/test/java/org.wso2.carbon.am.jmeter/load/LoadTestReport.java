@@ -0,0 +1,269 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.wso2.am.integration.test.utils.latency.LatencyHistogram;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Results of a run of a load scenario. {@link #writeReport()} writes the throughput, error rate, mean, p50, p95, p99
+ * and max latency of each step to a JSON file named after the scenario, in the directory given by the
+ * {@value #REPORT_DIRECTORY_PROPERTY} system property.
+ */
+public class LoadTestReport {
+
+    private static final Log log = LogFactory.getLog(LoadTestReport.class);
+    public static final String REPORT_DIRECTORY_PROPERTY = "apim.test.load.reportDir";
+    private static final String DEFAULT_REPORT_DIRECTORY = "target" + File.separator + "load-reports";
+
+    private final String scenarioName;
+    private final int concurrency;
+    private final int tenantCount;
+    private final long measuredTime;
+    private final List<StepResult> stepResults;
+
+    LoadTestReport(String scenarioName, int concurrency, int tenantCount, long measuredTime,
+                   List<StepResult> stepResults) {
+        this.scenarioName = scenarioName;
+        this.concurrency = concurrency;
+        this.tenantCount = tenantCount;
+        this.measuredTime = measuredTime;
+        this.stepResults = Collections.unmodifiableList(new ArrayList<StepResult>(stepResults));
+        for (StepResult stepResult : stepResults) {
+            stepResult.measuredTime = measuredTime;
+        }
+    }
+
+    public String getScenarioName() {
+        return scenarioName;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    /**
+     * @return - time in millis the steps were measured for
+     */
+    public long getMeasuredTime() {
+        return measuredTime;
+    }
+
+    /**
+     * @return - results of the steps, in the order of the steps of the scenario
+     */
+    public List<StepResult> getStepResults() {
+        return stepResults;
+    }
+
+    /**
+     * @param stepName - name of the step
+     * @return - result of the step, or null if the scenario has no such step
+     */
+    public StepResult getStepResult(String stepName) {
+        for (StepResult stepResult : stepResults) {
+            if (stepResult.getName().equals(stepName)) {
+                return stepResult;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the report of the run
+     *
+     * @return - report file
+     * @throws IOException - if the report cannot be written
+     */
+    public File writeReport() throws IOException {
+        File directory = getReportDirectory();
+        File reportFile = new File(directory, scenarioName + ".json");
+        try {
+            writeJSON(reportFile, toJSON());
+        } catch (JSONException e) {
+            throw new IOException("Unable to create the load test report of " + scenarioName, e);
+        }
+        log.info("Load test report of " + scenarioName + " written to " + reportFile.getAbsolutePath());
+        return reportFile;
+    }
+
+    /**
+     * @return - directory the load test reports are written to, created if it does not exist
+     * @throws IOException - if the directory cannot be created
+     */
+    public static File getReportDirectory() throws IOException {
+        File directory = new File(System.getProperty(REPORT_DIRECTORY_PROPERTY, DEFAULT_REPORT_DIRECTORY));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the load test report directory " + directory.getAbsolutePath());
+        }
+        return directory;
+    }
+
+    /**
+     * Write a JSON report
+     *
+     * @param file - report file
+     * @param json - content of the report
+     * @throws IOException   - if the report cannot be written
+     * @throws JSONException - if the content cannot be serialized
+     */
+    public static void writeJSON(File file, JSONObject json) throws IOException, JSONException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(json.toString(2));
+        } finally {
+            writer.close();
+        }
+    }
+
+    private JSONObject toJSON() throws JSONException {
+        JSONArray steps = new JSONArray();
+        for (StepResult stepResult : stepResults) {
+            JSONObject step = new JSONObject();
+            step.put("name", stepResult.getName());
+            step.put("count", stepResult.getCount());
+            step.put("errors", stepResult.getErrorCount());
+            step.put("errorRate", stepResult.getErrorRate());
+            step.put("throughput", stepResult.getThroughput());
+            step.put("meanMicros", Math.round(stepResult.getMean()));
+            step.put("p50Micros", stepResult.getValueAtPercentile(50));
+            step.put("p95Micros", stepResult.getValueAtPercentile(95));
+            step.put("p99Micros", stepResult.getValueAtPercentile(99));
+            step.put("maxMicros", stepResult.getMaxValue());
+            steps.put(step);
+        }
+        JSONObject report = new JSONObject();
+        report.put("scenario", scenarioName);
+        report.put("timestamp", System.currentTimeMillis());
+        report.put("concurrency", concurrency);
+        report.put("tenants", tenantCount);
+        report.put("measuredTimeMillis", measuredTime);
+        report.put("steps", steps);
+        return report;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Load scenario ").append(scenarioName).append(" with ")
+                .append(concurrency).append(" users in ").append(tenantCount).append(" tenants for ")
+                .append(measuredTime).append(" ms");
+        for (StepResult stepResult : stepResults) {
+            builder.append("\n  ").append(stepResult);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Measurements of a step of a load scenario. The latencies are of the successful executions of the step.
+     */
+    public static class StepResult {
+
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final AtomicLong errorCount = new AtomicLong();
+        private long measuredTime;
+
+        StepResult(String name) {
+            this.name = name;
+        }
+
+        void recordSuccess(long nanos) {
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+        }
+
+        void recordError() {
+            errorCount.incrementAndGet();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return - number of successful executions of the step
+         */
+        public long getCount() {
+            return histogram.getTotalCount();
+        }
+
+        public long getErrorCount() {
+            return errorCount.get();
+        }
+
+        /**
+         * @return - failed executions as a fraction of all the executions of the step
+         */
+        public double getErrorRate() {
+            long total = histogram.getTotalCount() + errorCount.get();
+            return total == 0 ? 0 : (double) errorCount.get() / total;
+        }
+
+        /**
+         * @return - successful executions of the step per second
+         */
+        public double getThroughput() {
+            return measuredTime == 0 ? 0 : histogram.getTotalCount() * 1000.0 / measuredTime;
+        }
+
+        /**
+         * @return - mean latency in microseconds
+         */
+        public double getMean() {
+            return histogram.getMean();
+        }
+
+        /**
+         * @param percentile - percentile, between 0 and 100
+         * @return - latency in microseconds at the percentile
+         */
+        public long getValueAtPercentile(double percentile) {
+            return histogram.getValueAtPercentile(percentile);
+        }
+
+        /**
+         * @return - largest latency in microseconds
+         */
+        public long getMaxValue() {
+            return histogram.getMaxValue();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d requests, %d errors, %.1f/s, mean %d us, p50 %d us, p95 %d us, " +
+                                 "p99 %d us, max %d us", name, getCount(), getErrorCount(), getThroughput(),
+                                 Math.round(getMean()), getValueAtPercentile(50), getValueAtPercentile(95),
+                                 getValueAtPercentile(99), getMaxValue());
+        }
+    }
+}
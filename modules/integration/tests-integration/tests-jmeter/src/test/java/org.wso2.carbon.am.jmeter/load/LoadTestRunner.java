@@ -0,0 +1,358 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.base.APIMIntegrationConstants;
+import org.wso2.am.integration.test.utils.bean.APICreationRequestBean;
+import org.wso2.am.integration.test.utils.bean.APIMURLBean;
+import org.wso2.am.integration.test.utils.clients.APIBulkProvisioner;
+import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
+import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.http.PooledHttpTransport;
+import org.wso2.carbon.automation.engine.context.AutomationContext;
+
+import javax.xml.xpath.XPathExpressionException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a {@link LoadScenario} against the servers of automation.xml. The fixtures of the scenario are provisioned in
+ * each of its tenants with {@link APIBulkProvisioner}, the virtual users are logged in to the store and run the steps
+ * of the scenario, and the fixtures are removed once the run ends. The keys of the applications are generated if the
+ * scenario asks for them, so that the steps can invoke the APIs through the gateway. All the requests are sent through
+ * the shared {@link PooledHttpTransport}, whose apim.test.http.maxConnections should not be less than the concurrency
+ * of the scenario, or the users wait for connections instead of loading the server. Tests which act on the server
+ * under the load of the scenario run it on another thread and wait for its measured time with
+ * {@link #awaitMeasurement()}.
+ */
+public class LoadTestRunner {
+
+    private static final Log log = LogFactory.getLog(LoadTestRunner.class);
+    private static final int SETUP_THREAD_COUNT = 10;
+    private static final String SUPER_TENANT_DOMAIN = "carbon.super";
+    //time the users are given to complete their last step once the scenario ends
+    private static final long COMPLETION_TIMEOUT = 60000;
+
+    private final LoadScenario scenario;
+    private final CountDownLatch measurementStarted = new CountDownLatch(1);
+    private volatile boolean measuring;
+    private volatile long measurementEndTime;
+
+    /**
+     * @param scenario - scenario to run
+     */
+    public LoadTestRunner(LoadScenario scenario) {
+        this.scenario = scenario;
+    }
+
+    /**
+     * Provision the fixtures of the scenario, run it and remove the fixtures
+     *
+     * @return - results of the run
+     * @throws APIManagerIntegrationTestException - throws if the fixtures cannot be provisioned or the users cannot
+     *                                            log in
+     */
+    public LoadTestReport run() throws APIManagerIntegrationTestException {
+        List<TenantFixtures> tenants = new ArrayList<TenantFixtures>();
+        try {
+            for (LoadScenario.TenantUser tenantUser : scenario.getTenants()) {
+                TenantFixtures tenant = new TenantFixtures(tenantUser);
+                tenants.add(tenant);
+                tenant.provision();
+            }
+            List<VirtualUser> users = createUsers(tenants);
+            LoadTestReport report = runSteps(users, tenants.size());
+            log.info(report);
+            return report;
+        } finally {
+            measuring = false;
+            //releases the waiting threads if the run failed before its measured time
+            measurementStarted.countDown();
+            for (TenantFixtures tenant : tenants) {
+                tenant.cleanUp();
+            }
+        }
+    }
+
+    /**
+     * Wait until the users are ramped up and the measured time of the run starts
+     *
+     * @return - true if the run is in its measured time, false if it ended before
+     * @throws InterruptedException - throws if interrupted while waiting
+     */
+    public boolean awaitMeasurement() throws InterruptedException {
+        measurementStarted.await();
+        return isMeasuring();
+    }
+
+    /**
+     * @return - whether the run is in its measured time, in which the steps are measured
+     */
+    public boolean isMeasuring() {
+        return measuring && System.nanoTime() - measurementEndTime < 0;
+    }
+
+    private List<VirtualUser> createUsers(final List<TenantFixtures> tenants)
+            throws APIManagerIntegrationTestException {
+        List<Callable<VirtualUser>> logins = new ArrayList<Callable<VirtualUser>>();
+        for (int i = 0; i < scenario.getConcurrency(); i++) {
+            final int index = i;
+            logins.add(new Callable<VirtualUser>() {
+                public VirtualUser call() throws APIManagerIntegrationTestException {
+                    return tenants.get(index % tenants.size()).createUser(index);
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(SETUP_THREAD_COUNT);
+        try {
+            List<VirtualUser> users = new ArrayList<VirtualUser>(logins.size());
+            for (Future<VirtualUser> user : executor.invokeAll(logins)) {
+                users.add(user.get());
+            }
+            return users;
+        } catch (ExecutionException e) {
+            throw new APIManagerIntegrationTestException("Unable to log in the users of " + scenario.getName(),
+                                                         e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while logging in the users of " +
+                                                         scenario.getName(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private LoadTestReport runSteps(List<VirtualUser> users, int tenantCount)
+            throws APIManagerIntegrationTestException {
+        final List<LoadStep> steps = scenario.getSteps();
+        final List<LoadTestReport.StepResult> stepResults = new ArrayList<LoadTestReport.StepResult>(steps.size());
+        for (LoadStep step : steps) {
+            stepResults.add(new LoadTestReport.StepResult(step.getName()));
+        }
+        final long rampUpNanos = TimeUnit.MILLISECONDS.toNanos(scenario.getRampUpTime());
+        final long startTime = System.nanoTime();
+        final long measurementStartTime = startTime + rampUpNanos;
+        final long endTime = measurementStartTime + TimeUnit.MILLISECONDS.toNanos(scenario.getDuration());
+        log.info("Running load scenario " + scenario.getName() + " with " + users.size() + " users, ramp up " +
+                 scenario.getRampUpTime() + " ms and duration " + scenario.getDuration() + " ms");
+
+        ExecutorService executor = Executors.newFixedThreadPool(users.size());
+        for (final VirtualUser user : users) {
+            final long userStartTime = startTime + rampUpNanos * user.getIndex() / users.size();
+            executor.submit(new Runnable() {
+                public void run() {
+                    long delay = userStartTime - System.nanoTime();
+                    if (delay > 0) {
+                        try {
+                            TimeUnit.NANOSECONDS.sleep(delay);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    while (!Thread.currentThread().isInterrupted()) {
+                        for (int i = 0; i < steps.size(); i++) {
+                            long stepStartTime = System.nanoTime();
+                            if (stepStartTime - endTime >= 0) {
+                                return;
+                            }
+                            boolean measured = stepStartTime - measurementStartTime >= 0;
+                            executeStep(steps.get(i), user, measured ? stepResults.get(i) : null, stepStartTime);
+                        }
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        try {
+            TimeUnit.NANOSECONDS.sleep(measurementStartTime - System.nanoTime());
+            measurementEndTime = endTime;
+            measuring = true;
+            measurementStarted.countDown();
+            long timeout = TimeUnit.NANOSECONDS.toMillis(endTime - System.nanoTime()) + COMPLETION_TIMEOUT;
+            if (!executor.awaitTermination(timeout, TimeUnit.MILLISECONDS)) {
+                log.warn("Users of " + scenario.getName() + " did not complete their steps in time");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new APIManagerIntegrationTestException("Interrupted while running " + scenario.getName(), e);
+        }
+        return new LoadTestReport(scenario.getName(), users.size(), tenantCount, scenario.getDuration(),
+                                  stepResults);
+    }
+
+    private void executeStep(LoadStep step, VirtualUser user, LoadTestReport.StepResult stepResult,
+                             long stepStartTime) {
+        try {
+            step.execute(user);
+            if (stepResult != null) {
+                stepResult.recordSuccess(System.nanoTime() - stepStartTime);
+            }
+        } catch (Exception e) {
+            if (stepResult != null) {
+                stepResult.recordError();
+                if (stepResult.getErrorCount() == 1) {
+                    log.warn("Step " + step.getName() + " of " + scenario.getName() + " failed", e);
+                    return;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Step " + step.getName() + " of " + scenario.getName() + " failed for user " +
+                          user.getIndex(), e);
+            }
+        }
+    }
+
+    /**
+     * Clients and fixtures of a tenant of the scenario
+     */
+    private class TenantFixtures {
+
+        private final String tenantDomain;
+        private final String userName;
+        private final String password;
+        private final String publisherURL;
+        private final String storeURL;
+        private final String gatewayURL;
+        private final List<String> apiNames = new ArrayList<String>();
+        private final List<String> applicationNames = new ArrayList<String>();
+        private final Map<String, String> accessTokens = new HashMap<String, String>();
+        private APIPublisherRestClient publisherRestClient;
+        private APIStoreRestClient storeRestClient;
+
+        TenantFixtures(LoadScenario.TenantUser tenantUser) throws APIManagerIntegrationTestException {
+            try {
+                AutomationContext publisherContext =
+                        new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
+                                              APIMIntegrationConstants.AM_PUBLISHER_INSTANCE,
+                                              tenantUser.getDomainKey(), tenantUser.getUserKey());
+                AutomationContext storeContext =
+                        new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
+                                              APIMIntegrationConstants.AM_STORE_INSTANCE,
+                                              tenantUser.getDomainKey(), tenantUser.getUserKey());
+                AutomationContext gatewayContext =
+                        new AutomationContext(APIMIntegrationConstants.AM_PRODUCT_GROUP_NAME,
+                                              APIMIntegrationConstants.AM_GATEWAY_INSTANCE,
+                                              tenantUser.getDomainKey(), tenantUser.getUserKey());
+                tenantDomain = storeContext.getContextTenant().getDomain();
+                userName = storeContext.getContextTenant().getContextUser().getUserName();
+                password = storeContext.getContextTenant().getContextUser().getPassword();
+                publisherURL = new APIMURLBean(publisherContext.getContextUrls()).getWebAppURLHttp();
+                storeURL = new APIMURLBean(storeContext.getContextUrls()).getWebAppURLHttp();
+                String gatewayBaseURL = new APIMURLBean(gatewayContext.getContextUrls()).getWebAppURLNhttp();
+                gatewayURL = SUPER_TENANT_DOMAIN.equals(tenantDomain) ? gatewayBaseURL :
+                             gatewayBaseURL + "t/" + tenantDomain + "/";
+            } catch (XPathExpressionException e) {
+                throw new APIManagerIntegrationTestException("Unable to read the configuration of tenant " +
+                                                             tenantUser.getDomainKey(), e);
+            }
+        }
+
+        void provision() throws APIManagerIntegrationTestException {
+            if (scenario.getAPICount() == 0 && scenario.getApplicationCount() == 0) {
+                return;
+            }
+            publisherRestClient = new APIPublisherRestClient(publisherURL, PooledHttpTransport.getSharedInstance());
+            publisherRestClient.login(userName, password);
+            storeRestClient = new APIStoreRestClient(storeURL, PooledHttpTransport.getSharedInstance());
+            storeRestClient.login(userName, password);
+
+            URL endpointUrl = scenario.getEndpointUrl();
+            if (endpointUrl == null) {
+                try {
+                    endpointUrl = new URL(storeURL + "store");
+                } catch (MalformedURLException e) {
+                    throw new APIManagerIntegrationTestException("Invalid store URL " + storeURL, e);
+                }
+            }
+            APIBulkProvisioner provisioner = new APIBulkProvisioner(publisherRestClient, storeRestClient)
+                    .setThreadCount(SETUP_THREAD_COUNT)
+                    .setSubscriptionTier(scenario.getSubscriptionTier())
+                    .setGenerateKeys(scenario.isGenerateKeys());
+            for (int i = 0; i < scenario.getAPICount(); i++) {
+                String apiName = scenario.getName() + "API" + i;
+                APICreationRequestBean api = new APICreationRequestBean(apiName, apiName.toLowerCase(),
+                                                                        scenario.getAPIVersion(), userName,
+                                                                        endpointUrl);
+                //the APIs only offer the tier the applications subscribe with, so that it is the tier applied
+                api.setTiersCollection(scenario.getSubscriptionTier());
+                provisioner.addAPI(api);
+                apiNames.add(apiName);
+            }
+            for (int i = 0; i < scenario.getApplicationCount(); i++) {
+                String applicationName = scenario.getName() + "App" + i;
+                provisioner.addApplication(applicationName, scenario.getApplicationTier());
+                applicationNames.add(applicationName);
+            }
+            APIBulkProvisioner.ProvisioningReport report = provisioner.provision();
+            for (Map.Entry<String, String> keys : report.getApplicationKeys().entrySet()) {
+                accessTokens.put(keys.getKey(), ApplicationKeys.fromResponse(keys.getValue()).getAccessToken());
+            }
+            log.info("Provisioned the fixtures of " + scenario.getName() + " in " + tenantDomain + ": " + report);
+        }
+
+        VirtualUser createUser(int index) throws APIManagerIntegrationTestException {
+            APIStoreRestClient userStoreRestClient =
+                    new APIStoreRestClient(storeURL, PooledHttpTransport.getSharedInstance());
+            userStoreRestClient.login(userName, password);
+            return new VirtualUser(index, tenantDomain, userName, password, publisherURL, gatewayURL,
+                                   scenario.getAPIVersion(), userStoreRestClient,
+                                   Collections.unmodifiableList(apiNames),
+                                   Collections.unmodifiableList(applicationNames),
+                                   Collections.unmodifiableMap(accessTokens));
+        }
+
+        /**
+         * Remove the provisioned applications, with their subscriptions, and APIs. Failures are logged so that the
+         * fixtures of the other tenants are still removed.
+         */
+        void cleanUp() {
+            for (String applicationName : applicationNames) {
+                try {
+                    storeRestClient.removeApplication(applicationName);
+                } catch (APIManagerIntegrationTestException e) {
+                    log.warn("Unable to remove application " + applicationName + " of " + tenantDomain, e);
+                }
+            }
+            for (String apiName : apiNames) {
+                try {
+                    publisherRestClient.deleteAPI(apiName, scenario.getAPIVersion(), userName);
+                } catch (APIManagerIntegrationTestException e) {
+                    log.warn("Unable to delete API " + apiName + " of " + tenantDomain, e);
+                }
+            }
+        }
+    }
+}
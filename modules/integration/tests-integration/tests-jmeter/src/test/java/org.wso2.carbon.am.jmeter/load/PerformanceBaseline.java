@@ -0,0 +1,189 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.wso2.carbon.automation.test.utils.common.TestConfigurationProvider;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Stored performance of a load scenario which later runs of the scenario must not regress from. A baseline is a JSON
+ * file named after the scenario, in artifacts/AM/performance/baselines of the test resources or in the directory
+ * given by the {@value #BASELINE_DIRECTORY_PROPERTY} system property:
+ * <pre>
+ * {
+ *   "tolerance": 0.2,
+ *   "steps": {
+ *     "getAllSubscriptions": {"throughput": 40.0, "p95Micros": 450000, "p99Micros": 900000, "errorRate": 0}
+ *   }
+ * }
+ * </pre>
+ * A step regresses if its throughput drops below the baseline throughput, or its p95 or p99 latency rises above the
+ * baseline latency, by more than the tolerance fraction, or if its error rate is above the baseline error rate. Any
+ * of the values can be left out to not check it. A step of the baseline which was not run, or which has no successful
+ * execution in the measured time, always regresses, since none of its values could be checked. The tolerance can be
+ * overridden with the
+ * {@value #TOLERANCE_PROPERTY} system property.
+ * <p/>
+ * Since the baselines depend on the machine the tests run on, setting the {@value #RECORD_PROPERTY} system property
+ * to true writes the measured results of each scenario as its baseline to the report directory instead of checking
+ * them, to be copied to the baseline directory of the machine.
+ */
+public class PerformanceBaseline {
+
+    private static final Log log = LogFactory.getLog(PerformanceBaseline.class);
+    public static final String BASELINE_DIRECTORY_PROPERTY = "apim.test.load.baselineDir";
+    public static final String TOLERANCE_PROPERTY = "apim.test.load.tolerance";
+    public static final String RECORD_PROPERTY = "apim.test.load.recordBaselines";
+    private static final double DEFAULT_TOLERANCE = 0.2;
+
+    private final JSONObject baseline;
+    private final double tolerance;
+
+    private PerformanceBaseline(JSONObject baseline) {
+        this.baseline = baseline;
+        String toleranceProperty = System.getProperty(TOLERANCE_PROPERTY);
+        this.tolerance = toleranceProperty != null ? Double.parseDouble(toleranceProperty) :
+                         baseline.optDouble("tolerance", DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Check the results of a run against the baseline of its scenario, or record them as the baseline if
+     * {@value #RECORD_PROPERTY} is set. A scenario without a baseline is not checked.
+     *
+     * @param report - results of the run
+     * @return - descriptions of the regressions, empty if the run did not regress
+     * @throws IOException - if the baseline cannot be read or recorded
+     */
+    public static List<String> verify(LoadTestReport report) throws IOException {
+        if (Boolean.getBoolean(RECORD_PROPERTY)) {
+            record(report);
+            return new ArrayList<String>();
+        }
+        File baselineFile = new File(getBaselineDirectory(), report.getScenarioName() + ".json");
+        if (!baselineFile.isFile()) {
+            log.warn("No performance baseline for " + report.getScenarioName() + " at " +
+                     baselineFile.getAbsolutePath() + ", the results are not checked");
+            return new ArrayList<String>();
+        }
+        Reader reader = new InputStreamReader(new FileInputStream(baselineFile), "UTF-8");
+        try {
+            return new PerformanceBaseline(new JSONObject(new JSONTokener(reader))).check(report);
+        } catch (JSONException e) {
+            throw new IOException("Invalid performance baseline " + baselineFile.getAbsolutePath(), e);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private List<String> check(LoadTestReport report) throws JSONException {
+        List<String> regressions = new ArrayList<String>();
+        JSONObject steps = baseline.optJSONObject("steps");
+        if (steps == null) {
+            return regressions;
+        }
+        Iterator stepNames = steps.keys();
+        while (stepNames.hasNext()) {
+            String stepName = (String) stepNames.next();
+            JSONObject stepBaseline = steps.getJSONObject(stepName);
+            LoadTestReport.StepResult stepResult = report.getStepResult(stepName);
+            if (stepResult == null) {
+                regressions.add(stepName + ": step has a baseline but was not run");
+                continue;
+            }
+            if (stepResult.getCount() == 0) {
+                regressions.add(stepName + ": step has a baseline but no successful execution was measured, " +
+                                stepResult.getErrorCount() + " executions failed");
+                continue;
+            }
+            if (stepBaseline.has("throughput")) {
+                double minThroughput = stepBaseline.getDouble("throughput") * (1 - tolerance);
+                if (stepResult.getThroughput() < minThroughput) {
+                    regressions.add(String.format("%s: throughput %.1f/s is below %.1f/s", stepName,
+                                                  stepResult.getThroughput(), minThroughput));
+                }
+            }
+            checkLatency(stepName, stepBaseline, "p95Micros", stepResult.getValueAtPercentile(95), regressions);
+            checkLatency(stepName, stepBaseline, "p99Micros", stepResult.getValueAtPercentile(99), regressions);
+            if (stepBaseline.has("errorRate") && stepResult.getErrorRate() > stepBaseline.getDouble("errorRate")) {
+                regressions.add(String.format("%s: error rate %.4f is above %.4f", stepName,
+                                              stepResult.getErrorRate(), stepBaseline.getDouble("errorRate")));
+            }
+        }
+        if (!regressions.isEmpty()) {
+            log.warn("Load scenario " + report.getScenarioName() + " regressed: " + regressions);
+        }
+        return regressions;
+    }
+
+    private void checkLatency(String stepName, JSONObject stepBaseline, String key, long latency,
+                              List<String> regressions) throws JSONException {
+        if (stepBaseline.has(key)) {
+            long maxLatency = (long) (stepBaseline.getLong(key) * (1 + tolerance));
+            if (latency > maxLatency) {
+                regressions.add(String.format("%s: %s %d is above %d", stepName, key, latency, maxLatency));
+            }
+        }
+    }
+
+    private static void record(LoadTestReport report) throws IOException {
+        try {
+            JSONObject steps = new JSONObject();
+            for (LoadTestReport.StepResult stepResult : report.getStepResults()) {
+                JSONObject step = new JSONObject();
+                step.put("throughput", Math.round(stepResult.getThroughput() * 10) / 10.0);
+                step.put("p95Micros", stepResult.getValueAtPercentile(95));
+                step.put("p99Micros", stepResult.getValueAtPercentile(99));
+                step.put("errorRate", stepResult.getErrorRate());
+                steps.put(stepResult.getName(), step);
+            }
+            JSONObject baseline = new JSONObject();
+            baseline.put("tolerance", DEFAULT_TOLERANCE);
+            baseline.put("steps", steps);
+            File baselineFile = new File(LoadTestReport.getReportDirectory(),
+                                         report.getScenarioName() + ".baseline.json");
+            LoadTestReport.writeJSON(baselineFile, baseline);
+            log.info("Performance baseline of " + report.getScenarioName() + " recorded to " +
+                     baselineFile.getAbsolutePath());
+        } catch (JSONException e) {
+            throw new IOException("Unable to record the performance baseline of " + report.getScenarioName(), e);
+        }
+    }
+
+    private static File getBaselineDirectory() {
+        String directory = System.getProperty(BASELINE_DIRECTORY_PROPERTY);
+        if (directory != null) {
+            return new File(directory);
+        }
+        return new File(TestConfigurationProvider.getResourceLocation() + File.separator + "artifacts" +
+                        File.separator + "AM" + File.separator + "performance" + File.separator + "baselines");
+    }
+}
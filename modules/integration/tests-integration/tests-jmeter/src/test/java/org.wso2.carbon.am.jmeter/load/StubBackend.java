@@ -0,0 +1,93 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Backend of the APIs invoked by gateway load scenarios, which answers every request with a small JSON response so
+ * that the latency of the invocations is the latency of the gateway.
+ */
+public class StubBackend {
+
+    private static final byte[] RESPONSE = "{\"status\":\"ok\"}".getBytes();
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param threadCount - number of threads serving the requests, which should not be less than the concurrency of
+     *                    the scenario
+     * @throws IOException - if the server cannot be started
+     */
+    public StubBackend(int threadCount) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(0), 0);
+        server.createContext("/", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream request = exchange.getRequestBody();
+                try {
+                    byte[] buffer = new byte[1024];
+                    while (request.read(buffer) != -1) {
+                        //the request is read fully so that the connection can be reused
+                    }
+                } finally {
+                    request.close();
+                }
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, RESPONSE.length);
+                OutputStream response = exchange.getResponseBody();
+                try {
+                    response.write(RESPONSE);
+                } finally {
+                    response.close();
+                }
+            }
+        });
+        executor = Executors.newFixedThreadPool(threadCount);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return - URL of the backend, to be used as the endpoint of the APIs
+     */
+    public URL getURL() {
+        try {
+            return new URL("http://localhost:" + server.getAddress().getPort() + "/");
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException("Invalid backend URL", e);
+        }
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
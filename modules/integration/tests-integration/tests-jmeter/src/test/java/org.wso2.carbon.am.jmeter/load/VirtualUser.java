@@ -0,0 +1,156 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.carbon.am.jmeter.load;
+
+import org.wso2.am.integration.test.utils.APIManagerIntegrationTestException;
+import org.wso2.am.integration.test.utils.clients.APIPublisherRestClient;
+import org.wso2.am.integration.test.utils.clients.APIStoreRestClient;
+import org.wso2.am.integration.test.utils.http.PooledHttpTransport;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A simulated user of a load scenario. Each virtual user runs in its own thread, in the tenant the runner assigned
+ * to it, with its own store session so that the steps run as separate users of the store would. The publisher
+ * session is opened on first use, since most scenarios only load the store and the gateway.
+ */
+public class VirtualUser {
+
+    private final int index;
+    private final String tenantDomain;
+    private final String userName;
+    private final String password;
+    private final String publisherURL;
+    private final String gatewayURL;
+    private final String apiVersion;
+    private final APIStoreRestClient storeRestClient;
+    private final List<String> apiNames;
+    private final List<String> applicationNames;
+    private final Map<String, String> accessTokens;
+    private final Random random;
+    private APIPublisherRestClient publisherRestClient;
+
+    VirtualUser(int index, String tenantDomain, String userName, String password, String publisherURL,
+                String gatewayURL, String apiVersion, APIStoreRestClient storeRestClient, List<String> apiNames,
+                List<String> applicationNames, Map<String, String> accessTokens) {
+        this.index = index;
+        this.tenantDomain = tenantDomain;
+        this.userName = userName;
+        this.password = password;
+        this.publisherURL = publisherURL;
+        this.gatewayURL = gatewayURL;
+        this.apiVersion = apiVersion;
+        this.storeRestClient = storeRestClient;
+        this.apiNames = apiNames;
+        this.applicationNames = applicationNames;
+        this.accessTokens = accessTokens;
+        this.random = new Random(index);
+    }
+
+    /**
+     * @return - index of the user, between 0 and the concurrency of the scenario
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getTenantDomain() {
+        return tenantDomain;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * @return - store client logged in as the user
+     */
+    public APIStoreRestClient getStoreRestClient() {
+        return storeRestClient;
+    }
+
+    /**
+     * Get a publisher client logged in as the user. The client is logged in on the first call.
+     *
+     * @return - publisher client logged in as the user
+     * @throws APIManagerIntegrationTestException - throws if the login fails
+     */
+    public APIPublisherRestClient getPublisherRestClient() throws APIManagerIntegrationTestException {
+        if (publisherRestClient == null) {
+            APIPublisherRestClient client =
+                    new APIPublisherRestClient(publisherURL, PooledHttpTransport.getSharedInstance());
+            client.login(userName, password);
+            publisherRestClient = client;
+        }
+        return publisherRestClient;
+    }
+
+    /**
+     * @return - names of the APIs provisioned in the tenant of the user, which are all published
+     */
+    public List<String> getAPINames() {
+        return apiNames;
+    }
+
+    /**
+     * @return - names of the applications provisioned in the tenant of the user, which are subscribed to all the APIs
+     */
+    public List<String> getApplicationNames() {
+        return applicationNames;
+    }
+
+    /**
+     * @param apiName - name of a provisioned API
+     * @return - gateway URL of the API, in the tenant of the user
+     */
+    public String getAPIURL(String apiName) {
+        return gatewayURL + apiName.toLowerCase() + "/" + apiVersion + "/";
+    }
+
+    /**
+     * @param applicationName - name of a provisioned application
+     * @return - production access token of the application, or null if the scenario does not generate keys
+     */
+    public String getAccessToken(String applicationName) {
+        return accessTokens.get(applicationName);
+    }
+
+    /**
+     * @return - name of a randomly picked API of the tenant of the user
+     */
+    public String getRandomAPIName() {
+        return apiNames.get(random.nextInt(apiNames.size()));
+    }
+
+    /**
+     * @return - name of a randomly picked application of the tenant of the user
+     */
+    public String getRandomApplicationName() {
+        return applicationNames.get(random.nextInt(applicationNames.size()));
+    }
+
+    /**
+     * @return - random generator of the user, seeded by its index so that runs are repeatable
+     */
+    public Random getRandom() {
+        return random;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageDataPublisher;
+import org.wso2.carbon.apimgt.usage.publisher.dto.FaultPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.RequestPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.ResponsePublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.ThrottlePublisherDTO;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Usage data publisher which publishes the events of the gateway asynchronously through another publisher, by
+ * default the data bridge publisher. The events are queued by a {@link UsageEventDispatcher} shared by all the
+ * publisher instances of the gateway and published from its own threads, so a slow or unavailable event receiver
+ * does not block the gateway threads, and the events which do not fit in the queue are spilled to a local journal
+ * instead of being dropped.
+ * <p/>
+ * Enabled by setting this class as the APIUsageTracking/PublisherClass and configured by the
+ * APIUsageTracking/AsyncPublisher element of api-manager.xml.
+ */
+public class AsyncUsageDataPublisher implements APIMgtUsageDataPublisher {
+
+    private static final Log log = LogFactory.getLog(AsyncUsageDataPublisher.class);
+
+    private static final String CONFIG_PREFIX = "APIUsageTracking.AsyncPublisher.";
+    private static final String DEFAULT_DELEGATE_CLASS =
+            "org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageDataBridgeDataPublisher";
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final int DEFAULT_PUBLISHER_THREADS = 2;
+    private static final int DEFAULT_BATCH_SIZE = 200;
+    private static final long DEFAULT_FLUSH_INTERVAL = 100;
+    private static final int DEFAULT_JOURNAL_SIZE = 64 * 1024 * 1024;
+    private static final long SHUTDOWN_TIMEOUT = 5000;
+
+    private static UsageEventDispatcher dispatcher;
+
+    public void init() {
+        synchronized (AsyncUsageDataPublisher.class) {
+            if (dispatcher == null) {
+                dispatcher = createDispatcher();
+            }
+        }
+    }
+
+    public void publishEvent(RequestPublisherDTO requestPublisherDTO) {
+        dispatcher.dispatch(requestPublisherDTO);
+    }
+
+    public void publishEvent(ResponsePublisherDTO responsePublisherDTO) {
+        dispatcher.dispatch(responsePublisherDTO);
+    }
+
+    public void publishEvent(FaultPublisherDTO faultPublisherDTO) {
+        dispatcher.dispatch(faultPublisherDTO);
+    }
+
+    public void publishEvent(ThrottlePublisherDTO throttlePublisherDTO) {
+        dispatcher.dispatch(throttlePublisherDTO);
+    }
+
+    /**
+     * @return - dispatcher of the gateway, which holds the event counters, or null if no publisher is initialized
+     */
+    public static UsageEventDispatcher getDispatcher() {
+        synchronized (AsyncUsageDataPublisher.class) {
+            return dispatcher;
+        }
+    }
+
+    private static UsageEventDispatcher createDispatcher() {
+        APIManagerConfiguration configuration = ServiceReferenceHolder.getInstance()
+                .getAPIManagerConfigurationService().getAPIManagerConfiguration();
+        String delegateClass = getProperty(configuration, "DelegateClass", DEFAULT_DELEGATE_CLASS);
+        int bufferSize = Integer.parseInt(getProperty(configuration, "BufferSize",
+                                                      String.valueOf(DEFAULT_BUFFER_SIZE)));
+        int publisherThreads = Integer.parseInt(getProperty(configuration, "PublisherThreads",
+                                                            String.valueOf(DEFAULT_PUBLISHER_THREADS)));
+        int batchSize = Integer.parseInt(getProperty(configuration, "BatchSize", String.valueOf(DEFAULT_BATCH_SIZE)));
+        long flushInterval = Long.parseLong(getProperty(configuration, "FlushInterval",
+                                                        String.valueOf(DEFAULT_FLUSH_INTERVAL)));
+        String journalPath = getProperty(configuration, "SpillJournal", null);
+        int journalSize = Integer.parseInt(getProperty(configuration, "SpillJournalSize",
+                                                       String.valueOf(DEFAULT_JOURNAL_SIZE)));
+
+        APIMgtUsageDataPublisher delegate;
+        try {
+            delegate = (APIMgtUsageDataPublisher) Class.forName(delegateClass).newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to create the usage data publisher " + delegateClass, e);
+        }
+        delegate.init();
+
+        UsageEventJournal journal = null;
+        if (journalPath != null) {
+            try {
+                journal = new UsageEventJournal(new File(journalPath), journalSize);
+                if (!journal.isEmpty()) {
+                    log.info(journal.getUsedBytes() + " bytes of usage events of the journal " + journalPath +
+                             " will be replayed");
+                }
+            } catch (IOException e) {
+                log.error("Unable to open the usage event journal " + journalPath +
+                          ", the events which do not fit in the buffer will be dropped", e);
+            }
+        }
+
+        final UsageEventDispatcher usageEventDispatcher =
+                new UsageEventDispatcher(delegate, new UsageEventRingBuffer(bufferSize), journal, batchSize,
+                                         flushInterval);
+        usageEventDispatcher.start(publisherThreads);
+        Runtime.getRuntime().addShutdownHook(new Thread("UsageEventPublisherShutdown") {
+            @Override
+            public void run() {
+                usageEventDispatcher.stop(SHUTDOWN_TIMEOUT);
+            }
+        });
+        log.info("Publishing usage events asynchronously through " + delegateClass + " with " + publisherThreads +
+                 " threads, in batches of " + batchSize);
+        return usageEventDispatcher;
+    }
+
+    private static String getProperty(APIManagerConfiguration configuration, String name, String defaultValue) {
+        String value = configuration.getFirstProperty(CONFIG_PREFIX + name);
+        return value != null && value.trim().length() > 0 ? value.trim() : defaultValue;
+    }
+}
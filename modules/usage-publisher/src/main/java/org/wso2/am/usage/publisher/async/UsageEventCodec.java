@@ -0,0 +1,191 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Encodes the usage event DTOs to bytes for the spill journal and decodes them back. The DTOs are plain beans, so an
+ * event is written as its class name followed by the values of its readable and writable properties of primitive and
+ * string types, and read back by calling the setters of a new instance of the class.
+ */
+public class UsageEventCodec {
+
+    private static final byte TYPE_NULL = 0;
+    private static final byte TYPE_STRING = 1;
+    private static final byte TYPE_LONG = 2;
+    private static final byte TYPE_INT = 3;
+    private static final byte TYPE_BOOLEAN = 4;
+    private static final byte TYPE_DOUBLE = 5;
+    private static final byte TYPE_FLOAT = 6;
+
+    private final ClassLoader classLoader;
+    private final ConcurrentMap<Class<?>, List<PropertyDescriptor>> properties =
+            new ConcurrentHashMap<Class<?>, List<PropertyDescriptor>>();
+
+    /**
+     * @param classLoader - class loader of the event classes
+     */
+    public UsageEventCodec(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * @param event - usage event
+     * @return - encoded event
+     * @throws IOException - if the event cannot be encoded
+     */
+    public byte[] encode(Object event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream output = new DataOutputStream(bytes);
+        List<PropertyDescriptor> eventProperties = getProperties(event.getClass());
+        output.writeUTF(event.getClass().getName());
+        output.writeShort(eventProperties.size());
+        try {
+            for (PropertyDescriptor property : eventProperties) {
+                output.writeUTF(property.getName());
+                writeValue(output, property.getReadMethod().invoke(event));
+            }
+        } catch (Exception e) {
+            throw new IOException("Unable to encode the usage event " + event, e);
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param data - encoded event
+     * @return - usage event
+     * @throws IOException - if the event cannot be decoded
+     */
+    public Object decode(byte[] data) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(data));
+        String className = input.readUTF();
+        try {
+            Class<?> eventClass = Class.forName(className, true, classLoader);
+            Object event = eventClass.newInstance();
+            int propertyCount = input.readShort();
+            for (int i = 0; i < propertyCount; i++) {
+                String name = input.readUTF();
+                Object value = readValue(input);
+                Method writeMethod = getWriteMethod(eventClass, name);
+                if (writeMethod != null && (value != null || !writeMethod.getParameterTypes()[0].isPrimitive())) {
+                    writeMethod.invoke(event, value);
+                }
+            }
+            return event;
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Unable to decode the usage event of " + className, e);
+        }
+    }
+
+    private Method getWriteMethod(Class<?> eventClass, String name) throws IOException {
+        for (PropertyDescriptor property : getProperties(eventClass)) {
+            if (property.getName().equals(name)) {
+                return property.getWriteMethod();
+            }
+        }
+        return null;
+    }
+
+    private List<PropertyDescriptor> getProperties(Class<?> eventClass) throws IOException {
+        List<PropertyDescriptor> eventProperties = properties.get(eventClass);
+        if (eventProperties == null) {
+            eventProperties = new ArrayList<PropertyDescriptor>();
+            try {
+                for (PropertyDescriptor property : Introspector.getBeanInfo(eventClass).getPropertyDescriptors()) {
+                    if (property.getReadMethod() != null && property.getWriteMethod() != null &&
+                        isSupported(property.getPropertyType())) {
+                        eventProperties.add(property);
+                    }
+                }
+            } catch (IntrospectionException e) {
+                throw new IOException("Unable to read the properties of " + eventClass.getName(), e);
+            }
+            properties.putIfAbsent(eventClass, eventProperties);
+        }
+        return eventProperties;
+    }
+
+    private static boolean isSupported(Class<?> type) {
+        return type == String.class || type == long.class || type == Long.class || type == int.class ||
+               type == Integer.class || type == boolean.class || type == Boolean.class || type == double.class ||
+               type == Double.class || type == float.class || type == Float.class;
+    }
+
+    private static void writeValue(DataOutputStream output, Object value) throws IOException {
+        if (value == null) {
+            output.writeByte(TYPE_NULL);
+        } else if (value instanceof String) {
+            output.writeByte(TYPE_STRING);
+            output.writeUTF((String) value);
+        } else if (value instanceof Long) {
+            output.writeByte(TYPE_LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Integer) {
+            output.writeByte(TYPE_INT);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte(TYPE_BOOLEAN);
+            output.writeBoolean((Boolean) value);
+        } else if (value instanceof Double) {
+            output.writeByte(TYPE_DOUBLE);
+            output.writeDouble((Double) value);
+        } else {
+            output.writeByte(TYPE_FLOAT);
+            output.writeFloat((Float) value);
+        }
+    }
+
+    private static Object readValue(DataInputStream input) throws IOException {
+        byte type = input.readByte();
+        switch (type) {
+            case TYPE_NULL:
+                return null;
+            case TYPE_STRING:
+                return input.readUTF();
+            case TYPE_LONG:
+                return input.readLong();
+            case TYPE_INT:
+                return input.readInt();
+            case TYPE_BOOLEAN:
+                return input.readBoolean();
+            case TYPE_DOUBLE:
+                return input.readDouble();
+            case TYPE_FLOAT:
+                return input.readFloat();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+}
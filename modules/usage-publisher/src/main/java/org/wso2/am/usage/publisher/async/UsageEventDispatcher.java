@@ -0,0 +1,307 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageDataPublisher;
+import org.wso2.carbon.apimgt.usage.publisher.dto.FaultPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.RequestPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.ResponsePublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.ThrottlePublisherDTO;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the usage events of the gateway threads to a delegate publisher on dedicated publisher threads. The gateway
+ * threads only offer the events to a {@link UsageEventRingBuffer}. The publisher threads take the events in batches
+ * of up to the batch size, and publish a batch when it is full or when the flush interval has passed since its first
+ * event. If the buffer is full, because the event receiver is slow or down, the events are spilled to the
+ * {@link UsageEventJournal} and replayed when the buffer is empty again, and only if the journal is full as well the
+ * events are dropped. Once the dispatcher is stopped, the events are spilled to the journal directly, until it is
+ * closed.
+ */
+public class UsageEventDispatcher {
+
+    private static final Log log = LogFactory.getLog(UsageEventDispatcher.class);
+    private static final long MAX_IDLE_WAIT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final APIMgtUsageDataPublisher delegate;
+    private final UsageEventRingBuffer ringBuffer;
+    private final UsageEventJournal journal;
+    private final UsageEventCodec codec;
+    private final int batchSize;
+    private final long flushInterval;
+    private final List<Thread> publisherThreads = new ArrayList<Thread>();
+    private volatile boolean running;
+
+    private final AtomicLong queuedCount = new AtomicLong();
+    private final AtomicLong publishedCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong replayedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * @param delegate      - publisher which publishes the events to the event receiver
+     * @param ringBuffer    - buffer of the events to publish
+     * @param journal       - journal to spill the events to when the buffer is full, can be null to drop them
+     * @param batchSize     - maximum number of events published by a publisher thread at once
+     * @param flushInterval - maximum time in milliseconds an event waits for its batch to be full
+     */
+    public UsageEventDispatcher(APIMgtUsageDataPublisher delegate, UsageEventRingBuffer ringBuffer,
+                                UsageEventJournal journal, int batchSize, long flushInterval) {
+        this.delegate = delegate;
+        this.ringBuffer = ringBuffer;
+        this.journal = journal;
+        this.codec = new UsageEventCodec(UsageEventDispatcher.class.getClassLoader());
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+    }
+
+    /**
+     * Queue an event for publishing, without blocking
+     *
+     * @param event - request, response, fault or throttle event
+     */
+    public void dispatch(Object event) {
+        if (!running) {
+            spill(event);
+        } else if (ringBuffer.offer(event)) {
+            queuedCount.incrementAndGet();
+            if (!running) {
+                //stopped while the event was offered, the buffer may already be drained by stop
+                spillBufferedEvents();
+            }
+        } else {
+            spill(event);
+        }
+    }
+
+    /**
+     * Start the publisher threads
+     *
+     * @param threadCount - number of publisher threads
+     */
+    public synchronized void start(int threadCount) {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < Math.max(1, threadCount); i++) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    publishEvents();
+                }
+            }, "UsageEventPublisher-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            publisherThreads.add(thread);
+        }
+    }
+
+    /**
+     * Stop the publisher threads, spill the events which are not published yet to the journal and close it
+     *
+     * @param timeout - time in milliseconds to wait for the publisher threads to publish their current batches
+     */
+    public synchronized void stop(long timeout) {
+        if (!running) {
+            return;
+        }
+        running = false;
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Thread thread : publisherThreads) {
+            try {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        publisherThreads.clear();
+        spillBufferedEvents();
+        //an offer which is still being completed by a gateway thread is counted by the size but not yet polled
+        while (ringBuffer.size() > 0) {
+            Thread.yield();
+            spillBufferedEvents();
+        }
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.error("Error while closing the usage event journal " + journal.getFile(), e);
+            }
+        }
+        log.info("Usage event publisher stopped: " + this);
+    }
+
+    private void publishEvents() {
+        List<Object> batch = new ArrayList<Object>(batchSize);
+        long batchStartTime = 0;
+        while (running) {
+            int drainedCount = ringBuffer.drainTo(batch, batchSize - batch.size());
+            if (batch.isEmpty()) {
+                if (replay(batch) == 0) {
+                    LockSupport.parkNanos(Math.min(flushInterval, MAX_IDLE_WAIT));
+                    continue;
+                }
+            }
+            if (batchStartTime == 0) {
+                batchStartTime = System.nanoTime();
+            }
+            if (batch.size() >= batchSize || System.nanoTime() - batchStartTime >= flushInterval) {
+                publish(batch);
+                batch.clear();
+                batchStartTime = 0;
+            } else if (drainedCount == 0) {
+                LockSupport.parkNanos(Math.min(flushInterval - (System.nanoTime() - batchStartTime), MAX_IDLE_WAIT));
+            }
+        }
+        publish(batch);
+    }
+
+    private int replay(List<Object> batch) {
+        if (journal == null) {
+            return 0;
+        }
+        int count = 0;
+        byte[] record;
+        while (count < batchSize && (record = journal.poll()) != null) {
+            try {
+                batch.add(codec.decode(record));
+                count++;
+            } catch (IOException e) {
+                droppedCount.incrementAndGet();
+                log.error("Dropped a usage event of the journal " + journal.getFile(), e);
+            }
+        }
+        replayedCount.addAndGet(count);
+        return count;
+    }
+
+    private void publish(List<Object> batch) {
+        for (Object event : batch) {
+            try {
+                if (event instanceof ResponsePublisherDTO) {
+                    delegate.publishEvent((ResponsePublisherDTO) event);
+                } else if (event instanceof FaultPublisherDTO) {
+                    delegate.publishEvent((FaultPublisherDTO) event);
+                } else if (event instanceof ThrottlePublisherDTO) {
+                    delegate.publishEvent((ThrottlePublisherDTO) event);
+                } else {
+                    delegate.publishEvent((RequestPublisherDTO) event);
+                }
+                publishedCount.incrementAndGet();
+            } catch (RuntimeException e) {
+                if (failedCount.getAndIncrement() % 1000 == 0) {
+                    log.error("Error while publishing a usage event, " + failedCount.get() + " events failed", e);
+                }
+            }
+        }
+    }
+
+    private void spillBufferedEvents() {
+        Object event;
+        while ((event = ringBuffer.poll()) != null) {
+            spill(event);
+        }
+    }
+
+    private void spill(Object event) {
+        if (journal != null) {
+            try {
+                if (journal.append(codec.encode(event))) {
+                    spilledCount.incrementAndGet();
+                    return;
+                }
+            } catch (IOException e) {
+                log.debug("Unable to spill a usage event to the journal", e);
+            }
+        }
+        if (droppedCount.getAndIncrement() % 1000 == 0) {
+            if (running) {
+                log.warn("Usage event buffer and journal are full, " + droppedCount.get() + " events dropped");
+            } else {
+                log.warn("Usage event publisher is stopped, " + droppedCount.get() + " events dropped");
+            }
+        }
+    }
+
+    /**
+     * @return - number of events queued in the ring buffer
+     */
+    public long getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return - number of events handed to the delegate publisher
+     */
+    public long getPublishedCount() {
+        return publishedCount.get();
+    }
+
+    /**
+     * @return - number of events the delegate publisher failed to publish
+     */
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    /**
+     * @return - number of events spilled to the journal
+     */
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    /**
+     * @return - number of events replayed from the journal
+     */
+    public long getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    /**
+     * @return - number of events dropped because the ring buffer and the journal were full
+     */
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * @return - number of events waiting in the ring buffer
+     */
+    public int getBufferedCount() {
+        return ringBuffer.size();
+    }
+
+    @Override
+    public String toString() {
+        return queuedCount.get() + " queued, " + publishedCount.get() + " published, " + failedCount.get() +
+               " failed, " + spilledCount.get() + " spilled, " + replayedCount.get() + " replayed, " +
+               droppedCount.get() + " dropped";
+    }
+}
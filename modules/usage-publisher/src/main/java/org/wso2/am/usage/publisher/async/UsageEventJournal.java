@@ -0,0 +1,229 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Memory mapped journal of the usage events which do not fit in the ring buffer of the async publisher. The events
+ * are appended as records with the length and CRC-32 checksum of the event, and polled in the order they were
+ * appended. The file is used as a circular
+ * buffer after its header, a record which does not fit before the end of the file continues at the start of the
+ * records, so the space of the polled events is reused while the journal still holds events. One byte is always left
+ * free, so that equal write and read positions mean an empty journal. The write and read positions are kept in the
+ * header of the file, so the events which are not polled when the gateway stops are replayed after it is started
+ * again.
+ * <p/>
+ * Appending is a copy to the mapped memory, the operating system writes the pages to the file in no particular order.
+ * If the host stops before all the pages are written, the header may point past records which are not complete, so
+ * a record whose checksum does not match is skipped when it is replayed, and a record length which does not fit the
+ * journal discards the remaining events. The journal is only used while the buffer is full, hence its methods are
+ * synchronized.
+ */
+public class UsageEventJournal {
+
+    private static final Log log = LogFactory.getLog(UsageEventJournal.class);
+
+    private static final int HEADER_SIZE = 16;
+    private static final int WRITE_POSITION_OFFSET = 0;
+    private static final int READ_POSITION_OFFSET = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private int writePosition;
+    private int readPosition;
+    private boolean closed;
+
+    /**
+     * Open the journal file, creating it if it does not exist
+     *
+     * @param file     - journal file
+     * @param capacity - size of the file in bytes, a journal file which holds events keeps its size
+     * @throws IOException - if the file cannot be mapped
+     */
+    public UsageEventJournal(File file, int capacity) throws IOException {
+        this.file = file;
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create the directory of the usage event journal " + file);
+        }
+        randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            int length = (int) Math.min(randomAccessFile.length(), Integer.MAX_VALUE);
+            int size = Math.max(capacity, length);
+            if (length >= HEADER_SIZE && randomAccessFile.readLong() != randomAccessFile.readLong()) {
+                //the records may wrap at the end of the file, so the size of a journal with events cannot change
+                size = length;
+            }
+            buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+        writePosition = (int) buffer.getLong(WRITE_POSITION_OFFSET);
+        readPosition = (int) buffer.getLong(READ_POSITION_OFFSET);
+        if (writePosition < HEADER_SIZE || writePosition >= buffer.capacity() || readPosition < HEADER_SIZE ||
+            readPosition >= buffer.capacity() || writePosition == readPosition) {
+            //new, corrupted or empty journal
+            writePosition = HEADER_SIZE;
+            readPosition = HEADER_SIZE;
+            buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+            buffer.putLong(READ_POSITION_OFFSET, readPosition);
+        }
+    }
+
+    /**
+     * Append an event
+     *
+     * @param record - encoded event
+     * @return - false if the journal is full or closed
+     */
+    public synchronized boolean append(byte[] record) {
+        if (closed || RECORD_HEADER_SIZE + record.length > getRecordCapacity() - 1 - getUsedBytes()) {
+            return false;
+        }
+        byte[] recordHeader = ByteBuffer.allocate(RECORD_HEADER_SIZE).putInt(record.length).putInt(checksum(record))
+                .array();
+        writePosition = copyTo(copyTo(writePosition, recordHeader), record);
+        buffer.putLong(WRITE_POSITION_OFFSET, writePosition);
+        return true;
+    }
+
+    /**
+     * Remove the oldest event of the journal, skipping the records which are not complete
+     *
+     * @return - encoded event, or null if the journal is empty or closed
+     */
+    public synchronized byte[] poll() {
+        while (!closed && readPosition != writePosition) {
+            byte[] recordHeader = new byte[RECORD_HEADER_SIZE];
+            int position = copyFrom(readPosition, recordHeader);
+            ByteBuffer recordHeaderBuffer = ByteBuffer.wrap(recordHeader);
+            int recordLength = recordHeaderBuffer.getInt();
+            int checksum = recordHeaderBuffer.getInt();
+            if (recordLength < 0 || RECORD_HEADER_SIZE + recordLength > getUsedBytes()) {
+                log.warn("Discarded " + getUsedBytes() + " bytes of the usage event journal " + file +
+                         ", since they do not start with a record");
+                readPosition = writePosition;
+                buffer.putLong(READ_POSITION_OFFSET, readPosition);
+                return null;
+            }
+            byte[] record = new byte[recordLength];
+            readPosition = copyFrom(position, record);
+            buffer.putLong(READ_POSITION_OFFSET, readPosition);
+            if (checksum(record) == checksum) {
+                return record;
+            }
+            log.warn("Skipped an incomplete record of the usage event journal " + file);
+        }
+        return null;
+    }
+
+    public synchronized boolean isEmpty() {
+        return readPosition == writePosition;
+    }
+
+    /**
+     * @return - number of bytes of the events in the journal
+     */
+    public synchronized int getUsedBytes() {
+        int usedBytes = writePosition - readPosition;
+        return usedBytes < 0 ? usedBytes + getRecordCapacity() : usedBytes;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Write the mapped memory to the file and close it. Events are not appended or polled after the journal is
+     * closed.
+     *
+     * @throws IOException - if the file cannot be closed
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buffer.force();
+        randomAccessFile.close();
+    }
+
+    private static int checksum(byte[] record) {
+        CRC32 crc = new CRC32();
+        crc.update(record, 0, record.length);
+        return (int) crc.getValue();
+    }
+
+    private int getRecordCapacity() {
+        return buffer.capacity() - HEADER_SIZE;
+    }
+
+    /**
+     * Copy bytes to the records, continuing at the start of the records at the end of the file
+     *
+     * @param position - position to copy the bytes to
+     * @param bytes    - bytes to copy
+     * @return - position after the copied bytes
+     */
+    private int copyTo(int position, byte[] bytes) {
+        int firstLength = Math.min(bytes.length, buffer.capacity() - position);
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.put(bytes, 0, firstLength);
+        if (firstLength == bytes.length) {
+            return position + firstLength == buffer.capacity() ? HEADER_SIZE : position + firstLength;
+        }
+        view.position(HEADER_SIZE);
+        view.put(bytes, firstLength, bytes.length - firstLength);
+        return HEADER_SIZE + bytes.length - firstLength;
+    }
+
+    /**
+     * Copy bytes from the records, continuing at the start of the records at the end of the file
+     *
+     * @param position - position to copy the bytes from
+     * @param bytes    - array to copy the bytes to
+     * @return - position after the copied bytes
+     */
+    private int copyFrom(int position, byte[] bytes) {
+        int firstLength = Math.min(bytes.length, buffer.capacity() - position);
+        ByteBuffer view = buffer.duplicate();
+        view.position(position);
+        view.get(bytes, 0, firstLength);
+        if (firstLength == bytes.length) {
+            return position + firstLength == buffer.capacity() ? HEADER_SIZE : position + firstLength;
+        }
+        view.position(HEADER_SIZE);
+        view.get(bytes, firstLength, bytes.length - firstLength);
+        return HEADER_SIZE + bytes.length - firstLength;
+    }
+}
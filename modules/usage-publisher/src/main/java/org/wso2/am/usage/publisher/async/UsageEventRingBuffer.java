@@ -0,0 +1,127 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue of usage events for many producers and many consumers, after the array based queue of
+ * Dmitry Vyukov. Each slot has a sequence number which tells the producers whether the slot is free for their
+ * position and the consumers whether it holds the element of their position, so an offer or a poll is a single
+ * compare and set of the tail or the head in the common case. The gateway threads offer the events and never block,
+ * an offer to a full buffer returns false.
+ */
+public class UsageEventRingBuffer {
+
+    private final int mask;
+    private final AtomicReferenceArray<Object> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * @param capacity - capacity of the buffer, rounded up to a power of two
+     */
+    public UsageEventRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        mask = size - 1;
+        elements = new AtomicReferenceArray<Object>(size);
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Add an event to the buffer
+     *
+     * @param event - usage event
+     * @return - false if the buffer is full
+     */
+    public boolean offer(Object event) {
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(index, event);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Remove the oldest event of the buffer
+     *
+     * @return - event, or null if the buffer is empty
+     */
+    public Object poll() {
+        while (true) {
+            long position = head.get();
+            int index = (int) (position & mask);
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (head.compareAndSet(position, position + 1)) {
+                    Object event = elements.get(index);
+                    elements.lazySet(index, null);
+                    sequences.lazySet(index, position + mask + 1);
+                    return event;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Remove up to the given number of events from the buffer
+     *
+     * @param events    - list to add the events to
+     * @param maxEvents - maximum number of events to remove
+     * @return - number of events removed
+     */
+    public int drainTo(List<Object> events, int maxEvents) {
+        int count = 0;
+        Object event;
+        while (count < maxEvents && (event = poll()) != null) {
+            events.add(event);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return - approximate number of events in the buffer
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head.get(), mask + 1));
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.wso2.carbon.apimgt.impl.APIManagerConfiguration;
+import org.wso2.carbon.apimgt.impl.internal.ServiceReferenceHolder;
+import org.wso2.carbon.apimgt.usage.publisher.APIMgtUsageDataPublisher;
+import org.wso2.carbon.apimgt.usage.publisher.dto.FaultPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.RequestPublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.ResponsePublisherDTO;
+import org.wso2.carbon.apimgt.usage.publisher.dto.ThrottlePublisherDTO;
+
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Usage data publisher which summarizes the usage events in the gateway itself, instead of publishing them to BAM.
+ * The request, response and fault events of the streams configured under APIUsageTracking/Streams are counted by
+ * a {@link UsageAggregator} shared by all the publisher instances of the gateway, and flushed periodically to the
+ * summary tables of the statistics database which the BAM summary scripts populate otherwise. Throttle events are
+ * not summarized.
+ * <p/>
+ * Enabled by setting this class as the APIUsageTracking/PublisherClass and configured by the
+ * APIUsageTracking/LocalAggregator element of api-manager.xml.
+ */
+public class LocalUsageDataPublisher implements APIMgtUsageDataPublisher {
+
+    private static final Log log = LogFactory.getLog(LocalUsageDataPublisher.class);
+
+    private static final String CONFIG_PREFIX = "APIUsageTracking.LocalAggregator.";
+    private static final String DEFAULT_DATA_SOURCE_NAME = "jdbc/WSO2AM_STATS_DB";
+    private static final long DEFAULT_FLUSH_INTERVAL = 1000;
+    private static final long DEFAULT_BUCKET_SIZE = 1000;
+    private static final int DEFAULT_BUCKET_COUNT = 60;
+
+    private static UsageAggregator aggregator;
+
+    public void init() {
+        synchronized (LocalUsageDataPublisher.class) {
+            if (aggregator == null) {
+                aggregator = createAggregator();
+            }
+        }
+    }
+
+    public void publishEvent(RequestPublisherDTO requestPublisherDTO) {
+        aggregator.recordRequest(requestPublisherDTO.getApi(), requestPublisherDTO.getVersion(),
+                                 requestPublisherDTO.getContext(), requestPublisherDTO.getApi_version(),
+                                 requestPublisherDTO.getConsumerKey(), requestPublisherDTO.getUsername(),
+                                 requestPublisherDTO.getRequestTime());
+    }
+
+    public void publishEvent(ResponsePublisherDTO responsePublisherDTO) {
+        aggregator.recordResponse(responsePublisherDTO.getApi_version(), responsePublisherDTO.getContext(),
+                                  responsePublisherDTO.getServiceTime());
+    }
+
+    public void publishEvent(FaultPublisherDTO faultPublisherDTO) {
+        aggregator.recordFault(faultPublisherDTO.getApi(), faultPublisherDTO.getVersion(),
+                               faultPublisherDTO.getContext());
+    }
+
+    public void publishEvent(ThrottlePublisherDTO throttlePublisherDTO) {
+        //throttle events are not part of the usage summaries
+    }
+
+    /**
+     * @return - aggregator of the gateway, or null if no publisher is initialized
+     */
+    public static UsageAggregator getAggregator() {
+        synchronized (LocalUsageDataPublisher.class) {
+            return aggregator;
+        }
+    }
+
+    private static UsageAggregator createAggregator() {
+        APIManagerConfiguration configuration = ServiceReferenceHolder.getInstance()
+                .getAPIManagerConfigurationService().getAPIManagerConfiguration();
+        String dataSourceName = getProperty(configuration, "DataSourceName", DEFAULT_DATA_SOURCE_NAME);
+        long flushInterval = Long.parseLong(getProperty(configuration, "FlushInterval",
+                                                        String.valueOf(DEFAULT_FLUSH_INTERVAL)));
+        long bucketSize = Long.parseLong(getProperty(configuration, "WindowBucketSize",
+                                                     String.valueOf(DEFAULT_BUCKET_SIZE)));
+        int bucketCount = Integer.parseInt(getProperty(configuration, "WindowBucketCount",
+                                                       String.valueOf(DEFAULT_BUCKET_COUNT)));
+
+        final UsageAggregator usageAggregator = new UsageAggregator(bucketSize, bucketCount);
+        final UsageSummaryStore store;
+        try {
+            store = new UsageSummaryStore((DataSource) new InitialContext().lookup(dataSourceName));
+            store.createTables();
+        } catch (NamingException e) {
+            throw new IllegalStateException("Unable to find the usage statistics data source " + dataSourceName, e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Unable to create the usage summary tables in " + dataSourceName, e);
+        }
+        usageAggregator.start(store, flushInterval);
+        Runtime.getRuntime().addShutdownHook(new Thread("UsageSummaryShutdownFlusher") {
+            @Override
+            public void run() {
+                usageAggregator.stop(store);
+            }
+        });
+        log.info("Summarizing the usage events of the streams " +
+                 configuration.getFirstProperty("APIUsageTracking.Streams.Request.Name") + ", " +
+                 configuration.getFirstProperty("APIUsageTracking.Streams.Response.Name") + " and " +
+                 configuration.getFirstProperty("APIUsageTracking.Streams.Fault.Name") + " to " + dataSourceName +
+                 " every " + flushInterval + " ms");
+        return usageAggregator;
+    }
+
+    private static String getProperty(APIManagerConfiguration configuration, String name, String defaultValue) {
+        String value = configuration.getFirstProperty(CONFIG_PREFIX + name);
+        return value != null && value.trim().length() > 0 ? value.trim() : defaultValue;
+    }
+}
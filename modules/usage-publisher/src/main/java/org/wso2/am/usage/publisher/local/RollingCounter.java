@@ -0,0 +1,129 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Event counter with a running total and the counts of a rolling window of time buckets. The total is flushed to
+ * the summary tables, the window gives the number of events of the last few seconds without reading the database.
+ * A counter which is retired by the aggregator stores its total as ~total and does not count any more events, so that
+ * an event which races with the retirement is counted on a new counter instead of being lost.
+ */
+public class RollingCounter {
+
+    private final long bucketMillis;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray bucketCounts;
+    //time bucket, current time divided by the bucket size, counted by each slot of the window
+    private final AtomicLongArray slotBuckets;
+    //total written to the summary tables, only accessed by the flushing thread
+    private long flushedTotal;
+
+    /**
+     * @param bucketMillis - size of a time bucket in milliseconds
+     * @param bucketCount  - number of buckets of the window
+     */
+    public RollingCounter(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCounts = new AtomicLongArray(bucketCount);
+        this.slotBuckets = new AtomicLongArray(bucketCount);
+    }
+
+    /**
+     * Count an event
+     *
+     * @param currentTime - current time in milliseconds
+     * @return - false if the counter is retired and the event is not counted
+     */
+    public boolean increment(long currentTime) {
+        long current;
+        do {
+            current = total.get();
+            if (current < 0) {
+                return false;
+            }
+        } while (!total.compareAndSet(current, current + 1));
+        long bucket = currentTime / bucketMillis;
+        int slot = (int) (bucket % bucketCounts.length());
+        if (slotBuckets.get(slot) != bucket) {
+            synchronized (this) {
+                if (slotBuckets.get(slot) < bucket) {
+                    bucketCounts.set(slot, 0);
+                    slotBuckets.set(slot, bucket);
+                } else if (slotBuckets.get(slot) > bucket) {
+                    //the slot has moved on to a later bucket, the event is outside of the window
+                    return true;
+                }
+            }
+        }
+        bucketCounts.incrementAndGet(slot);
+        return true;
+    }
+
+    public long getTotal() {
+        long current = total.get();
+        return current < 0 ? ~current : current;
+    }
+
+    /**
+     * Get the number of events of the window which ends at the given time
+     *
+     * @param currentTime - current time in milliseconds
+     * @return - number of events of the current bucket and the previous buckets of the window
+     */
+    public long getWindowCount(long currentTime) {
+        long currentBucket = currentTime / bucketMillis;
+        long count = 0;
+        for (int slot = 0; slot < bucketCounts.length(); slot++) {
+            long bucket = slotBuckets.get(slot);
+            if (bucket <= currentBucket && bucket > currentBucket - bucketCounts.length()) {
+                count += bucketCounts.get(slot);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return - size of the window in milliseconds
+     */
+    public long getWindowMillis() {
+        return bucketMillis * bucketCounts.length();
+    }
+
+    long getFlushedTotal() {
+        return flushedTotal;
+    }
+
+    void setFlushedTotal(long flushedTotal) {
+        this.flushedTotal = flushedTotal;
+    }
+
+    /**
+     * Stop counting events if the window is empty and no event was counted after the given total
+     *
+     * @param currentTime   - current time in milliseconds
+     * @param expectedTotal - total which has been written or otherwise accounted for
+     * @return - whether the counter is retired
+     */
+    boolean retire(long currentTime, long expectedTotal) {
+        return getWindowCount(currentTime) == 0 && total.compareAndSet(expectedTotal, ~expectedTotal);
+    }
+}
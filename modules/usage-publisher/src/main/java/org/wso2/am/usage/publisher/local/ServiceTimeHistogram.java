@@ -0,0 +1,155 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of the service times of an API in milliseconds. Service times below 2 * SUB_BUCKET_COUNT are counted
+ * exactly, larger ones in buckets whose width doubles with each power of two, which bounds the relative error of the
+ * percentiles to about 3%. Recording a value is an atomic increment of its bucket and a short update of the totals
+ * under the histogram lock, so that it can be done on the gateway threads and the flushing thread reads the count and
+ * the total service time of the same events.
+ */
+public class ServiceTimeHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKET_COUNT;
+    //largest trackable service time is about 24 days, larger values are counted as this value
+    private static final long MAX_TRACKABLE_VALUE = (1L << 31) - 1;
+    private static final int BUCKET_COUNT = getIndex(MAX_TRACKABLE_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    //guarded by the histogram
+    private long totalCount;
+    private long totalValue;
+    private long lastRecordTime;
+    private boolean retired;
+    //count and total service time written to the summary tables, only accessed by the flushing thread
+    private long flushedCount;
+    private long flushedValue;
+
+    /**
+     * Record a service time
+     *
+     * @param millis      - service time in milliseconds
+     * @param currentTime - current time in milliseconds
+     * @return - false if the histogram is retired and the service time is not recorded
+     */
+    public boolean recordValue(long millis, long currentTime) {
+        long value = Math.min(Math.max(0, millis), MAX_TRACKABLE_VALUE);
+        //the bucket is counted before the totals, so that the buckets always hold the totalCount values
+        counts.incrementAndGet(getIndex(value));
+        synchronized (this) {
+            if (retired) {
+                return false;
+            }
+            totalValue += value;
+            totalCount++;
+            lastRecordTime = currentTime;
+        }
+        return true;
+    }
+
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return - sum of the recorded service times in milliseconds
+     */
+    public synchronized long getTotalValue() {
+        return totalValue;
+    }
+
+    /**
+     * @return - mean service time in milliseconds
+     */
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Get the service time below which the given percentage of the recorded service times are
+     *
+     * @param percentile - percentile, between 0 and 100
+     * @return - highest service time in milliseconds which is counted in the same bucket as the percentile value
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getTotalCount();
+        if (count == 0) {
+            return 0;
+        }
+        long targetCount = Math.max(1, (long) Math.ceil(Math.min(percentile, 100) / 100 * count));
+        long cumulativeCount = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            cumulativeCount += counts.get(i);
+            if (cumulativeCount >= targetCount) {
+                return getHighestValue(i);
+            }
+        }
+        return MAX_TRACKABLE_VALUE;
+    }
+
+    long getFlushedCount() {
+        return flushedCount;
+    }
+
+    long getFlushedValue() {
+        return flushedValue;
+    }
+
+    void setFlushed(long count, long value) {
+        this.flushedCount = count;
+        this.flushedValue = value;
+    }
+
+    /**
+     * Stop recording service times if every recorded value is flushed and none was recorded for the given time
+     *
+     * @param currentTime - current time in milliseconds
+     * @param idleMillis  - time without a recorded value in milliseconds
+     * @return - whether the histogram is retired
+     */
+    synchronized boolean retire(long currentTime, long idleMillis) {
+        if (totalCount == flushedCount && currentTime - lastRecordTime >= idleMillis) {
+            retired = true;
+        }
+        return retired;
+    }
+
+    private static int getIndex(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long getHighestValue(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKET_COUNT + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+import java.util.Arrays;
+
+/**
+ * Values of the key columns of a row of a summary table, in the order of {@link SummaryTable#getKeyColumns()}.
+ * Null values are stored as empty strings, so that the rows can be matched by the key columns in SQL.
+ */
+public final class SummaryKey {
+
+    private final String[] values;
+    private final int hashCode;
+
+    /**
+     * @param values - values of the key columns
+     */
+    public SummaryKey(String... values) {
+        this.values = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.values[i] = values[i] != null ? values[i] : "";
+        }
+        this.hashCode = Arrays.hashCode(this.values);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public String get(int index) {
+        return values[index];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof SummaryKey && Arrays.equals(values, ((SummaryKey) o).values));
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(values);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+/**
+ * Summary tables of the WSO2AM_STATS_DB which are populated by the BAM summary scripts of the API Manager, with
+ * their key columns and create statements. The local aggregator writes the same tables, so that the API Manager
+ * reads the statistics as it does when they are summarized by BAM. The service time summary has the total service
+ * time and response count columns of the incremental BAM scripts, from which its mean service time is computed.
+ */
+public enum SummaryTable {
+
+    API_VERSION_USAGE("APIVersionUsageSummary", "request",
+                      "CREATE TABLE APIVersionUsageSummary (api VARCHAR(100), version VARCHAR(100), " +
+                      "context VARCHAR(100), request INT)",
+                      "api", "version", "context"),
+    KEY_USAGE("KeyUsageSummary", "request",
+              "CREATE TABLE KeyUsageSummary (context VARCHAR(100), consumerKey VARCHAR(100), " +
+              "userId VARCHAR(100), version VARCHAR(100), request INT)",
+              "context", "consumerKey", "userId", "version"),
+    API_VERSION_KEY_USAGE("APIVersionKeyUsageSummary", "request",
+                          "CREATE TABLE APIVersionKeyUsageSummary (api VARCHAR(100), version VARCHAR(100), " +
+                          "consumerKey VARCHAR(100), userId VARCHAR(100), request DOUBLE)",
+                          "api", "version", "consumerKey", "userId"),
+    API_VERSION_KEY_LAST_ACCESS("APIVersionKeyLastAccessSummary", "requestTime",
+                                "CREATE TABLE APIVersionKeyLastAccessSummary (api_version VARCHAR(100), " +
+                                "consumerKey VARCHAR(100), userId VARCHAR(100), context VARCHAR(100), " +
+                                "requestTime DOUBLE)",
+                                "api_version", "consumerKey", "userId", "context"),
+    API_VERSION_SERVICE_TIME("APIVersionServiceTimeSummary", "serviceTime",
+                             "CREATE TABLE APIVersionServiceTimeSummary (api_version VARCHAR(100), " +
+                             "context VARCHAR(100), serviceTime INT, response INT, totalServiceTime BIGINT, " +
+                             "serviceTimeCount BIGINT)",
+                             "api_version", "context");
+
+    private final String tableName;
+    private final String valueColumn;
+    private final String createQuery;
+    private final String[] keyColumns;
+
+    SummaryTable(String tableName, String valueColumn, String createQuery, String... keyColumns) {
+        this.tableName = tableName;
+        this.valueColumn = valueColumn;
+        this.createQuery = createQuery;
+        this.keyColumns = keyColumns;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public String getValueColumn() {
+        return valueColumn;
+    }
+
+    public String getCreateQuery() {
+        return createQuery;
+    }
+
+    public String[] getKeyColumns() {
+        return keyColumns.clone();
+    }
+
+    /**
+     * @return - SQL condition which matches a row by the key columns, with a parameter per key column
+     */
+    String getKeyCondition() {
+        StringBuilder condition = new StringBuilder();
+        for (String keyColumn : keyColumns) {
+            if (condition.length() > 0) {
+                condition.append(" AND ");
+            }
+            condition.append(keyColumn).append(" = ?");
+        }
+        return condition.toString();
+    }
+}
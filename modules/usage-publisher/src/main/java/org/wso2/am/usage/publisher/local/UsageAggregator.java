@@ -0,0 +1,395 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In memory aggregator of the API usage events of a gateway. The request, response and fault events are counted by
+ * the keys of the summary tables as soon as they are published, so {@link #getRequestCount},
+ * {@link #getServiceTimeHistogram} and the other getters are current to the last event. The counters are flushed
+ * periodically to the summary tables by a single thread, which writes only what was counted since the last flush
+ * and keeps the counts of a failed flush for the next one. After a successful flush, the counters, service times and
+ * last access times which are written and have had no event for a window are dropped, so that the memory is bounded
+ * by the keys which are in use. An event which races with the removal of its entry is counted on a new entry.
+ */
+public class UsageAggregator {
+
+    private static final Log log = LogFactory.getLog(UsageAggregator.class);
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final ConcurrentMap<SummaryTable, ConcurrentMap<SummaryKey, RollingCounter>> counters =
+            new ConcurrentHashMap<SummaryTable, ConcurrentMap<SummaryKey, RollingCounter>>();
+    private final ConcurrentMap<SummaryKey, LastAccessTime> lastAccessTimes =
+            new ConcurrentHashMap<SummaryKey, LastAccessTime>();
+    private final ConcurrentMap<SummaryKey, ServiceTimeHistogram> serviceTimes =
+            new ConcurrentHashMap<SummaryKey, ServiceTimeHistogram>();
+    private final ConcurrentMap<SummaryKey, RollingCounter> faults =
+            new ConcurrentHashMap<SummaryKey, RollingCounter>();
+    private ScheduledExecutorService flushExecutor;
+
+    /**
+     * @param bucketMillis - size of a time bucket of the rolling windows in milliseconds
+     * @param bucketCount  - number of buckets of the rolling windows
+     */
+    public UsageAggregator(long bucketMillis, int bucketCount) {
+        this.bucketMillis = bucketMillis;
+        this.bucketCount = bucketCount;
+        for (SummaryTable table : new SummaryTable[]{SummaryTable.API_VERSION_USAGE, SummaryTable.KEY_USAGE,
+                                                     SummaryTable.API_VERSION_KEY_USAGE}) {
+            counters.put(table, new ConcurrentHashMap<SummaryKey, RollingCounter>());
+        }
+    }
+
+    /**
+     * Count a request event
+     *
+     * @param api         - API name
+     * @param version     - API version
+     * @param context     - API context
+     * @param apiVersion  - API name and version, as api:v1.0.0
+     * @param consumerKey - consumer key of the application
+     * @param userId      - user who invoked the API
+     * @param requestTime - time of the request in milliseconds
+     */
+    public void recordRequest(String api, String version, String context, String apiVersion, String consumerKey,
+                              String userId, long requestTime) {
+        long currentTime = System.currentTimeMillis();
+        increment(counters.get(SummaryTable.API_VERSION_USAGE), new SummaryKey(api, version, context), currentTime);
+        increment(counters.get(SummaryTable.KEY_USAGE), new SummaryKey(context, consumerKey, userId, version),
+                  currentTime);
+        increment(counters.get(SummaryTable.API_VERSION_KEY_USAGE), new SummaryKey(api, version, consumerKey, userId),
+                  currentTime);
+        SummaryKey lastAccessKey = new SummaryKey(apiVersion, consumerKey, userId, context);
+        LastAccessTime lastAccessTime = getLastAccessTime(lastAccessKey);
+        while (!lastAccessTime.update(requestTime)) {
+            //the last access time was dropped by a flush after it was looked up
+            lastAccessTimes.remove(lastAccessKey, lastAccessTime);
+            lastAccessTime = getLastAccessTime(lastAccessKey);
+        }
+    }
+
+    /**
+     * Record the service time of a response event
+     *
+     * @param apiVersion  - API name and version, as api:v1.0.0
+     * @param context     - API context
+     * @param serviceTime - service time of the gateway in milliseconds
+     */
+    public void recordResponse(String apiVersion, String context, long serviceTime) {
+        long currentTime = System.currentTimeMillis();
+        SummaryKey key = new SummaryKey(apiVersion, context);
+        ServiceTimeHistogram histogram = getServiceTimes(key);
+        while (!histogram.recordValue(serviceTime, currentTime)) {
+            //the histogram was dropped by a flush after it was looked up
+            serviceTimes.remove(key, histogram);
+            histogram = getServiceTimes(key);
+        }
+    }
+
+    /**
+     * Count a fault event. Faults are not summarized in the statistics database, they are only kept in memory, and the
+     * fault counter of an API is dropped when it has no fault in the window.
+     *
+     * @param api     - API name
+     * @param version - API version
+     * @param context - API context
+     */
+    public void recordFault(String api, String version, String context) {
+        increment(faults, new SummaryKey(api, version, context), System.currentTimeMillis());
+    }
+
+    /**
+     * @param api     - API name
+     * @param version - API version
+     * @param context - API context
+     * @return - request counter of the API version, or null if it has no requests
+     */
+    public RollingCounter getRequestCount(String api, String version, String context) {
+        return counters.get(SummaryTable.API_VERSION_USAGE).get(new SummaryKey(api, version, context));
+    }
+
+    /**
+     * @param context     - API context
+     * @param consumerKey - consumer key of the application
+     * @param userId      - user who invoked the API
+     * @param version     - API version
+     * @return - request counter of the application and user, or null if they have no requests
+     */
+    public RollingCounter getKeyRequestCount(String context, String consumerKey, String userId, String version) {
+        return counters.get(SummaryTable.KEY_USAGE).get(new SummaryKey(context, consumerKey, userId, version));
+    }
+
+    /**
+     * @param apiVersion - API name and version, as api:v1.0.0
+     * @param context    - API context
+     * @return - service times of the API version, or null if there is no response
+     */
+    public ServiceTimeHistogram getServiceTimeHistogram(String apiVersion, String context) {
+        return serviceTimes.get(new SummaryKey(apiVersion, context));
+    }
+
+    /**
+     * @param api     - API name
+     * @param version - API version
+     * @param context - API context
+     * @return - fault counter of the API version, or null if it has no faults
+     */
+    public RollingCounter getFaultCount(String api, String version, String context) {
+        return faults.get(new SummaryKey(api, version, context));
+    }
+
+    /**
+     * Write the events counted since the last flush to the summary tables and drop the entries which are written and
+     * idle
+     *
+     * @param store - summary store to write to
+     * @return - number of summary rows written
+     * @throws SQLException - if the summary rows cannot be written, the events are written by the next flush
+     */
+    public synchronized int flush(UsageSummaryStore store) throws SQLException {
+        UsageSummaryStore.Batch batch = new UsageSummaryStore.Batch();
+        List<Runnable> commits = new ArrayList<Runnable>();
+        for (Map.Entry<SummaryTable, ConcurrentMap<SummaryKey, RollingCounter>> entry : counters.entrySet()) {
+            for (Map.Entry<SummaryKey, RollingCounter> counterEntry : entry.getValue().entrySet()) {
+                final RollingCounter counter = counterEntry.getValue();
+                final long total = counter.getTotal();
+                if (total > counter.getFlushedTotal()) {
+                    batch.addCount(entry.getKey(), counterEntry.getKey(), total - counter.getFlushedTotal());
+                    commits.add(new Runnable() {
+                        public void run() {
+                            counter.setFlushedTotal(total);
+                        }
+                    });
+                }
+            }
+        }
+        for (Map.Entry<SummaryKey, LastAccessTime> entry : lastAccessTimes.entrySet()) {
+            final LastAccessTime lastAccessTime = entry.getValue();
+            final long time = lastAccessTime.time.get();
+            if (time > lastAccessTime.flushedTime) {
+                batch.addLastAccessTime(entry.getKey(), time);
+                commits.add(new Runnable() {
+                    public void run() {
+                        lastAccessTime.flushedTime = time;
+                    }
+                });
+            }
+        }
+        for (Map.Entry<SummaryKey, ServiceTimeHistogram> entry : serviceTimes.entrySet()) {
+            final ServiceTimeHistogram histogram = entry.getValue();
+            final long count;
+            final long total;
+            //the totals are updated under the histogram lock, so the total is the sum of exactly count service times
+            synchronized (histogram) {
+                count = histogram.getTotalCount();
+                total = histogram.getTotalValue();
+            }
+            if (count > histogram.getFlushedCount()) {
+                batch.addServiceTime(entry.getKey(), count - histogram.getFlushedCount(),
+                                     total - histogram.getFlushedValue());
+                commits.add(new Runnable() {
+                    public void run() {
+                        histogram.setFlushed(count, total);
+                    }
+                });
+            }
+        }
+        store.write(batch);
+        for (Runnable commit : commits) {
+            commit.run();
+        }
+        prune(System.currentTimeMillis());
+        return batch.size();
+    }
+
+    /**
+     * Start flushing the counters to the summary tables at a fixed interval
+     *
+     * @param store         - summary store to write to
+     * @param flushInterval - time between the flushes in milliseconds
+     */
+    public synchronized void start(final UsageSummaryStore store, long flushInterval) {
+        if (flushExecutor != null) {
+            return;
+        }
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "UsageSummaryFlusher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flushExecutor.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                try {
+                    int rowCount = flush(store);
+                    if (log.isDebugEnabled() && rowCount > 0) {
+                        log.debug("Flushed " + rowCount + " usage summary rows");
+                    }
+                } catch (SQLException e) {
+                    log.error("Error while writing the usage summaries, the usage is written by the next flush", e);
+                } catch (RuntimeException e) {
+                    log.error("Error while writing the usage summaries", e);
+                }
+            }
+        }, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the periodic flushes and write the remaining counts
+     *
+     * @param store - summary store to write to
+     */
+    public synchronized void stop(UsageSummaryStore store) {
+        if (flushExecutor == null) {
+            return;
+        }
+        flushExecutor.shutdown();
+        flushExecutor = null;
+        try {
+            flush(store);
+        } catch (SQLException e) {
+            log.error("Error while writing the usage summaries on shutdown", e);
+        }
+    }
+
+    /**
+     * Drop the entries which are flushed and have had no event for a window. An entry is retired before it is
+     * removed, so that an event which races with the removal fails to record on it and is recorded on a new entry.
+     *
+     * @param currentTime - current time in milliseconds
+     */
+    private void prune(long currentTime) {
+        for (ConcurrentMap<SummaryKey, RollingCounter> tableCounters : counters.values()) {
+            for (Map.Entry<SummaryKey, RollingCounter> entry : tableCounters.entrySet()) {
+                RollingCounter counter = entry.getValue();
+                if (counter.retire(currentTime, counter.getFlushedTotal())) {
+                    tableCounters.remove(entry.getKey(), counter);
+                }
+            }
+        }
+        for (Map.Entry<SummaryKey, RollingCounter> entry : faults.entrySet()) {
+            RollingCounter counter = entry.getValue();
+            if (counter.retire(currentTime, counter.getTotal())) {
+                faults.remove(entry.getKey(), counter);
+            }
+        }
+        long windowMillis = bucketMillis * bucketCount;
+        for (Map.Entry<SummaryKey, ServiceTimeHistogram> entry : serviceTimes.entrySet()) {
+            if (entry.getValue().retire(currentTime, windowMillis)) {
+                serviceTimes.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<SummaryKey, LastAccessTime> entry : lastAccessTimes.entrySet()) {
+            if (entry.getValue().retire(currentTime, windowMillis)) {
+                lastAccessTimes.remove(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void increment(ConcurrentMap<SummaryKey, RollingCounter> keyCounters, SummaryKey key, long currentTime) {
+        RollingCounter counter = getCounter(keyCounters, key);
+        while (!counter.increment(currentTime)) {
+            //the counter was dropped by a flush after it was looked up
+            keyCounters.remove(key, counter);
+            counter = getCounter(keyCounters, key);
+        }
+    }
+
+    private RollingCounter getCounter(ConcurrentMap<SummaryKey, RollingCounter> keyCounters, SummaryKey key) {
+        RollingCounter counter = keyCounters.get(key);
+        if (counter == null) {
+            RollingCounter newCounter = new RollingCounter(bucketMillis, bucketCount);
+            counter = keyCounters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    private ServiceTimeHistogram getServiceTimes(SummaryKey key) {
+        ServiceTimeHistogram histogram = serviceTimes.get(key);
+        if (histogram == null) {
+            ServiceTimeHistogram newHistogram = new ServiceTimeHistogram();
+            histogram = serviceTimes.putIfAbsent(key, newHistogram);
+            if (histogram == null) {
+                histogram = newHistogram;
+            }
+        }
+        return histogram;
+    }
+
+    private LastAccessTime getLastAccessTime(SummaryKey key) {
+        LastAccessTime lastAccessTime = lastAccessTimes.get(key);
+        if (lastAccessTime == null) {
+            LastAccessTime newLastAccessTime = new LastAccessTime();
+            lastAccessTime = lastAccessTimes.putIfAbsent(key, newLastAccessTime);
+            if (lastAccessTime == null) {
+                lastAccessTime = newLastAccessTime;
+            }
+        }
+        return lastAccessTime;
+    }
+
+    /**
+     * Latest request time of an application and user. A retired last access time stores its time as ~time.
+     */
+    private static class LastAccessTime {
+
+        private final AtomicLong time = new AtomicLong();
+        //only accessed by the flushing thread
+        private long flushedTime;
+
+        /**
+         * @param requestTime - time of the request in milliseconds
+         * @return - false if the last access time is retired and the request time is not recorded
+         */
+        private boolean update(long requestTime) {
+            long current;
+            do {
+                current = time.get();
+                if (current < 0) {
+                    return false;
+                }
+            } while (requestTime > current && !time.compareAndSet(current, requestTime));
+            return true;
+        }
+
+        private boolean retire(long currentTime, long idleMillis) {
+            return flushedTime == time.get() && currentTime - flushedTime >= idleMillis &&
+                   time.compareAndSet(flushedTime, ~flushedTime);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.local;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges the usage deltas of the local aggregator into the summary tables of the statistics database. A row is
+ * updated by its key columns and inserted if there is no such row yet, so the counts already in the tables, for
+ * example those summarized by BAM before, are kept and added to. All the deltas of a flush are written in a single
+ * transaction.
+ */
+public class UsageSummaryStore {
+
+    private static final Log log = LogFactory.getLog(UsageSummaryStore.class);
+
+    //columns of the service time summary added by the incremental BAM scripts, with their types
+    private static final String[][] SERVICE_TIME_TOTAL_COLUMNS = {{"totalServiceTime", "BIGINT"},
+                                                                  {"serviceTimeCount", "BIGINT"}};
+
+    private final DataSource dataSource;
+
+    /**
+     * @param dataSource - data source of the statistics database
+     */
+    public UsageSummaryStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Create the summary tables which do not exist in the statistics database, and add the total columns to a service
+     * time summary created by the full BAM scripts
+     *
+     * @throws SQLException - if a table cannot be created
+     */
+    public void createTables() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        try {
+            for (SummaryTable table : SummaryTable.values()) {
+                if (!tableExists(connection, table)) {
+                    Statement statement = connection.createStatement();
+                    try {
+                        statement.executeUpdate(table.getCreateQuery());
+                        log.info("Created the usage summary table " + table.getTableName());
+                    } finally {
+                        statement.close();
+                    }
+                } else if (table == SummaryTable.API_VERSION_SERVICE_TIME) {
+                    addMissingColumns(connection, table, SERVICE_TIME_TOTAL_COLUMNS);
+                }
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Write the deltas of a flush
+     *
+     * @param batch - deltas to write
+     * @throws SQLException - if the deltas cannot be written, in which case none of them is written
+     */
+    public void write(Batch batch) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Connection connection = dataSource.getConnection();
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            connection.setAutoCommit(false);
+            for (Map.Entry<SummaryTable, Map<SummaryKey, Long>> entry : batch.counts.entrySet()) {
+                mergeCounts(connection, entry.getKey(), entry.getValue());
+            }
+            mergeLastAccessTimes(connection, batch.lastAccessTimes);
+            mergeServiceTimes(connection, batch.serviceTimeCounts, batch.serviceTimeTotals);
+            connection.commit();
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+            connection.close();
+        }
+    }
+
+    private void mergeCounts(Connection connection, SummaryTable table, Map<SummaryKey, Long> counts)
+            throws SQLException {
+        String column = table.getValueColumn();
+        Merge merge = new Merge(connection,
+                                "UPDATE " + table.getTableName() + " SET " + column + " = " + column + " + ? WHERE " +
+                                table.getKeyCondition(),
+                                getInsertQuery(table, column));
+        try {
+            for (Map.Entry<SummaryKey, Long> entry : counts.entrySet()) {
+                merge.update.setLong(1, entry.getValue());
+                merge.insert.setLong(table.getKeyColumns().length + 1, entry.getValue());
+                merge.execute(entry.getKey(), 2);
+            }
+        } finally {
+            merge.close();
+        }
+    }
+
+    private void mergeLastAccessTimes(Connection connection, Map<SummaryKey, Long> lastAccessTimes)
+            throws SQLException {
+        if (lastAccessTimes.isEmpty()) {
+            return;
+        }
+        SummaryTable table = SummaryTable.API_VERSION_KEY_LAST_ACCESS;
+        String column = table.getValueColumn();
+        Merge merge = new Merge(connection,
+                                "UPDATE " + table.getTableName() + " SET " + column + " = CASE WHEN " + column +
+                                " < ? THEN ? ELSE " + column + " END WHERE " + table.getKeyCondition(),
+                                getInsertQuery(table, column));
+        try {
+            for (Map.Entry<SummaryKey, Long> entry : lastAccessTimes.entrySet()) {
+                merge.update.setDouble(1, entry.getValue());
+                merge.update.setDouble(2, entry.getValue());
+                merge.insert.setDouble(table.getKeyColumns().length + 1, entry.getValue());
+                merge.execute(entry.getKey(), 3);
+            }
+        } finally {
+            merge.close();
+        }
+    }
+
+    private void mergeServiceTimes(Connection connection, Map<SummaryKey, Long> counts, Map<SummaryKey, Long> totals)
+            throws SQLException {
+        if (counts.isEmpty()) {
+            return;
+        }
+        SummaryTable table = SummaryTable.API_VERSION_SERVICE_TIME;
+        //the mean service time is computed from the total service time and response count, as the incremental BAM
+        //scripts do. The totals of a row written by the full BAM scripts are null and are taken from its mean.
+        //serviceTime is set first, since MySQL uses the values already assigned in the rest of the statement.
+        String storedTotal = "COALESCE(totalServiceTime, CAST(serviceTime AS DECIMAL(19, 0)) * response)";
+        String storedCount = "COALESCE(serviceTimeCount, response)";
+        Merge merge = new Merge(connection,
+                                "UPDATE " + table.getTableName() + " SET serviceTime = FLOOR((" + storedTotal +
+                                " + ?) / (" + storedCount + " + ?)), response = response + ?, totalServiceTime = " +
+                                storedTotal + " + ?, serviceTimeCount = " + storedCount + " + ? WHERE " +
+                                table.getKeyCondition(),
+                                getInsertQuery(table, "serviceTime", "response", "totalServiceTime",
+                                               "serviceTimeCount"));
+        try {
+            int keyColumnCount = table.getKeyColumns().length;
+            for (Map.Entry<SummaryKey, Long> entry : counts.entrySet()) {
+                long count = entry.getValue();
+                long total = totals.get(entry.getKey());
+                merge.update.setLong(1, total);
+                merge.update.setLong(2, count);
+                merge.update.setLong(3, count);
+                merge.update.setLong(4, total);
+                merge.update.setLong(5, count);
+                merge.insert.setLong(keyColumnCount + 1, total / count);
+                merge.insert.setLong(keyColumnCount + 2, count);
+                merge.insert.setLong(keyColumnCount + 3, total);
+                merge.insert.setLong(keyColumnCount + 4, count);
+                merge.execute(entry.getKey(), 6);
+            }
+        } finally {
+            merge.close();
+        }
+    }
+
+    private static String getInsertQuery(SummaryTable table, String... valueColumns) {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder parameters = new StringBuilder();
+        for (String keyColumn : table.getKeyColumns()) {
+            columns.append(keyColumn).append(", ");
+            parameters.append("?, ");
+        }
+        for (String valueColumn : valueColumns) {
+            columns.append(valueColumn).append(", ");
+            parameters.append("?, ");
+        }
+        return "INSERT INTO " + table.getTableName() + " (" + columns.substring(0, columns.length() - 2) +
+               ") VALUES (" + parameters.substring(0, parameters.length() - 2) + ")";
+    }
+
+    private static boolean tableExists(Connection connection, SummaryTable table) {
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeQuery("SELECT 1 FROM " + table.getTableName() + " WHERE 1 = 0").close();
+                return true;
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add the columns which a table created by an earlier version of its BAM summary script does not have
+     *
+     * @param connection - connection to the statistics database
+     * @param table      - existing table
+     * @param columns    - names and types of the columns
+     * @throws SQLException - if a column cannot be added
+     */
+    private static void addMissingColumns(Connection connection, SummaryTable table, String[][] columns)
+            throws SQLException {
+        for (String[] column : columns) {
+            if (!columnExists(connection, table, column[0])) {
+                Statement statement = connection.createStatement();
+                try {
+                    statement.executeUpdate("ALTER TABLE " + table.getTableName() + " ADD " + column[0] + " " +
+                                            column[1]);
+                    log.info("Added the column " + column[0] + " to the usage summary table " + table.getTableName());
+                } finally {
+                    statement.close();
+                }
+            }
+        }
+    }
+
+    private static boolean columnExists(Connection connection, SummaryTable table, String column) {
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.executeQuery("SELECT " + column + " FROM " + table.getTableName() + " WHERE 1 = 0").close();
+                return true;
+            } finally {
+                statement.close();
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Update statement of a table and the insert statement used when the update does not match a row
+     */
+    private static class Merge {
+
+        private final PreparedStatement update;
+        private final PreparedStatement insert;
+
+        private Merge(Connection connection, String updateQuery, String insertQuery)
+                throws SQLException {
+            this.update = connection.prepareStatement(updateQuery);
+            try {
+                this.insert = connection.prepareStatement(insertQuery);
+            } catch (SQLException e) {
+                update.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Execute the update, and the insert if no row is updated. The value parameters must be set before.
+         *
+         * @param key                     - key of the row
+         * @param firstUpdateKeyParameter - index of the first key parameter of the update statement
+         * @throws SQLException - if a statement fails
+         */
+        private void execute(SummaryKey key, int firstUpdateKeyParameter) throws SQLException {
+            for (int i = 0; i < key.size(); i++) {
+                update.setString(firstUpdateKeyParameter + i, key.get(i));
+            }
+            if (update.executeUpdate() == 0) {
+                for (int i = 0; i < key.size(); i++) {
+                    insert.setString(i + 1, key.get(i));
+                }
+                insert.executeUpdate();
+            }
+        }
+
+        private void close() throws SQLException {
+            try {
+                update.close();
+            } finally {
+                insert.close();
+            }
+        }
+    }
+
+    /**
+     * Deltas of a flush of the local aggregator
+     */
+    public static class Batch {
+
+        private final Map<SummaryTable, Map<SummaryKey, Long>> counts =
+                new EnumMap<SummaryTable, Map<SummaryKey, Long>>(SummaryTable.class);
+        private final Map<SummaryKey, Long> lastAccessTimes = new HashMap<SummaryKey, Long>();
+        private final Map<SummaryKey, Long> serviceTimeCounts = new HashMap<SummaryKey, Long>();
+        private final Map<SummaryKey, Long> serviceTimeTotals = new HashMap<SummaryKey, Long>();
+        private int size;
+
+        /**
+         * @param table - table of a count column
+         * @param key   - key of the row
+         * @param delta - number of events to add to the count
+         */
+        public void addCount(SummaryTable table, SummaryKey key, long delta) {
+            Map<SummaryKey, Long> tableCounts = counts.get(table);
+            if (tableCounts == null) {
+                tableCounts = new HashMap<SummaryKey, Long>();
+                counts.put(table, tableCounts);
+            }
+            tableCounts.put(key, delta);
+            size++;
+        }
+
+        /**
+         * @param key        - key of the row
+         * @param accessTime - latest access time in milliseconds
+         */
+        public void addLastAccessTime(SummaryKey key, long accessTime) {
+            lastAccessTimes.put(key, accessTime);
+            size++;
+        }
+
+        /**
+         * @param key   - key of the row
+         * @param count - number of responses
+         * @param total - total service time of the responses in milliseconds
+         */
+        public void addServiceTime(SummaryKey key, long count, long total) {
+            serviceTimeCounts.put(key, count);
+            serviceTimeTotals.put(key, total);
+            size++;
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        public int size() {
+            return size;
+        }
+    }
+}
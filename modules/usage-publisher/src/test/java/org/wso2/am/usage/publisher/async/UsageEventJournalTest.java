@@ -0,0 +1,255 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the memory mapped journal of the async publisher. The journals are 16 header bytes followed by the records,
+ * each of which is the length and the checksum of the event followed by the event.
+ */
+public class UsageEventJournalTest {
+
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testEventsPolledInOrder() throws IOException {
+        UsageEventJournal journal = new UsageEventJournal(folder.newFile("journal"), 1024);
+        try {
+            assertTrue(journal.isEmpty());
+            assertNull(journal.poll());
+            for (int i = 0; i < 10; i++) {
+                assertTrue(journal.append(event(i, 10)));
+            }
+            assertEquals(10 * (RECORD_HEADER_SIZE + 10), journal.getUsedBytes());
+            for (int i = 0; i < 10; i++) {
+                assertArrayEquals(event(i, 10), journal.poll());
+            }
+            assertTrue(journal.isEmpty());
+            assertNull(journal.poll());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testAppendToFullJournal() throws IOException {
+        //room for three records of 12 bytes, since one byte is kept free
+        UsageEventJournal journal = new UsageEventJournal(folder.newFile("journal"), HEADER_SIZE + 61);
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertTrue(journal.append(event(i, 12)));
+            }
+            assertFalse(journal.append(event(3, 12)));
+            assertFalse(journal.append(new byte[0]));
+
+            assertArrayEquals(event(0, 12), journal.poll());
+            assertTrue(journal.append(event(3, 12)));
+            for (int i = 1; i < 4; i++) {
+                assertArrayEquals(event(i, 12), journal.poll());
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testRecordsWrappedAtEndOfFile() throws IOException {
+        //records of 20 bytes in 50 bytes wrap at every offset of the file, splitting the length, the checksum and the
+        //event
+        UsageEventJournal journal = new UsageEventJournal(folder.newFile("journal"), HEADER_SIZE + 50);
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(journal.append(event(i, 12)));
+                assertTrue(journal.append(event(i + 1000, 12)));
+                assertArrayEquals(event(i, 12), journal.poll());
+                assertArrayEquals(event(i + 1000, 12), journal.poll());
+                assertTrue(journal.isEmpty());
+                assertEquals(0, journal.getUsedBytes());
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testRandomAppendsAndPollsWithReopen() throws IOException {
+        File file = folder.newFile("journal");
+        Random random = new Random(42);
+        LinkedList<byte[]> expected = new LinkedList<byte[]>();
+        UsageEventJournal journal = new UsageEventJournal(file, HEADER_SIZE + 257);
+        try {
+            for (int i = 0; i < 20000; i++) {
+                if (random.nextInt(100) == 0) {
+                    journal.close();
+                    journal = new UsageEventJournal(file, HEADER_SIZE + 257);
+                }
+                if (random.nextBoolean()) {
+                    byte[] event = event(i, random.nextInt(40));
+                    if (journal.append(event)) {
+                        expected.add(event);
+                    } else {
+                        assertTrue(journal.getUsedBytes() + RECORD_HEADER_SIZE + event.length > 256);
+                    }
+                } else {
+                    byte[] event = journal.poll();
+                    if (expected.isEmpty()) {
+                        assertNull(event);
+                    } else {
+                        assertArrayEquals(expected.removeFirst(), event);
+                    }
+                }
+                assertEquals(expected.isEmpty(), journal.isEmpty());
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testEventsReplayedAfterReopen() throws IOException {
+        File file = folder.newFile("journal");
+        UsageEventJournal journal = new UsageEventJournal(file, HEADER_SIZE + 50);
+        //the third event wraps at the end of the file
+        journal.append(event(0, 12));
+        journal.append(event(1, 12));
+        journal.poll();
+        journal.append(event(2, 12));
+        journal.close();
+
+        journal = new UsageEventJournal(file, 1024);
+        try {
+            assertEquals(HEADER_SIZE + 50, file.length());
+            assertArrayEquals(event(1, 12), journal.poll());
+            assertArrayEquals(event(2, 12), journal.poll());
+            assertNull(journal.poll());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testEmptyJournalResized() throws IOException {
+        File file = folder.newFile("journal");
+        UsageEventJournal journal = new UsageEventJournal(file, HEADER_SIZE + 50);
+        journal.append(event(0, 12));
+        journal.poll();
+        journal.close();
+
+        journal = new UsageEventJournal(file, 1024);
+        try {
+            assertEquals(1024, file.length());
+            assertTrue(journal.isEmpty());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testIncompleteRecordSkipped() throws IOException {
+        File file = folder.newFile("journal");
+        UsageEventJournal journal = new UsageEventJournal(file, 1024);
+        for (int i = 0; i < 3; i++) {
+            journal.append(event(i, 10));
+        }
+        journal.close();
+        //an event of the second record which was not written before the host stopped
+        overwrite(file, HEADER_SIZE + 2 * RECORD_HEADER_SIZE + 10 + 5, new byte[]{0});
+
+        journal = new UsageEventJournal(file, 1024);
+        try {
+            assertArrayEquals(event(0, 10), journal.poll());
+            assertArrayEquals(event(2, 10), journal.poll());
+            assertNull(journal.poll());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testInvalidRecordLengthDiscardsEvents() throws IOException {
+        File file = folder.newFile("journal");
+        UsageEventJournal journal = new UsageEventJournal(file, 1024);
+        for (int i = 0; i < 3; i++) {
+            journal.append(event(i, 10));
+        }
+        journal.close();
+        overwrite(file, HEADER_SIZE + RECORD_HEADER_SIZE + 10, new byte[]{0x7f, 0, 0, 0});
+
+        journal = new UsageEventJournal(file, 1024);
+        try {
+            assertArrayEquals(event(0, 10), journal.poll());
+            assertNull(journal.poll());
+            assertTrue(journal.isEmpty());
+            assertTrue(journal.append(event(3, 10)));
+            assertArrayEquals(event(3, 10), journal.poll());
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testClosedJournal() throws IOException {
+        UsageEventJournal journal = new UsageEventJournal(folder.newFile("journal"), 1024);
+        journal.append(event(0, 10));
+        journal.close();
+
+        assertFalse(journal.append(event(1, 10)));
+        assertNull(journal.poll());
+        journal.close();
+    }
+
+    private static byte[] event(int id, int length) {
+        byte[] event = new byte[length];
+        Arrays.fill(event, (byte) id);
+        for (int i = 0; i < Math.min(4, length); i++) {
+            event[i] = (byte) (id >>> (8 * i));
+        }
+        return event;
+    }
+
+    private static void overwrite(File file, long position, byte[] bytes) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        try {
+            randomAccessFile.seek(position);
+            randomAccessFile.write(bytes);
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+*Copyright (c) 2015, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+*
+*WSO2 Inc. licenses this file to you under the Apache License,
+*Version 2.0 (the "License"); you may not use this file except
+*in compliance with the License.
+*You may obtain a copy of the License at
+*
+*http://www.apache.org/licenses/LICENSE-2.0
+*
+*Unless required by applicable law or agreed to in writing,
+*software distributed under the License is distributed on an
+*"AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*KIND, either express or implied.  See the License for the
+*specific language governing permissions and limitations
+*under the License.
+*/
+
+package org.wso2.am.usage.publisher.async;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bounded queue of the usage events of the async publisher
+ */
+public class UsageEventRingBufferTest {
+
+    @Test
+    public void testCapacityRoundedUpToPowerOfTwo() {
+        assertEquals(2, new UsageEventRingBuffer(1).capacity());
+        assertEquals(4, new UsageEventRingBuffer(3).capacity());
+        assertEquals(4, new UsageEventRingBuffer(4).capacity());
+        assertEquals(1024, new UsageEventRingBuffer(1000).capacity());
+    }
+
+    @Test
+    public void testOfferToFullBuffer() {
+        UsageEventRingBuffer buffer = new UsageEventRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test
+    public void testOrderKeptAcrossWrapAround() {
+        UsageEventRingBuffer buffer = new UsageEventRingBuffer(4);
+        int offered = 0;
+        int polled = 0;
+        //offers and polls of different lengths move the head and the tail around the slots many times
+        for (int round = 0; round < 1000; round++) {
+            for (int i = 0; i < round % 4 + 1 && buffer.offer(offered); i++) {
+                offered++;
+            }
+            for (int i = 0; i < round % 3 + 1; i++) {
+                Object event = buffer.poll();
+                if (event == null) {
+                    assertEquals(offered, polled);
+                    break;
+                }
+                assertEquals(polled++, event);
+            }
+        }
+        Object event;
+        while ((event = buffer.poll()) != null) {
+            assertEquals(polled++, event);
+        }
+        assertEquals(offered, polled);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void testPollFromEmptyBuffer() {
+        UsageEventRingBuffer buffer = new UsageEventRingBuffer(2);
+        assertNull(buffer.poll());
+        buffer.offer("event");
+        buffer.poll();
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    public void testDrainTo() {
+        UsageEventRingBuffer buffer = new UsageEventRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+        List<Object> events = new ArrayList<Object>();
+
+        assertEquals(3, buffer.drainTo(events, 3));
+        assertEquals(2, buffer.drainTo(events, 3));
+        assertEquals(0, buffer.drainTo(events, 3));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, events.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentProducersAndConsumers() throws InterruptedException {
+        final int producerCount = 4;
+        final int eventsPerProducer = 100000;
+        final UsageEventRingBuffer buffer = new UsageEventRingBuffer(64);
+        final AtomicIntegerArray received = new AtomicIntegerArray(producerCount * eventsPerProducer);
+        final AtomicInteger receivedCount = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(producerCount + 2);
+
+        for (int p = 0; p < producerCount; p++) {
+            final int first = p * eventsPerProducer;
+            new Thread() {
+                public void run() {
+                    for (int i = first; i < first + eventsPerProducer; i++) {
+                        while (!buffer.offer(i)) {
+                            Thread.yield();
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        for (int c = 0; c < 2; c++) {
+            new Thread() {
+                public void run() {
+                    while (receivedCount.get() < producerCount * eventsPerProducer) {
+                        Object event = buffer.poll();
+                        if (event == null) {
+                            Thread.yield();
+                        } else {
+                            received.incrementAndGet((Integer) event);
+                            receivedCount.incrementAndGet();
+                        }
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        for (int i = 0; i < received.length(); i++) {
+            assertEquals("event " + i, 1, received.get(i));
+        }
+        assertNull(buffer.poll());
+    }
+}